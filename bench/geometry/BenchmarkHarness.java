@@ -0,0 +1,401 @@
+package geometry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * A small benchmark harness that runs the geometry benchmarks and writes
+ * machine-readable results.
+ *
+ * It follows JMH's average-time mode. Each benchmark case runs in its own forked
+ * JVM, so call-site profiles from one case cannot leak into another. Inside the
+ * fork, the case gets warmup iterations and then measured iterations of a fixed
+ * duration. The score is the mean time per operation. Results are written as
+ * JSON, using the field names of JMH's JSON result format, or as CSV.
+ *
+ * Options:
+ *   --sizes 10,1000,...   collection sizes (default 10,1000,100000,1000000,10000000)
+ *   --filter REGEX        run only benchmarks whose name matches
+ *   --warmup N            warmup iterations per fork (default 5)
+ *   --iterations N        measured iterations per fork (default 5)
+ *   --time MS             duration of each iteration in milliseconds (default 200)
+ *   --forks N             forked JVMs per case; 0 runs in this JVM (default 1)
+ *   --format json|csv     result format (default json)
+ *   --output FILE         write results to FILE instead of standard output
+ *
+ * JVM options given to the harness, such as -Xmx for the 10M sizes, are passed on
+ * to the forks. Progress is reported on standard error.
+ */
+public final class BenchmarkHarness {
+    /**
+     * One benchmarked operation. The harness calls invoke repeatedly and consumes
+     * its results so the JIT cannot discard the work.
+     */
+    public interface Operation {
+        /**
+         * Performs the operation once.
+         *
+         * @return Any value derived from the work.
+         */
+        double invoke();
+
+        /**
+         * Restores the fixture before each iteration. This is not timed.
+         */
+        default void beforeIteration() {
+        }
+    }
+
+    private static final String RESULT_PREFIX = "RESULT ";
+    private static final double Z_99_9 = 3.291;
+
+    private static volatile double sink;
+
+    private final String[] args;
+    private int[] sizes = { 10, 1_000, 100_000, 1_000_000, 10_000_000 };
+    private Pattern filter = Pattern.compile(".*");
+    private int warmupIterations = 5;
+    private int measurementIterations = 5;
+    private int iterationMillis = 200;
+    private int forks = 1;
+    private String format = "json";
+    private Path output;
+    private int forkedCase = -1;
+
+    private final List<Case> cases = new ArrayList<>();
+
+    /**
+     * Parses the harness options.
+     *
+     * @param args The command-line arguments.
+     * @throws IllegalArgumentException if an option is unknown or malformed.
+     */
+    public BenchmarkHarness(String[] args) {
+        this.args = args.clone();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--sizes":
+                    sizes = Arrays.stream(value.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                    break;
+                case "--filter":
+                    filter = Pattern.compile(value);
+                    break;
+                case "--warmup":
+                    warmupIterations = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    measurementIterations = Integer.parseInt(value);
+                    break;
+                case "--time":
+                    iterationMillis = Integer.parseInt(value);
+                    break;
+                case "--forks":
+                    forks = Integer.parseInt(value);
+                    break;
+                case "--format":
+                    if (!value.equals("json") && !value.equals("csv")) {
+                        throw new IllegalArgumentException("Format must be json or csv.");
+                    }
+                    format = value;
+                    break;
+                case "--output":
+                    output = Path.of(value);
+                    break;
+                case "--case":
+                    forkedCase = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (measurementIterations <= 0 || warmupIterations < 0 || iterationMillis <= 0 || forks < 0) {
+            throw new IllegalArgumentException("Iteration counts, time and forks must not be negative.");
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BenchmarkHarness harness = new BenchmarkHarness(args);
+        GeometryLinkedListBenchmark.register(harness);
+        ShapeMetricBenchmark.register(harness);
+        GeometryImporterBenchmark.register(harness);
+        GeometryRendererBenchmark.register(harness);
+        GeometryValueBenchmark.register(harness);
+        ShapeValidationBenchmark.register(harness);
+        GeometryQueryBenchmark.register(harness);
+        GeometryStatisticsBenchmark.register(harness);
+        MetricKernelsBenchmark.register(harness);
+        harness.run();
+    }
+
+    /**
+     * Returns the collection sizes selected with --sizes.
+     *
+     * @return The sizes.
+     */
+    public int[] sizes() {
+        return sizes.clone();
+    }
+
+    /**
+     * Registers a benchmark case. The fixture is only built in the JVM that runs
+     * the case.
+     *
+     * @param benchmark The benchmark name.
+     * @param params    The parameter values of this case, in display order.
+     * @param fixture   Builds the operation to measure.
+     */
+    public void add(String benchmark, Map<String, String> params, Supplier<Operation> fixture) {
+        cases.add(new Case(benchmark, new LinkedHashMap<>(params), fixture));
+    }
+
+    /**
+     * Runs every selected case and writes the results.
+     *
+     * @throws IOException          if a fork or the output file fails.
+     * @throws InterruptedException if interrupted while waiting for a fork.
+     */
+    public void run() throws IOException, InterruptedException {
+        if (forkedCase >= 0) {
+            double[] scores = measure(cases.get(forkedCase));
+            StringBuilder line = new StringBuilder(RESULT_PREFIX);
+            for (double score : scores) {
+                line.append(score).append(' ');
+            }
+            System.out.println(line.toString().trim());
+            return;
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < cases.size(); i++) {
+            Case benchmarkCase = cases.get(i);
+            if (!filter.matcher(benchmarkCase.benchmark).find()) {
+                continue;
+            }
+            List<double[]> rawData = new ArrayList<>();
+            if (forks == 0) {
+                rawData.add(measure(benchmarkCase));
+            } else {
+                for (int fork = 0; fork < forks; fork++) {
+                    rawData.add(fork(i));
+                }
+            }
+            Result result = new Result(benchmarkCase, rawData);
+            System.err.println(String.format(Locale.ROOT, "# %s %s: %.3f +- %.3f ns/op",
+                    benchmarkCase.benchmark, benchmarkCase.params, result.score, result.error));
+            results.add(result);
+        }
+
+        String report = format.equals("json") ? toJson(results) : toCsv(results);
+        if (output == null) {
+            System.out.print(report);
+        } else {
+            Files.writeString(output, report, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Runs warmup and measured iterations of a case in this JVM. Standard output is
+     * discarded while the case runs, so printAll can be measured.
+     *
+     * @return The time per operation of each measured iteration, in nanoseconds.
+     */
+    private double[] measure(Case benchmarkCase) {
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Operation operation = benchmarkCase.fixture.get();
+            for (int i = 0; i < warmupIterations; i++) {
+                iterate(operation);
+            }
+            double[] scores = new double[measurementIterations];
+            for (int i = 0; i < measurementIterations; i++) {
+                scores[i] = iterate(operation);
+            }
+            return scores;
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    /**
+     * Invokes the operation in growing batches until the iteration time has passed.
+     *
+     * @return The mean time per operation in nanoseconds.
+     */
+    private double iterate(Operation operation) {
+        operation.beforeIteration();
+        long budget = iterationMillis * 1_000_000L;
+        long operations = 0;
+        long batch = 1;
+        double local = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long i = 0; i < batch; i++) {
+                local += operation.invoke();
+            }
+            operations += batch;
+            elapsed = System.nanoTime() - start;
+            // Aim the next batch at about half of the remaining time, so slow
+            // operations do not overshoot the iteration by much.
+            double perOperation = (double) elapsed / operations;
+            long remaining = (long) ((budget - elapsed) / perOperation / 2);
+            batch = Math.max(1, Math.min(batch * 2, remaining));
+        } while (elapsed < budget);
+        sink += local;
+        return (double) elapsed / operations;
+    }
+
+    /**
+     * Runs one case in a fresh JVM with the same JVM options and class path.
+     *
+     * @return The fork's measured iteration scores.
+     */
+    private double[] fork(int caseIndex) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(BenchmarkHarness.class.getName());
+        command.addAll(Arrays.asList(args));
+        command.add("--case");
+        command.add(Integer.toString(caseIndex));
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        double[] scores = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    scores = Arrays.stream(line.substring(RESULT_PREFIX.length()).split(" "))
+                            .mapToDouble(Double::parseDouble).toArray();
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || scores == null) {
+            throw new IllegalStateException("Fork for " + cases.get(caseIndex).benchmark
+                    + " failed with exit code " + exitCode + ".");
+        }
+        return scores;
+    }
+
+    private String toJson(List<Result> results) {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int r = 0; r < results.size(); r++) {
+            Result result = results.get(r);
+            json.append("    {\n");
+            json.append("        \"jdkVersion\" : \"").append(System.getProperty("java.version")).append("\",\n");
+            json.append("        \"benchmark\" : \"").append(result.benchmarkCase.benchmark).append("\",\n");
+            json.append("        \"mode\" : \"avgt\",\n");
+            json.append("        \"forks\" : ").append(forks).append(",\n");
+            json.append("        \"warmupIterations\" : ").append(warmupIterations).append(",\n");
+            json.append("        \"measurementIterations\" : ").append(measurementIterations).append(",\n");
+            json.append("        \"measurementTime\" : \"").append(iterationMillis).append(" ms\",\n");
+            json.append("        \"params\" : {");
+            int p = 0;
+            for (Map.Entry<String, String> param : result.benchmarkCase.params.entrySet()) {
+                json.append(p++ == 0 ? "\n" : ",\n");
+                json.append("            \"").append(param.getKey()).append("\" : \"")
+                        .append(param.getValue()).append('"');
+            }
+            json.append(p == 0 ? "},\n" : "\n        },\n");
+            json.append("        \"primaryMetric\" : {\n");
+            json.append("            \"score\" : ").append(number(result.score)).append(",\n");
+            json.append("            \"scoreError\" : ").append(number(result.error)).append(",\n");
+            json.append("            \"scoreUnit\" : \"ns/op\",\n");
+            json.append("            \"rawData\" : [");
+            for (int f = 0; f < result.rawData.size(); f++) {
+                json.append(f == 0 ? "\n" : ",\n").append("                [");
+                double[] fork = result.rawData.get(f);
+                for (int i = 0; i < fork.length; i++) {
+                    json.append(i == 0 ? "" : ", ").append(number(fork[i]));
+                }
+                json.append(']');
+            }
+            json.append("\n            ]\n        }\n    }").append(r + 1 < results.size() ? ",\n" : "\n");
+        }
+        return json.append("]\n").toString();
+    }
+
+    private String toCsv(List<Result> results) {
+        StringBuilder csv = new StringBuilder("\"Benchmark\",\"Mode\",\"Params\",\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\"\n");
+        for (Result result : results) {
+            StringBuilder params = new StringBuilder();
+            for (Map.Entry<String, String> param : result.benchmarkCase.params.entrySet()) {
+                params.append(params.length() == 0 ? "" : ";").append(param.getKey()).append('=').append(param.getValue());
+            }
+            csv.append('"').append(result.benchmarkCase.benchmark).append("\",\"avgt\",\"").append(params)
+                    .append("\",").append(result.samples).append(',').append(number(result.score))
+                    .append(',').append(number(result.error)).append(",\"ns/op\"\n");
+        }
+        return csv.toString();
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    /**
+     * A registered benchmark with its parameters.
+     */
+    private static final class Case {
+        final String benchmark;
+        final Map<String, String> params;
+        final Supplier<Operation> fixture;
+
+        Case(String benchmark, Map<String, String> params, Supplier<Operation> fixture) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.fixture = fixture;
+        }
+    }
+
+    /**
+     * The measured iterations of a case over all forks. The error is the half-width
+     * of a 99.9% confidence interval using the normal approximation.
+     */
+    private static final class Result {
+        final Case benchmarkCase;
+        final List<double[]> rawData;
+        final int samples;
+        final double score;
+        final double error;
+
+        Result(Case benchmarkCase, List<double[]> rawData) {
+            this.benchmarkCase = benchmarkCase;
+            this.rawData = rawData;
+            double[] all = rawData.stream().flatMapToDouble(Arrays::stream).toArray();
+            this.samples = all.length;
+            this.score = Arrays.stream(all).average().orElse(Double.NaN);
+            double variance = 0;
+            for (double value : all) {
+                variance += (value - score) * (value - score);
+            }
+            this.error = all.length < 2 ? Double.NaN
+                    : Z_99_9 * Math.sqrt(variance / (all.length - 1)) / Math.sqrt(all.length);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package geometry;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Reports how well GeometryColumnFile compresses shape parameters and how fast it
+ * decodes them, against the same columns stored as raw packed doubles.
+ *
+ * Each data set is written to a temporary column file. For every parameter column
+ * the report shows the encodings chosen for its blocks and its size; for the whole
+ * file it shows the compression ratio against raw packed doubles plus one tag byte
+ * per shape. Decode throughput is measured by decoding every block of every column
+ * into a buffer, against copying the same blocks out of a native segment of packed
+ * doubles.
+ *
+ * Run with an optional shape count per data set (default 1,000,000).
+ */
+public class GeometryColumnFileBenchmark {
+    private static final int WARMUP_PASSES = 10;
+    private static final int MEASURED_PASSES = 20;
+    private static final double[] STANDARD_RADII = { 0.5, 1, 1.5, 2, 2.5, 3, 4, 5, 6, 8, 10, 12, 15, 20, 25, 30 };
+    private static final double[][] STANDARD_BOXES = {
+        { 10, 10, 10 }, { 20, 15, 10 }, { 30, 20, 15 }, { 40, 30, 20 }, { 60, 40, 40 }, { 60, 40, 25 },
+    };
+
+    private static double sink;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("geometry-columns");
+        try {
+            report("standard sizes", standardSizes(count), directory);
+            report("production batches", batches(count), directory);
+            report("drifting measurements", drifting(count), directory);
+            report("random dimensions", random(count), directory);
+            report("mixed", mixed(count), directory);
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+        System.out.println("(sink " + (sink == 42 ? "" : "ok") + ")");
+    }
+
+    /**
+     * Circles and spheres in a few standard sizes, in any order.
+     */
+    private static GeometryStore standardSizes(int count) {
+        Random random = new Random(1);
+        GeometryStore store = new GeometryStore();
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        for (int i = 0; i < count; i++) {
+            parameters[0] = STANDARD_RADII[random.nextInt(STANDARD_RADII.length)];
+            store.append(random.nextBoolean() ? ShapeKind.CIRCLE : ShapeKind.SPHERE, parameters);
+        }
+        return store;
+    }
+
+    /**
+     * Boxes in standard sizes, made in batches of a few hundred of the same size.
+     */
+    private static GeometryStore batches(int count) {
+        Random random = new Random(2);
+        GeometryStore store = new GeometryStore();
+        double[] box = STANDARD_BOXES[0];
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(300) == 0) {
+                box = STANDARD_BOXES[random.nextInt(STANDARD_BOXES.length)];
+            }
+            store.append(ShapeKind.RECTANGULAR_PRISM, box);
+        }
+        return store;
+    }
+
+    /**
+     * Spheres measured to a hundredth of a unit, drifting slowly between measurements.
+     */
+    private static GeometryStore drifting(int count) {
+        Random random = new Random(3);
+        GeometryStore store = new GeometryStore();
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        double radius = 10;
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(16) == 0) {
+                radius = Math.max(1, radius + (random.nextInt(3) - 1) * 0.01);
+            }
+            parameters[0] = Math.round(radius * 100) / 100.0;
+            store.append(ShapeKind.SPHERE, parameters);
+        }
+        return store;
+    }
+
+    /**
+     * Triangles with uniformly random sides, the worst case.
+     */
+    private static GeometryStore random(int count) {
+        Random random = new Random(4);
+        GeometryStore store = new GeometryStore();
+        for (int i = 0; i < count; i++) {
+            store.add(ShapeMetricBenchmark.randomShape(random, 0));
+        }
+        return store;
+    }
+
+    /**
+     * All of the above, interleaved.
+     */
+    private static GeometryStore mixed(int count) {
+        GeometryStore[] parts = { standardSizes(count / 4), batches(count / 4), drifting(count / 4), random(count / 4) };
+        GeometryStore store = new GeometryStore();
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        for (int i = 0; i < count / 4 * 4; i++) {
+            GeometryStore part = parts[i % 4];
+            int index = i / 4;
+            ShapeKind kind = part.getKind(index);
+            for (int p = 0; p < kind.getParameterCount(); p++) {
+                parameters[p] = part.getParameter(index, p);
+            }
+            store.append(kind, parameters);
+        }
+        return store;
+    }
+
+    private static void report(String name, GeometryStore store, Path directory) throws IOException {
+        Path file = directory.resolve(name.replace(' ', '-') + ".geoc");
+        GeometryColumnFile.write(file, store);
+        long rawBytes = store.size();
+        long values = 0;
+        for (ShapeKind kind : ShapeKind.values()) {
+            values += (long) kind.getParameterCount() * store.count(kind);
+        }
+        rawBytes += 8 * values;
+        long fileBytes = Files.size(file);
+
+        System.out.println(String.format(Locale.ROOT, "%s: %d shapes, raw %,d bytes, compressed %,d bytes, ratio %.1fx",
+                name, store.size(), rawBytes, fileBytes, rawBytes / (double) fileBytes));
+        try (GeometryColumnFile columns = GeometryColumnFile.open(file); Arena arena = Arena.ofConfined()) {
+            for (ShapeKind kind : ShapeKind.values()) {
+                for (int p = 0; p < kind.getParameterCount() && columns.count(kind) > 0; p++) {
+                    Map<GeometryColumnFile.Encoding, Integer> encodings = new EnumMap<>(GeometryColumnFile.Encoding.class);
+                    for (int block = 0; block < columns.blockCount(kind); block++) {
+                        encodings.merge(columns.encodingOf(kind, p, block), 1, Integer::sum);
+                    }
+                    long size = columns.columnSize(kind, p);
+                    System.out.println(String.format(Locale.ROOT, "  %-16s %-7s %6.2f bits/value  %s",
+                            kind.getDisplayName(), kind.getParameterName(p), size * 8.0 / columns.count(kind), encodings));
+                }
+            }
+
+            // The same columns as packed doubles, in the same order.
+            MemorySegment raw = arena.allocate(8 * values, 8);
+            long offset = 0;
+            for (ShapeKind kind : ShapeKind.values()) {
+                for (int p = 0; p < kind.getParameterCount(); p++) {
+                    MemorySegment.copy(store.column(kind, p), 0, raw, ValueLayout.JAVA_DOUBLE, offset, store.count(kind));
+                    offset += 8L * store.count(kind);
+                }
+            }
+
+            double[] block = new double[GeometryColumnFile.BLOCK_SIZE];
+            double decodeNanos = time(() -> {
+                double total = 0;
+                for (ShapeKind kind : ShapeKind.values()) {
+                    for (int p = 0; p < kind.getParameterCount(); p++) {
+                        for (int b = 0; b < columns.blockCount(kind); b++) {
+                            int length = columns.decodeBlock(kind, p, b, block);
+                            total += block[length - 1];
+                        }
+                    }
+                }
+                return total;
+            });
+            double rawNanos = time(() -> {
+                double total = 0;
+                long position = 0;
+                for (ShapeKind kind : ShapeKind.values()) {
+                    for (int p = 0; p < kind.getParameterCount(); p++) {
+                        int count = store.count(kind);
+                        for (int from = 0; from < count; from += GeometryColumnFile.BLOCK_SIZE) {
+                            int length = Math.min(GeometryColumnFile.BLOCK_SIZE, count - from);
+                            MemorySegment.copy(raw, ValueLayout.JAVA_DOUBLE, position, block, 0, length);
+                            position += 8L * length;
+                            total += block[length - 1];
+                        }
+                    }
+                }
+                return total;
+            });
+            System.out.println(String.format(Locale.ROOT,
+                    "  decode %7.1f M values/s (%6.2f GB/s of doubles)  raw copy %7.1f M values/s  slowdown %.1fx",
+                    values * 1e3 / decodeNanos, values * 8 / decodeNanos, values * 1e3 / rawNanos, decodeNanos / rawNanos));
+        }
+    }
+
+    /**
+     * Returns the mean time of one pass in nanoseconds, after warming up.
+     */
+    private static double time(java.util.function.DoubleSupplier pass) {
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            sink += pass.getAsDouble();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; i++) {
+            sink += pass.getAsDouble();
+        }
+        return (System.nanoTime() - start) / (double) MEASURED_PASSES;
+    }
+}
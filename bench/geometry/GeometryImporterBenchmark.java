@@ -0,0 +1,83 @@
+package geometry;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks GeometryImporter on generated CSV and NDJSON input held in memory,
+ * so that disk speed is not measured.
+ *
+ * Each operation imports ROWS rows into an empty collection. Divide the score by
+ * ROWS for the time per row; 1000 ns/op per 1000 rows is one million rows per
+ * second. The target parameter compares appending shape objects to a
+ * GeometryLinkedList with writing columns of a GeometryStore.
+ */
+public final class GeometryImporterBenchmark {
+    /** Number of rows per imported document. */
+    static final int ROWS = 100_000;
+
+    private GeometryImporterBenchmark() {
+    }
+
+    /**
+     * Registers the importer benchmarks.
+     *
+     * @param harness The harness to register with.
+     */
+    public static void register(BenchmarkHarness harness) {
+        for (GeometryImporter.Format format : GeometryImporter.Format.values()) {
+            for (String target : new String[] { "GeometryLinkedList", "GeometryStore" }) {
+                Map<String, String> params = Map.of("format", format.name(), "target", target,
+                        "rows", Integer.toString(ROWS));
+                harness.add("import.rows", params, () -> {
+                    char[] document = generate(format);
+                    return () -> {
+                        GeometryCollection collection = target.equals("GeometryStore")
+                                ? new GeometryStore() : new GeometryLinkedList();
+                        try {
+                            return GeometryImporter.importFrom(new CharArrayReader(document), format, collection)
+                                    .getAccepted();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    };
+                });
+            }
+        }
+    }
+
+    /**
+     * Generates ROWS random rows covering every shape kind.
+     */
+    static char[] generate(GeometryImporter.Format format) {
+        Random random = new Random(17);
+        StringBuilder text = new StringBuilder();
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        for (int i = 0; i < ROWS; i++) {
+            ShapeKind kind = ShapeKind.values()[i % ShapeKind.values().length];
+            double x = 1 + random.nextInt(10_000) / 100.0;
+            parameters[0] = x + 1;
+            parameters[1] = kind == ShapeKind.RECTANGLE || kind == ShapeKind.RECTANGULAR_PRISM ? x : x + 2;
+            parameters[2] = kind == ShapeKind.RECTANGULAR_PRISM ? x / 2 : x + 3;
+            parameters[3] = 2.5;
+            if (format == GeometryImporter.Format.CSV) {
+                text.append(kind.name().toLowerCase(Locale.ROOT));
+                for (int p = 0; p < kind.getParameterCount(); p++) {
+                    text.append(',').append(parameters[p]);
+                }
+            } else {
+                text.append("{\"type\":\"").append(kind.getDisplayName()).append('"');
+                for (int p = 0; p < kind.getParameterCount(); p++) {
+                    text.append(",\"").append(kind.getParameterName(p)).append("\":").append(parameters[p]);
+                }
+                text.append('}');
+            }
+            text.append('\n');
+        }
+        return text.toString().toCharArray();
+    }
+}
@@ -0,0 +1,80 @@
+package geometry;
+
+import java.util.Random;
+
+/**
+ * Reports how much heap GeometryInterner saves on a repetitive data set: a list
+ * of shapes drawn from a small catalogue of standard sizes, as produced by a
+ * factory that makes the same parts over and over.
+ *
+ * The list is built from fresh objects, then interned in place. The report shows
+ * the heap held by the list before and after, measured after garbage collection,
+ * next to the interner's own estimate from getSavedBytes, and the time taken to
+ * intern each shape.
+ *
+ * Run with an optional shape count (default 2,000,000) and catalogue size
+ * (default 200).
+ */
+public class GeometryInternerBenchmark {
+    private static int sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int catalogue = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        long empty = usedHeap();
+        GeometryLinkedList list = new GeometryLinkedList();
+        Random random = new Random(1);
+        for (int i = 0; i < count; i++) {
+            list.add(part(random.nextInt(catalogue)));
+        }
+        long before = usedHeap();
+
+        GeometryInterner interner = new GeometryInterner();
+        long start = System.nanoTime();
+        int replaced = list.internAll(interner);
+        long nanos = System.nanoTime() - start;
+        long after = usedHeap();
+        sink += list.size();
+
+        System.out.println(count + " shapes from a catalogue of " + catalogue + ":");
+        System.out.println(String.format("  list before interning  %,14d bytes", before - empty));
+        System.out.println(String.format("  list after interning   %,14d bytes", after - empty));
+        System.out.println(String.format("  measured saving        %,14d bytes (%.1f%%)", before - after,
+                100.0 * (before - after) / (before - empty)));
+        System.out.println(String.format("  estimated saving       %,14d bytes", interner.getSavedBytes()));
+        System.out.println(String.format("  pooled shapes          %,14d", interner.size()));
+        System.out.println(String.format("  replaced               %,14d", replaced));
+        System.out.println(String.format("  intern time            %14.1f ns/shape", nanos / (double) count));
+        System.out.println("(sink " + (sink == 42 ? "" : "ok") + ")");
+    }
+
+    /**
+     * Builds catalogue part number n as a fresh object.
+     */
+    private static Geometry part(int n) {
+        double size = 1 + n / 6;
+        switch (n % 6) {
+            case 0:
+                return new Circle(size / 2);
+            case 1:
+                return new Rectangle(size, size + 1);
+            case 2:
+                return new Triangle(size + 2, size + 3, size + 4);
+            case 3:
+                return new Sphere(size);
+            case 4:
+                return new RectangularPrism(1, 1, size);
+            default:
+                return new TriangularPrism(3, 4, 5, size);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
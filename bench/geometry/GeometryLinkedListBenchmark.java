@@ -0,0 +1,116 @@
+package geometry;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks of the GeometryLinkedList operations at each size selected in the
+ * BenchmarkHarness.
+ *
+ * list.add appends to a list that starts each iteration at the given size.
+ * list.removeByIndex removes at a random index and appends the geometry again, so
+ * the size stays fixed; subtract the list.add score to estimate the removal alone.
+ * list.printAll writes to a discarded stream, so it measures formatting, not the
+ * terminal.
+ */
+public final class GeometryLinkedListBenchmark {
+    /** Number of distinct shapes and precomputed indices cycled through by the operations. */
+    private static final int POOL_SIZE = 1024;
+
+    private GeometryLinkedListBenchmark() {
+    }
+
+    /**
+     * Registers the list benchmarks.
+     *
+     * @param harness The harness to register with.
+     */
+    public static void register(BenchmarkHarness harness) {
+        for (int size : harness.sizes()) {
+            Map<String, String> params = Map.of("size", Integer.toString(size));
+
+            harness.add("list.add", params, () -> new BenchmarkHarness.Operation() {
+                private final Fixture fixture = new Fixture(size);
+                private int next;
+
+                @Override
+                public void beforeIteration() {
+                    while (fixture.list.size() > size) {
+                        fixture.list.removeByIndex(fixture.list.size() - 1);
+                    }
+                }
+
+                @Override
+                public double invoke() {
+                    fixture.list.add(fixture.shapes[next++ & (POOL_SIZE - 1)]);
+                    return fixture.list.size();
+                }
+            });
+
+            harness.add("list.findByIndex", params, () -> new BenchmarkHarness.Operation() {
+                private final Fixture fixture = new Fixture(size);
+                private int next;
+
+                @Override
+                public double invoke() {
+                    Geometry found = fixture.list.findByIndex(fixture.indices[next++ & (POOL_SIZE - 1)]);
+                    return found == fixture.shapes[0] ? 1 : 0;
+                }
+            });
+
+            harness.add("list.removeByIndex", params, () -> new BenchmarkHarness.Operation() {
+                private final Fixture fixture = new Fixture(size);
+                private int next;
+
+                @Override
+                public double invoke() {
+                    int index = fixture.indices[next++ & (POOL_SIZE - 1)];
+                    Geometry removed = fixture.list.findByIndex(index);
+                    fixture.list.removeByIndex(index);
+                    fixture.list.add(removed);
+                    return fixture.list.size();
+                }
+            });
+
+            harness.add("list.size", params, () -> new BenchmarkHarness.Operation() {
+                private final Fixture fixture = new Fixture(size);
+
+                @Override
+                public double invoke() {
+                    return fixture.list.size();
+                }
+            });
+
+            harness.add("list.printAll", params, () -> new BenchmarkHarness.Operation() {
+                private final Fixture fixture = new Fixture(size);
+
+                @Override
+                public double invoke() {
+                    fixture.list.printAll();
+                    return fixture.list.size();
+                }
+            });
+        }
+    }
+
+    /**
+     * A list of the given size filled from a pool of random shapes, plus random
+     * valid indices into it.
+     */
+    private static final class Fixture {
+        final GeometryLinkedList list = new GeometryLinkedList();
+        final Geometry[] shapes = new Geometry[POOL_SIZE];
+        final int[] indices = new int[POOL_SIZE];
+
+        Fixture(int size) {
+            Random random = new Random(size);
+            for (int i = 0; i < POOL_SIZE; i++) {
+                shapes[i] = ShapeMetricBenchmark.randomShape(random, i % 6);
+                indices[i] = random.nextInt(size);
+            }
+            for (int i = 0; i < size; i++) {
+                list.add(shapes[i & (POOL_SIZE - 1)]);
+            }
+        }
+    }
+}
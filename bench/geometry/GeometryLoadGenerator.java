@@ -0,0 +1,268 @@
+package geometry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator for GeometryServer.
+ *
+ * Opens many concurrent loopback connections, each on a virtual thread, and has
+ * every connection send one command at a time and wait for its result, in a mix
+ * of find, add and remove commands. After a warmup period, it records each
+ * command's round-trip time for the measurement period and reports the overall
+ * throughput and latency percentiles.
+ *
+ * Without --port, a server on a ConcurrentGeometryList is started in this JVM.
+ *
+ * Options:
+ *   --port N          connect to a running server on this loopback port
+ *   --connections N   number of concurrent connections (default 1000)
+ *   --preload N       shapes added before the run (default 10000)
+ *   --warmup S        seconds before measuring (default 2)
+ *   --duration S      seconds to measure (default 10)
+ *   --mix F,A,R       percentages of find, add and remove commands (default 70,25,5)
+ */
+public final class GeometryLoadGenerator {
+    private int port = -1;
+    private int connections = 1000;
+    private int preload = 10_000;
+    private int warmupSeconds = 2;
+    private int durationSeconds = 10;
+    private int findPercent = 70;
+    private int addPercent = 25;
+
+    /** The measurement window in System.nanoTime() units, set before the clients start. */
+    private volatile long measureFrom;
+    private volatile long measureUntil;
+
+    private GeometryLoadGenerator() {
+    }
+
+    /**
+     * Runs the load generator.
+     *
+     * @param args The options described in the class comment.
+     * @throws Exception if the server cannot be started or reached.
+     */
+    public static void main(String[] args) throws Exception {
+        GeometryLoadGenerator generator = new GeometryLoadGenerator();
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--port":
+                    generator.port = Integer.parseInt(value);
+                    break;
+                case "--connections":
+                    generator.connections = Integer.parseInt(value);
+                    break;
+                case "--preload":
+                    generator.preload = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    generator.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    generator.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "--mix":
+                    String[] parts = value.split(",");
+                    generator.findPercent = Integer.parseInt(parts[0]);
+                    generator.addPercent = Integer.parseInt(parts[1]);
+                    if (generator.findPercent + generator.addPercent + Integer.parseInt(parts[2]) != 100) {
+                        throw new IllegalArgumentException("The mix must add up to 100.");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++;
+        }
+        generator.run();
+    }
+
+    private void run() throws Exception {
+        GeometryServer server = null;
+        if (port < 0) {
+            server = new GeometryServer(new ConcurrentGeometryList(), 0);
+            port = server.getPort();
+        }
+        try {
+            preload();
+            Histogram total = measure();
+            double seconds = durationSeconds;
+            System.out.printf(Locale.ROOT, "connections=%d commands=%d throughput=%.0f/s%n",
+                    connections, total.count(), total.count() / seconds);
+            System.out.printf(Locale.ROOT, "latency p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n",
+                    total.percentile(50) / 1e3, total.percentile(90) / 1e3, total.percentile(99) / 1e3,
+                    total.percentile(99.9) / 1e3, total.max() / 1e3);
+            System.out.printf(Locale.ROOT, "errors=%d%n", total.errors);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private void preload() throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            StringBuilder commands = new StringBuilder();
+            Random random = new Random(1);
+            for (int i = 0; i < preload; i++) {
+                commands.append("add circle ").append(1 + random.nextInt(1000) / 100.0).append('\n');
+            }
+            out.write(commands.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            for (int i = 0; i < preload; i++) {
+                in.readLine();
+            }
+        }
+    }
+
+    private Histogram measure() throws Exception {
+        CountDownLatch connected = new CountDownLatch(connections);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Histogram>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                long seed = c;
+                results.add(executor.submit(() -> client(seed, connected, start)));
+            }
+            connected.await();
+            measureFrom = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+            measureUntil = measureFrom + durationSeconds * 1_000_000_000L;
+            start.countDown();
+
+            Histogram total = new Histogram();
+            for (Future<Histogram> result : results) {
+                total.add(result.get());
+            }
+            return total;
+        }
+    }
+
+    private Histogram client(long seed, CountDownLatch connected, CountDownLatch start) throws Exception {
+        Histogram histogram = new Histogram();
+        Random random = new Random(seed);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            connected.countDown();
+            start.await();
+            long from = measureFrom;
+            long until = measureUntil;
+            while (true) {
+                int roll = random.nextInt(100);
+                String command;
+                if (roll < findPercent) {
+                    command = "find " + random.nextInt(Math.max(1, preload)) + "\n";
+                } else if (roll < findPercent + addPercent) {
+                    command = "add circle " + (1 + random.nextInt(1000) / 100.0) + "\n";
+                } else {
+                    command = "remove " + random.nextInt(Math.max(1, preload)) + "\n";
+                }
+                long sent = System.nanoTime();
+                if (sent >= until) {
+                    break;
+                }
+                out.write(command.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                String result = in.readLine();
+                long received = System.nanoTime();
+                if (sent >= from) {
+                    histogram.record(received - sent);
+                    if (result == null || !result.startsWith("ok")) {
+                        histogram.errors++;
+                    }
+                }
+            }
+            out.write("quit\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+        return histogram;
+    }
+
+    /**
+     * A log-linear latency histogram in nanoseconds: 32 buckets per power of two,
+     * so recorded values are accurate to about 3%.
+     */
+    private static final class Histogram {
+        private static final int SUB_BITS = 5;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+
+        private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_COUNT];
+        private long count;
+        private long max;
+        private long errors;
+
+        void record(long nanos) {
+            counts[indexOf(Math.max(0, nanos))]++;
+            count++;
+            max = Math.max(max, nanos);
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            max = Math.max(max, other.max);
+            errors += other.errors;
+        }
+
+        long count() {
+            return count;
+        }
+
+        long max() {
+            return max;
+        }
+
+        /**
+         * Returns the lower bound of the bucket holding the given percentile.
+         */
+        long percentile(double percent) {
+            long rank = (long) Math.ceil(count * percent / 100);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return valueOf(i);
+                }
+            }
+            return max;
+        }
+
+        private static int indexOf(long value) {
+            if (value < SUB_COUNT) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+            return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+        }
+
+        private static long valueOf(int index) {
+            if (index < SUB_COUNT) {
+                return index;
+            }
+            int exponent = index / SUB_COUNT + SUB_BITS - 1;
+            return (long) (SUB_COUNT + index % SUB_COUNT) << (exponent - SUB_BITS);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package geometry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks of running a GeometryQuery to the end of its cursor.
+ *
+ * query=filter is "where type=Triangle and area>10", which the kind pruning
+ * restricts to the triangles; query=ordered adds "order by perimeter desc limit
+ * 20", which has to scan every triangle before the first result. impl=store runs
+ * the query over a GeometryStore, impl=list over a GeometryLinkedList of the same
+ * shapes, and impl=loop is the hand-written instanceof loop over the list that
+ * the filter replaces.
+ */
+public final class GeometryQueryBenchmark {
+    private static final String FILTER = "where type=Triangle and area>10";
+    private static final String ORDERED = FILTER + " order by perimeter desc limit 20";
+
+    private GeometryQueryBenchmark() {
+    }
+
+    /**
+     * Registers the query benchmarks.
+     *
+     * @param harness The harness to register with.
+     */
+    public static void register(BenchmarkHarness harness) {
+        for (int size : harness.sizes()) {
+            for (String query : new String[] { "filter", "ordered" }) {
+                for (String impl : new String[] { "store", "list", "loop" }) {
+                    if (impl.equals("loop") && query.equals("ordered")) {
+                        continue;
+                    }
+                    Map<String, String> params = new LinkedHashMap<>();
+                    params.put("query", query);
+                    params.put("impl", impl);
+                    params.put("size", Integer.toString(size));
+                    harness.add("query.run", params, () -> operation(impl, query, size));
+                }
+            }
+        }
+    }
+
+    private static BenchmarkHarness.Operation operation(String impl, String query, int size) {
+        Random random = new Random(5);
+        GeometryStore store = new GeometryStore();
+        GeometryLinkedList list = new GeometryLinkedList();
+        for (int i = 0; i < size; i++) {
+            Geometry geometry = ShapeMetricBenchmark.randomShape(random, random.nextInt(6));
+            store.add(geometry);
+            list.add(geometry);
+        }
+        if (impl.equals("loop")) {
+            return () -> {
+                long total = 0;
+                int index = 0;
+                for (Geometry geometry : list) {
+                    if (geometry instanceof Triangle triangle && triangle.tryGetArea() > 10) {
+                        total += index;
+                    }
+                    index++;
+                }
+                return total;
+            };
+        }
+        GeometryQuery parsed = GeometryQuery.parse(query.equals("filter") ? FILTER : ORDERED);
+        GeometryCollection collection = impl.equals("store") ? store : list;
+        return () -> {
+            long total = 0;
+            GeometryCursor cursor = parsed.execute(collection);
+            while (cursor.hasNext()) {
+                cursor.next();
+                total += cursor.getIndex();
+            }
+            return total;
+        };
+    }
+}
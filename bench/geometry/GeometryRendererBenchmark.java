@@ -0,0 +1,129 @@
+package geometry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks rendering shapes as text with GeometryRenderer against the
+ * String.format and println code it replaced.
+ *
+ * render.toString formats one shape from a mixed pool. render.listing writes a
+ * whole "Index i: ..." listing to an autoflushing PrintStream that discards its
+ * bytes, so the cost of formatting, locking and flushing is measured without the
+ * cost of a terminal.
+ */
+public final class GeometryRendererBenchmark {
+    private static final int POOL_SIZE = 1024;
+
+    private GeometryRendererBenchmark() {
+    }
+
+    /**
+     * Registers the rendering benchmarks.
+     *
+     * @param harness The harness to register with.
+     */
+    public static void register(BenchmarkHarness harness) {
+        harness.add("render.toString", Map.of("impl", "renderer"), () -> {
+            Geometry[] shapes = pool(POOL_SIZE);
+            return new BenchmarkHarness.Operation() {
+                private int next;
+
+                @Override
+                public double invoke() {
+                    return shapes[next++ & (POOL_SIZE - 1)].toString().length();
+                }
+            };
+        });
+        harness.add("render.toString", Map.of("impl", "String.format"), () -> {
+            Geometry[] shapes = pool(POOL_SIZE);
+            return new BenchmarkHarness.Operation() {
+                private int next;
+
+                @Override
+                public double invoke() {
+                    return legacyToString(shapes[next++ & (POOL_SIZE - 1)]).length();
+                }
+            };
+        });
+
+        for (int size : harness.sizes()) {
+            harness.add("render.listing", Map.of("impl", "renderer", "size", Integer.toString(size)), () -> {
+                GeometryLinkedList list = list(size);
+                PrintStream out = new PrintStream(OutputStream.nullOutputStream(), true);
+                GeometryRenderer renderer = new GeometryRenderer();
+                return () -> {
+                    try {
+                        renderer.writeIndexed(list, out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return list.size();
+                };
+            });
+            harness.add("render.listing", Map.of("impl", "println", "size", Integer.toString(size)), () -> {
+                GeometryLinkedList list = list(size);
+                PrintStream out = new PrintStream(OutputStream.nullOutputStream(), true);
+                return () -> {
+                    int index = 0;
+                    for (Geometry geometry : list) {
+                        out.println("Index " + index + ": " + legacyToString(geometry));
+                        index++;
+                    }
+                    return index;
+                };
+            });
+        }
+    }
+
+    private static Geometry[] pool(int size) {
+        Random random = new Random(21);
+        Geometry[] shapes = new Geometry[size];
+        for (int i = 0; i < size; i++) {
+            shapes[i] = ShapeMetricBenchmark.randomShape(random, random.nextInt(6));
+        }
+        return shapes;
+    }
+
+    private static GeometryLinkedList list(int size) {
+        GeometryLinkedList list = new GeometryLinkedList();
+        for (Geometry geometry : pool(size)) {
+            list.add(geometry);
+        }
+        return list;
+    }
+
+    /**
+     * The shapes' toString methods as they were before GeometryRenderer.
+     */
+    static String legacyToString(Geometry geometry) {
+        if (geometry instanceof Triangle) {
+            Triangle t = (Triangle) geometry;
+            return String.format("Triangle [SideA=%.2f, SideB=%.2f, SideC=%.2f, Area=%.2f, Perimeter=%.2f]",
+                    t.getSideA(), t.getSideB(), t.getSideC(), t.getArea(), t.getPerimeter());
+        } else if (geometry instanceof Rectangle) {
+            Rectangle r = (Rectangle) geometry;
+            return String.format("Rectangle [Length=%.2f, Width=%.2f, Area=%.2f, Perimeter=%.2f]",
+                    r.getLength(), r.getWidth(), r.getArea(), r.getPerimeter());
+        } else if (geometry instanceof Circle) {
+            Circle c = (Circle) geometry;
+            return String.format("Circle [Radius=%.2f, Area=%.2f, Perimeter=%.2f]",
+                    c.getRadius(), c.getArea(), c.getPerimeter());
+        } else if (geometry instanceof Sphere) {
+            Sphere s = (Sphere) geometry;
+            return String.format("Sphere [Radius=%.2f, Volume=%.2f, Surface Area=%.2f]",
+                    s.getRadius(), s.getVolume(), s.getSurfaceArea());
+        } else if (geometry instanceof RectangularPrism) {
+            RectangularPrism p = (RectangularPrism) geometry;
+            return String.format("RectangularPrism [Length=%.2f, Width=%.2f, Height=%.2f, Volume=%.2f, Surface Area=%.2f]",
+                    p.getLength(), p.getWidth(), p.getHeight(), p.getVolume(), p.getSurfaceArea());
+        }
+        TriangularPrism p = (TriangularPrism) geometry;
+        return String.format("TriangularPrism [SideA=%.2f, SideB=%.2f, SideC=%.2f, Height=%.2f, Volume=%.2f, Surface Area=%.2f]",
+                p.getSideA(), p.getSideB(), p.getSideC(), p.getHeight(), p.getVolume(), p.getSurfaceArea());
+    }
+}
@@ -0,0 +1,87 @@
+package geometry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks of the running statistics of GeometryStatistics.
+ *
+ * stats.read produces the per-kind summaries of all four metrics, as the stats
+ * command does: impl=incremental reads a GeometryStatistics, impl=scan calls
+ * summarizeByKind on the list. stats.update changes the radius of a random circle
+ * in the list, with a GeometryStatistics attached (impl=incremental) or without
+ * one (impl=none), to show what keeping the statistics current costs.
+ */
+public final class GeometryStatisticsBenchmark {
+    private GeometryStatisticsBenchmark() {
+    }
+
+    /**
+     * Registers the statistics benchmarks.
+     *
+     * @param harness The harness to register with.
+     */
+    public static void register(BenchmarkHarness harness) {
+        for (int size : harness.sizes()) {
+            for (String impl : new String[] { "incremental", "scan" }) {
+                harness.add("stats.read", params(impl, size), () -> {
+                    GeometryLinkedList list = list(size);
+                    if (impl.equals("scan")) {
+                        return () -> {
+                            double total = 0;
+                            for (Metric metric : Metric.values()) {
+                                total += list.summarizeByKind(metric).size();
+                            }
+                            return total;
+                        };
+                    }
+                    GeometryStatistics statistics = new GeometryStatistics(list);
+                    return () -> {
+                        double total = 0;
+                        for (Metric metric : Metric.values()) {
+                            total += statistics.summarizeByKind(metric).size();
+                        }
+                        return total;
+                    };
+                });
+            }
+            for (String impl : new String[] { "incremental", "none" }) {
+                harness.add("stats.update", params(impl, size), () -> {
+                    GeometryLinkedList list = list(size);
+                    GeometryStatistics statistics = impl.equals("incremental") ? new GeometryStatistics(list) : null;
+                    Circle[] circles = new Circle[size];
+                    int count = 0;
+                    for (Geometry geometry : list) {
+                        if (geometry instanceof Circle circle) {
+                            circles[count++] = circle;
+                        }
+                    }
+                    int circleCount = count;
+                    Random random = new Random(3);
+                    return () -> {
+                        Circle circle = circles[random.nextInt(circleCount)];
+                        circle.setRadius(1 + random.nextInt(1000) / 100.0);
+                        return statistics == null ? circle.getRadius() : statistics.count(ShapeKind.CIRCLE);
+                    };
+                });
+            }
+        }
+    }
+
+    private static Map<String, String> params(String impl, int size) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("impl", impl);
+        params.put("size", Integer.toString(size));
+        return params;
+    }
+
+    private static GeometryLinkedList list(int size) {
+        Random random = new Random(7);
+        GeometryLinkedList list = new GeometryLinkedList();
+        for (int i = 0; i < size; i++) {
+            list.add(ShapeMetricBenchmark.randomShape(random, i % 6));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,144 @@
+package geometry;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the GeometryValue records with the mutable shape classes on hot loops.
+ *
+ * value.area computes the area of the next shape in a pool, through Geometry2D
+ * for api=class and through GeometryValue.Shape2D for api=record. With
+ * kind=mixed the pool holds all three 2D kinds in random order. For the classes
+ * that makes getArea a megamorphic call site; for the records, area is a single
+ * default method whose type switch the JIT inlines, so mixed should cost about
+ * the same as a single kind.
+ *
+ * value.temporary builds a scaled temporary copy of the next circle and returns
+ * its area, the pattern that escape analysis should turn into plain arithmetic.
+ * Run main to measure bytes allocated per operation of each case, as JMH's gc
+ * profiler reports them; records that are scalar-replaced allocate nothing.
+ */
+public final class GeometryValueBenchmark {
+    private static final int POOL_SIZE = 1024;
+    private static final int WARMUP_OPERATIONS = 20_000_000;
+    private static final int MEASURED_OPERATIONS = 10_000_000;
+
+    private static double sink;
+
+    private GeometryValueBenchmark() {
+    }
+
+    /**
+     * Registers the value benchmarks.
+     *
+     * @param harness The harness to register with.
+     */
+    public static void register(BenchmarkHarness harness) {
+        for (String api : new String[] { "class", "record" }) {
+            for (String kind : new String[] { "Circle", "mixed" }) {
+                harness.add("value.area", params(api, kind), () -> area(api, kind));
+            }
+            harness.add("value.temporary", params(api, "Circle"), () -> temporary(api));
+        }
+    }
+
+    /**
+     * Runs every case in this JVM and prints its time and allocation per operation.
+     *
+     * @param args Unused.
+     */
+    public static void main(String[] args) {
+        System.out.println("case                          ns/op   bytes/op");
+        for (String api : new String[] { "class", "record" }) {
+            for (String kind : new String[] { "Circle", "mixed" }) {
+                report("value.area " + api + " " + kind, area(api, kind));
+            }
+            report("value.temporary " + api, temporary(api));
+        }
+        System.out.println("(sink " + (sink == 42 ? "" : "ok") + ")");
+    }
+
+    private static BenchmarkHarness.Operation area(String api, String kind) {
+        Random random = new Random(3);
+        int[] kinds = kind.equals("mixed") ? new int[] { 0, 1, 2 } : new int[] { 2 };
+        Geometry2D[] shapes = new Geometry2D[POOL_SIZE];
+        GeometryValue.Shape2D[] values = new GeometryValue.Shape2D[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            shapes[i] = (Geometry2D) ShapeMetricBenchmark.randomShape(random, kinds[random.nextInt(kinds.length)]);
+            values[i] = (GeometryValue.Shape2D) GeometryValue.of(shapes[i]);
+        }
+        MetricCaching.setMode(MetricCaching.NONE);
+        if (api.equals("class")) {
+            return new BenchmarkHarness.Operation() {
+                private int next;
+
+                @Override
+                public double invoke() {
+                    return shapes[next++ & (POOL_SIZE - 1)].getArea();
+                }
+            };
+        }
+        return new BenchmarkHarness.Operation() {
+            private int next;
+
+            @Override
+            public double invoke() {
+                return values[next++ & (POOL_SIZE - 1)].area();
+            }
+        };
+    }
+
+    private static BenchmarkHarness.Operation temporary(String api) {
+        Random random = new Random(4);
+        double[] radii = new double[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            radii[i] = 1 + random.nextDouble() * 10;
+        }
+        MetricCaching.setMode(MetricCaching.NONE);
+        if (api.equals("class")) {
+            return new BenchmarkHarness.Operation() {
+                private int next;
+
+                @Override
+                public double invoke() {
+                    return new Circle(radii[next++ & (POOL_SIZE - 1)] * 1.5).getArea();
+                }
+            };
+        }
+        return new BenchmarkHarness.Operation() {
+            private int next;
+
+            @Override
+            public double invoke() {
+                return new GeometryValue.CircleValue(radii[next++ & (POOL_SIZE - 1)] * 1.5).area();
+            }
+        };
+    }
+
+    private static void report(String name, BenchmarkHarness.Operation operation) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        double total = 0;
+        for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+            total += operation.invoke();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+            total += operation.invoke();
+        }
+        long nanos = System.nanoTime() - start;
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        sink += total;
+        System.out.println(String.format("%-26s %8.2f %10.2f", name, nanos / (double) MEASURED_OPERATIONS,
+                allocated / (double) MEASURED_OPERATIONS));
+    }
+
+    private static Map<String, String> params(String api, String kind) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("api", api);
+        params.put("kind", kind);
+        return params;
+    }
+}
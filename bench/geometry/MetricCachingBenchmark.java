@@ -0,0 +1,116 @@
+package geometry;
+
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the read path of the shape metrics in each MetricCaching mode, and
+ * the heap cost per shape instance.
+ *
+ * The read benchmark calls the metric getters of every shape several times per
+ * pass, as a read-heavy workload would. Every shape class keeps two cached metric
+ * doubles, so caching costs 16 bytes per instance whatever the mode.
+ */
+public class MetricCachingBenchmark {
+    private static final int READS_PER_SHAPE = 8;
+    private static final int WARMUP_PASSES = 5;
+    private static final int MEASURED_PASSES = 10;
+
+    private static double sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Random random = new Random(1);
+        Triangle[] triangles = new Triangle[count];
+        Sphere[] spheres = new Sphere[count];
+        TriangularPrism[] prisms = new TriangularPrism[count];
+        for (int i = 0; i < count; i++) {
+            double x = 3 + random.nextDouble();
+            triangles[i] = new Triangle(x, x + 1, x + 2);
+            spheres[i] = new Sphere(x);
+            prisms[i] = new TriangularPrism(x, x + 1, x + 2, x);
+        }
+
+        System.out.println("Read path, " + count + " shapes x " + READS_PER_SHAPE + " reads:");
+        for (MetricCaching mode : MetricCaching.values()) {
+            MetricCaching.setMode(mode);
+            double triangleNanos = time(() -> {
+                double total = 0;
+                for (Triangle triangle : triangles) {
+                    for (int r = 0; r < READS_PER_SHAPE; r++) {
+                        total += triangle.getArea() + triangle.getPerimeter();
+                    }
+                }
+                return total;
+            });
+            double sphereNanos = time(() -> {
+                double total = 0;
+                for (Sphere sphere : spheres) {
+                    for (int r = 0; r < READS_PER_SHAPE; r++) {
+                        total += sphere.getVolume() + sphere.getSurfaceArea();
+                    }
+                }
+                return total;
+            });
+            double prismNanos = time(() -> {
+                double total = 0;
+                for (TriangularPrism prism : prisms) {
+                    for (int r = 0; r < READS_PER_SHAPE; r++) {
+                        total += prism.getVolume() + prism.getSurfaceArea();
+                    }
+                }
+                return total;
+            });
+            System.out.println(String.format("  %-5s Triangle=%8.3f ms  Sphere=%8.3f ms  TriangularPrism=%8.3f ms",
+                    mode, triangleNanos / 1e6, sphereNanos / 1e6, prismNanos / 1e6));
+        }
+        MetricCaching.setMode(MetricCaching.LAZY);
+
+        System.out.println("Heap per instance (including 16 bytes of cached metrics):");
+        report("Circle", bytesPerInstance(count, i -> new Circle(i + 1)));
+        report("Rectangle", bytesPerInstance(count, i -> new Rectangle(i + 1, 2)));
+        report("Triangle", bytesPerInstance(count, i -> new Triangle(i + 3, i + 4, i + 5)));
+        report("Sphere", bytesPerInstance(count, i -> new Sphere(i + 1)));
+        report("RectangularPrism", bytesPerInstance(count, i -> new RectangularPrism(i + 1, 2, 3)));
+        report("TriangularPrism", bytesPerInstance(count, i -> new TriangularPrism(i + 3, i + 4, i + 5, 2)));
+    }
+
+    private static double time(DoubleSupplier pass) {
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            sink += pass.getAsDouble();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; i++) {
+            sink += pass.getAsDouble();
+        }
+        return (System.nanoTime() - start) / (double) MEASURED_PASSES;
+    }
+
+    /**
+     * Estimates the retained heap size of one shape from the heap growth after
+     * allocating many of them, excluding the array that holds them.
+     */
+    private static double bytesPerInstance(int count, IntFunction<Geometry> factory) {
+        Geometry[] shapes = new Geometry[count];
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            shapes[i] = factory.apply(i);
+        }
+        long after = usedHeap();
+        sink += shapes.length;
+        return (after - before) / (double) count;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String name, double bytes) {
+        System.out.println(String.format("  %-17s %6.1f bytes", name, bytes));
+    }
+}
@@ -0,0 +1,158 @@
+package geometry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the batch MetricKernels against calling the metric methods on shape objects.
+ *
+ * Run with an optional shape count (default 1,000,000). Each comparison is warmed
+ * up before it is timed, and the result of every pass is consumed so that the JIT
+ * cannot discard the work.
+ *
+ * register adds kernels.compute to the BenchmarkHarness, which compares the Vector
+ * API kernels (impl=vector) with the scalar loops (impl=scalar) on the same
+ * arrays. The harness must run with --add-modules jdk.incubator.vector, and with
+ * at least one fork, since impl=scalar sets the geometry.kernels property before
+ * MetricKernels is initialized in its forked JVM.
+ */
+public class MetricKernelsBenchmark {
+    private static final int WARMUP_PASSES = 10;
+    private static final int MEASURED_PASSES = 20;
+
+    private static double sink;
+
+    /**
+     * Registers the kernel benchmarks.
+     *
+     * @param harness The harness to register with.
+     */
+    public static void register(BenchmarkHarness harness) {
+        for (int size : harness.sizes()) {
+            for (String metric : new String[] { "circle.area", "triangle.area", "triangularPrism.surfaceArea" }) {
+                for (String impl : new String[] { "vector", "scalar" }) {
+                    Map<String, String> params = new LinkedHashMap<>();
+                    params.put("metric", metric);
+                    params.put("impl", impl);
+                    params.put("size", Integer.toString(size));
+                    harness.add("kernels.compute", params, () -> operation(metric, impl, size));
+                }
+            }
+        }
+    }
+
+    private static BenchmarkHarness.Operation operation(String metric, String impl, int size) {
+        if (impl.equals("scalar")) {
+            System.setProperty("geometry.kernels", "scalar");
+        }
+        if (MetricKernels.isVectorized() != impl.equals("vector")) {
+            throw new IllegalStateException("Cannot run the " + impl + " kernels in this JVM.");
+        }
+        Random random = new Random(1);
+        double[] a = new double[size];
+        double[] b = new double[size];
+        double[] c = new double[size];
+        double[] height = new double[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = 3 + random.nextDouble();
+            b[i] = 4 + random.nextDouble();
+            c[i] = 5 + random.nextDouble();
+            height[i] = 1 + random.nextDouble() * 5;
+        }
+        double[] out = new double[size];
+        switch (metric) {
+            case "circle.area":
+                return () -> {
+                    MetricKernels.circleAreas(a, size, out);
+                    return out[size - 1];
+                };
+            case "triangle.area":
+                return () -> {
+                    MetricKernels.triangleAreas(a, b, c, size, out);
+                    return out[size - 1];
+                };
+            default:
+                return () -> {
+                    MetricKernels.triangularPrismSurfaceAreas(a, b, c, height, size, out);
+                    return out[size - 1];
+                };
+        }
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(1);
+
+        double[] radius = new double[count];
+        double[] a = new double[count];
+        double[] b = new double[count];
+        double[] c = new double[count];
+        double[] height = new double[count];
+        Circle[] circles = new Circle[count];
+        Sphere[] spheres = new Sphere[count];
+        TriangularPrism[] prisms = new TriangularPrism[count];
+        for (int i = 0; i < count; i++) {
+            radius[i] = 1 + random.nextDouble() * 10;
+            a[i] = 3 + random.nextDouble();
+            b[i] = 4 + random.nextDouble();
+            c[i] = 5 + random.nextDouble();
+            height[i] = 1 + random.nextDouble() * 5;
+            circles[i] = new Circle(radius[i]);
+            spheres[i] = new Sphere(radius[i]);
+            prisms[i] = new TriangularPrism(a[i], b[i], c[i], height[i]);
+        }
+        double[] out = new double[count];
+
+        System.out.println("Shapes per pass: " + count);
+        report("Circle area", time(() -> {
+            double total = 0;
+            for (Circle circle : circles) {
+                total += circle.getArea();
+            }
+            return total;
+        }), time(() -> {
+            MetricKernels.circleAreas(radius, count, out);
+            return MetricKernels.sum(out, count);
+        }));
+        report("Sphere volume", time(() -> {
+            double total = 0;
+            for (Sphere sphere : spheres) {
+                total += sphere.getVolume();
+            }
+            return total;
+        }), time(() -> {
+            MetricKernels.sphereVolumes(radius, count, out);
+            return MetricKernels.sum(out, count);
+        }));
+        report("TriangularPrism volume", time(() -> {
+            double total = 0;
+            for (TriangularPrism prism : prisms) {
+                total += prism.getVolume();
+            }
+            return total;
+        }), time(() -> {
+            MetricKernels.triangularPrismVolumes(a, b, c, height, count, out);
+            return MetricKernels.sum(out, count);
+        }));
+    }
+
+    /**
+     * Returns the mean time of one pass in nanoseconds, after warming up.
+     */
+    private static double time(java.util.function.DoubleSupplier pass) {
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            sink += pass.getAsDouble();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; i++) {
+            sink += pass.getAsDouble();
+        }
+        return (System.nanoTime() - start) / (double) MEASURED_PASSES;
+    }
+
+    private static void report(String name, double objectNanos, double kernelNanos) {
+        System.out.println(String.format("%-24s objects=%8.3f ms  kernel=%8.3f ms  speedup=%.2fx",
+                name, objectNanos / 1e6, kernelNanos / 1e6, objectNanos / kernelNanos));
+    }
+}
@@ -0,0 +1,115 @@
+package geometry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks of getArea on the 2D shapes and getVolume on the 3D shapes.
+ *
+ * Each case calls the metric through the Geometry2D or Geometry3D interface over
+ * a pool of shapes. With a single shape class, the call site is monomorphic and
+ * the JIT can inline the one implementation. With kind=mixed, the pool holds all
+ * three classes in random order, so the call site is megamorphic. Every case is
+ * run with caching=NONE, which measures the formula, and with caching=LAZY, which
+ * measures a read of the cached value.
+ */
+public final class ShapeMetricBenchmark {
+    private static final int POOL_SIZE = 1024;
+
+    private ShapeMetricBenchmark() {
+    }
+
+    /**
+     * Registers the metric benchmarks.
+     *
+     * @param harness The harness to register with.
+     */
+    public static void register(BenchmarkHarness harness) {
+        for (MetricCaching caching : new MetricCaching[] { MetricCaching.NONE, MetricCaching.LAZY }) {
+            for (String kind : new String[] { "Triangle", "Rectangle", "Circle", "mixed" }) {
+                int[] kinds = kind.equals("mixed") ? new int[] { 0, 1, 2 } : new int[] { indexOf(kind) };
+                harness.add("shape.getArea", params(kind, caching), () -> {
+                    MetricCaching.setMode(caching);
+                    Geometry2D[] shapes = new Geometry2D[POOL_SIZE];
+                    fill(shapes, kinds);
+                    return new BenchmarkHarness.Operation() {
+                        private int next;
+
+                        @Override
+                        public double invoke() {
+                            return shapes[next++ & (POOL_SIZE - 1)].getArea();
+                        }
+                    };
+                });
+            }
+            for (String kind : new String[] { "Sphere", "RectangularPrism", "TriangularPrism", "mixed" }) {
+                int[] kinds = kind.equals("mixed") ? new int[] { 3, 4, 5 } : new int[] { indexOf(kind) };
+                harness.add("shape.getVolume", params(kind, caching), () -> {
+                    MetricCaching.setMode(caching);
+                    Geometry3D[] shapes = new Geometry3D[POOL_SIZE];
+                    fill(shapes, kinds);
+                    return new BenchmarkHarness.Operation() {
+                        private int next;
+
+                        @Override
+                        public double invoke() {
+                            return shapes[next++ & (POOL_SIZE - 1)].getVolume();
+                        }
+                    };
+                });
+            }
+        }
+    }
+
+    /**
+     * Creates a random shape of the given kind, in ShapeKind order.
+     *
+     * @param random The source of dimensions.
+     * @param kind   0 to 5 for Triangle, Rectangle, Circle, Sphere, RectangularPrism and TriangularPrism.
+     * @return The new shape.
+     */
+    static Geometry randomShape(Random random, int kind) {
+        double x = 1 + random.nextDouble() * 10;
+        double y = 1 + random.nextDouble() * 10;
+        double z = 1 + random.nextDouble() * 10;
+        switch (kind) {
+            case 0:
+                return new Triangle(x + 1, x + 2, x + 3);
+            case 1:
+                return new Rectangle(x, y);
+            case 2:
+                return new Circle(x);
+            case 3:
+                return new Sphere(x);
+            case 4:
+                return new RectangularPrism(x, y, z);
+            default:
+                return new TriangularPrism(x + 1, x + 2, x + 3, y);
+        }
+    }
+
+    private static void fill(Geometry[] shapes, int[] kinds) {
+        Random random = new Random(kinds.length * 31L + kinds[0]);
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = randomShape(random, kinds[random.nextInt(kinds.length)]);
+        }
+    }
+
+    private static int indexOf(String kind) {
+        String[] names = { "Triangle", "Rectangle", "Circle", "Sphere", "RectangularPrism", "TriangularPrism" };
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(kind)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown kind " + kind);
+    }
+
+    private static Map<String, String> params(String kind, MetricCaching caching) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("kind", kind);
+        params.put("caching", caching.name());
+        return params;
+    }
+}
@@ -0,0 +1,87 @@
+package geometry;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks of building shapes from a bulk feed in which some rows are invalid.
+ *
+ * Each operation builds the next row of a pool of parameter rows, of which
+ * BAD_ROW_PERCENT percent break the constructors' rules. api=throwing calls
+ * ShapeKind.create and catches the IllegalArgumentException of the bad rows;
+ * api=result calls ShapeKind.tryCreate and checks the error code. The score is
+ * the mean time per row, good and bad together.
+ */
+public final class ShapeValidationBenchmark {
+    private static final int POOL_SIZE = 1024;
+    private static final int BAD_ROW_PERCENT = 5;
+
+    private ShapeValidationBenchmark() {
+    }
+
+    /**
+     * Registers the validation benchmarks.
+     *
+     * @param harness The harness to register with.
+     */
+    public static void register(BenchmarkHarness harness) {
+        for (String api : new String[] { "throwing", "result" }) {
+            Map<String, String> params = new LinkedHashMap<>();
+            params.put("api", api);
+            params.put("badRows", BAD_ROW_PERCENT + "%");
+            harness.add("shape.construct", params, () -> {
+                ShapeKind[] kinds = new ShapeKind[POOL_SIZE];
+                double[][] rows = new double[POOL_SIZE][];
+                fill(kinds, rows);
+                if (api.equals("throwing")) {
+                    return new BenchmarkHarness.Operation() {
+                        private int next;
+
+                        @Override
+                        public double invoke() {
+                            int row = next++ & (POOL_SIZE - 1);
+                            try {
+                                return kinds[row].create(rows[row]).hashCode();
+                            } catch (IllegalArgumentException e) {
+                                return e.getMessage().length();
+                            }
+                        }
+                    };
+                }
+                return new BenchmarkHarness.Operation() {
+                    private int next;
+
+                    @Override
+                    public double invoke() {
+                        int row = next++ & (POOL_SIZE - 1);
+                        ShapeResult result = kinds[row].tryCreate(rows[row]);
+                        if (!result.isValid()) {
+                            return result.getError().getMessage().length();
+                        }
+                        return result.getGeometry().hashCode();
+                    }
+                };
+            });
+        }
+    }
+
+    /**
+     * Fills the pool with random rows, breaking BAD_ROW_PERCENT of them by
+     * negating their first parameter.
+     */
+    private static void fill(ShapeKind[] kinds, double[][] rows) {
+        Random random = new Random(9);
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        for (int i = 0; i < rows.length; i++) {
+            Geometry geometry = ShapeMetricBenchmark.randomShape(random, random.nextInt(6));
+            kinds[i] = ShapeKind.of(geometry);
+            kinds[i].getParameters(geometry, parameters);
+            rows[i] = Arrays.copyOf(parameters, kinds[i].getParameterCount());
+            if (random.nextInt(100) < BAD_ROW_PERCENT) {
+                rows[i][0] = -rows[i][0];
+            }
+        }
+    }
+}
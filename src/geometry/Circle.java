@@ -3,9 +3,13 @@ package geometry;
 /**
  * Represents a Circle in 2D space.
  */
-public class Circle implements Geometry2D {
+public class Circle extends ObservableGeometry implements Geometry2D {
     private double radius;
 
+    /** Cached metrics, or NaN until computed. */
+    private double area = Double.NaN;
+    private double perimeter = Double.NaN;
+
     /**
      * Constructs a Circle with the specified radius.
      * 
@@ -13,10 +17,9 @@ public class Circle implements Geometry2D {
      * @throws IllegalArgumentException if radius is not positive.
      */
     public Circle(double radius) {
-        if (radius <= 0) {
-            throw new IllegalArgumentException("Radius must be positive.");
-        }
+        ShapeKind.CIRCLE.require(radius, 0, 0, 0);
         this.radius = radius;
+        invalidateMetrics();
     }
 
     /**
@@ -26,7 +29,14 @@ public class Circle implements Geometry2D {
      */
     @Override
     public double getArea() {
-        return Math.PI * radius * radius;
+        double value = area;
+        if (Double.isNaN(value)) {
+            value = computeArea();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                area = value;
+            }
+        }
+        return value;
     }
 
     /**
@@ -36,9 +46,36 @@ public class Circle implements Geometry2D {
      */
     @Override
     public double getPerimeter() {
+        double value = perimeter;
+        if (Double.isNaN(value)) {
+            value = computePerimeter();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                perimeter = value;
+            }
+        }
+        return value;
+    }
+
+    private double computeArea() {
+        return Math.PI * radius * radius;
+    }
+
+    private double computePerimeter() {
         return 2 * Math.PI * radius;
     }
 
+    /**
+     * Discards the cached metrics after a change, recomputing them in EAGER mode.
+     */
+    private void invalidateMetrics() {
+        area = Double.NaN;
+        perimeter = Double.NaN;
+        if (MetricCaching.getMode() == MetricCaching.EAGER) {
+            area = computeArea();
+            perimeter = computePerimeter();
+        }
+    }
+
     // Getters and Setters (optional)
 
     public double getRadius() {
@@ -46,10 +83,37 @@ public class Circle implements Geometry2D {
     }
 
     public void setRadius(double radius) {
-        if (radius <= 0) {
-            throw new IllegalArgumentException("Radius must be positive.");
-        }
+        ShapeKind.CIRCLE.require(radius, 0, 0, 0);
+        fireChanging();
         this.radius = radius;
+        invalidateMetrics();
+        fireChanged();
+    }
+
+    /**
+     * Compares circles by radius, so that copies, views and interned instances
+     * of the same shape are equal. Doubles are compared like Double.equals.
+     *
+     * @param obj The object to compare with.
+     * @return True if obj is a Circle with the same parameters.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Circle other)) {
+            return false;
+        }
+        return Double.compare(getRadius(), other.getRadius()) == 0;
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Like equals, it changes when a
+     * setter changes the circle.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Double.hashCode(getRadius());
     }
 
     /**
@@ -59,7 +123,6 @@ public class Circle implements Geometry2D {
      */
     @Override
     public String toString() {
-        return String.format("Circle [Radius=%.2f, Area=%.2f, Perimeter=%.2f]",
-                radius, getArea(), getPerimeter());
+        return GeometryRenderer.render(this);
     }
 }
@@ -0,0 +1,291 @@
+package geometry;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe list of Geometry objects with lock-free appends.
+ *
+ * The geometries live in an append-only segment. An appending thread claims the
+ * next slot with a single atomic increment on the segment's tail counter, and then
+ * publishes its geometry into that slot, so appenders never block one another.
+ *
+ * Removals and growth never modify a segment in place. Under a lock, they seal the
+ * current segment so that no further slots can be claimed, copy its contents into
+ * a new segment and publish that segment. Every operation is linearizable. A
+ * snapshot is simply a segment plus a count, so it is not copied and never
+ * changes afterwards. removeByIndex is O(n) because of the copy.
+ *
+ * Null geometries are not permitted, because an empty slot marks a claimed slot
+ * whose geometry has not been published yet.
+ */
+public class ConcurrentGeometryList implements GeometryCollection {
+    private static final int SEALED = Integer.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+
+    private final AtomicReference<Segment> current;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * Constructs an empty ConcurrentGeometryList.
+     */
+    public ConcurrentGeometryList() {
+        this.current = new AtomicReference<>(new Segment(MIN_CAPACITY));
+    }
+
+    /**
+     * Adds a Geometry object to the end of the list.
+     *
+     * @param geometry The Geometry object to add.
+     * @throws NullPointerException if geometry is null.
+     */
+    @Override
+    public void add(Geometry geometry) {
+        addAndGetIndex(geometry);
+    }
+
+    /**
+     * Adds a Geometry object to the end of the list and returns the index it was
+     * added at. Other threads may have changed the list since, so the geometry is
+     * not necessarily still at that index.
+     *
+     * @param geometry The Geometry object to add.
+     * @return The index of the geometry when it was added.
+     * @throws NullPointerException if geometry is null.
+     */
+    public int addAndGetIndex(Geometry geometry) {
+        if (geometry == null) {
+            throw new NullPointerException("Geometry must not be null.");
+        }
+        while (true) {
+            Segment segment = current.get();
+            int slot = segment.tail.getAndIncrement();
+            if (slot >= 0 && slot < segment.capacity) {
+                segment.slots.set(slot, geometry);
+                return slot;
+            }
+            // The segment is full or is being replaced by a removal; help or wait, then retry.
+            rebuildLock.lock();
+            try {
+                if (current.get() == segment) {
+                    replace(segment, -1);
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes a Geometry object from the list by its index.
+     *
+     * @param index The index of the Geometry object to remove (0-based).
+     * @return True if removal was successful, false otherwise.
+     */
+    @Override
+    public boolean removeByIndex(int index) {
+        rebuildLock.lock();
+        try {
+            Segment segment = current.get();
+            // Segments are only sealed while this lock is held, so this count is live.
+            if (index < 0 || index >= segment.count(segment.tail.get())) {
+                return false;
+            }
+            replace(segment, index);
+            return true;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Finds a Geometry object by its index in the list.
+     *
+     * @param index The index of the Geometry object to find (0-based).
+     * @return The Geometry object if found, null otherwise.
+     */
+    @Override
+    public Geometry findByIndex(int index) {
+        while (true) {
+            Segment segment = current.get();
+            int tail = segment.tail.get();
+            if (tail >= 0) {
+                if (index < 0 || index >= segment.count(tail)) {
+                    return null;
+                }
+                return segment.awaitPublished(index);
+            }
+            awaitReplacement();
+        }
+    }
+
+    /**
+     * Returns the number of Geometry objects in the list.
+     *
+     * @return The number of Geometry objects in the list.
+     */
+    @Override
+    public int size() {
+        while (true) {
+            Segment segment = current.get();
+            int tail = segment.tail.get();
+            if (tail >= 0) {
+                return segment.count(tail);
+            }
+            awaitReplacement();
+        }
+    }
+
+    /**
+     * Prints a snapshot of the list along with the indices.
+     */
+    @Override
+    public void printAll() {
+        GeometryRenderer.print(snapshot());
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the list taken when this method is called.
+     *
+     * @return An iterator that is unaffected by later modifications.
+     */
+    @Override
+    public Iterator<Geometry> iterator() {
+        return snapshot().iterator();
+    }
+
+    /**
+     * Returns an immutable, consistent view of the list as it is at this moment.
+     * Appends and removals made afterwards are not visible through the view.
+     *
+     * @return The snapshot.
+     */
+    public List<Geometry> snapshot() {
+        return takeSnapshot();
+    }
+
+    private Snapshot takeSnapshot() {
+        while (true) {
+            Segment segment = current.get();
+            int tail = segment.tail.get();
+            if (tail >= 0) {
+                int count = segment.count(tail);
+                segment.awaitPublishedPrefix(count);
+                return new Snapshot(segment, count);
+            }
+            awaitReplacement();
+        }
+    }
+
+    /**
+     * Blocks until the rebuild that sealed the current segment has published its replacement.
+     */
+    private void awaitReplacement() {
+        rebuildLock.lock();
+        rebuildLock.unlock();
+    }
+
+    /**
+     * Seals a segment and publishes a copy of it without the given index. Must be
+     * called with the rebuild lock held.
+     *
+     * @param segment     The current segment.
+     * @param removeIndex The index to leave out, or -1 to copy everything into a bigger segment.
+     */
+    private void replace(Segment segment, int removeIndex) {
+        int count = segment.count(segment.tail.getAndUpdate(tail -> tail | SEALED) & ~SEALED);
+        int remaining = removeIndex < 0 ? count : count - 1;
+        Segment next = new Segment(Math.max(MIN_CAPACITY, remaining * 2));
+
+        int target = 0;
+        for (int i = 0; i < count; i++) {
+            Geometry geometry = segment.awaitPublished(i);
+            if (i != removeIndex) {
+                next.slots.set(target++, geometry);
+            }
+        }
+        next.tail.set(remaining);
+        next.published.set(remaining);
+        current.set(next);
+    }
+
+    /**
+     * A fixed-capacity, append-only array of geometries.
+     */
+    private static class Segment {
+        final int capacity;
+        final AtomicReferenceArray<Geometry> slots;
+
+        /** Number of claimed slots, with the sign bit set once the segment is sealed. */
+        final AtomicInteger tail = new AtomicInteger();
+
+        /** Length of a prefix of slots known to be published. */
+        final AtomicInteger published = new AtomicInteger();
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        /**
+         * Returns the number of geometries that belong to the segment for a tail value.
+         */
+        int count(int tail) {
+            return Math.min(tail, capacity);
+        }
+
+        /**
+         * Waits for the geometry in a claimed slot to be published and returns it.
+         */
+        Geometry awaitPublished(int slot) {
+            Geometry geometry;
+            while ((geometry = slots.get(slot)) == null) {
+                Thread.onSpinWait();
+            }
+            return geometry;
+        }
+
+        /**
+         * Waits until the first count slots are published. Only the slots past the
+         * longest prefix seen so far are checked, so repeated snapshots stay cheap.
+         */
+        void awaitPublishedPrefix(int count) {
+            for (int i = published.get(); i < count; i++) {
+                awaitPublished(i);
+            }
+            published.accumulateAndGet(count, Math::max);
+        }
+    }
+
+    /**
+     * An immutable view of the first count slots of a segment.
+     */
+    private static class Snapshot extends AbstractList<Geometry> implements RandomAccess {
+        private final Segment segment;
+        private final int count;
+
+        Snapshot(Segment segment, int count) {
+            this.segment = segment;
+            this.count = count;
+        }
+
+        @Override
+        public Geometry get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + count);
+            }
+            return segment.slots.get(index);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stress tests for ConcurrentGeometryList.
+ *
+ * Every shape added by the writers is a Circle whose radius encodes the writer
+ * and the order in which it was added, so a snapshot can be checked for lost,
+ * duplicated and reordered shapes.
+ */
+public class ConcurrentGeometryListTest {
+    private static final int WRITERS = 16;
+    private static final int PER_WRITER = 20_000;
+
+    private ConcurrentGeometryList geometryList;
+    private ExecutorService executor;
+
+    /**
+     * Initializes a fresh list and thread pool before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        geometryList = new ConcurrentGeometryList();
+        executor = Executors.newFixedThreadPool(WRITERS + 4);
+    }
+
+    /**
+     * Shuts down the thread pool after each test.
+     */
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that concurrent appends lose and duplicate nothing, while readers
+     * check that every snapshot is consistent.
+     */
+    @Test
+    void testConcurrentAppendsWithSnapshotReaders() throws Exception {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(executor.submit(() -> {
+                while (writing.get()) {
+                    assertConsistent(geometryList.snapshot());
+                }
+                return null;
+            }));
+        }
+
+        runWriters();
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+
+        List<Geometry> snapshot = geometryList.snapshot();
+        assertEquals(WRITERS * PER_WRITER, snapshot.size());
+        assertEquals(WRITERS * PER_WRITER, geometryList.size());
+        assertConsistent(snapshot);
+        int[] counts = new int[WRITERS];
+        for (Geometry geometry : snapshot) {
+            counts[writerOf(geometry)]++;
+        }
+        for (int count : counts) {
+            assertEquals(PER_WRITER, count);
+        }
+    }
+
+    /**
+     * Tests that removals running alongside the appenders are applied exactly once.
+     */
+    @Test
+    void testConcurrentAppendsAndRemovals() throws Exception {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger removed = new AtomicInteger();
+        List<Future<?>> removers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            removers.add(executor.submit(() -> {
+                while (writing.get()) {
+                    if (geometryList.removeByIndex(0)) {
+                        removed.incrementAndGet();
+                    }
+                    Thread.yield();
+                }
+                return null;
+            }));
+        }
+
+        runWriters();
+        writing.set(false);
+        for (Future<?> remover : removers) {
+            remover.get(30, TimeUnit.SECONDS);
+        }
+
+        List<Geometry> snapshot = geometryList.snapshot();
+        assertEquals(WRITERS * PER_WRITER - removed.get(), snapshot.size());
+        assertConsistent(snapshot);
+    }
+
+    /**
+     * Tests that snapshots do not change when the list is modified afterwards.
+     */
+    @Test
+    void testSnapshotIsStable() {
+        geometryList.add(new Circle(1.0));
+        geometryList.add(new Circle(2.0));
+        List<Geometry> snapshot = geometryList.snapshot();
+
+        geometryList.removeByIndex(0);
+        geometryList.add(new Circle(3.0));
+
+        assertEquals(2, snapshot.size());
+        assertEquals(1.0, ((Circle) snapshot.get(0)).getRadius(), 0.0);
+        assertEquals(3.0, ((Circle) geometryList.findByIndex(1)).getRadius(), 0.0);
+        assertFalse(geometryList.removeByIndex(2));
+        assertNull(geometryList.findByIndex(2));
+    }
+
+    private void runWriters() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < PER_WRITER; i++) {
+                    geometryList.add(new Circle(writer * (double) PER_WRITER + i + 1));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Checks that a snapshot holds no shape twice and that each writer's shapes
+     * appear in the order they were added.
+     */
+    private static void assertConsistent(List<Geometry> snapshot) {
+        Set<Geometry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int[] last = new int[WRITERS];
+        java.util.Arrays.fill(last, -1);
+        for (Geometry geometry : snapshot) {
+            assertNotNull(geometry);
+            assertTrue(seen.add(geometry), "duplicate shape in snapshot");
+            int writer = writerOf(geometry);
+            int sequence = sequenceOf(geometry);
+            assertTrue(sequence > last[writer], "shapes out of order");
+            last[writer] = sequence;
+        }
+    }
+
+    private static int writerOf(Geometry geometry) {
+        return (int) ((((Circle) geometry).getRadius() - 1) / PER_WRITER);
+    }
+
+    private static int sequenceOf(Geometry geometry) {
+        return (int) ((((Circle) geometry).getRadius() - 1) % PER_WRITER);
+    }
+}
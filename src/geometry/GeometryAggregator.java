@@ -0,0 +1,144 @@
+package geometry;
+
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes count, sum, min, max and mean of a metric over a geometry collection.
+ *
+ * Shapes whose metric cannot be calculated, such as degenerate triangles, are
+ * left out of the summaries instead of failing them.
+ *
+ * Small collections are scanned with their iterator. Once a collection reaches
+ * PARALLEL_THRESHOLD shapes, it is copied into an array in one pass and the array
+ * is split across the common fork-join pool.
+ */
+final class GeometryAggregator {
+    /** Collections at least this large are aggregated in parallel. */
+    static final int PARALLEL_THRESHOLD = 10_000;
+
+    /** Ranges at most this large are summarized by a single fork-join task. */
+    private static final int LEAF_SIZE = 4_096;
+
+    private static final ShapeKind[] KINDS = ShapeKind.values();
+
+    private GeometryAggregator() {
+    }
+
+    /**
+     * Summarizes a metric over every shape it applies to.
+     *
+     * @param collection The collection to aggregate.
+     * @param metric     The metric.
+     * @return The summary; empty if no shape has the metric.
+     */
+    static DoubleSummaryStatistics summarize(GeometryCollection collection, Metric metric) {
+        DoubleSummaryStatistics total = new DoubleSummaryStatistics();
+        for (DoubleSummaryStatistics statistics : aggregate(collection, metric)) {
+            if (statistics != null) {
+                total.combine(statistics);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Summarizes a metric separately for each shape kind present in the collection.
+     *
+     * @param collection The collection to aggregate.
+     * @param metric     The metric.
+     * @return The summaries, in ShapeKind order, for the kinds the metric applies to.
+     */
+    static Map<ShapeKind, DoubleSummaryStatistics> summarizeByKind(GeometryCollection collection, Metric metric) {
+        DoubleSummaryStatistics[] byKind = aggregate(collection, metric);
+        Map<ShapeKind, DoubleSummaryStatistics> result = new EnumMap<>(ShapeKind.class);
+        for (ShapeKind kind : KINDS) {
+            if (byKind[kind.ordinal()] != null) {
+                result.put(kind, byKind[kind.ordinal()]);
+            }
+        }
+        return result;
+    }
+
+    private static DoubleSummaryStatistics[] aggregate(GeometryCollection collection, Metric metric) {
+        if (collection.size() < PARALLEL_THRESHOLD) {
+            DoubleSummaryStatistics[] byKind = new DoubleSummaryStatistics[KINDS.length];
+            for (Geometry geometry : collection) {
+                accept(byKind, geometry, metric);
+            }
+            return byKind;
+        }
+
+        List<Geometry> geometries = new ArrayList<>(collection.size());
+        for (Geometry geometry : collection) {
+            geometries.add(geometry);
+        }
+        Geometry[] array = geometries.toArray(new Geometry[0]);
+        return ForkJoinPool.commonPool().invoke(new SummaryTask(array, 0, array.length, metric));
+    }
+
+    /**
+     * Adds a geometry's metric to the summary of its kind, skipping geometries the
+     * metric does not apply to or cannot be calculated for.
+     */
+    private static void accept(DoubleSummaryStatistics[] byKind, Geometry geometry, Metric metric) {
+        double value = metric.tryOf(geometry);
+        if (Double.isNaN(value)) {
+            return;
+        }
+        int kind = ShapeKind.of(geometry).ordinal();
+        if (byKind[kind] == null) {
+            byKind[kind] = new DoubleSummaryStatistics();
+        }
+        byKind[kind].accept(value);
+    }
+
+    /**
+     * Summarizes a range of an array by kind, splitting it in half until it is small enough.
+     */
+    private static class SummaryTask extends RecursiveTask<DoubleSummaryStatistics[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Geometry[] geometries;
+        private final int from;
+        private final int to;
+        private final Metric metric;
+
+        SummaryTask(Geometry[] geometries, int from, int to, Metric metric) {
+            this.geometries = geometries;
+            this.from = from;
+            this.to = to;
+            this.metric = metric;
+        }
+
+        @Override
+        protected DoubleSummaryStatistics[] compute() {
+            if (to - from <= LEAF_SIZE) {
+                DoubleSummaryStatistics[] byKind = new DoubleSummaryStatistics[KINDS.length];
+                for (int i = from; i < to; i++) {
+                    accept(byKind, geometries[i], metric);
+                }
+                return byKind;
+            }
+
+            int middle = (from + to) >>> 1;
+            SummaryTask left = new SummaryTask(geometries, from, middle, metric);
+            left.fork();
+            DoubleSummaryStatistics[] right = new SummaryTask(geometries, middle, to, metric).compute();
+            DoubleSummaryStatistics[] combined = left.join();
+            for (int k = 0; k < combined.length; k++) {
+                if (combined[k] == null) {
+                    combined[k] = right[k];
+                } else if (right[k] != null) {
+                    combined[k].combine(right[k]);
+                }
+            }
+            return combined;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the aggregate operations on GeometryCollection.
+ */
+public class GeometryAggregatorTest {
+
+    /**
+     * Tests the summaries of a small collection, which is aggregated sequentially,
+     * and that a degenerate triangle is left out of the area without failing it.
+     */
+    @Test
+    void testSmallCollection() {
+        GeometryLinkedList geometryList = new GeometryLinkedList();
+        geometryList.add(new Rectangle(5.0, 3.0));
+        geometryList.add(new Rectangle(2.0, 2.0));
+        geometryList.add(new Circle(1.0));
+        geometryList.add(new Sphere(2.0));
+
+        DoubleSummaryStatistics area = geometryList.summarize(Metric.AREA);
+        assertEquals(3, area.getCount());
+        assertEquals(19.0 + Math.PI, area.getSum(), 0.0001);
+        assertEquals(Math.PI, area.getMin(), 0.0001);
+        assertEquals(15.0, area.getMax(), 0.0001);
+
+        Map<ShapeKind, DoubleSummaryStatistics> byKind = geometryList.summarizeByKind(Metric.PERIMETER);
+        assertEquals(2, byKind.size());
+        assertEquals(12.0, byKind.get(ShapeKind.RECTANGLE).getAverage(), 0.0001);
+
+        assertEquals(1, geometryList.summarize(Metric.VOLUME).getCount());
+        assertEquals(0, new GeometryLinkedList().summarize(Metric.SURFACE_AREA).getCount());
+
+        geometryList.add(new Triangle(0.7308781907032909, 0.41008081149220166, 1.1409590021954923));
+        assertEquals(3, geometryList.summarize(Metric.AREA).getCount());
+        assertFalse(geometryList.summarizeByKind(Metric.AREA).containsKey(ShapeKind.TRIANGLE));
+        assertEquals(1, geometryList.summarizeByKind(Metric.PERIMETER).get(ShapeKind.TRIANGLE).getCount());
+    }
+
+    /**
+     * Tests that the parallel path agrees with a sequential loop.
+     */
+    @Test
+    void testParallelMatchesSequential() {
+        GeometryLinkedList geometryList = new GeometryLinkedList();
+        Random random = new Random(17);
+        int count = GeometryAggregator.PARALLEL_THRESHOLD * 3;
+        for (int i = 0; i < count; i++) {
+            geometryList.add(GeometryStoreTest.randomShape(random));
+        }
+
+        for (Metric metric : Metric.values()) {
+            DoubleSummaryStatistics expected = new DoubleSummaryStatistics();
+            for (Geometry geometry : geometryList) {
+                if (metric.appliesTo(geometry)) {
+                    expected.accept(metric.of(geometry));
+                }
+            }
+
+            DoubleSummaryStatistics actual = geometryList.summarize(metric);
+            assertEquals(expected.getCount(), actual.getCount());
+            assertEquals(expected.getSum(), actual.getSum(), 1e-9 * expected.getSum());
+            assertEquals(expected.getMin(), actual.getMin(), 0.0);
+            assertEquals(expected.getMax(), actual.getMax(), 0.0);
+
+            long byKindCount = 0;
+            for (DoubleSummaryStatistics statistics : geometryList.summarizeByKind(metric).values()) {
+                byKindCount += statistics.getCount();
+            }
+            assertEquals(expected.getCount(), byKindCount);
+        }
+    }
+}
@@ -1,17 +1,62 @@
 package geometry;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumMap;
 import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
  * GeometryApp provides a REPL for managing geometrical shapes.
+ *
+ * When started with a file name argument, the geometries are recovered from that
+ * GeometrySnapshot file and its write-ahead log at startup. Every command's
+ * changes are synced to the log before the next menu is shown, and the log is
+ * compacted into the snapshot on exit.
+ *
+ * With "--script FILE" (or "--script -" for standard input), the commands of
+ * GeometryScript are run instead of the menu and only their results are printed.
  */
 public class GeometryApp {
     private static GeometryLinkedList geometryList = new GeometryLinkedList();
     private static Scanner scanner = new Scanner(System.in);
 
+    /** Sorted indexes for the query command, built on first use and kept up to date by the list. */
+    private static Map<Metric, MetricIndex> metricIndexes = new EnumMap<>(Metric.class);
+
+    /** Running statistics for the aggregate command, built on first use and kept up to date by the list. */
+    private static GeometryStatistics statistics;
+
+    /** Records the list's changes when a snapshot file is given, otherwise null. */
+    private static GeometryJournal journal;
+
+    /**
+     * Starts the REPL, or runs a script when started with "--script FILE".
+     * 
+     * @param args An optional snapshot file, and optionally "--script" followed by
+     *             a script file or "-" for standard input.
+     */
     public static void main(String[] args) {
+        Path snapshotFile = null;
+        String script = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--script")) {
+                script = i + 1 < args.length ? args[++i] : "-";
+            } else {
+                snapshotFile = Path.of(args[i]);
+            }
+        }
+        if (script != null) {
+            System.exit(GeometryScript.runMain(geometryList, snapshotFile, script));
+        }
+
         System.out.println("Welcome to the Geometry Management System!");
+        if (snapshotFile != null) {
+            openJournal(snapshotFile);
+        }
         boolean exit = false;
 
         while (!exit) {
@@ -32,27 +77,62 @@ public class GeometryApp {
                     listAllGeometries();
                     break;
                 case 5:
+                    aggregateGeometries();
+                    break;
+                case 6:
+                    queryGeometries();
+                    break;
+                case 7:
+                    importGeometries();
+                    break;
+                case 8:
+                    GeometryJournal.closeOrReport(journal);
+                    journal = null;
                     exit = true;
                     System.out.println("Exiting the Geometry Management System. Goodbye!");
                     break;
                 default:
-                    System.out.println("Invalid choice. Please select a valid option (1-5).");
+                    System.out.println("Invalid choice. Please select a valid option (1-8).");
             }
+            GeometryJournal.syncOrReport(journal);
         }
 
         scanner.close();
     }
 
+    /**
+     * Recovers the list from a snapshot file and its log, and starts journaling.
+     * 
+     * @param file The snapshot file.
+     */
+    private static void openJournal(Path file) {
+        try {
+            journal = GeometryJournal.open(file, geometryList);
+            if (geometryList.size() == 0) {
+                System.out.println("No geometries found at " + file + ". Starting with an empty list.");
+            } else {
+                System.out.println("Recovered " + geometryList.size() + " geometries from " + file + ".");
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error recovering geometries: " + e.getMessage());
+            System.out.println("Changes will not be saved.");
+            geometryList = new GeometryLinkedList();
+        }
+    }
+
     /**
      * Prints the main menu options.
      */
     private static void printMenu() {
         System.out.println("\nPlease choose an option:");
         System.out.println("1. Add Geometry");
-        System.out.println("2. Remove Geometry by Index");
-        System.out.println("3. Find Geometry by Index");
+        System.out.println("2. Remove Geometry by Index or ID");
+        System.out.println("3. Find Geometry by Index or ID");
         System.out.println("4. List All Geometries");
-        System.out.println("5. Exit");
+        System.out.println("5. Aggregate Metrics");
+        System.out.println("6. Query by Metric");
+        System.out.println("7. Import from File");
+        System.out.println("8. Exit");
         System.out.print("Your choice: ");
     }
 
@@ -113,8 +193,8 @@ public class GeometryApp {
             }
 
             if (geometry != null) {
-                geometryList.add(geometry);
-                System.out.println("Geometry added successfully: " + geometry.toString());
+                long id = geometryList.addWithId(geometry);
+                System.out.println("Geometry added successfully with ID #" + id + ": " + geometry.toString());
             }
         } catch (IllegalArgumentException | IllegalStateException e) {
             System.out.println("Error adding geometry: " + e.getMessage());
@@ -122,12 +202,24 @@ public class GeometryApp {
     }
 
     /**
-     * Handles removing a geometry from the linked list by index.
+     * Handles removing a geometry from the linked list by index, or by ID when the
+     * input starts with '#'.
      */
     private static void removeGeometry() {
-        System.out.print("\nEnter the index of the geometry to remove: ");
-        int index = getUserChoice();
+        System.out.print("\nEnter the index or #ID of the geometry to remove: ");
+        String address = scanner.nextLine().trim();
+
+        if (address.startsWith("#")) {
+            long id = parseId(address);
+            if (geometryList.removeById(id)) {
+                System.out.println("Geometry " + address + " removed successfully.");
+            } else {
+                System.out.println("Failed to remove geometry " + address + ". Please ensure the ID is valid.");
+            }
+            return;
+        }
 
+        int index = parseIndex(address);
         boolean removed = geometryList.removeByIndex(index);
         if (removed) {
             System.out.println("Geometry at index " + index + " removed successfully.");
@@ -137,12 +229,26 @@ public class GeometryApp {
     }
 
     /**
-     * Handles finding and displaying a geometry from the linked list by index.
+     * Handles finding and displaying a geometry from the linked list by index, or
+     * by ID when the input starts with '#'.
      */
     private static void findGeometry() {
-        System.out.print("\nEnter the index of the geometry to find: ");
-        int index = getUserChoice();
+        System.out.print("\nEnter the index or #ID of the geometry to find: ");
+        String address = scanner.nextLine().trim();
 
+        if (address.startsWith("#")) {
+            long id = parseId(address);
+            Geometry found = geometryList.findById(id);
+            if (found != null) {
+                System.out.println("Geometry " + address + " at index " + geometryList.indexOfId(id) + ": "
+                        + found.toString());
+            } else {
+                System.out.println("No geometry found with ID " + address + ".");
+            }
+            return;
+        }
+
+        int index = parseIndex(address);
         Geometry found = geometryList.findByIndex(index);
         if (found != null) {
             System.out.println("Geometry at index " + index + ": " + found.toString());
@@ -151,6 +257,34 @@ public class GeometryApp {
         }
     }
 
+    /**
+     * Parses an index typed by the user.
+     * 
+     * @param input The trimmed input.
+     * @return The index, or -1 if the input is not a number.
+     */
+    private static int parseIndex(String input) {
+        try {
+            return Integer.parseInt(input);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parses an ID typed by the user as '#' followed by the number.
+     * 
+     * @param input The trimmed input, starting with '#'.
+     * @return The ID, or 0 (which is never assigned) if the input is not a number.
+     */
+    private static long parseId(String input) {
+        try {
+            return Long.parseLong(input.substring(1).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Lists all geometries stored in the linked list.
      */
@@ -161,7 +295,168 @@ public class GeometryApp {
             return;
         }
 
-        geometryList.printAll();
+        long[] ids = geometryList.ids();
+        GeometryRenderer renderer = new GeometryRenderer();
+        int index = 0;
+        try {
+            for (Geometry geometry : geometryList) {
+                renderer.append("Index ").append(index).append(" (ID #").append(ids[index]).append("): ")
+                        .append(geometry).appendLine();
+                if (renderer.length() >= GeometryRenderer.BLOCK_SIZE) {
+                    renderer.flushTo(System.out);
+                }
+                index++;
+            }
+            renderer.flushTo(System.out);
+        } catch (IOException e) {
+            // System.out does not throw.
+        }
+    }
+
+    /**
+     * Prints count, total, min, max and mean of every metric, overall and per shape
+     * kind, from running statistics that are read without scanning the list.
+     */
+    private static void aggregateGeometries() {
+        System.out.println("\nAggregate metrics:");
+        if (geometryList.size() == 0) {
+            System.out.println("No geometries stored.");
+            return;
+        }
+
+        if (statistics == null) {
+            statistics = new GeometryStatistics(geometryList);
+        }
+        for (Metric metric : Metric.values()) {
+            Map<ShapeKind, DoubleSummaryStatistics> byKind = statistics.summarizeByKind(metric);
+            if (byKind.isEmpty()) {
+                continue;
+            }
+            DoubleSummaryStatistics total = new DoubleSummaryStatistics();
+            byKind.values().forEach(total::combine);
+
+            System.out.println(formatSummary(metric.getDisplayName(), total));
+            for (Map.Entry<ShapeKind, DoubleSummaryStatistics> entry : byKind.entrySet()) {
+                System.out.println(formatSummary("  " + entry.getKey().getDisplayName(), entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Lists the geometries in a range of a metric, the ones with the largest values,
+     * or the ones matching a GeometryQuery.
+     */
+    private static void queryGeometries() {
+        System.out.println("\nChoose the metric to query by:");
+        Metric[] metrics = Metric.values();
+        for (int i = 0; i < metrics.length; i++) {
+            System.out.println((i + 1) + ". " + metrics[i].getDisplayName());
+        }
+        System.out.println((metrics.length + 1) + ". Enter a Query Expression");
+        System.out.print("Your choice: ");
+        int metricChoice = getUserChoice();
+        if (metricChoice == metrics.length + 1) {
+            queryByExpression();
+            return;
+        }
+        if (metricChoice < 1 || metricChoice > metrics.length) {
+            System.out.println("Invalid metric selected.");
+            return;
+        }
+        Metric metric = metrics[metricChoice - 1];
+        MetricIndex index = metricIndexes.computeIfAbsent(metric, m -> new MetricIndex(geometryList, m));
+
+        System.out.println("\nChoose the type of query:");
+        System.out.println("1. Range");
+        System.out.println("2. Top K");
+        System.out.print("Your choice: ");
+        List<Geometry> results;
+        switch (getUserChoice()) {
+            case 1:
+                double min = getPositiveDouble("Enter minimum " + metric.getDisplayName().toLowerCase() + ": ");
+                double max = getPositiveDouble("Enter maximum " + metric.getDisplayName().toLowerCase() + ": ");
+                results = index.range(min, max);
+                break;
+            case 2:
+                System.out.print("Enter the number of geometries to show: ");
+                int k = getUserChoice();
+                if (k <= 0) {
+                    System.out.println("The number of geometries must be positive.");
+                    return;
+                }
+                results = index.top(k);
+                break;
+            default:
+                System.out.println("Invalid query type selected.");
+                return;
+        }
+
+        if (results.isEmpty()) {
+            System.out.println("No geometries matched.");
+            return;
+        }
+        System.out.println("Found " + results.size() + " of " + index.size() + " indexed geometries:");
+        for (Geometry geometry : results) {
+            System.out.println(String.format("%s=%.2f: %s", metric.getDisplayName(), metric.of(geometry), geometry));
+        }
+    }
+
+    /**
+     * Reads a GeometryQuery such as "where type=Circle and radius>2 order by area"
+     * and lists the geometries it matches.
+     */
+    private static void queryByExpression() {
+        System.out.print("Enter the query: ");
+        GeometryQuery query;
+        try {
+            query = GeometryQuery.parse(scanner.nextLine());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid query: " + e.getMessage());
+            return;
+        }
+        GeometryCursor cursor = query.execute(geometryList);
+        if (!cursor.hasNext()) {
+            System.out.println("No geometries matched.");
+            return;
+        }
+        while (cursor.hasNext()) {
+            Geometry geometry = cursor.next();
+            System.out.println("Index " + cursor.getIndex() + ": " + geometry);
+        }
+    }
+
+    /**
+     * Imports geometries from a CSV or NDJSON file and prints the first rejected rows.
+     */
+    private static void importGeometries() {
+        System.out.print("\nEnter the path of the .csv or .ndjson file to import: ");
+        String input = scanner.nextLine().trim();
+        try {
+            ImportReport report = GeometryImporter.importFile(Path.of(input), geometryList);
+            System.out.println(report);
+            List<ImportReport.Rejection> rejections = report.getRejections();
+            for (int i = 0; i < Math.min(10, rejections.size()); i++) {
+                System.out.println(rejections.get(i));
+            }
+            if (report.getRejected() > 10) {
+                System.out.println("... and " + (report.getRejected() - 10) + " more rejected rows.");
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error importing geometries: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Formats one line of the aggregate report.
+     * 
+     * @param label      The label for the line.
+     * @param statistics The summary to format.
+     * @return The formatted line.
+     */
+    private static String formatSummary(String label, DoubleSummaryStatistics statistics) {
+        return String.format("%s [Count=%d, Total=%.2f, Min=%.2f, Max=%.2f, Mean=%.2f]",
+                label, statistics.getCount(), statistics.getSum(), statistics.getMin(),
+                statistics.getMax(), statistics.getAverage());
     }
 
     /**
@@ -0,0 +1,201 @@
+package geometry;
+
+/**
+ * One change to a GeometryLinkedList, as published by a GeometryChangeStream.
+ *
+ * An event carries the kind and parameters of the shape it concerns, copied when
+ * the change happened, so consumers can update derived state from the event alone
+ * while the list and its shapes go on changing.
+ */
+public final class GeometryChange {
+    /**
+     * The kinds of change.
+     */
+    public enum Type {
+        /** A shape was added; the parameters are those it was added with. */
+        ADDED,
+
+        /** A shape was removed; the parameters are those it had when removed. */
+        REMOVED,
+
+        /** A setter changed a shape; there are parameters before and after the change. */
+        CHANGED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final int index;
+    private final Geometry geometry;
+    private final ShapeKind kind;
+    private final double[] parameters;
+    private final double[] previousParameters;
+
+    GeometryChange(long sequence, Type type, int index, Geometry geometry, ShapeKind kind, double[] parameters,
+            double[] previousParameters) {
+        this.sequence = sequence;
+        this.type = type;
+        this.index = index;
+        this.geometry = geometry;
+        this.kind = kind;
+        this.parameters = parameters;
+        this.previousParameters = previousParameters;
+    }
+
+    /**
+     * Returns the sequence number of the change. The changes of a stream are
+     * numbered 1, 2, 3, ... in the order they were made.
+     *
+     * @return The sequence number.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the kind of change.
+     *
+     * @return The type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the index of an added or removed shape, which is its index just after
+     * it was added or just before it was removed.
+     *
+     * @return The index, or -1 for a CHANGED event, because the list does not know
+     *         where a changed shape is without a search.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the shape itself, for consumers that key their state by identity.
+     * The shape may have changed again since this event.
+     *
+     * @return The shape.
+     */
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Returns the kind of the shape.
+     *
+     * @return The kind.
+     */
+    public ShapeKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns one of the shape's parameters after an add or change, or before a removal.
+     *
+     * @param parameter The parameter position, as in ShapeKind.getParameterName.
+     * @return The value.
+     * @throws IndexOutOfBoundsException if the parameter is out of range for the kind.
+     */
+    public double getParameter(int parameter) {
+        checkParameter(parameter);
+        return parameters[parameter];
+    }
+
+    /**
+     * Returns one of the shape's parameters before a change.
+     *
+     * @param parameter The parameter position, as in ShapeKind.getParameterName.
+     * @return The value.
+     * @throws IllegalStateException     if this is not a CHANGED event.
+     * @throws IndexOutOfBoundsException if the parameter is out of range for the kind.
+     */
+    public double getPreviousParameter(int parameter) {
+        if (type != Type.CHANGED) {
+            throw new IllegalStateException("Only CHANGED events have previous parameters.");
+        }
+        checkParameter(parameter);
+        return previousParameters[parameter];
+    }
+
+    /**
+     * Computes a metric from getParameter's values.
+     *
+     * @param metric The metric.
+     * @return The metric value, 0 if the metric does not apply to the kind, or NaN
+     *         if it cannot be calculated, such as the area of a degenerate triangle.
+     */
+    public double getMetric(Metric metric) {
+        return metricOf(metric, parameters);
+    }
+
+    /**
+     * Computes a metric from getPreviousParameter's values.
+     *
+     * @param metric The metric.
+     * @return The metric value, 0 if the metric does not apply to the kind, or NaN
+     *         if it cannot be calculated.
+     * @throws IllegalStateException if this is not a CHANGED event.
+     */
+    public double getPreviousMetric(Metric metric) {
+        if (type != Type.CHANGED) {
+            throw new IllegalStateException("Only CHANGED events have previous parameters.");
+        }
+        return metricOf(metric, previousParameters);
+    }
+
+    /**
+     * Returns how much the change moves the total of a metric over the list:
+     * the new value for ADDED, minus the old value for REMOVED and the difference
+     * for CHANGED. A value that cannot be calculated counts as 0, so the totals
+     * skip degenerate shapes like GeometryStatistics and GeometryAggregator do.
+     *
+     * @param metric The metric.
+     * @return The change in the total.
+     */
+    public double getDelta(Metric metric) {
+        switch (type) {
+            case ADDED:
+                return orZero(getMetric(metric));
+            case REMOVED:
+                return -orZero(getMetric(metric));
+            default:
+                return orZero(getMetric(metric)) - orZero(getPreviousMetric(metric));
+        }
+    }
+
+    private static double orZero(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private double metricOf(Metric metric, double[] values) {
+        if (!metric.appliesTo(kind)) {
+            return 0;
+        }
+        return metric.tryOf(kind, values[0], values[1], values[2], values[3]);
+    }
+
+    private void checkParameter(int parameter) {
+        if (parameter < 0 || parameter >= kind.getParameterCount()) {
+            throw new IndexOutOfBoundsException("No parameter " + parameter + " for " + kind);
+        }
+    }
+
+    @Override
+    public String toString() {
+        GeometryRenderer text = new GeometryRenderer();
+        text.append('#').append(sequence).append(' ').append(type.name()).append(' ');
+        if (index >= 0) {
+            text.append(index).append(' ');
+        }
+        text.append(kind.getDisplayName());
+        for (int p = 0; p < kind.getParameterCount(); p++) {
+            text.append(p == 0 ? " [" : ", ").append(kind.getParameterName(p)).append('=');
+            if (type == Type.CHANGED) {
+                text.append(Double.toString(previousParameters[p])).append("->");
+            }
+            text.append(Double.toString(parameters[p]));
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,188 @@
+package geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Publishes every change to a GeometryLinkedList as a stream of GeometryChange
+ * events, so that downstream consumers can keep derived state such as totals or
+ * indexes up to date incrementally instead of re-reading the list.
+ *
+ * Adds, removals and setter changes are numbered 1, 2, 3, ... and collected into
+ * batches. A batch is published when it holds batchSize events, when flush() is
+ * called and when the stream is closed; the thread that changes the list should
+ * call flush() at the end of each unit of work, such as a command or a request.
+ * Subscribers receive each batch as an unmodifiable List, in order, on the
+ * publisher's executor.
+ *
+ * Delivery is bounded: each subscriber has a buffer of at most maxBufferedBatches
+ * undelivered batches. Publishing a batch blocks while a subscriber's buffer is
+ * full, so a slow subscriber slows the writer down instead of the stream growing
+ * without bound. Subscribers control their own rate through Flow.Subscription.request.
+ *
+ * A consumer that starts late should subscribe, then read the list and
+ * sequence() together on the thread that changes the list, and ignore events
+ * with a sequence number up to the one it read.
+ */
+public class GeometryChangeStream implements AutoCloseable {
+    /** Number of events per batch when none is given. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final GeometryLinkedList list;
+    private final int batchSize;
+    private final SubmissionPublisher<List<GeometryChange>> publisher;
+    private List<GeometryChange> pending;
+    private long sequence;
+
+    private final GeometryListener listener = new GeometryListener() {
+        /**
+         * The old parameters of each shape between its geometryChanging and
+         * geometryChanged calls. A shape that occurs several times in the list is
+         * notified once per occurrence, so the entry counts the outstanding calls.
+         */
+        private final IdentityHashMap<Geometry, Changing> changing = new IdentityHashMap<>();
+
+        @Override
+        public void geometryAdded(int index, Geometry geometry) {
+            record(GeometryChange.Type.ADDED, index, geometry, null);
+        }
+
+        @Override
+        public void geometryRemoved(int index, Geometry geometry) {
+            record(GeometryChange.Type.REMOVED, index, geometry, null);
+        }
+
+        @Override
+        public void geometryReplaced(int index, Geometry previous, Geometry replacement) {
+            // An equal shape took the place of another; there is no change to publish.
+        }
+
+        @Override
+        public void geometryChanging(Geometry geometry) {
+            Changing entry = changing.get(geometry);
+            if (entry == null) {
+                entry = new Changing();
+                ShapeKind.of(geometry).getParameters(geometry, entry.parameters);
+                changing.put(geometry, entry);
+            }
+            entry.count++;
+        }
+
+        @Override
+        public void geometryChanged(Geometry geometry) {
+            Changing entry = changing.get(geometry);
+            if (entry == null) {
+                throw new IllegalStateException("Change notifications out of order for " + geometry);
+            }
+            if (--entry.count == 0) {
+                changing.remove(geometry);
+            }
+            record(GeometryChange.Type.CHANGED, -1, geometry, entry.parameters);
+        }
+    };
+
+    /**
+     * The parameters of a shape before a setter change, and the number of its
+     * occurrences not yet notified that the change is done.
+     */
+    private static class Changing {
+        final double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        int count;
+    }
+
+    /**
+     * Starts streaming the changes of a list, with default batching and buffering.
+     *
+     * @param list The list to stream.
+     */
+    public GeometryChangeStream(GeometryLinkedList list) {
+        this(list, DEFAULT_BATCH_SIZE, Flow.defaultBufferSize(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Starts streaming the changes of a list.
+     *
+     * @param list               The list to stream.
+     * @param batchSize          The maximum number of events per batch.
+     * @param maxBufferedBatches The maximum number of batches buffered per subscriber.
+     * @param executor           Runs the subscribers' callbacks.
+     * @throws IllegalArgumentException if batchSize or maxBufferedBatches is not positive.
+     */
+    public GeometryChangeStream(GeometryLinkedList list, int batchSize, int maxBufferedBatches, Executor executor) {
+        if (batchSize <= 0 || maxBufferedBatches <= 0) {
+            throw new IllegalArgumentException("Batch size and buffer capacity must be positive.");
+        }
+        this.list = list;
+        this.batchSize = batchSize;
+        this.publisher = new SubmissionPublisher<>(executor, maxBufferedBatches);
+        this.pending = new ArrayList<>(batchSize);
+        list.addListener(listener);
+    }
+
+    /**
+     * Subscribes a consumer to the batches published from now on.
+     *
+     * @param subscriber The consumer.
+     */
+    public void subscribe(Flow.Subscriber<? super List<GeometryChange>> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Returns the sequence number of the latest change, published or not.
+     *
+     * @return The sequence number, or 0 before the first change.
+     */
+    public synchronized long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of subscribers.
+     *
+     * @return The subscriber count.
+     */
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * Publishes the events collected so far, if any, blocking while a subscriber's
+     * buffer is full.
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<GeometryChange> batch = Collections.unmodifiableList(pending);
+        pending = new ArrayList<>(batchSize);
+        publisher.submit(batch);
+    }
+
+    /**
+     * Publishes the last batch, stops listening to the list and completes every
+     * subscription.
+     */
+    @Override
+    public void close() {
+        list.removeListener(listener);
+        flush();
+        publisher.close();
+    }
+
+    private synchronized void record(GeometryChange.Type type, int index, Geometry geometry, double[] previous) {
+        ShapeKind kind = ShapeKind.of(geometry);
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        kind.getParameters(geometry, parameters);
+        pending.add(new GeometryChange(++sequence, type, index, geometry, kind, parameters, previous));
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for GeometryChangeStream.
+ */
+public class GeometryChangeStreamTest {
+    /**
+     * Keeps the total area of a list up to date from its change events.
+     */
+    private static class AreaTotal implements Flow.Subscriber<List<GeometryChange>> {
+        final List<Integer> batchSizes = new ArrayList<>();
+        final List<GeometryChange> events = new ArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        double total;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<GeometryChange> batch) {
+            batchSizes.add(batch.size());
+            for (GeometryChange change : batch) {
+                events.add(change);
+                total += change.getDelta(Metric.AREA);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            throwable.printStackTrace();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    /**
+     * Tests that a subscriber sees every add, removal and setter change, numbered
+     * in order and batched, and can keep a total that matches the list.
+     */
+    @Test
+    void testEventsMaintainDerivedState() throws InterruptedException {
+        GeometryLinkedList list = new GeometryLinkedList();
+        list.add(new Circle(1));
+        AreaTotal consumer = new AreaTotal();
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            GeometryChangeStream stream = new GeometryChangeStream(list, 4, 8, executor);
+            stream.subscribe(consumer);
+            // The consumer starts from the list as it is now.
+            consumer.total = new Circle(1).getArea();
+            long start = stream.sequence();
+
+            Circle circle = new Circle(2);
+            list.add(circle);
+            list.add(new Rectangle(2, 3));
+            list.add(new Sphere(5));
+            list.add(new Triangle(3, 4, 5));
+            circle.setRadius(3);
+            list.removeByIndex(3);
+            list.removeByIndex(0);
+            stream.flush();
+            stream.close();
+            assertTrue(consumer.completed.await(10, TimeUnit.SECONDS));
+            assertEquals(7, stream.sequence() - start);
+        }
+
+        assertEquals(List.of(4, 3), consumer.batchSizes);
+        for (int i = 0; i < consumer.events.size(); i++) {
+            assertEquals(i + 1, consumer.events.get(i).getSequence());
+        }
+        GeometryChange change = consumer.events.get(4);
+        assertEquals(GeometryChange.Type.CHANGED, change.getType());
+        assertEquals(2.0, change.getPreviousParameter(0));
+        assertEquals(3.0, change.getParameter(0));
+        assertEquals(GeometryChange.Type.REMOVED, consumer.events.get(5).getType());
+        assertEquals(3, consumer.events.get(5).getIndex());
+        assertEquals(ShapeKind.SPHERE, consumer.events.get(5).getKind());
+
+        double expected = 0;
+        for (Geometry geometry : list) {
+            expected += geometry instanceof Geometry2D ? ((Geometry2D) geometry).getArea() : 0;
+        }
+        assertEquals(expected, consumer.total, 1e-9);
+    }
+
+    /**
+     * Tests that a shape that occurs twice in the list produces one change event
+     * per occurrence, both with its old parameters.
+     */
+    @Test
+    void testRepeatedShapeChanges() throws InterruptedException {
+        GeometryLinkedList list = new GeometryLinkedList();
+        Circle circle = new Circle(1);
+        list.add(circle);
+        list.add(circle);
+        AreaTotal consumer = new AreaTotal();
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            GeometryChangeStream stream = new GeometryChangeStream(list, 4, 8, executor);
+            stream.subscribe(consumer);
+            consumer.total = 2 * circle.getArea();
+
+            circle.setRadius(2);
+            circle.setRadius(3);
+            stream.close();
+            assertTrue(consumer.completed.await(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(4, consumer.events.size());
+        assertEquals(1.0, consumer.events.get(0).getPreviousParameter(0));
+        assertEquals(1.0, consumer.events.get(1).getPreviousParameter(0));
+        assertEquals(2.0, consumer.events.get(3).getPreviousParameter(0));
+        assertEquals(2 * circle.getArea(), consumer.total, 1e-9);
+    }
+
+    /**
+     * Tests that events for a degenerate triangle report a NaN area, and that
+     * their deltas leave a running total unchanged instead of failing.
+     */
+    @Test
+    void testDegenerateTriangleEvents() throws InterruptedException {
+        GeometryLinkedList list = new GeometryLinkedList();
+        AreaTotal consumer = new AreaTotal();
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            GeometryChangeStream stream = new GeometryChangeStream(list, 4, 8, executor);
+            stream.subscribe(consumer);
+
+            Triangle triangle = new Triangle(0.7308781907032909, 0.41008081149220166, 1.1409590021954923);
+            list.add(triangle);
+            list.add(new Rectangle(2, 3));
+            triangle.setSideC(1);
+            list.removeByIndex(0);
+            stream.close();
+            assertTrue(consumer.completed.await(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(4, consumer.events.size());
+        GeometryChange added = consumer.events.get(0);
+        assertTrue(Double.isNaN(added.getMetric(Metric.AREA)));
+        assertEquals(0.0, added.getDelta(Metric.AREA));
+        assertEquals(added.getParameter(0) + added.getParameter(1) + added.getParameter(2),
+                added.getMetric(Metric.PERIMETER));
+        GeometryChange changed = consumer.events.get(2);
+        assertTrue(Double.isNaN(changed.getPreviousMetric(Metric.AREA)));
+        assertEquals(changed.getMetric(Metric.AREA), changed.getDelta(Metric.AREA));
+        assertEquals(6.0, consumer.total, 1e-9);
+    }
+
+    /**
+     * Tests that the writer blocks while a subscriber's buffer is full and resumes
+     * once the subscriber requests more.
+     */
+    @Test
+    void testBackpressureBlocksWriter() throws InterruptedException {
+        GeometryLinkedList list = new GeometryLinkedList();
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        CountDownLatch subscribed = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newSingleThreadExecutor();
+                GeometryChangeStream stream = new GeometryChangeStream(list, 1, 1, executor)) {
+            stream.subscribe(new Flow.Subscriber<List<GeometryChange>>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    subscription[0] = s;
+                    subscribed.countDown();
+                }
+
+                @Override
+                public void onNext(List<GeometryChange> batch) {
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+            assertTrue(subscribed.await(10, TimeUnit.SECONDS));
+
+            Thread writer = Thread.ofPlatform().start(() -> {
+                for (int i = 1; i <= 5; i++) {
+                    list.add(new Circle(i));
+                }
+            });
+            writer.join(300);
+            assertTrue(writer.isAlive());
+            assertTrue(list.size() < 5);
+
+            subscription[0].request(Long.MAX_VALUE);
+            writer.join(10_000);
+            assertFalse(writer.isAlive());
+            assertEquals(5, list.size());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package geometry;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+
+/**
+ * Common positional API shared by the geometry collection implementations.
+ */
+public interface GeometryCollection extends Iterable<Geometry> {
+    /**
+     * Adds a Geometry object to the end of the collection.
+     * 
+     * @param geometry The Geometry object to add.
+     */
+    void add(Geometry geometry);
+
+    /**
+     * Adds a range of an array of Geometry objects to the end of the collection,
+     * in order. Implementations may copy the range in bulk.
+     * 
+     * @param geometries The array holding the geometries.
+     * @param offset     The index of the first geometry to add.
+     * @param length     The number of geometries to add.
+     */
+    default void addAll(Geometry[] geometries, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            add(geometries[i]);
+        }
+    }
+
+    /**
+     * Removes a Geometry object from the collection by its index.
+     * 
+     * @param index The index of the Geometry object to remove (0-based).
+     * @return True if removal was successful, false otherwise.
+     */
+    boolean removeByIndex(int index);
+
+    /**
+     * Finds a Geometry object by its index in the collection.
+     * 
+     * @param index The index of the Geometry object to find (0-based).
+     * @return The Geometry object if found, null otherwise.
+     */
+    Geometry findByIndex(int index);
+
+    /**
+     * Returns the number of Geometry objects in the collection.
+     * 
+     * @return The number of Geometry objects.
+     */
+    int size();
+
+    /**
+     * Prints all Geometry objects in the collection along with their indices.
+     */
+    void printAll();
+
+    /**
+     * Computes count, sum, min, max and mean of a metric over every shape it
+     * applies to, skipping shapes it cannot be calculated for, such as degenerate
+     * triangles. Large collections are aggregated in parallel.
+     *
+     * @param metric The metric to aggregate.
+     * @return The summary; its count is 0 if no shape has the metric.
+     */
+    default DoubleSummaryStatistics summarize(Metric metric) {
+        return GeometryAggregator.summarize(this, metric);
+    }
+
+    /**
+     * Computes count, sum, min, max and mean of a metric separately for each
+     * shape kind, skipping shapes it cannot be calculated for. Large collections
+     * are aggregated in parallel.
+     *
+     * @param metric The metric to aggregate.
+     * @return The summaries for the kinds present that have the metric, in ShapeKind order.
+     */
+    default Map<ShapeKind, DoubleSummaryStatistics> summarizeByKind(Metric metric) {
+        return GeometryAggregator.summarizeByKind(this, metric);
+    }
+}
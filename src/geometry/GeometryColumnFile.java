@@ -0,0 +1,742 @@
+package geometry;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A compressed, column-oriented file of shapes, for data whose dimensions repeat
+ * heavily or cluster in narrow ranges.
+ *
+ * The file format, version 1, is little-endian:
+ *
+ *   header     magic "GEOC" (int), version (short), reserved (short), count (long),
+ *              directory offset (long), reserved (long) - 32 bytes
+ *   tags       the ShapeKind tag of every shape in index order: an Encoding ordinal
+ *              (byte), then either count tag bytes (RAW) or a run count (int) and
+ *              that many (tag byte, length int) runs (RUN_LENGTH)
+ *   blocks     the parameter columns of every kind, as in GeometryStore, in
+ *              ShapeKind and parameter order, each cut into blocks of BLOCK_SIZE
+ *              values (the last block of a column may be shorter)
+ *   directory  the file offset of every block (long each), in the same order
+ *
+ * Each block starts with an Encoding ordinal (byte) and is encoded on its own with
+ * whichever encoding is smallest for it:
+ *
+ *   RAW         packed doubles
+ *   RUN_LENGTH  a run count (int), then (value double, length unsigned short) runs
+ *   DICTIONARY  a dictionary size (unsigned short), the distinct values, then one
+ *               code of ceil(log2(size)) bits per value
+ *   XOR         Gorilla compression: the first value, then each value XORed with the
+ *               previous one, written as a 0 bit if they are equal, or as the XOR's
+ *               meaningful bits, either within the previous leading/trailing zero
+ *               window (prefix 10) or with a new window (prefix 11, 5 bits of leading
+ *               zeros and 6 bits of length). Only used if it saves a quarter of RAW,
+ *               because it is the slowest to decode.
+ *
+ * Bit streams are written most significant bit first into 64-bit words. Values are
+ * stored bit for bit, so decoding is exact.
+ *
+ * Blocks decode straight into a caller's double[], without creating Geometry
+ * objects; readColumn and loadInto decode whole columns a block at a time.
+ */
+public class GeometryColumnFile implements AutoCloseable {
+    /** Current format version. */
+    public static final short VERSION = 1;
+
+    /** Number of values per block. */
+    public static final int BLOCK_SIZE = 4096;
+
+    /**
+     * How a block or the tag column is encoded.
+     */
+    public enum Encoding {
+        RAW,
+        RUN_LENGTH,
+        DICTIONARY,
+        XOR
+    }
+
+    private static final Encoding[] ENCODINGS = Encoding.values();
+    private static final ShapeKind[] KINDS = ShapeKind.values();
+    private static final int MAGIC = 0x434F4547; // "GEOC" read as a little-endian int
+    private static final int HEADER_SIZE = 32;
+    private static final int MAX_XOR_BITS = 2 + 5 + 6 + 64;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int size;
+    private final long directoryOffset;
+    private final int[] counts = new int[KINDS.length];
+
+    /** Index in the directory of the first block of each kind's parameter columns. */
+    private final int[][] firstBlocks = new int[KINDS.length][];
+    private final int totalBlocks;
+
+    private GeometryColumnFile(Arena arena, MemorySegment segment, Path path) throws IOException {
+        this.arena = arena;
+        this.segment = segment;
+        if (segment.byteSize() < HEADER_SIZE + 1 || segment.get(INT, 0) != MAGIC) {
+            throw new IOException(path + " is not a geometry column file.");
+        }
+        short version = segment.get(SHORT, 4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported column file version " + version + " in " + path + ".");
+        }
+        long count = segment.get(LONG, 8);
+        this.directoryOffset = segment.get(LONG, 16);
+        if (count < 0 || count > Integer.MAX_VALUE || directoryOffset < HEADER_SIZE
+                || directoryOffset > segment.byteSize()) {
+            throw new IOException("Corrupt column file header in " + path + ".");
+        }
+        this.size = (int) count;
+
+        try {
+            TagCursor tags = new TagCursor();
+            for (int i = 0; i < size; i++) {
+                counts[tags.next()]++;
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt tag column in " + path + ".", e);
+        }
+
+        int block = 0;
+        for (ShapeKind kind : KINDS) {
+            int[] first = new int[kind.getParameterCount()];
+            for (int p = 0; p < first.length; p++) {
+                first[p] = block;
+                block += blockCount(kind);
+            }
+            firstBlocks[kind.ordinal()] = first;
+        }
+        this.totalBlocks = block;
+        if (directoryOffset + 8L * totalBlocks != segment.byteSize()) {
+            throw new IOException("Corrupt block directory in " + path + ".");
+        }
+    }
+
+    /**
+     * Maps a column file. The file must be closed to release the mapping.
+     *
+     * @param path The column file.
+     * @return The mapped file.
+     * @throws IOException if the file cannot be read or is not a valid column file.
+     */
+    public static GeometryColumnFile open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new GeometryColumnFile(arena, segment, path);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes geometries to a column file, replacing any existing file atomically.
+     *
+     * @param path       The column file.
+     * @param geometries The geometries, written in iteration order.
+     * @throws IOException              if the file cannot be written.
+     * @throws IllegalArgumentException if a geometry is not one of the six shape classes.
+     */
+    public static void write(Path path, Iterable<? extends Geometry> geometries) throws IOException {
+        if (geometries instanceof GeometryStore) {
+            write(path, (GeometryStore) geometries);
+            return;
+        }
+        GeometryStore store = new GeometryStore();
+        for (Geometry geometry : geometries) {
+            store.add(geometry);
+        }
+        write(path, store);
+    }
+
+    /**
+     * Writes the columns of a store to a column file, replacing any existing file
+     * atomically.
+     *
+     * @param path  The column file.
+     * @param store The shapes, written in index order.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path path, GeometryStore store) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            // The header is filled in once the directory offset is known.
+            buffer.position(HEADER_SIZE);
+            long offset = HEADER_SIZE + writeTags(channel, buffer, store);
+
+            BlockEncoder encoder = new BlockEncoder();
+            long[] directory = new long[16];
+            int blocks = 0;
+            for (ShapeKind kind : KINDS) {
+                int count = store.count(kind);
+                for (int p = 0; p < kind.getParameterCount(); p++) {
+                    double[] column = store.column(kind, p);
+                    for (int from = 0; from < count; from += BLOCK_SIZE) {
+                        if (blocks == directory.length) {
+                            directory = Arrays.copyOf(directory, blocks * 2);
+                        }
+                        directory[blocks++] = offset;
+                        offset += encoder.encode(column, from, Math.min(BLOCK_SIZE, count - from), channel, buffer);
+                    }
+                }
+            }
+
+            for (int block = 0; block < blocks; block++) {
+                if (buffer.remaining() < 8) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(directory[block]);
+            }
+            flush(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                    .putLong(store.size()).putLong(offset).putLong(0).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the tag column, run-length encoded if that is smaller.
+     *
+     * @return The number of bytes written.
+     */
+    private static long writeTags(FileChannel channel, ByteBuffer buffer, GeometryStore store) throws IOException {
+        int size = store.size();
+        int runs = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || store.getKind(i) != store.getKind(i - 1)) {
+                runs++;
+            }
+        }
+        boolean runLength = 4L + 5L * runs < size;
+        buffer.put((byte) (runLength ? Encoding.RUN_LENGTH : Encoding.RAW).ordinal());
+        if (!runLength) {
+            for (int i = 0; i < size; i++) {
+                if (!buffer.hasRemaining()) {
+                    flush(channel, buffer);
+                }
+                buffer.put(store.getKind(i).tag());
+            }
+            return 1L + size;
+        }
+
+        buffer.putInt(runs);
+        int start = 0;
+        for (int i = 1; i <= size; i++) {
+            if (i == size || store.getKind(i) != store.getKind(start)) {
+                if (buffer.remaining() < 5) {
+                    flush(channel, buffer);
+                }
+                buffer.put(store.getKind(start).tag()).putInt(i - start);
+                start = i;
+            }
+        }
+        return 5L + 5L * runs;
+    }
+
+    /**
+     * Returns the number of shapes in the file.
+     *
+     * @return The number of shapes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of shapes of a kind, which is the length of each of the
+     * kind's parameter columns.
+     *
+     * @param kind The kind.
+     * @return The count.
+     */
+    public int count(ShapeKind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * Returns the number of blocks in each of a kind's parameter columns.
+     *
+     * @param kind The kind.
+     * @return The block count.
+     */
+    public int blockCount(ShapeKind kind) {
+        return (count(kind) + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * Returns the encoding chosen for a block.
+     *
+     * @param kind      The kind.
+     * @param parameter The parameter position, as in ShapeKind.getParameterName.
+     * @param block     The block.
+     * @return The encoding.
+     * @throws IndexOutOfBoundsException if the parameter or block is out of range.
+     */
+    public Encoding encodingOf(ShapeKind kind, int parameter, int block) {
+        return encodingAt(blockOffset(kind, parameter, block));
+    }
+
+    /**
+     * Returns the number of bytes a parameter column takes in the file.
+     *
+     * @param kind      The kind.
+     * @param parameter The parameter position.
+     * @return The encoded size of the column.
+     */
+    long columnSize(ShapeKind kind, int parameter) {
+        int blocks = blockCount(kind);
+        if (blocks == 0) {
+            return 0;
+        }
+        int end = firstBlocks[kind.ordinal()][parameter] + blocks;
+        long endOffset = end < totalBlocks ? segment.get(LONG, directoryOffset + 8L * end) : directoryOffset;
+        return endOffset - blockOffset(kind, parameter, 0);
+    }
+
+    /**
+     * Decodes one block of a parameter column.
+     *
+     * @param kind      The kind.
+     * @param parameter The parameter position, as in ShapeKind.getParameterName.
+     * @param block     The block, from 0 to blockCount(kind) - 1.
+     * @param out       Receives the values; needs room for BLOCK_SIZE values.
+     * @return The number of values decoded, which is BLOCK_SIZE except for the last block.
+     * @throws IndexOutOfBoundsException if the parameter or block is out of range.
+     * @throws IllegalStateException     if the block is corrupt.
+     */
+    public int decodeBlock(ShapeKind kind, int parameter, int block, double[] out) {
+        return decodeBlock(kind, parameter, block, out, 0);
+    }
+
+    /**
+     * Decodes a whole parameter column.
+     *
+     * @param kind      The kind.
+     * @param parameter The parameter position, as in ShapeKind.getParameterName.
+     * @return The values, in the order the kind's shapes appear in the file.
+     * @throws IndexOutOfBoundsException if the parameter is out of range.
+     * @throws IllegalStateException     if a block is corrupt.
+     */
+    public double[] readColumn(ShapeKind kind, int parameter) {
+        double[] values = new double[count(kind)];
+        for (int block = 0; block < blockCount(kind); block++) {
+            decodeBlock(kind, parameter, block, values, block * BLOCK_SIZE);
+        }
+        return values;
+    }
+
+    /**
+     * Appends every shape in the file to a store, in index order, without creating
+     * Geometry objects.
+     *
+     * @param store The store to append to.
+     * @throws IllegalStateException if a block is corrupt.
+     */
+    public void loadInto(GeometryStore store) {
+        // One decoded block per parameter column, refilled as the tags walk through them.
+        double[][][] blocks = new double[KINDS.length][][];
+        int[] positions = new int[KINDS.length];
+        for (ShapeKind kind : KINDS) {
+            if (count(kind) > 0) {
+                blocks[kind.ordinal()] = new double[kind.getParameterCount()][BLOCK_SIZE];
+            }
+        }
+
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        TagCursor tags = new TagCursor();
+        for (int i = 0; i < size; i++) {
+            int k = tags.next();
+            ShapeKind kind = KINDS[k];
+            int position = positions[k]++;
+            int slot = position % BLOCK_SIZE;
+            double[][] kindBlocks = blocks[k];
+            if (slot == 0) {
+                for (int p = 0; p < kindBlocks.length; p++) {
+                    decodeBlock(kind, p, position / BLOCK_SIZE, kindBlocks[p], 0);
+                }
+            }
+            for (int p = 0; p < kindBlocks.length; p++) {
+                parameters[p] = kindBlocks[p][slot];
+            }
+            store.append(kind, parameters);
+        }
+    }
+
+    /**
+     * Unmaps the file. The file cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private long blockOffset(ShapeKind kind, int parameter, int block) {
+        if (block < 0 || block >= blockCount(kind)) {
+            throw new IndexOutOfBoundsException("Block " + block + " out of bounds for " + blockCount(kind)
+                    + " blocks of " + kind);
+        }
+        int entry = firstBlocks[kind.ordinal()][parameter] + block;
+        return segment.get(LONG, directoryOffset + 8L * entry);
+    }
+
+    private Encoding encodingAt(long offset) {
+        int ordinal = segment.get(ValueLayout.JAVA_BYTE, offset);
+        if (ordinal < 0 || ordinal >= ENCODINGS.length) {
+            throw new IllegalStateException("Corrupt block at offset " + offset + ".");
+        }
+        return ENCODINGS[ordinal];
+    }
+
+    private int decodeBlock(ShapeKind kind, int parameter, int block, double[] out, int outOffset) {
+        long offset = blockOffset(kind, parameter, block);
+        int length = Math.min(BLOCK_SIZE, count(kind) - block * BLOCK_SIZE);
+        Encoding encoding = encodingAt(offset);
+        offset++;
+        switch (encoding) {
+            case RAW:
+                MemorySegment.copy(segment, DOUBLE, offset, out, outOffset, length);
+                break;
+            case RUN_LENGTH: {
+                int runs = segment.get(INT, offset);
+                offset += 4;
+                int end = outOffset;
+                for (int r = 0; r < runs; r++) {
+                    double value = segment.get(DOUBLE, offset);
+                    int runLength = segment.get(SHORT, offset + 8) & 0xFFFF;
+                    if (end - outOffset + runLength > length) {
+                        throw new IllegalStateException("Corrupt run-length block at offset " + offset + ".");
+                    }
+                    Arrays.fill(out, end, end + runLength, value);
+                    end += runLength;
+                    offset += 10;
+                }
+                if (end - outOffset != length) {
+                    throw new IllegalStateException("Corrupt run-length block at offset " + offset + ".");
+                }
+                break;
+            }
+            case DICTIONARY: {
+                int dictionarySize = segment.get(SHORT, offset) & 0xFFFF;
+                long dictionary = offset + 2;
+                int width = codeWidth(dictionarySize);
+                BitReader codes = new BitReader(segment, dictionary + 8L * dictionarySize);
+                for (int i = 0; i < length; i++) {
+                    int code = (int) codes.read(width);
+                    if (code >= dictionarySize) {
+                        throw new IllegalStateException("Corrupt dictionary block at offset " + offset + ".");
+                    }
+                    out[outOffset + i] = segment.get(DOUBLE, dictionary + 8L * code);
+                }
+                break;
+            }
+            default: {
+                BitReader bits = new BitReader(segment, offset);
+                long previous = bits.read(64);
+                out[outOffset] = Double.longBitsToDouble(previous);
+                int leading = 0;
+                int meaningful = 64;
+                for (int i = 1; i < length; i++) {
+                    if (bits.read(1) != 0) {
+                        if (bits.read(1) != 0) {
+                            leading = (int) bits.read(5);
+                            meaningful = (int) bits.read(6) + 1;
+                        }
+                        previous ^= bits.read(meaningful) << (64 - leading - meaningful);
+                    }
+                    out[outOffset + i] = Double.longBitsToDouble(previous);
+                }
+                break;
+            }
+        }
+        return length;
+    }
+
+    private static int codeWidth(int dictionarySize) {
+        return dictionarySize <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(dictionarySize - 1);
+    }
+
+    private static long mask(int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Walks the tag column in index order.
+     */
+    private final class TagCursor {
+        private final boolean runLength;
+        private long offset = HEADER_SIZE + 1;
+        private int runsLeft;
+        private int runLeft;
+        private int tag;
+
+        TagCursor() {
+            this.runLength = encodingAt(HEADER_SIZE) == Encoding.RUN_LENGTH;
+            if (runLength) {
+                runsLeft = segment.get(INT, offset);
+                offset += 4;
+            }
+        }
+
+        /**
+         * Returns the ordinal of the next shape's kind.
+         */
+        int next() {
+            if (!runLength) {
+                return ShapeKind.fromTag(segment.get(ValueLayout.JAVA_BYTE, offset++)).ordinal();
+            }
+            while (runLeft == 0) {
+                if (runsLeft-- <= 0) {
+                    throw new IllegalArgumentException("The tag runs are shorter than the count.");
+                }
+                tag = ShapeKind.fromTag(segment.get(ValueLayout.JAVA_BYTE, offset)).ordinal();
+                runLeft = segment.get(INT, offset + 1);
+                offset += 5;
+            }
+            runLeft--;
+            return tag;
+        }
+    }
+
+    /**
+     * Picks the smallest encoding for each block and writes it.
+     */
+    private static final class BlockEncoder {
+        private final long[] bits = new long[BLOCK_SIZE];
+        private final long[] distinct = new long[BLOCK_SIZE];
+        private final BitWriter xor = new BitWriter(BLOCK_SIZE * MAX_XOR_BITS / 64 + 2);
+        private final BitWriter codes = new BitWriter(BLOCK_SIZE / 4 + 2);
+
+        /**
+         * Encodes values[from, from + length) into the buffer.
+         *
+         * @return The number of bytes written.
+         */
+        int encode(double[] values, int from, int length, FileChannel channel, ByteBuffer buffer) throws IOException {
+            int runs = 1;
+            for (int i = 0; i < length; i++) {
+                bits[i] = Double.doubleToRawLongBits(values[from + i]);
+                if (i > 0 && bits[i] != bits[i - 1]) {
+                    runs++;
+                }
+            }
+            System.arraycopy(bits, 0, distinct, 0, length);
+            Arrays.sort(distinct, 0, length);
+            int dictionarySize = 0;
+            for (int i = 0; i < length; i++) {
+                if (i == 0 || distinct[i] != distinct[i - 1]) {
+                    distinct[dictionarySize++] = distinct[i];
+                }
+            }
+            int width = codeWidth(dictionarySize);
+            encodeXor(length);
+
+            int rawSize = 8 * length;
+            int runLengthSize = 4 + 10 * runs;
+            int dictionarySizeBytes = 2 + 8 * dictionarySize + 8 * (int) (((long) length * width + 63) / 64);
+            int xorSize = 8 * xor.count;
+            Encoding encoding = Encoding.RAW;
+            int encodedSize = rawSize;
+            if (runLengthSize < encodedSize) {
+                encoding = Encoding.RUN_LENGTH;
+                encodedSize = runLengthSize;
+            }
+            if (dictionarySizeBytes < encodedSize) {
+                encoding = Encoding.DICTIONARY;
+                encodedSize = dictionarySizeBytes;
+            }
+            // XOR decodes bit by bit, many times slower than the others, so it must save at least a quarter.
+            if (xorSize < encodedSize && xorSize <= rawSize - rawSize / 4) {
+                encoding = Encoding.XOR;
+                encodedSize = xorSize;
+            }
+
+            if (buffer.remaining() < 1 + encodedSize) {
+                flush(channel, buffer);
+            }
+            buffer.put((byte) encoding.ordinal());
+            switch (encoding) {
+                case RAW:
+                    for (int i = 0; i < length; i++) {
+                        buffer.putLong(bits[i]);
+                    }
+                    break;
+                case RUN_LENGTH: {
+                    buffer.putInt(runs);
+                    int start = 0;
+                    for (int i = 1; i <= length; i++) {
+                        if (i == length || bits[i] != bits[start]) {
+                            buffer.putLong(bits[start]).putShort((short) (i - start));
+                            start = i;
+                        }
+                    }
+                    break;
+                }
+                case DICTIONARY:
+                    buffer.putShort((short) dictionarySize);
+                    for (int i = 0; i < dictionarySize; i++) {
+                        buffer.putLong(distinct[i]);
+                    }
+                    codes.reset();
+                    for (int i = 0; i < length; i++) {
+                        codes.write(Arrays.binarySearch(distinct, 0, dictionarySize, bits[i]), width);
+                    }
+                    codes.finish();
+                    codes.writeTo(buffer);
+                    break;
+                default:
+                    xor.writeTo(buffer);
+                    break;
+            }
+            return 1 + encodedSize;
+        }
+
+        private void encodeXor(int length) {
+            xor.reset();
+            long previous = bits[0];
+            xor.write(previous, 64);
+            int windowLeading = -1;
+            int windowTrailing = 0;
+            for (int i = 1; i < length; i++) {
+                long value = bits[i] ^ previous;
+                previous = bits[i];
+                if (value == 0) {
+                    xor.write(0, 1);
+                    continue;
+                }
+                int leading = Math.min(31, Long.numberOfLeadingZeros(value));
+                int trailing = Long.numberOfTrailingZeros(value);
+                if (windowLeading >= 0 && leading >= windowLeading && trailing >= windowTrailing) {
+                    xor.write(0b10, 2);
+                    xor.write(value >>> windowTrailing, 64 - windowLeading - windowTrailing);
+                } else {
+                    int meaningful = 64 - leading - trailing;
+                    xor.write(0b11, 2);
+                    xor.write(leading, 5);
+                    xor.write(meaningful - 1, 6);
+                    xor.write(value >>> trailing, meaningful);
+                    windowLeading = leading;
+                    windowTrailing = trailing;
+                }
+            }
+            xor.finish();
+        }
+    }
+
+    /**
+     * Packs bit fields most significant bit first into 64-bit words.
+     */
+    private static final class BitWriter {
+        private final long[] words;
+        private int count;
+        private long current;
+        private int used;
+
+        BitWriter(int capacity) {
+            this.words = new long[capacity];
+        }
+
+        void reset() {
+            count = 0;
+            current = 0;
+            used = 0;
+        }
+
+        /**
+         * Appends the low bits of a value.
+         */
+        void write(long value, int bits) {
+            if (bits == 0) {
+                return;
+            }
+            int free = 64 - used;
+            value &= mask(bits);
+            if (bits < free) {
+                current |= value << (free - bits);
+                used += bits;
+            } else {
+                int rest = bits - free;
+                words[count++] = current | value >>> rest;
+                current = rest == 0 ? 0 : value << (64 - rest);
+                used = rest;
+            }
+        }
+
+        /**
+         * Pads the last word with zeros.
+         */
+        void finish() {
+            if (used > 0) {
+                words[count++] = current;
+                current = 0;
+                used = 0;
+            }
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            for (int i = 0; i < count; i++) {
+                buffer.putLong(words[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads bit fields written by a BitWriter.
+     */
+    private static final class BitReader {
+        private final MemorySegment segment;
+        private long offset;
+        private long current;
+        private int available;
+
+        BitReader(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        long read(int bits) {
+            if (bits <= available) {
+                available -= bits;
+                return bits == 0 ? 0 : (current >>> available) & mask(bits);
+            }
+            int rest = bits - available;
+            long high = current & mask(available);
+            current = segment.get(LONG, offset);
+            offset += 8;
+            available = 64 - rest;
+            return high << rest | current >>> available;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for writing and decoding GeometryColumnFile files.
+ */
+public class GeometryColumnFileTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Builds a store whose columns suit each encoding: circles in a few standard
+     * sizes, boxes in long batches, spheres drifting slowly and random triangles.
+     */
+    private static GeometryStore typicalStore(int count) {
+        Random random = new Random(5);
+        double[] standardRadii = { 0.5, 1, 1.5, 2, 2.5, 3, 4, 5, 6, 8, 10, 12 };
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        GeometryStore store = new GeometryStore();
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+                case 0:
+                    parameters[0] = standardRadii[random.nextInt(standardRadii.length)];
+                    store.append(ShapeKind.CIRCLE, parameters);
+                    break;
+                case 1:
+                    parameters[0] = 10 + i / 2000 * 5;
+                    parameters[1] = 20;
+                    parameters[2] = 5 + i / 4000;
+                    store.append(ShapeKind.RECTANGULAR_PRISM, parameters);
+                    break;
+                case 2:
+                    parameters[0] = 1 + (i / 28) * 0.25;
+                    store.append(ShapeKind.SPHERE, parameters);
+                    break;
+                default:
+                    parameters[0] = 3 + random.nextDouble();
+                    parameters[1] = 4 + random.nextDouble();
+                    parameters[2] = 5 + random.nextDouble();
+                    store.append(ShapeKind.TRIANGLE, parameters);
+                    break;
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Tests that every column decodes bit for bit, that each kind of data gets the
+     * encoding meant for it and that loadInto restores the shapes in order.
+     */
+    @Test
+    void testRoundTripAndEncodings() throws IOException {
+        int count = GeometryColumnFile.BLOCK_SIZE * 4 * 3 + 123;
+        GeometryStore store = typicalStore(count);
+        double[] special = { -0.0, Double.NaN, Double.longBitsToDouble(0x7FF8_0000_0000_0001L), Double.MIN_VALUE };
+        store.append(ShapeKind.TRIANGULAR_PRISM, special);
+
+        Path file = directory.resolve("shapes.geoc");
+        GeometryColumnFile.write(file, store);
+        try (GeometryColumnFile columns = GeometryColumnFile.open(file)) {
+            assertEquals(count + 1, columns.size());
+            for (ShapeKind kind : ShapeKind.values()) {
+                assertEquals(store.count(kind), columns.count(kind));
+                for (int p = 0; p < kind.getParameterCount(); p++) {
+                    double[] expected = store.column(kind, p);
+                    double[] actual = columns.readColumn(kind, p);
+                    for (int i = 0; i < actual.length; i++) {
+                        assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]),
+                                kind + " parameter " + p + " value " + i);
+                    }
+                }
+            }
+            assertEquals(GeometryColumnFile.Encoding.DICTIONARY, columns.encodingOf(ShapeKind.CIRCLE, 0, 0));
+            assertEquals(GeometryColumnFile.Encoding.RUN_LENGTH, columns.encodingOf(ShapeKind.RECTANGULAR_PRISM, 0, 0));
+            assertEquals(GeometryColumnFile.Encoding.XOR, columns.encodingOf(ShapeKind.SPHERE, 0, 0));
+            // Random sides still share their sign and exponent, but no block is ever bigger than raw doubles.
+            assertTrue(columns.columnSize(ShapeKind.TRIANGLE, 0)
+                    <= 8L * columns.count(ShapeKind.TRIANGLE) + columns.blockCount(ShapeKind.TRIANGLE));
+
+            double[] block = new double[GeometryColumnFile.BLOCK_SIZE];
+            int last = columns.blockCount(ShapeKind.CIRCLE) - 1;
+            assertEquals(store.count(ShapeKind.CIRCLE) - last * GeometryColumnFile.BLOCK_SIZE,
+                    columns.decodeBlock(ShapeKind.CIRCLE, 0, last, block));
+            assertThrows(IndexOutOfBoundsException.class, () -> columns.decodeBlock(ShapeKind.CIRCLE, 0, last + 1, block));
+
+            GeometryStore copy = new GeometryStore();
+            columns.loadInto(copy);
+            assertEquals(store.size(), copy.size());
+            for (int i = 0; i < count; i += 97) {
+                assertEquals(store.findByIndex(i).toString(), copy.findByIndex(i).toString());
+            }
+            long raw = store.size();
+            for (ShapeKind kind : ShapeKind.values()) {
+                raw += 8L * kind.getParameterCount() * store.count(kind);
+            }
+            assertTrue(Files.size(file) * 2 < raw);
+        }
+    }
+
+    /**
+     * Tests that an empty store gives a valid empty file and that shapes can be
+     * written from any collection.
+     */
+    @Test
+    void testEmptyAndGeometryInput() throws IOException {
+        Path file = directory.resolve("empty.geoc");
+        GeometryColumnFile.write(file, new GeometryLinkedList());
+        try (GeometryColumnFile columns = GeometryColumnFile.open(file)) {
+            assertEquals(0, columns.size());
+            assertEquals(0, columns.blockCount(ShapeKind.CIRCLE));
+        }
+
+        GeometryLinkedList list = new GeometryLinkedList();
+        list.add(new Circle(2));
+        list.add(new RectangularPrism(1, 2, 3));
+        GeometryColumnFile.write(file, list);
+        try (GeometryColumnFile columns = GeometryColumnFile.open(file)) {
+            GeometryStore copy = new GeometryStore();
+            columns.loadInto(copy);
+            assertEquals(list.findByIndex(1).toString(), copy.findByIndex(1).toString());
+        }
+    }
+
+    /**
+     * Tests that files with a wrong magic number or a truncated directory are rejected.
+     */
+    @Test
+    void testRejectsCorruptFiles() throws IOException {
+        Path file = directory.resolve("shapes.geoc");
+        GeometryColumnFile.write(file, typicalStore(1000));
+        long length = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length - 1);
+        }
+        assertThrows(IOException.class, () -> GeometryColumnFile.open(file).close());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 'X' }), 0);
+        }
+        assertThrows(IOException.class, () -> GeometryColumnFile.open(file).close());
+    }
+}
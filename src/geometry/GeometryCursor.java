@@ -0,0 +1,30 @@
+package geometry;
+
+import java.util.Iterator;
+
+/**
+ * The result of a GeometryQuery: an iterator over the matching shapes that also
+ * reports where each one is stored.
+ *
+ * Shapes are produced on demand. A cursor over a GeometryStore builds a read-only
+ * view for each match as next() returns it. The collection must not be changed
+ * while a cursor over it is in use.
+ */
+public interface GeometryCursor extends Iterator<Geometry> {
+    /**
+     * Returns the index in the collection of the shape last returned by next().
+     *
+     * @return The index (0-based).
+     * @throws IllegalStateException if next() has not been called.
+     */
+    int getIndex();
+
+    /**
+     * Returns the value of the query's order-by field for the shape last returned
+     * by next().
+     *
+     * @return The value, or NaN if the query is not ordered.
+     * @throws IllegalStateException if next() has not been called.
+     */
+    double getValue();
+}
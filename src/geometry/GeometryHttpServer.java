@@ -0,0 +1,595 @@
+package geometry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A JSON API over a GeometryLinkedList, served by the JDK's built-in HttpServer
+ * on the loopback address.
+ *
+ *   POST   /shapes              add the shapes of an NDJSON body, one object per
+ *                               line as read by GeometryImporter, e.g.
+ *                               {"type":"circle","radius":2.5}
+ *   GET    /shapes?offset=&limit=   a page of shapes, oldest first
+ *   GET    /shapes/{index}      one shape by index
+ *   GET    /shapes/id/{id}      one shape by ID
+ *   DELETE /shapes/{index}      remove a shape by index
+ *   DELETE /shapes/id/{id}      remove a shape by ID
+ *   GET    /aggregates          count, sum, min, max and mean of every metric,
+ *                               overall and per shape kind
+ *
+ * A shape is written as {"id":1,"index":0,"type":"Circle","radius":2.5,
+ * "area":19.63...,"perimeter":15.70...}, with full-precision numbers. A metric
+ * that cannot be calculated, such as the area of a degenerate triangle, is
+ * written as null and left out of the aggregates.
+ *
+ * Every change to the list increments a version number, which list pages and
+ * aggregates return as their ETag. A client that polls with If-None-Match gets
+ * 304 Not Modified without the server taking a lock or rendering anything until
+ * the list changes.
+ *
+ * Requests are handled on virtual threads. Reads share a read lock and changes
+ * take the write lock, so the list is never accessed concurrently with a change.
+ * List pages copy their shapes' parameters under the lock and stream the JSON
+ * afterwards, in chunks, so a slow client does not hold up writers. If a journal
+ * is given, a change is synced to it before it is acknowledged.
+ */
+public class GeometryHttpServer implements AutoCloseable {
+    /** Port used when none is given on the command line. */
+    public static final int DEFAULT_PORT = 8150;
+
+    /** Number of shapes in a page when the request has no limit. */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /** Largest page a request may ask for. */
+    public static final int MAX_LIMIT = 10_000;
+
+    private final GeometryLinkedList list;
+    private final GeometryJournal journal;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong version = new AtomicLong();
+    private final GeometryListener versionListener = new GeometryListener() {
+        @Override
+        public void geometryAdded(int index, Geometry geometry) {
+            version.incrementAndGet();
+        }
+
+        @Override
+        public void geometryRemoved(int index, Geometry geometry) {
+            version.incrementAndGet();
+        }
+
+        @Override
+        public void geometryReplaced(int index, Geometry previous, Geometry replacement) {
+            // The shapes are equal, so cached representations stay valid.
+        }
+
+        @Override
+        public void geometryChanged(Geometry geometry) {
+            version.incrementAndGet();
+        }
+    };
+
+    /**
+     * Starts a server on a loopback port.
+     *
+     * @param list    The list to serve. Other code must not change it while the server runs.
+     * @param journal The journal recording the list, or null.
+     * @param port    The port, or 0 for any free port.
+     * @throws IOException if the port cannot be bound.
+     */
+    public GeometryHttpServer(GeometryLinkedList list, GeometryJournal journal, int port) throws IOException {
+        this.list = list;
+        this.journal = journal;
+        list.addListener(versionListener);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/shapes", exchange -> handle(exchange, this::shapes));
+        server.createContext("/aggregates", exchange -> handle(exchange, this::aggregates));
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the current version of the list, as used in ETags.
+     *
+     * @return The number of changes seen since the server started.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Stops the server, waiting up to a second for requests in progress.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        list.removeListener(versionListener);
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange, String path) throws IOException;
+    }
+
+    /**
+     * Runs a handler and turns request errors into JSON error responses.
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        try (exchange) {
+            try {
+                handler.handle(exchange, path);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (IllegalStateException e) {
+                sendError(exchange, 409, e.getMessage());
+            }
+        }
+    }
+
+    private void shapes(HttpExchange exchange, String path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.equals("/shapes")) {
+            if (method.equals("GET") || method.equals("HEAD")) {
+                listShapes(exchange);
+            } else if (method.equals("POST")) {
+                addShapes(exchange);
+            } else {
+                sendMethodNotAllowed(exchange, "GET, HEAD, POST");
+            }
+            return;
+        }
+
+        boolean byId = path.startsWith("/shapes/id/");
+        String key = path.substring(byId ? "/shapes/id/".length() : "/shapes/".length());
+        long number;
+        try {
+            number = Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            sendError(exchange, 404, "No such resource: " + path);
+            return;
+        }
+        if (method.equals("GET") || method.equals("HEAD")) {
+            getShape(exchange, byId, number);
+        } else if (method.equals("DELETE")) {
+            removeShape(exchange, byId, number);
+        } else {
+            sendMethodNotAllowed(exchange, "GET, HEAD, DELETE");
+        }
+    }
+
+    private void addShapes(HttpExchange exchange) throws IOException {
+        // Parse and validate outside the lock, then add every accepted shape at once.
+        GeometryLinkedList parsed = new GeometryLinkedList();
+        ImportReport report;
+        try (InputStream body = exchange.getRequestBody()) {
+            report = GeometryImporter.importFrom(new InputStreamReader(body, StandardCharsets.UTF_8),
+                    GeometryImporter.Format.NDJSON, parsed);
+        }
+        if (report.getAccepted() == 0 && report.getRejected() == 0) {
+            throw new IllegalArgumentException("The request body has no shapes.");
+        }
+
+        long[] ids = new long[parsed.size()];
+        int firstIndex;
+        lock.writeLock().lock();
+        try {
+            firstIndex = list.size();
+            int i = 0;
+            for (Geometry geometry : parsed) {
+                ids[i++] = list.addWithId(geometry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        syncJournal();
+
+        GeometryRenderer json = new GeometryRenderer();
+        json.append("{\"version\":").append(version.get()).append(",\"accepted\":[");
+        for (int i = 0; i < ids.length; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(ids[i])
+                    .append(",\"index\":").append(firstIndex + i).append('}');
+        }
+        json.append("],\"rejected\":").append(report.getRejected()).append(",\"rejections\":[");
+        int r = 0;
+        for (ImportReport.Rejection rejection : report.getRejections()) {
+            json.append(r++ == 0 ? "" : ",").append("{\"line\":").append(rejection.getLine())
+                    .append(",\"reason\":");
+            appendString(json, rejection.getReason());
+            json.append('}');
+        }
+        json.append("]}");
+        if (ids.length == 1) {
+            exchange.getResponseHeaders().set("Location", "/shapes/id/" + ids[0]);
+        }
+        send(exchange, ids.length > 0 ? 201 : 400, json);
+    }
+
+    private void getShape(HttpExchange exchange, boolean byId, long number) throws IOException {
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        ShapeKind kind;
+        long id;
+        int index;
+        lock.readLock().lock();
+        try {
+            index = byId ? list.indexOfId(number) : (number < list.size() ? (int) number : -1);
+            if (index < 0) {
+                kind = null;
+                id = 0;
+            } else {
+                Geometry geometry = list.findByIndex(index);
+                kind = ShapeKind.of(geometry);
+                kind.getParameters(geometry, parameters);
+                id = list.getId(index);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (kind == null) {
+            sendError(exchange, 404, "No geometry with " + (byId ? "ID " : "index ") + number + ".");
+            return;
+        }
+        GeometryRenderer json = new GeometryRenderer();
+        appendShape(json, id, index, kind, parameters);
+        send(exchange, 200, json);
+    }
+
+    private void removeShape(HttpExchange exchange, boolean byId, long number) throws IOException {
+        boolean removed;
+        lock.writeLock().lock();
+        try {
+            removed = byId ? list.removeById(number) : number <= Integer.MAX_VALUE && list.removeByIndex((int) number);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!removed) {
+            sendError(exchange, 404, "No geometry with " + (byId ? "ID " : "index ") + number + ".");
+            return;
+        }
+        syncJournal();
+        GeometryRenderer json = new GeometryRenderer();
+        json.append("{\"version\":").append(version.get()).append('}');
+        send(exchange, 200, json);
+    }
+
+    private void listShapes(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int offset = parseInt(query, "offset", 0, Integer.MAX_VALUE, 0);
+        int limit = parseInt(query, "limit", 0, MAX_LIMIT, DEFAULT_LIMIT);
+        if (notModified(exchange)) {
+            return;
+        }
+
+        // Copy the page under the lock; the JSON is rendered and streamed after it is released.
+        long pageVersion;
+        int total;
+        int count;
+        long[] ids;
+        byte[] tags;
+        double[] parameters;
+        lock.readLock().lock();
+        try {
+            pageVersion = version.get();
+            total = list.size();
+            count = Math.max(0, Math.min(limit, total - offset));
+            ids = new long[count];
+            tags = new byte[count];
+            parameters = new double[count * ShapeKind.MAX_PARAMETERS];
+            double[] shapeParameters = new double[ShapeKind.MAX_PARAMETERS];
+            for (int i = 0; i < count; i++) {
+                Geometry geometry = list.findByIndex(offset + i);
+                ShapeKind kind = ShapeKind.of(geometry);
+                kind.getParameters(geometry, shapeParameters);
+                System.arraycopy(shapeParameters, 0, parameters, i * ShapeKind.MAX_PARAMETERS, kind.getParameterCount());
+                tags[i] = kind.tag();
+                ids[i] = list.getId(offset + i);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("ETag", etag(pageVersion));
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+            GeometryRenderer json = new GeometryRenderer();
+            json.append("{\"version\":").append(pageVersion).append(",\"total\":").append(total)
+                    .append(",\"offset\":").append(offset).append(",\"items\":[");
+            double[] shapeParameters = new double[ShapeKind.MAX_PARAMETERS];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(parameters, i * ShapeKind.MAX_PARAMETERS, shapeParameters, 0, ShapeKind.MAX_PARAMETERS);
+                if (i > 0) {
+                    json.append(',');
+                }
+                appendShape(json, ids[i], offset + i, ShapeKind.fromTag(tags[i]), shapeParameters);
+                if (json.length() >= GeometryRenderer.BLOCK_SIZE) {
+                    json.flushTo(out);
+                }
+            }
+            json.append("]}");
+            json.flushTo(out);
+        }
+    }
+
+    private void aggregates(HttpExchange exchange, String path) throws IOException {
+        if (!path.equals("/aggregates")) {
+            sendError(exchange, 404, "No such resource: " + path);
+            return;
+        }
+        if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+            sendMethodNotAllowed(exchange, "GET, HEAD");
+            return;
+        }
+        if (notModified(exchange)) {
+            return;
+        }
+
+        long aggregateVersion;
+        Map<Metric, Map<ShapeKind, DoubleSummaryStatistics>> byMetric = new EnumMap<>(Metric.class);
+        // The write lock, because computing metrics may fill the shapes' metric caches.
+        lock.writeLock().lock();
+        try {
+            aggregateVersion = version.get();
+            for (Metric metric : Metric.values()) {
+                byMetric.put(metric, list.summarizeByKind(metric));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        GeometryRenderer json = new GeometryRenderer();
+        json.append("{\"version\":").append(aggregateVersion);
+        for (Map.Entry<Metric, Map<ShapeKind, DoubleSummaryStatistics>> entry : byMetric.entrySet()) {
+            DoubleSummaryStatistics total = new DoubleSummaryStatistics();
+            entry.getValue().values().forEach(total::combine);
+            json.append(",\"").append(metricName(entry.getKey())).append("\":");
+            appendStatistics(json, total);
+            json.append(",\"byKind\":{");
+            boolean first = true;
+            for (Map.Entry<ShapeKind, DoubleSummaryStatistics> kind : entry.getValue().entrySet()) {
+                json.append(first ? "\"" : ",\"").append(kind.getKey().getDisplayName()).append("\":");
+                appendSummary(json, kind.getValue());
+                first = false;
+            }
+            json.append("}}");
+        }
+        json.append('}');
+        exchange.getResponseHeaders().set("ETag", etag(aggregateVersion));
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        send(exchange, 200, json);
+    }
+
+    /**
+     * Answers 304 Not Modified if the request's If-None-Match has the current ETag.
+     */
+    private boolean notModified(HttpExchange exchange) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String current = etag(version.get());
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals(current) || trimmed.equals("*")) {
+                exchange.getResponseHeaders().set("ETag", current);
+                exchange.sendResponseHeaders(304, -1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void syncJournal() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        // Under the read lock, so that a checkpoint never sees the list change.
+        lock.readLock().lock();
+        try {
+            journal.sync();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static void appendShape(GeometryRenderer json, long id, int index, ShapeKind kind, double[] p) {
+        json.append("{\"id\":").append(id).append(",\"index\":").append(index)
+                .append(",\"type\":\"").append(kind.getDisplayName()).append('"');
+        for (int i = 0; i < kind.getParameterCount(); i++) {
+            json.append(",\"").append(kind.getParameterName(i)).append("\":");
+            appendNumber(json, p[i]);
+        }
+        for (Metric metric : Metric.values()) {
+            if (metric.appliesTo(kind)) {
+                json.append(",\"").append(metricName(metric)).append("\":");
+                appendNumber(json, metric.tryOf(kind, p[0], p[1], p[2], p[3]));
+            }
+        }
+        json.append('}');
+    }
+
+    private static void appendSummary(GeometryRenderer json, DoubleSummaryStatistics statistics) {
+        appendStatistics(json, statistics);
+        json.append('}');
+    }
+
+    /**
+     * Appends a summary object without its closing brace, so that fields can follow.
+     */
+    private static void appendStatistics(GeometryRenderer json, DoubleSummaryStatistics statistics) {
+        json.append("{\"count\":").append(statistics.getCount());
+        if (statistics.getCount() > 0) {
+            json.append(",\"sum\":");
+            appendNumber(json, statistics.getSum());
+            json.append(",\"min\":");
+            appendNumber(json, statistics.getMin());
+            json.append(",\"max\":");
+            appendNumber(json, statistics.getMax());
+            json.append(",\"mean\":");
+            appendNumber(json, statistics.getAverage());
+        }
+    }
+
+    /**
+     * Returns the JSON name of a metric, e.g. "surfaceArea".
+     */
+    private static String metricName(Metric metric) {
+        return metric == Metric.SURFACE_AREA ? "surfaceArea" : metric.name().toLowerCase();
+    }
+
+    private static void appendNumber(GeometryRenderer json, double value) {
+        // JSON has no NaN or Infinity.
+        json.append(Double.isFinite(value) ? Double.toString(value) : "null");
+    }
+
+    private static void appendString(GeometryRenderer json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    private static int parseInt(Map<String, String> query, String name, int min, int max, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= min && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException("Parameter '" + name + "' must be an integer from " + min + " to " + max + ".");
+    }
+
+    private static void send(HttpExchange exchange, int status, GeometryRenderer json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        GeometryRenderer json = new GeometryRenderer();
+        json.append("{\"error\":");
+        appendString(json, message);
+        json.append('}');
+        send(exchange, status, json);
+    }
+
+    private static void sendMethodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendError(exchange, 405, "Method " + exchange.getRequestMethod() + " is not allowed.");
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     *
+     * @param args An optional port, DEFAULT_PORT if omitted, and an optional
+     *             snapshot file to recover from and journal changes to.
+     * @throws IOException if the port cannot be bound or the snapshot cannot be recovered.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GeometryLinkedList list = new GeometryLinkedList();
+        GeometryJournal journal = args.length > 1 ? GeometryJournal.open(Path.of(args[1]), list) : null;
+        GeometryHttpServer server = new GeometryHttpServer(list, journal, port);
+        System.out.println("Geometry HTTP server listening on http://"
+                + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort() + "/shapes");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            if (journal != null) {
+                try {
+                    journal.checkpoint();
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Error saving geometries: " + e.getMessage());
+                }
+            }
+        }));
+    }
+}
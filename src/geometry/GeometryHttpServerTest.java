@@ -0,0 +1,138 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for GeometryHttpServer.
+ */
+public class GeometryHttpServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private HttpResponse<String> send(GeometryHttpServer server, String method, String path, String body,
+            String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Tests creating shapes and fetching them by index and by ID.
+     */
+    @Test
+    void testCreateAndFetch() throws Exception {
+        GeometryLinkedList list = new GeometryLinkedList();
+        try (GeometryHttpServer server = new GeometryHttpServer(list, null, 0)) {
+            HttpResponse<String> created = send(server, "POST", "/shapes",
+                    "{\"type\":\"circle\",\"radius\":2}\n{\"type\":\"sphere\",\"radius\":-1}\n{\"type\":\"sphere\",\"radius\":1}\n",
+                    null);
+            assertEquals(201, created.statusCode());
+            assertTrue(created.body().contains("\"accepted\":[{\"id\":1,\"index\":0},{\"id\":2,\"index\":1}]"));
+            assertTrue(created.body().contains("\"rejected\":1"));
+            assertEquals(2, list.size());
+
+            HttpResponse<String> byIndex = send(server, "GET", "/shapes/0", null, null);
+            assertEquals(200, byIndex.statusCode());
+            assertEquals("{\"id\":1,\"index\":0,\"type\":\"Circle\",\"radius\":2.0,\"area\":" + Math.PI * 4
+                    + ",\"perimeter\":" + Math.PI * 4 + "}", byIndex.body());
+
+            HttpResponse<String> byId = send(server, "GET", "/shapes/id/2", null, null);
+            assertEquals(200, byId.statusCode());
+            assertTrue(byId.body().startsWith("{\"id\":2,\"index\":1,\"type\":\"Sphere\""));
+
+            assertEquals(404, send(server, "GET", "/shapes/7", null, null).statusCode());
+            assertEquals(200, send(server, "DELETE", "/shapes/id/1", null, null).statusCode());
+            assertEquals(404, send(server, "GET", "/shapes/id/1", null, null).statusCode());
+            assertEquals(1, list.size());
+        }
+    }
+
+    /**
+     * Tests paginated listing, parameter validation and conditional GETs.
+     */
+    @Test
+    void testListPagesAndETags() throws Exception {
+        GeometryLinkedList list = new GeometryLinkedList();
+        for (int i = 1; i <= 250; i++) {
+            list.add(new Circle(i));
+        }
+        try (GeometryHttpServer server = new GeometryHttpServer(list, null, 0)) {
+            HttpResponse<String> page = send(server, "GET", "/shapes?offset=240&limit=20", null, null);
+            assertEquals(200, page.statusCode());
+            assertTrue(page.body().startsWith("{\"version\":0,\"total\":250,\"offset\":240,\"items\":[{\"id\":241,"));
+            assertEquals(10, page.body().split("\"type\"").length - 1);
+            String etag = page.headers().firstValue("ETag").orElseThrow();
+
+            assertEquals(100, send(server, "GET", "/shapes", null, null).body().split("\"type\"").length - 1);
+            assertEquals(400, send(server, "GET", "/shapes?limit=100000", null, null).statusCode());
+
+            assertEquals(304, send(server, "GET", "/shapes?offset=240", null, etag).statusCode());
+            assertEquals(304, send(server, "GET", "/aggregates", null, etag).statusCode());
+            list.add(new Circle(1));
+            assertEquals(200, send(server, "GET", "/shapes?offset=240", null, etag).statusCode());
+            assertEquals(1, server.getVersion());
+        }
+    }
+
+    /**
+     * Tests the aggregates and that created shapes are journaled.
+     */
+    @Test
+    void testAggregatesAndJournal() throws Exception {
+        Path directory = Files.createTempDirectory("geometry-http");
+        Path snapshot = directory.resolve("shapes.geos");
+        try {
+            GeometryLinkedList list = new GeometryLinkedList();
+            try (GeometryJournal journal = GeometryJournal.open(snapshot, list);
+                    GeometryHttpServer server = new GeometryHttpServer(list, journal, 0)) {
+                send(server, "POST", "/shapes", "{\"type\":\"rectangle\",\"length\":2,\"width\":2}\n{\"type\":\"rectangle\",\"length\":4,\"width\":4}\n", null);
+                HttpResponse<String> aggregates = send(server, "GET", "/aggregates", null, null);
+                assertEquals(200, aggregates.statusCode());
+                assertTrue(aggregates.body().contains(
+                        "\"area\":{\"count\":2,\"sum\":20.0,\"min\":4.0,\"max\":16.0,\"mean\":10.0,\"byKind\":{\"Rectangle\":"));
+                assertTrue(aggregates.body().contains("\"volume\":{\"count\":0,\"byKind\":{}}"));
+            }
+            GeometryLinkedList recovered = new GeometryLinkedList();
+            GeometryJournal.open(snapshot, recovered).close();
+            assertEquals(2, recovered.size());
+        } finally {
+            Files.deleteIfExists(GeometryJournal.logFile(snapshot));
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Tests that a degenerate triangle is listed with a null area and does not
+     * stop the aggregates of the other shapes.
+     */
+    @Test
+    void testDegenerateTriangle() throws Exception {
+        GeometryLinkedList list = new GeometryLinkedList();
+        list.add(new Triangle(0.7308781907032909, 0.41008081149220166, 1.1409590021954923));
+        list.add(new Rectangle(2, 3));
+        try (GeometryHttpServer server = new GeometryHttpServer(list, null, 0)) {
+            HttpResponse<String> shapes = send(server, "GET", "/shapes", null, null);
+            assertEquals(200, shapes.statusCode());
+            assertTrue(shapes.body().contains("\"area\":null,\"perimeter\":2.2819180043909846}"));
+            assertTrue(shapes.body().endsWith("\"type\":\"Rectangle\",\"length\":2.0,\"width\":3.0,\"area\":6.0,"
+                    + "\"perimeter\":10.0}]}"));
+
+            HttpResponse<String> aggregates = send(server, "GET", "/aggregates", null, null);
+            assertEquals(200, aggregates.statusCode());
+            assertTrue(aggregates.body().contains("\"area\":{\"count\":1,\"sum\":6.0,"));
+            assertTrue(aggregates.body().contains("\"perimeter\":{\"count\":2,"));
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package geometry;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Streams shape definitions from a CSV or NDJSON file into a GeometryCollection.
+ *
+ * A CSV row holds the shape type followed by its parameters in ShapeKind order,
+ * such as "circle,2.5" or "triangular_prism,3,4,5,10". A first row whose first
+ * field is "type" is treated as a header. An NDJSON row is a flat object that
+ * names the parameters, such as {"type":"circle","radius":2.5}. Types match the
+ * ShapeKind names, ignoring case, '_', '-' and spaces. Blank lines and lines
+ * starting with '#' are skipped.
+ *
+ * The input is read in large blocks into one char buffer and parsed in place.
+ * Plain decimal numbers are converted without creating strings, and only rejected
+ * rows are copied out of the buffer. Parsed rows are collected into a batch of
+ * primitive columns. The batch is then validated with the constructors' rules,
+ * and its valid rows are appended with a single addAll call, or written straight
+ * into the columns when the target is a GeometryStore. Rows that cannot be parsed
+ * or fail validation are listed in the returned ImportReport.
+ */
+public final class GeometryImporter {
+    /**
+     * The supported input formats.
+     */
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Chooses a format from a file extension: .csv, or .ndjson, .jsonl and .json.
+         *
+         * @param path The file.
+         * @return The format.
+         * @throws IllegalArgumentException if the extension is not recognized.
+         */
+        public static Format of(Path path) {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            } else if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Unknown import format for " + path + ".");
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int BATCH_SIZE = 1024;
+    private static final int MAX_FIELDS = 8;
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final ShapeKind[] KINDS = ShapeKind.values();
+    private static final char[][] KIND_NAMES = new char[KINDS.length][];
+
+    static {
+        for (ShapeKind kind : KINDS) {
+            KIND_NAMES[kind.ordinal()] = kind.name().replace("_", "").toLowerCase(Locale.ROOT).toCharArray();
+        }
+    }
+
+    private final GeometryCollection target;
+    private final GeometryStore store;
+    private final Format format;
+    private final ImportReport report = new ImportReport();
+
+    private char[] buffer = new char[BUFFER_SIZE];
+    private boolean firstRow = true;
+
+    /** The pending batch: kind, parameter columns, line number and text bounds of each row. */
+    private final ShapeKind[] batchKinds = new ShapeKind[BATCH_SIZE];
+    private final double[][] batchParameters = new double[ShapeKind.MAX_PARAMETERS][BATCH_SIZE];
+    private final long[] batchLines = new long[BATCH_SIZE];
+    private final int[] batchStarts = new int[BATCH_SIZE];
+    private final int[] batchEnds = new int[BATCH_SIZE];
+    private int batchSize;
+
+    private final Geometry[] created = new Geometry[BATCH_SIZE];
+    private final double[] row = new double[ShapeKind.MAX_PARAMETERS];
+
+    /** The fields of the NDJSON object being parsed. */
+    private final int[] keyStarts = new int[MAX_FIELDS];
+    private final int[] keyEnds = new int[MAX_FIELDS];
+    private final double[] fieldValues = new double[MAX_FIELDS];
+
+    private GeometryImporter(GeometryCollection target, Format format) {
+        this.target = target;
+        this.store = target instanceof GeometryStore ? (GeometryStore) target : null;
+        this.format = format;
+    }
+
+    /**
+     * Imports a UTF-8 file, choosing the format from its extension.
+     *
+     * @param path   The file to import.
+     * @param target The collection to append to.
+     * @return The report of accepted and rejected rows.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if the extension is not recognized.
+     */
+    public static ImportReport importFile(Path path, GeometryCollection target) throws IOException {
+        Format format = Format.of(path);
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return importFrom(reader, format, target);
+        }
+    }
+
+    /**
+     * Imports all rows of a reader. The reader is not closed.
+     *
+     * @param reader The input.
+     * @param format The format of the input.
+     * @param target The collection to append to.
+     * @return The report of accepted and rejected rows.
+     * @throws IOException if reading fails.
+     */
+    public static ImportReport importFrom(Reader reader, Format format, GeometryCollection target) throws IOException {
+        GeometryImporter importer = new GeometryImporter(target, format);
+        importer.run(reader);
+        return importer.report;
+    }
+
+    /**
+     * Splits the input into lines within the buffer. The batch is flushed before
+     * the buffer is compacted or refilled, because its rows point into the buffer.
+     */
+    private void run(Reader reader) throws IOException {
+        int start = 0;
+        int scan = 0;
+        int limit = 0;
+        long line = 0;
+        while (true) {
+            int newline = -1;
+            for (int i = scan; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    newline = i;
+                    break;
+                }
+            }
+            if (newline >= 0) {
+                processLine(start, newline, ++line);
+                start = newline + 1;
+                scan = start;
+                continue;
+            }
+
+            flushBatch();
+            int pending = limit - start;
+            System.arraycopy(buffer, start, buffer, 0, pending);
+            start = 0;
+            scan = pending;
+            limit = pending;
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                if (limit > 0) {
+                    processLine(0, limit, ++line);
+                }
+                break;
+            }
+            limit += read;
+        }
+        flushBatch();
+    }
+
+    private void processLine(int start, int end, long line) {
+        if (line == 1 && start < end && buffer[start] == '\uFEFF') {
+            start++;
+        }
+        start = skipWhitespace(start, end);
+        end = trimEnd(start, end);
+        if (start == end || buffer[start] == '#') {
+            return;
+        }
+        if (format == Format.CSV) {
+            parseCsvRow(start, end, line);
+        } else {
+            parseJsonRow(start, end, line);
+        }
+    }
+
+    private void parseCsvRow(int start, int end, long line) {
+        int typeEnd = indexOf(',', start, end);
+        int typeTrimmedEnd = trimEnd(start, typeEnd);
+        if (firstRow) {
+            firstRow = false;
+            if (matches(start, typeTrimmedEnd, "type")) {
+                return;
+            }
+        }
+        ShapeKind kind = parseKind(buffer, start, typeTrimmedEnd);
+        if (kind == null) {
+            reject(line, "Unknown shape type.", start, end);
+            return;
+        }
+
+        int slot = batchSize;
+        int count = 0;
+        for (int position = typeEnd; position < end; count++) {
+            int fieldStart = position + 1;
+            int fieldEnd = indexOf(',', fieldStart, end);
+            if (count < kind.getParameterCount()) {
+                int valueStart = skipWhitespace(fieldStart, fieldEnd);
+                int valueEnd = trimEnd(valueStart, fieldEnd);
+                double value = parseNumber(buffer, valueStart, valueEnd);
+                if (Double.isNaN(value)) {
+                    reject(line, "Invalid number '" + new String(buffer, valueStart, valueEnd - valueStart) + "'.",
+                            start, end);
+                    return;
+                }
+                batchParameters[count][slot] = value;
+            }
+            position = fieldEnd;
+        }
+        if (count != kind.getParameterCount()) {
+            reject(line, "Expected " + kind.getParameterCount() + " parameters for " + kind.getDisplayName()
+                    + " but found " + count + ".", start, end);
+            return;
+        }
+        enqueue(kind, line, start, end);
+    }
+
+    private void parseJsonRow(int start, int end, long line) {
+        int i = start;
+        if (buffer[i] != '{') {
+            reject(line, "Expected a JSON object.", start, end);
+            return;
+        }
+        i = skipWhitespace(i + 1, end);
+        int typeStart = -1;
+        int typeEnd = -1;
+        int fields = 0;
+        if (i < end && buffer[i] == '}') {
+            i++;
+        } else {
+            while (true) {
+                if (i >= end || buffer[i] != '"') {
+                    reject(line, "Malformed JSON object.", start, end);
+                    return;
+                }
+                int keyStart = i + 1;
+                int keyEnd = indexOfQuote(keyStart, end);
+                if (keyEnd < 0) {
+                    reject(line, "Malformed or escaped JSON string.", start, end);
+                    return;
+                }
+                i = skipWhitespace(keyEnd + 1, end);
+                if (i >= end || buffer[i] != ':') {
+                    reject(line, "Malformed JSON object.", start, end);
+                    return;
+                }
+                i = skipWhitespace(i + 1, end);
+                boolean isType = matches(keyStart, keyEnd, "type");
+
+                if (i < end && buffer[i] == '"') {
+                    int valueEnd = indexOfQuote(i + 1, end);
+                    if (valueEnd < 0 || !isType) {
+                        reject(line, valueEnd < 0 ? "Malformed or escaped JSON string."
+                                : "Field '" + new String(buffer, keyStart, keyEnd - keyStart) + "' must be a number.",
+                                start, end);
+                        return;
+                    }
+                    typeStart = i + 1;
+                    typeEnd = valueEnd;
+                    i = valueEnd + 1;
+                } else {
+                    int valueStart = i;
+                    while (i < end && buffer[i] != ',' && buffer[i] != '}' && !Character.isWhitespace(buffer[i])) {
+                        i++;
+                    }
+                    double value = parseNumber(buffer, valueStart, i);
+                    if (isType || Double.isNaN(value) || fields == MAX_FIELDS) {
+                        reject(line, isType ? "Field 'type' must be a string."
+                                : fields == MAX_FIELDS ? "Too many fields."
+                                : "Invalid number '" + new String(buffer, valueStart, i - valueStart) + "'.",
+                                start, end);
+                        return;
+                    }
+                    keyStarts[fields] = keyStart;
+                    keyEnds[fields] = keyEnd;
+                    fieldValues[fields++] = value;
+                }
+
+                i = skipWhitespace(i, end);
+                if (i < end && buffer[i] == ',') {
+                    i = skipWhitespace(i + 1, end);
+                } else if (i < end && buffer[i] == '}') {
+                    i++;
+                    break;
+                } else {
+                    reject(line, "Malformed JSON object.", start, end);
+                    return;
+                }
+            }
+        }
+        if (skipWhitespace(i, end) != end) {
+            reject(line, "Unexpected text after the JSON object.", start, end);
+            return;
+        }
+        if (typeStart < 0) {
+            reject(line, "Missing field 'type'.", start, end);
+            return;
+        }
+        ShapeKind kind = parseKind(buffer, typeStart, typeEnd);
+        if (kind == null) {
+            reject(line, "Unknown shape type.", start, end);
+            return;
+        }
+
+        int slot = batchSize;
+        int seen = 0;
+        for (int f = 0; f < fields; f++) {
+            int parameter = 0;
+            while (parameter < kind.getParameterCount()
+                    && !matches(keyStarts[f], keyEnds[f], kind.getParameterName(parameter))) {
+                parameter++;
+            }
+            String key = parameter < kind.getParameterCount() ? null
+                    : new String(buffer, keyStarts[f], keyEnds[f] - keyStarts[f]);
+            if (key != null || (seen & (1 << parameter)) != 0) {
+                reject(line, key != null ? "Unknown field '" + key + "' for " + kind.getDisplayName() + "."
+                        : "Duplicate field '" + kind.getParameterName(parameter) + "'.", start, end);
+                return;
+            }
+            seen |= 1 << parameter;
+            batchParameters[parameter][slot] = fieldValues[f];
+        }
+        for (int parameter = 0; parameter < kind.getParameterCount(); parameter++) {
+            if ((seen & (1 << parameter)) == 0) {
+                reject(line, "Missing field '" + kind.getParameterName(parameter) + "' for "
+                        + kind.getDisplayName() + ".", start, end);
+                return;
+            }
+        }
+        enqueue(kind, line, start, end);
+    }
+
+    private void enqueue(ShapeKind kind, long line, int start, int end) {
+        batchKinds[batchSize] = kind;
+        batchLines[batchSize] = line;
+        batchStarts[batchSize] = start;
+        batchEnds[batchSize] = end;
+        if (++batchSize == BATCH_SIZE) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * Validates the pending rows and appends the valid ones to the target.
+     */
+    private void flushBatch() {
+        double[] p0 = batchParameters[0];
+        double[] p1 = batchParameters[1];
+        double[] p2 = batchParameters[2];
+        double[] p3 = batchParameters[3];
+        int accepted = 0;
+        int createdCount = 0;
+        for (int i = 0; i < batchSize; i++) {
+            ShapeKind kind = batchKinds[i];
+            String error = kind.validate(p0[i], p1[i], p2[i], p3[i]);
+            if (error != null) {
+                report.reject(batchLines[i], error, new String(buffer, batchStarts[i], batchEnds[i] - batchStarts[i]));
+                continue;
+            }
+            row[0] = p0[i];
+            row[1] = p1[i];
+            row[2] = p2[i];
+            row[3] = p3[i];
+            if (store != null) {
+                store.append(kind, row);
+            } else {
+                created[createdCount++] = kind.create(row);
+            }
+            accepted++;
+        }
+        if (createdCount > 0) {
+            target.addAll(created, 0, createdCount);
+            Arrays.fill(created, 0, createdCount, null);
+        }
+        report.accept(accepted);
+        batchSize = 0;
+    }
+
+    private void reject(long line, String reason, int start, int end) {
+        report.reject(line, reason, new String(buffer, start, end - start));
+    }
+
+    /**
+     * Matches a shape type against the ShapeKind names, ignoring case, '_', '-' and spaces.
+     *
+     * @return The kind, or null if none matches.
+     */
+    static ShapeKind parseKind(char[] text, int start, int end) {
+        for (ShapeKind kind : KINDS) {
+            char[] name = KIND_NAMES[kind.ordinal()];
+            int matched = 0;
+            int i = start;
+            for (; i < end; i++) {
+                char c = text[i];
+                if (c == '_' || c == '-' || c == ' ') {
+                    continue;
+                }
+                if (matched == name.length || Character.toLowerCase(c) != name[matched]) {
+                    break;
+                }
+                matched++;
+            }
+            if (i == end && matched == name.length) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a decimal number such as "-12.5e3" without allocating.
+     *
+     * Numbers with at most 15 significant digits and a decimal exponent within
+     * +-22 are exact in a double before scaling, so one multiplication or
+     * division by an exact power of ten gives the correctly rounded result, the
+     * same as Double.parseDouble. Other numbers are passed to Double.parseDouble.
+     * NaN, Infinity, hexadecimal and suffixed forms are not accepted.
+     *
+     * @return The value, or NaN if the text is not a decimal number.
+     */
+    static double parseNumber(char[] text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text[i] == '+' || text[i] == '-')) {
+            negative = text[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean sawDigit = false;
+        for (; i < end && text[i] >= '0' && text[i] <= '9'; i++) {
+            sawDigit = true;
+            int digit = text[i] - '0';
+            if (mantissa == 0 && digit == 0) {
+                continue;
+            }
+            if (significantDigits == MAX_EXACT_DIGITS) {
+                exact = false;
+            } else {
+                mantissa = mantissa * 10 + digit;
+                significantDigits++;
+            }
+        }
+        if (i < end && text[i] == '.') {
+            for (i++; i < end && text[i] >= '0' && text[i] <= '9'; i++) {
+                sawDigit = true;
+                int digit = text[i] - '0';
+                if (mantissa == 0 && digit == 0) {
+                    exponent--;
+                } else if (significantDigits == MAX_EXACT_DIGITS) {
+                    exact = false;
+                } else {
+                    mantissa = mantissa * 10 + digit;
+                    significantDigits++;
+                    exponent--;
+                }
+            }
+        }
+        if (!sawDigit) {
+            return Double.NaN;
+        }
+        if (i < end && (text[i] == 'e' || text[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (text[i] == '+' || text[i] == '-')) {
+                negativeExponent = text[i] == '-';
+                i++;
+            }
+            if (i == end) {
+                return Double.NaN;
+            }
+            int value = 0;
+            for (; i < end && text[i] >= '0' && text[i] <= '9'; i++) {
+                value = Math.min(value * 10 + (text[i] - '0'), 100_000);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (!exact || exponent < -22 || exponent > 22) {
+            return Double.parseDouble(new String(text, start, end - start));
+        }
+        double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    private boolean matches(int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(buffer[start + i]) != Character.toLowerCase(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Finds the closing quote of a JSON string, or returns -1 if it is missing or
+     * the string contains an escape.
+     */
+    private int indexOfQuote(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == '"') {
+                return i;
+            } else if (buffer[i] == '\\') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private int skipWhitespace(int start, int end) {
+        while (start < end && Character.isWhitespace(buffer[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && Character.isWhitespace(buffer[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+}
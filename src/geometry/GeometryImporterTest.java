@@ -0,0 +1,140 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the streaming GeometryImporter.
+ */
+public class GeometryImporterTest {
+    /**
+     * Tests that valid CSV rows are imported and invalid ones are reported with their line numbers.
+     */
+    @Test
+    void testCsvImportAndRejections() throws IOException {
+        String csv = "type,p0,p1,p2,p3\n"
+                + "circle,2.5\n"
+                + "Rectangular_Prism, 2, 3 ,4\r\n"
+                + "\n"
+                + "# a comment\n"
+                + "hexagon,1\n"
+                + "circle,-1\n"
+                + "triangle,1,2,10\n"
+                + "rectangle,2\n"
+                + "sphere,abc\n"
+                + "triangular-prism,3,4,5,10";
+        GeometryLinkedList list = new GeometryLinkedList();
+        ImportReport report = GeometryImporter.importFrom(new StringReader(csv), GeometryImporter.Format.CSV, list);
+
+        assertEquals(3, report.getAccepted());
+        assertEquals(5, report.getRejected());
+        assertEquals(new Circle(2.5).toString(), list.findByIndex(0).toString());
+        assertEquals(new RectangularPrism(2, 3, 4).toString(), list.findByIndex(1).toString());
+        assertTrue(list.findByIndex(2) instanceof TriangularPrism);
+
+        List<ImportReport.Rejection> rejections = report.getRejections();
+        assertEquals(6, rejections.get(0).getLine());
+        assertEquals("Unknown shape type.", rejections.get(0).getReason());
+        assertTrue(rejections.stream().anyMatch(r -> r.getLine() == 7 && r.getReason().equals("Radius must be positive.")));
+        assertTrue(rejections.stream().anyMatch(r -> r.getLine() == 8 && r.getContent().equals("triangle,1,2,10")));
+
+        StringBuilder out = new StringBuilder();
+        report.writeTo(out);
+        assertTrue(out.toString().startsWith("line,reason,content\n6,\"Unknown shape type.\",\"hexagon,1\"\n"));
+    }
+
+    /**
+     * Tests NDJSON rows, including field order, unknown and missing fields.
+     */
+    @Test
+    void testNdjsonImport() throws IOException {
+        String ndjson = "{\"type\":\"circle\",\"radius\":2.5}\n"
+                + "{ \"height\": 10, \"sideC\": 5, \"sideB\": 4, \"sideA\": 3, \"type\": \"TriangularPrism\" }\n"
+                + "{\"type\":\"rectangle\",\"length\":2}\n"
+                + "{\"type\":\"sphere\",\"radius\":1,\"color\":2}\n"
+                + "{\"type\":\"sphere\",\"radius\":\"1\"}\n"
+                + "[1,2]\n";
+        GeometryStore store = new GeometryStore();
+        ImportReport report = GeometryImporter.importFrom(new StringReader(ndjson), GeometryImporter.Format.NDJSON, store);
+
+        assertEquals(2, report.getAccepted());
+        assertEquals(4, report.getRejected());
+        assertEquals(ShapeKind.TRIANGULAR_PRISM, store.getKind(1));
+        assertEquals(10.0, store.getParameter(1, 3), 0.0);
+        assertEquals("Missing field 'width' for Rectangle.", report.getRejections().get(0).getReason());
+        assertEquals("Unknown field 'color' for Sphere.", report.getRejections().get(1).getReason());
+    }
+
+    /**
+     * Tests that an input larger than the read buffer and the batch imports every row in order.
+     */
+    @Test
+    void testLargeInputSpansBuffers() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        int rows = 20_000;
+        for (int i = 0; i < rows; i++) {
+            csv.append("circle,").append(i + 1).append(".25\n");
+        }
+        GeometryLinkedList list = new GeometryLinkedList();
+        ImportReport report = GeometryImporter.importFrom(new StringReader(csv.toString()), GeometryImporter.Format.CSV, list);
+
+        assertEquals(rows, report.getAccepted());
+        assertEquals(rows, list.size());
+        assertEquals(rows + 0.25, ((Circle) list.findByIndex(rows - 1)).getRadius(), 0.0);
+    }
+
+    /**
+     * Tests that the allocation-free number parser agrees with Double.parseDouble.
+     */
+    @Test
+    void testParseNumberMatchesParseDouble() {
+        Random random = new Random(5);
+        String[] fixed = { "0", "-0.0", "1e22", "1e23", "123456789012345678", "0.000001", ".5", "5.", "2.5E-3",
+            "4.35", "0.1", "1.7976931348623157e308", "4.9e-324", "+7" };
+        for (String text : fixed) {
+            assertEquals(Double.parseDouble(text), parse(text), 0.0, text);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            String text = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(30) - 10));
+            assertEquals(Double.parseDouble(text), parse(text), 0.0, text);
+            String fixedPoint = String.format(Locale.ROOT, "%." + random.nextInt(8) + "f", random.nextDouble() * 1000);
+            assertEquals(Double.parseDouble(fixedPoint), parse(fixedPoint), 0.0, fixedPoint);
+        }
+        for (String invalid : new String[] { "", "-", ".", "1e", "1.2.3", "NaN", "Infinity", "0x10", "2.5d", "1 2" }) {
+            assertTrue(Double.isNaN(parse(invalid)), invalid);
+        }
+    }
+
+    /**
+     * Tests that batch validation accepts exactly the parameters the constructors accept.
+     */
+    @Test
+    void testValidateMatchesConstructors() {
+        Random random = new Random(9);
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        for (int i = 0; i < 20_000; i++) {
+            ShapeKind kind = ShapeKind.values()[random.nextInt(ShapeKind.values().length)];
+            for (int p = 0; p < parameters.length; p++) {
+                parameters[p] = random.nextInt(12) - 2 + random.nextInt(2) * 0.5;
+            }
+            String error = kind.validate(parameters[0], parameters[1], parameters[2], parameters[3]);
+            try {
+                kind.create(parameters);
+                assertNull(error);
+            } catch (IllegalArgumentException e) {
+                assertEquals(e.getMessage(), error);
+            }
+        }
+    }
+
+    private static double parse(String text) {
+        return GeometryImporter.parseNumber(text.toCharArray(), 0, text.length());
+    }
+}
@@ -0,0 +1,232 @@
+package geometry;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of shared, frozen shapes, used to store one instance per distinct shape
+ * instead of one per occurrence in collections full of identical shapes.
+ *
+ * intern returns the pooled shape equal to its argument, adding a frozen copy of
+ * the argument on the first request. The argument itself is never frozen. The
+ * pooled shapes throw UnsupportedOperationException from their setters, so a
+ * change made through one reference can never show up through the others.
+ * Instead, a caller that wants to change a pooled shape takes a private copy
+ * with unshare and changes that; GeometryLinkedList.edit does this in place.
+ *
+ * The pool holds its shapes weakly, so a shape that nothing else uses any more
+ * is dropped, and it is bounded: once it holds maxSize shapes, intern returns new
+ * shapes unchanged instead of pooling them. The pool is safe to share between
+ * threads. Pooled shapes have their metrics computed before they are published,
+ * so readers on other threads never race to fill the metric caches.
+ */
+public class GeometryInterner {
+    /** Maximum number of distinct shapes pooled when no bound is given. */
+    public static final int DEFAULT_MAX_SIZE = 1 << 16;
+
+    private final int maxSize;
+    private final ConcurrentHashMap<Key, Entry> pool = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Geometry> cleared = new ReferenceQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /** The parameters of a pooled shape. Records compare doubles like Double.equals. */
+    private record Key(ShapeKind kind, double p0, double p1, double p2, double p3) {
+    }
+
+    /** A weak reference to a pooled shape that remembers its key for removal. */
+    private static final class Entry extends WeakReference<Geometry> {
+        final Key key;
+
+        Entry(Geometry geometry, Key key, ReferenceQueue<Geometry> queue) {
+            super(geometry, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Constructs an empty pool holding at most DEFAULT_MAX_SIZE shapes.
+     */
+    public GeometryInterner() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructs an empty pool.
+     *
+     * @param maxSize The maximum number of distinct shapes to pool.
+     * @throws IllegalArgumentException if maxSize is not positive.
+     */
+    public GeometryInterner(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive.");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the pooled shape equal to a shape, pooling a frozen copy if there is
+     * none yet.
+     *
+     * @param geometry The shape to look up.
+     * @return The pooled shape, or geometry itself if the pool is full.
+     * @throws IllegalArgumentException if the geometry is not one of the six shape classes.
+     */
+    public Geometry intern(Geometry geometry) {
+        ShapeKind kind = ShapeKind.of(geometry);
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        kind.getParameters(geometry, parameters);
+        Key key = new Key(kind, parameters[0], parameters[1], parameters[2], parameters[3]);
+        expungeCleared();
+
+        Entry entry = pool.get(key);
+        Geometry pooled = entry == null ? null : entry.get();
+        if (pooled == null) {
+            if (pool.size() >= maxSize) {
+                rejected.increment();
+                return geometry;
+            }
+            // Another thread may pool the same shape first; compute settles the race.
+            Geometry[] result = new Geometry[1];
+            boolean[] created = new boolean[1];
+            pool.compute(key, (k, current) -> {
+                Geometry shape = current == null ? null : current.get();
+                if (shape != null) {
+                    result[0] = shape;
+                    return current;
+                }
+                result[0] = freeze(kind.create(parameters));
+                created[0] = true;
+                return new Entry(result[0], k, cleared);
+            });
+            pooled = result[0];
+            if (created[0]) {
+                misses.increment();
+                return pooled;
+            }
+        }
+        if (pooled != geometry) {
+            hits.increment();
+            savedBytes.add(estimatedSize(kind));
+        }
+        return pooled;
+    }
+
+    /**
+     * Returns a shape that the caller may change: the shape itself if it is not
+     * frozen, or a new mutable copy if it is.
+     *
+     * @param geometry The shape.
+     * @return A shape equal to geometry whose setters work.
+     */
+    public static Geometry unshare(Geometry geometry) {
+        if (!isFrozen(geometry)) {
+            return geometry;
+        }
+        ShapeKind kind = ShapeKind.of(geometry);
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        kind.getParameters(geometry, parameters);
+        return kind.create(parameters);
+    }
+
+    /**
+     * Returns whether a shape is frozen, as pooled shapes are.
+     *
+     * @param geometry The shape.
+     * @return True if the shape's setters throw because it is shared.
+     */
+    public static boolean isFrozen(Geometry geometry) {
+        return geometry instanceof ObservableGeometry observable && observable.isFrozen();
+    }
+
+    /**
+     * Returns the number of shapes in the pool, including any that have been
+     * dropped but not yet removed.
+     *
+     * @return The pool size.
+     */
+    public int size() {
+        expungeCleared();
+        return pool.size();
+    }
+
+    /**
+     * Returns how many calls to intern returned an existing pooled shape in place
+     * of a different object.
+     *
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns how many calls to intern pooled a new shape.
+     *
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns how many calls to intern found the pool full and returned their
+     * argument unpooled.
+     *
+     * @return The number of rejected shapes.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Estimates the heap memory saved so far: the size of every shape that a hit
+     * made redundant, from estimatedSize. The estimate assumes that the caller
+     * keeps only the pooled shape.
+     *
+     * @return The saved memory in bytes.
+     */
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    /**
+     * Estimates the heap size of one shape of a kind on a 64-bit JVM with
+     * compressed references: a 12-byte header, the observer field, the parameters
+     * and two cached metrics, rounded up to 8 bytes.
+     *
+     * @param kind The kind of shape.
+     * @return The estimated size in bytes.
+     */
+    public static long estimatedSize(ShapeKind kind) {
+        long size = 12 + 4 + 8L * (kind.getParameterCount() + 2);
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * Freezes a new pooled shape after filling its metric caches.
+     */
+    private static Geometry freeze(Geometry geometry) {
+        for (Metric metric : Metric.values()) {
+            metric.tryOf(geometry);
+        }
+        ((ObservableGeometry) geometry).freeze();
+        return geometry;
+    }
+
+    /**
+     * Removes the entries of shapes that the garbage collector has dropped.
+     */
+    private void expungeCleared() {
+        Reference<? extends Geometry> reference;
+        while ((reference = cleared.poll()) != null) {
+            Entry entry = (Entry) reference;
+            pool.remove(entry.key, entry);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for value equality of shapes and for GeometryInterner.
+ */
+public class GeometryInternerTest {
+    /**
+     * Tests that shapes compare by kind and parameters, including read-only views,
+     * and that equal shapes have equal hash codes.
+     */
+    @Test
+    void testValueEquality() {
+        assertEquals(new Circle(2.5), new Circle(2.5));
+        assertEquals(new Circle(2.5).hashCode(), new Circle(2.5).hashCode());
+        assertNotEquals(new Circle(2.5), new Sphere(2.5));
+        assertNotEquals(new Triangle(3, 4, 5), new Triangle(4, 3, 5));
+        assertEquals(new TriangularPrism(3, 4, 5, 2), GeometryViews.of(ShapeKind.TRIANGULAR_PRISM, 3, 4, 5, 2));
+        assertEquals(GeometryViews.of(ShapeKind.RECTANGLE, 2, 3, 0, 0), new Rectangle(2, 3));
+
+        RectangularPrism prism = new RectangularPrism(1, 1, 1);
+        RectangularPrism other = new RectangularPrism(1, 1, 1);
+        assertEquals(prism, other);
+        prism.setHeight(2);
+        assertNotEquals(prism, other);
+    }
+
+    /**
+     * Tests that equal shapes intern to one frozen instance, that the caller's
+     * shape stays mutable, and that a full pool passes new shapes through.
+     */
+    @Test
+    void testIntern() {
+        GeometryInterner interner = new GeometryInterner(2);
+        Circle circle = new Circle(2.5);
+        Geometry pooled = interner.intern(circle);
+        assertNotSame(circle, pooled);
+        assertEquals(circle, pooled);
+        assertSame(pooled, interner.intern(new Circle(2.5)));
+        assertSame(pooled, interner.intern(pooled));
+        assertTrue(GeometryInterner.isFrozen(pooled));
+        assertThrows(UnsupportedOperationException.class, () -> ((Circle) pooled).setRadius(3));
+        assertEquals(2.5, ((Circle) pooled).getRadius());
+        circle.setRadius(3);
+
+        Geometry copy = GeometryInterner.unshare(pooled);
+        assertNotSame(pooled, copy);
+        ((Circle) copy).setRadius(4);
+
+        interner.intern(new Rectangle(1, 2));
+        Sphere sphere = new Sphere(1);
+        assertSame(sphere, interner.intern(sphere));
+        assertEquals(2, interner.size());
+        assertEquals(1, interner.getHitCount());
+        assertEquals(2, interner.getMissCount());
+        assertEquals(1, interner.getRejectedCount());
+        assertEquals(GeometryInterner.estimatedSize(ShapeKind.CIRCLE), interner.getSavedBytes());
+    }
+
+    /**
+     * Tests that interning a list shares repeated shapes, and that editing one
+     * copies it without affecting the other occurrences, a MetricIndex or
+     * GeometryStatistics.
+     */
+    @Test
+    void testInternListAndCopyOnWrite() {
+        GeometryLinkedList list = new GeometryLinkedList();
+        for (int i = 0; i < 100; i++) {
+            list.add(i % 2 == 0 ? new Circle(1) : new Rectangle(2, 3));
+        }
+        try (MetricIndex index = new MetricIndex(list, Metric.AREA);
+                GeometryStatistics statistics = new GeometryStatistics(list)) {
+            double area = statistics.summarize(Metric.AREA).getSum();
+            assertEquals(100, list.internAll(new GeometryInterner()));
+            assertSame(list.findByIndex(0), list.findByIndex(98));
+            assertEquals(100, index.size());
+            assertEquals(area, statistics.summarize(Metric.AREA).getSum());
+
+            Circle edited = (Circle) list.edit(4);
+            assertNotSame(list.findByIndex(0), edited);
+            edited.setRadius(10);
+            assertEquals(1.0, ((Circle) list.findByIndex(0)).getRadius());
+            assertSame(edited, list.edit(4));
+            assertSame(edited, index.top(1).get(0));
+            assertEquals(100, index.size());
+            assertEquals(100 * Math.PI, statistics.summarize(ShapeKind.CIRCLE, Metric.AREA).getMax(), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package geometry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Makes the changes to a GeometryLinkedList durable with a write-ahead log next to
+ * a GeometrySnapshot file.
+ *
+ * The journal listens to the list and appends one record to the log for every
+ * geometry added or removed. Records are buffered in memory until sync() is
+ * called; sync() writes everything appended since the last call and forces it to
+ * disk with a single fsync, so a command that adds many shapes (or several threads
+ * that sync at the same time) pays for one fsync, not one per shape. Only additions
+ * and removals are logged; a setter that changes a shape in the list is saved by
+ * the next checkpoint, and replacing a shape by an equal one, as internAll does,
+ * changes nothing that needs logging.
+ *
+ * Every sync() that finds at least checkpointInterval records in the log also
+ * checkpoints: it writes the whole list to the snapshot, with the sequence number
+ * of the last logged record, and then empties the log. On open() the snapshot is
+ * loaded and only the log records with a higher sequence number are replayed, so a
+ * crash between writing the snapshot and emptying the log is harmless.
+ *
+ * The log format, version 1, is little-endian:
+ *
+ *   header   magic "GEOL" (int), version (short), reserved (short) - 8 bytes
+ *   records  payload length (int), CRC-32C of the payload (int), then the payload:
+ *            sequence (long), operation (byte) and either the ShapeKind tag (byte)
+ *            and getParameterCount() doubles of an added shape, or the index (int)
+ *            of a removed one
+ *
+ * A record whose length runs past the end of the file or whose checksum does not
+ * match was torn by a crash while it was being written. Recovery stops there and
+ * truncates the log, discarding that record and everything after it.
+ */
+public class GeometryJournal implements GeometryListener, AutoCloseable {
+    /** Current log format version. */
+    public static final short VERSION = 1;
+
+    /** Number of logged records after which sync() checkpoints, unless set otherwise. */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+
+    private static final int MAGIC = 0x4C4F4547; // "GEOL" read as a little-endian int
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+
+    private final Path snapshotFile;
+    private final GeometryLinkedList list;
+    private final int checkpointInterval;
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+    private final double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+
+    /** Records appended but not yet written to the channel. Guarded by this. */
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    /** Sequence number of the last appended record. Guarded by this. */
+    private long sequence;
+    /** Sequence number of the last record known to be on disk. Guarded by this. */
+    private long durableSequence;
+    /** Number of records in the log file, including pending ones. Guarded by this. */
+    private long logRecords;
+    /** Whether a thread is currently writing and forcing the log. Guarded by this. */
+    private boolean syncing;
+    private boolean closed;
+
+    /**
+     * Creates a journal over an open log positioned after its last record. open()
+     * uses this after recovery; tests use it to substitute the channel.
+     */
+    GeometryJournal(Path snapshotFile, GeometryLinkedList list, int checkpointInterval,
+            FileChannel channel, long sequence, long logRecords) {
+        this.snapshotFile = snapshotFile;
+        this.list = list;
+        this.checkpointInterval = checkpointInterval;
+        this.channel = channel;
+        this.sequence = sequence;
+        this.durableSequence = sequence;
+        this.logRecords = logRecords;
+    }
+
+    /**
+     * Opens a journal with the default checkpoint interval.
+     *
+     * @param snapshotFile The snapshot file; the log is kept next to it with ".wal" appended.
+     * @param list         The list to restore into and then record, normally empty.
+     * @return The journal, already listening to the list.
+     * @throws IOException if the snapshot or the log cannot be read, or the log is corrupt.
+     */
+    public static GeometryJournal open(Path snapshotFile, GeometryLinkedList list) throws IOException {
+        return open(snapshotFile, list, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Restores the list from the snapshot and the tail of the log, and starts
+     * recording its changes.
+     *
+     * @param snapshotFile       The snapshot file; the log is kept next to it with ".wal" appended.
+     * @param list               The list to restore into and then record, normally empty.
+     * @param checkpointInterval The number of logged records after which sync() checkpoints.
+     * @return The journal, already listening to the list.
+     * @throws IOException              if the snapshot or the log cannot be read, or the log is corrupt.
+     * @throws IllegalArgumentException if checkpointInterval is not positive.
+     */
+    public static GeometryJournal open(Path snapshotFile, GeometryLinkedList list, int checkpointInterval)
+            throws IOException {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive.");
+        }
+        long snapshotSequence = 0;
+        if (Files.exists(snapshotFile)) {
+            try (GeometrySnapshot snapshot = GeometrySnapshot.open(snapshotFile)) {
+                snapshot.loadInto(list);
+                snapshotSequence = snapshot.sequence();
+            }
+        }
+
+        Path logFile = logFile(snapshotFile);
+        FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long[] recovered = recover(channel, logFile, snapshotSequence, list);
+            GeometryJournal journal = new GeometryJournal(snapshotFile, list, checkpointInterval, channel,
+                    recovered[0], recovered[1]);
+            list.addListener(journal);
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the log file used for a snapshot file.
+     *
+     * @param snapshotFile The snapshot file.
+     * @return The log file next to it.
+     */
+    public static Path logFile(Path snapshotFile) {
+        return snapshotFile.resolveSibling(snapshotFile.getFileName() + ".wal");
+    }
+
+    /**
+     * Replays the valid records after the snapshot and truncates a torn tail.
+     *
+     * @return The last sequence number and the number of valid records in the log.
+     */
+    private static long[] recover(FileChannel channel, Path logFile, long snapshotSequence,
+            GeometryLinkedList list) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            // A new log, or one that was torn while its header was written.
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+            write(channel, header, 0);
+            channel.force(true);
+            return new long[] { snapshotSequence, 0 };
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Log " + logFile + " is too large to recover.");
+        }
+
+        ByteBuffer log = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        while (log.hasRemaining()) {
+            if (channel.read(log, log.position()) < 0) {
+                throw new IOException("Log " + logFile + " changed while it was being recovered.");
+            }
+        }
+        if (log.getInt(0) != MAGIC) {
+            throw new IOException(logFile + " is not a geometry log.");
+        }
+        short version = log.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported log version " + version + " in " + logFile + ".");
+        }
+
+        CRC32C crc = new CRC32C();
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        long lastSequence = snapshotSequence;
+        long records = 0;
+        int position = HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= size) {
+            int length = log.getInt(position);
+            if (length < 9 || length > size - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+            int payload = position + RECORD_HEADER_SIZE;
+            crc.reset();
+            crc.update(log.slice(payload, length));
+            if ((int) crc.getValue() != log.getInt(position + 4)) {
+                break;
+            }
+
+            long recordSequence = log.getLong(payload);
+            if (recordSequence > lastSequence) {
+                if (recordSequence != lastSequence + 1) {
+                    throw new IOException("Log " + logFile + " is missing records before sequence "
+                            + recordSequence + ".");
+                }
+                apply(log, payload + 8, length - 8, list, parameters, logFile);
+                lastSequence = recordSequence;
+            }
+            records++;
+            position = payload + length;
+        }
+
+        if (position < size) {
+            channel.truncate(position);
+            channel.force(true);
+        }
+        return new long[] { lastSequence, records };
+    }
+
+    /**
+     * Applies the operation of one record to the list.
+     */
+    private static void apply(ByteBuffer log, int offset, int length, GeometryLinkedList list,
+            double[] parameters, Path logFile) throws IOException {
+        byte operation = log.get(offset);
+        if (operation == ADD && length >= 2) {
+            ShapeKind kind = ShapeKind.fromTag(log.get(offset + 1));
+            if (length == 2 + 8 * kind.getParameterCount()) {
+                for (int p = 0; p < kind.getParameterCount(); p++) {
+                    parameters[p] = log.getDouble(offset + 2 + 8 * p);
+                }
+                list.add(kind.create(parameters));
+                return;
+            }
+        } else if (operation == REMOVE && length == 5) {
+            if (list.removeByIndex(log.getInt(offset + 1))) {
+                return;
+            }
+        }
+        throw new IOException("Log " + logFile + " contains a record that does not apply to the list.");
+    }
+
+    /**
+     * Returns the snapshot file the journal checkpoints to.
+     *
+     * @return The snapshot file.
+     */
+    public Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Returns the sequence number of the last change recorded by the journal.
+     * Sequence numbers continue across restarts and checkpoints.
+     *
+     * @return The sequence number, or 0 if nothing has been recorded yet.
+     */
+    public synchronized long sequence() {
+        return sequence;
+    }
+
+    @Override
+    public synchronized void geometryAdded(int index, Geometry geometry) {
+        ShapeKind kind = ShapeKind.of(geometry);
+        kind.getParameters(geometry, parameters);
+        int length = 8 + 2 + 8 * kind.getParameterCount();
+        ByteBuffer buffer = reserve(length);
+        buffer.put(ADD).put(kind.tag());
+        for (int p = 0; p < kind.getParameterCount(); p++) {
+            buffer.putDouble(parameters[p]);
+        }
+        seal(buffer, length);
+    }
+
+    @Override
+    public synchronized void geometryRemoved(int index, Geometry geometry) {
+        ByteBuffer buffer = reserve(8 + 5);
+        buffer.put(REMOVE).putInt(index);
+        seal(buffer, 8 + 5);
+    }
+
+    /**
+     * Logs nothing: the replacement is equal to the geometry it replaces, so the
+     * logged contents of the list are unchanged. Logging it as a removal and an
+     * add would move the shape to the end of the list on recovery.
+     */
+    @Override
+    public void geometryReplaced(int index, Geometry previous, Geometry replacement) {
+    }
+
+    /**
+     * Starts a record in the pending buffer and writes its sequence number.
+     */
+    private ByteBuffer reserve(int length) {
+        if (closed) {
+            throw new IllegalStateException("The journal is closed.");
+        }
+        if (pending.remaining() < RECORD_HEADER_SIZE + length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2,
+                    pending.position() + RECORD_HEADER_SIZE + length)).order(ByteOrder.LITTLE_ENDIAN);
+            pending.flip();
+            pending = larger.put(pending);
+        }
+        pending.putInt(length).putInt(0).putLong(++sequence);
+        logRecords++;
+        return pending;
+    }
+
+    /**
+     * Fills in the checksum of the record just written to the pending buffer.
+     */
+    private void seal(ByteBuffer buffer, int length) {
+        int payload = buffer.position() - length;
+        crc.reset();
+        crc.update(buffer.slice(payload, length));
+        buffer.putInt(payload - 4, (int) crc.getValue());
+    }
+
+    /**
+     * Writes all changes recorded so far to the log and forces them to disk, then
+     * checkpoints if the log has grown past the checkpoint interval.
+     *
+     * If another thread is already syncing, this waits for it and returns as soon as
+     * a sync covers this thread's changes, so concurrent callers share one fsync.
+     * If the write or the fsync fails, the records do not count as durable and the
+     * next sync() tries again.
+     *
+     * @throws IOException if the log cannot be written or forced to disk.
+     */
+    public void sync() throws IOException {
+        ByteBuffer batch;
+        long target;
+        synchronized (this) {
+            target = sequence;
+            while (syncing && durableSequence < target) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the log to be synced.", e);
+                }
+            }
+            if (durableSequence >= target) {
+                return;
+            }
+            // Become the leader: take every pending record, including those of waiting threads.
+            syncing = true;
+            target = sequence;
+            batch = pending.flip();
+            pending = ByteBuffer.allocate(batch.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        boolean forced = false;
+        boolean checkpoint = false;
+        try {
+            write(channel, batch, channel.size());
+            channel.force(false);
+            forced = true;
+        } finally {
+            synchronized (this) {
+                syncing = false;
+                if (batch.hasRemaining()) {
+                    // Keep the unwritten records for the next attempt, ahead of newer ones.
+                    ByteBuffer retry = ByteBuffer.allocate(batch.remaining() + pending.capacity())
+                            .order(ByteOrder.LITTLE_ENDIAN);
+                    pending = retry.put(batch).put(pending.flip());
+                } else if (forced) {
+                    durableSequence = Math.max(durableSequence, target);
+                    checkpoint = logRecords >= checkpointInterval;
+                }
+                // After a failed force the written records stay non-durable, so the next
+                // sync() forces the log again even if nothing new was appended.
+                notifyAll();
+            }
+        }
+        if (checkpoint) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Writes the whole list to the snapshot and empties the log.
+     *
+     * The list must not be changed by another thread while the checkpoint runs.
+     *
+     * @throws IOException if the snapshot or the log cannot be written.
+     */
+    public synchronized void checkpoint() throws IOException {
+        while (syncing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the log to be synced.", e);
+            }
+        }
+        // The snapshot holds every change recorded so far, so pending records are dropped, not written.
+        GeometrySnapshot.write(snapshotFile, list, sequence);
+        channel.truncate(HEADER_SIZE);
+        channel.force(true);
+        pending.clear();
+        durableSequence = sequence;
+        logRecords = 0;
+    }
+
+    /**
+     * Syncs the log, stops recording the list and closes the log file. Call
+     * checkpoint() first to also compact the log.
+     *
+     * @throws IOException if the log cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            synchronized (this) {
+                closed = true;
+            }
+            list.removeListener(this);
+            channel.close();
+        }
+    }
+
+    /**
+     * Makes the changes of the last interactive command durable, printing an error
+     * to System.out instead of throwing it.
+     *
+     * @param journal The journal, or null if changes are not being saved.
+     */
+    static void syncOrReport(GeometryJournal journal) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            System.out.println("Error saving changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compacts the log into the snapshot and closes the journal when an interactive
+     * program exits, printing the outcome to System.out.
+     *
+     * @param journal The journal, or null if changes are not being saved.
+     */
+    static void closeOrReport(GeometryJournal journal) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.checkpoint();
+            journal.close();
+            System.out.println("Saved " + journal.list.size() + " geometries to " + journal.snapshotFile + ".");
+        } catch (IOException e) {
+            System.out.println("Error saving geometries: " + e.getMessage());
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for recovering a GeometryLinkedList from a GeometryJournal.
+ */
+public class GeometryJournalTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that synced additions and removals are replayed after a restart without a checkpoint.
+     */
+    @Test
+    void testReplaysLog() throws IOException {
+        Path file = directory.resolve("shapes.geos");
+        GeometryLinkedList list = new GeometryLinkedList();
+        try (GeometryJournal journal = GeometryJournal.open(file, list)) {
+            mutate(list, new Random(3), 200);
+            journal.sync();
+            assertEquals(200 + 200 / 3, journal.sequence());
+        }
+        assertFalse(Files.exists(file));
+
+        GeometryLinkedList recovered = new GeometryLinkedList();
+        try (GeometryJournal journal = GeometryJournal.open(file, recovered)) {
+            assertEquals(describe(list), describe(recovered));
+            recovered.add(new Circle(1.0));
+            assertEquals(200 + 200 / 3 + 1, journal.sequence());
+        }
+    }
+
+    /**
+     * Tests that a record torn by a crash is discarded along with the rest of the log.
+     */
+    @Test
+    void testDiscardsTornRecord() throws IOException {
+        Path file = directory.resolve("shapes.geos");
+        GeometryLinkedList list = new GeometryLinkedList();
+        try (GeometryJournal journal = GeometryJournal.open(file, list)) {
+            list.add(new Circle(1.0));
+            list.add(new Rectangle(2.0, 3.0));
+            journal.sync();
+        }
+        Path log = GeometryJournal.logFile(file);
+        byte[] bytes = Files.readAllBytes(log);
+        Files.write(log, Arrays.copyOf(bytes, bytes.length - 3));
+
+        GeometryLinkedList recovered = new GeometryLinkedList();
+        try (GeometryJournal journal = GeometryJournal.open(file, recovered)) {
+            assertEquals(1, recovered.size());
+            assertEquals(1, journal.sequence());
+        }
+        assertEquals(bytes.length - (8 + 8 + 2 + 16), Files.size(log));
+
+        bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(log, bytes);
+        GeometryLinkedList corrupted = new GeometryLinkedList();
+        GeometryJournal.open(file, corrupted).close();
+        assertEquals(0, corrupted.size());
+    }
+
+    /**
+     * Tests that checkpoints compact the log, and that a log left behind by a crash
+     * right after a checkpoint only replays the records newer than the snapshot.
+     */
+    @Test
+    void testCheckpointCompactsLog() throws IOException {
+        Path file = directory.resolve("shapes.geos");
+        Path log = GeometryJournal.logFile(file);
+        Path stale = directory.resolve("stale.wal");
+        GeometryLinkedList list = new GeometryLinkedList();
+        Random random = new Random(8);
+        try (GeometryJournal journal = GeometryJournal.open(file, list, 50)) {
+            for (int round = 0; round < 10; round++) {
+                mutate(list, random, 12);
+                journal.sync();
+            }
+            assertTrue(Files.exists(file));
+            assertTrue(Files.size(log) < 50 * 50);
+
+            mutate(list, random, 6);
+            journal.sync();
+            Files.copy(log, stale);
+            mutate(list, random, 3);
+            journal.checkpoint();
+            assertEquals(journal.sequence(), snapshotSequence(file));
+        }
+        Files.copy(stale, log, StandardCopyOption.REPLACE_EXISTING);
+
+        GeometryLinkedList recovered = new GeometryLinkedList();
+        GeometryJournal.open(file, recovered).close();
+        assertEquals(describe(list), describe(recovered));
+    }
+
+    /**
+     * Tests that interning and editing a journaled list keep its order on recovery.
+     */
+    @Test
+    void testInternKeepsOrder() throws IOException {
+        Path file = directory.resolve("shapes.geos");
+        GeometryLinkedList list = new GeometryLinkedList();
+        GeometryInterner interner = new GeometryInterner();
+        interner.intern(new Circle(2));
+        try (GeometryJournal journal = GeometryJournal.open(file, list)) {
+            list.add(new Circle(1));
+            list.add(new Circle(2));
+            list.add(new Circle(3));
+            assertEquals(3, list.internAll(interner));
+            ((Circle) list.edit(0)).setRadius(1);
+            list.add(new Circle(4));
+            journal.sync();
+            assertEquals(4, journal.sequence());
+        }
+
+        GeometryLinkedList recovered = new GeometryLinkedList();
+        GeometryJournal.open(file, recovered).close();
+        assertEquals(describe(list), describe(recovered));
+    }
+
+    /**
+     * Tests that a sync whose fsync fails does not count its records as durable,
+     * so the next sync forces the log again.
+     */
+    @Test
+    void testFailedForceIsRetried() throws IOException {
+        Path file = directory.resolve("shapes.geos");
+        GeometryJournal.open(file, new GeometryLinkedList()).close();
+        GeometryLinkedList list = new GeometryLinkedList();
+        FailingChannel channel = new FailingChannel(FileChannel.open(GeometryJournal.logFile(file),
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+        try (GeometryJournal journal = new GeometryJournal(file, list, 100, channel, 0, 0)) {
+            list.addListener(journal);
+            list.add(new Circle(1));
+            channel.failForce = true;
+            assertThrows(IOException.class, journal::sync);
+
+            channel.failForce = false;
+            journal.sync();
+            assertEquals(2, channel.forces);
+            journal.sync();
+            assertEquals(2, channel.forces);
+        }
+
+        GeometryLinkedList recovered = new GeometryLinkedList();
+        GeometryJournal.open(file, recovered).close();
+        assertEquals(describe(list), describe(recovered));
+    }
+
+    private static void mutate(GeometryLinkedList list, Random random, int additions) {
+        for (int i = 0; i < additions; i++) {
+            list.add(GeometryStoreTest.randomShape(random));
+            if (i % 3 == 2) {
+                list.removeByIndex(random.nextInt(list.size()));
+            }
+        }
+    }
+
+    private static long snapshotSequence(Path file) throws IOException {
+        try (GeometrySnapshot snapshot = GeometrySnapshot.open(file)) {
+            return snapshot.sequence();
+        }
+    }
+
+    private static List<String> describe(GeometryLinkedList list) {
+        List<String> descriptions = new ArrayList<>();
+        for (Geometry geometry : list) {
+            descriptions.add(geometry.toString());
+        }
+        return descriptions;
+    }
+
+    /**
+     * A log channel whose force can be made to fail, as on a full or failing disk.
+     */
+    private static class FailingChannel extends FileChannel {
+        private final FileChannel channel;
+        boolean failForce;
+        int forces;
+
+        FailingChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            forces++;
+            if (failForce) {
+                throw new IOException("Simulated fsync failure.");
+            }
+            channel.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return channel.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return channel.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return channel.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return channel.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return channel.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return channel.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return channel.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return channel.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,136 +1,610 @@
 package geometry;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
- * A singly linked list to store Geometry objects.
+ * An unrolled linked list to store Geometry objects.
+ *
+ * Geometries are kept in fixed-size chunks. The list keeps a pointer to the
+ * tail chunk and a running count, so add and size are O(1). The sizes of the
+ * chunks before the tail are kept in a Fenwick tree, which locates the chunk
+ * holding a given index in O(log n) for findByIndex and removeByIndex.
+ *
+ * Every added geometry also gets a stable ID, which does not change when other
+ * geometries are removed. A LongHashMap maps each ID to its chunk, so findById
+ * costs one hash lookup plus a scan of at most CHUNK_CAPACITY IDs, however long
+ * the list is. removeById then removes like removeByIndex.
+ *
+ * GeometryListeners registered with addListener are told about every add and
+ * removal. While at least one listener is registered, the list also observes each
+ * ObservableGeometry it holds and forwards setter changes to the listeners.
  */
-public class GeometryLinkedList {
-    private GeometryNode head;
+public class GeometryLinkedList implements GeometryCollection {
+    /** Number of geometries held by a full chunk. */
+    static final int CHUNK_CAPACITY = 64;
+
+    /** Chunk directory; slots [0, chunkCount) are in use and the last one is the tail. */
+    private Chunk[] chunks;
+    private int chunkCount;
+
+    /** Fenwick tree (1-based) over the sizes of every chunk except the tail. */
+    private int[] tree;
+
+    private Chunk tail;
+    private int size;
+
+    private long nextId = 1;
+    private final LongHashMap<Chunk> chunksById = new LongHashMap<>();
+
+    private GeometryListener[] listeners = new GeometryListener[0];
+
+    /** Forwards setter changes of the geometries in the list to the listeners. */
+    private final GeometryObserver shapeObserver = new GeometryObserver() {
+        @Override
+        public void geometryChanging(Geometry geometry) {
+            for (GeometryListener listener : listeners) {
+                listener.geometryChanging(geometry);
+            }
+        }
+
+        @Override
+        public void geometryChanged(Geometry geometry) {
+            for (GeometryListener listener : listeners) {
+                listener.geometryChanged(geometry);
+            }
+        }
+    };
 
     /**
      * Constructs an empty GeometryLinkedList.
      */
     public GeometryLinkedList() {
-        this.head = null;
+        this.chunks = new Chunk[4];
+        this.tree = new int[chunks.length + 1];
+        this.chunkCount = 0;
+        this.tail = null;
+        this.size = 0;
     }
 
     /**
      * Adds a Geometry object to the end of the linked list.
-     * 
+     *
      * @param geometry The Geometry object to add.
      */
+    @Override
     public void add(Geometry geometry) {
-        GeometryNode newNode = new GeometryNode(geometry);
-        if (head == null) {
-            head = newNode;
-        } else {
-            GeometryNode current = head;
-            while (current.next != null) {
-                current = current.next;
+        addWithId(geometry);
+    }
+
+    /**
+     * Adds a Geometry object to the end of the linked list and returns its new ID.
+     *
+     * @param geometry The Geometry object to add.
+     * @return The ID of the geometry, which is positive and never reused by this list.
+     */
+    public long addWithId(Geometry geometry) {
+        if (tail == null || tail.size == CHUNK_CAPACITY) {
+            appendChunk();
+        }
+        long id = nextId++;
+        tail.ids[tail.size] = id;
+        tail.items[tail.size++] = geometry;
+        chunksById.put(id, tail);
+        size++;
+
+        if (listeners.length > 0) {
+            observe(geometry);
+            for (GeometryListener listener : listeners) {
+                listener.geometryAdded(size - 1, geometry);
             }
-            current.next = newNode;
         }
+        return id;
     }
 
     /**
-     * Removes a Geometry object from the linked list by its index.
+     * Adds a range of an array of Geometry objects to the end of the linked list,
+     * copying into each chunk with a single array copy.
      * 
+     * @param geometries The array holding the geometries.
+     * @param offset     The index of the first geometry to add.
+     * @param length     The number of geometries to add.
+     */
+    @Override
+    public void addAll(Geometry[] geometries, int offset, int length) {
+        int firstIndex = size;
+        int copied = 0;
+        while (copied < length) {
+            if (tail == null || tail.size == CHUNK_CAPACITY) {
+                appendChunk();
+            }
+            int count = Math.min(length - copied, CHUNK_CAPACITY - tail.size);
+            System.arraycopy(geometries, offset + copied, tail.items, tail.size, count);
+            for (int i = tail.size; i < tail.size + count; i++) {
+                long id = nextId++;
+                tail.ids[i] = id;
+                chunksById.put(id, tail);
+            }
+            tail.size += count;
+            size += count;
+            copied += count;
+        }
+
+        if (listeners.length > 0) {
+            for (int i = 0; i < length; i++) {
+                Geometry geometry = geometries[offset + i];
+                observe(geometry);
+                for (GeometryListener listener : listeners) {
+                    listener.geometryAdded(firstIndex + i, geometry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a Geometry object from the linked list by its index.
+     *
      * @param index The index of the Geometry object to remove (0-based).
      * @return True if removal was successful, false otherwise.
      */
+    @Override
     public boolean removeByIndex(int index) {
-        if (head == null || index < 0) {
+        if (index < 0 || index >= size) {
             return false;
         }
 
-        if (index == 0) {
-            head = head.next;
-            return true;
+        Chunk chunk;
+        int offset;
+        int tailStart = size - tail.size;
+        if (index >= tailStart) {
+            chunk = tail;
+            offset = index - tailStart;
+        } else {
+            int chunkIndex = locate(index);
+            chunk = chunks[chunkIndex];
+            offset = index - prefixSum(chunkIndex);
+            update(chunkIndex, -1);
         }
+        chunksById.remove(chunk.ids[offset]);
+        Geometry removed = chunk.remove(offset);
+        size--;
 
-        GeometryNode current = head;
-        for (int i = 0; i < index - 1; i++) {
-            if (current.next == null) {
-                return false;
-            }
-            current = current.next;
+        if (chunkCount > 2 && size <= (chunkCount - 1) * CHUNK_CAPACITY / 2) {
+            repack();
         }
 
-        if (current.next == null) {
-            return false;
+        if (listeners.length > 0) {
+            unobserve(removed);
+            for (GeometryListener listener : listeners) {
+                listener.geometryRemoved(index, removed);
+            }
         }
-
-        current.next = current.next.next;
         return true;
     }
 
     /**
      * Finds a Geometry object by its index in the linked list.
-     * 
+     *
      * @param index The index of the Geometry object to find (0-based).
      * @return The Geometry object if found, null otherwise.
      */
+    @Override
     public Geometry findByIndex(int index) {
-        if (head == null || index < 0) {
+        if (index < 0 || index >= size) {
             return null;
         }
 
-        GeometryNode current = head;
-        int currentIndex = 0;
+        int tailStart = size - tail.size;
+        if (index >= tailStart) {
+            return tail.items[index - tailStart];
+        }
+
+        int chunkIndex = locate(index);
+        return chunks[chunkIndex].items[index - prefixSum(chunkIndex)];
+    }
+
+    /**
+     * Returns the Geometry object at an index so that it can be changed. If the list
+     * holds a frozen, interned shape there, it is first replaced by a private
+     * mutable copy, so the change does not reach the other holders of the shape.
+     *
+     * @param index The index of the Geometry object (0-based).
+     * @return The Geometry object now stored at the index.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public Geometry edit(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
 
-        while (current != null) {
-            if (currentIndex == index) {
-                return current.data;
+        Chunk chunk;
+        int offset;
+        int tailStart = size - tail.size;
+        if (index >= tailStart) {
+            chunk = tail;
+            offset = index - tailStart;
+        } else {
+            int chunkIndex = locate(index);
+            chunk = chunks[chunkIndex];
+            offset = index - prefixSum(chunkIndex);
+        }
+        Geometry geometry = chunk.items[offset];
+        Geometry copy = GeometryInterner.unshare(geometry);
+        if (copy != geometry) {
+            replace(chunk, offset, index, copy);
+        }
+        return copy;
+    }
+
+    /**
+     * Replaces every geometry in the list by the equal shape pooled in an interner,
+     * so that repeated shapes share one instance. IDs and indices do not change.
+     * Listeners are told about each replacement with geometryReplaced. Setters
+     * called on the replaced objects no longer affect the list; use edit to change
+     * a shape afterwards.
+     *
+     * @param interner The pool to intern into.
+     * @return The number of geometries replaced by a different object.
+     * @throws IllegalArgumentException if the list holds a geometry that is not one of
+     *                                  the six shape classes.
+     */
+    public int internAll(GeometryInterner interner) {
+        int replaced = 0;
+        int index = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            for (int offset = 0; offset < chunk.size; offset++, index++) {
+                Geometry interned = interner.intern(chunk.items[offset]);
+                if (interned != chunk.items[offset]) {
+                    replace(chunk, offset, index, interned);
+                    replaced++;
+                }
             }
-            current = current.next;
-            currentIndex++;
         }
+        return replaced;
+    }
 
-        return null;
+    /**
+     * Stores an equal geometry in place of the one at a chunk offset and tells the
+     * listeners.
+     */
+    private void replace(Chunk chunk, int offset, int index, Geometry replacement) {
+        Geometry replaced = chunk.items[offset];
+        chunk.items[offset] = replacement;
+        if (listeners.length > 0) {
+            unobserve(replaced);
+            observe(replacement);
+            for (GeometryListener listener : listeners) {
+                listener.geometryReplaced(index, replaced, replacement);
+            }
+        }
     }
 
     /**
-     * Prints all Geometry objects in the linked list along with their indices.
+     * Finds a Geometry object by its ID.
+     *
+     * @param id The ID returned when the geometry was added.
+     * @return The Geometry object if found, null otherwise.
      */
-    public void printAll() {
-        GeometryNode current = head;
+    public Geometry findById(long id) {
+        Chunk chunk = chunksById.get(id);
+        if (chunk == null) {
+            return null;
+        }
+        return chunk.items[chunk.offsetOf(id)];
+    }
+
+    /**
+     * Removes a Geometry object from the linked list by its ID.
+     *
+     * @param id The ID returned when the geometry was added.
+     * @return True if removal was successful, false otherwise.
+     */
+    public boolean removeById(long id) {
+        int index = indexOfId(id);
+        return index >= 0 && removeByIndex(index);
+    }
+
+    /**
+     * Returns the current index of the geometry with the given ID.
+     *
+     * @param id The ID returned when the geometry was added.
+     * @return The index (0-based), or -1 if no geometry has this ID.
+     */
+    public int indexOfId(long id) {
+        Chunk chunk = chunksById.get(id);
+        if (chunk == null) {
+            return -1;
+        }
+        int chunkStart = chunk == tail ? size - tail.size : prefixSum(chunk.position);
+        return chunkStart + chunk.offsetOf(id);
+    }
+
+    /**
+     * Returns the ID of the geometry at the given index.
+     *
+     * @param index The index of the geometry (0-based).
+     * @return The ID.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public long getId(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+
+        int tailStart = size - tail.size;
+        if (index >= tailStart) {
+            return tail.ids[index - tailStart];
+        }
+
+        int chunkIndex = locate(index);
+        return chunks[chunkIndex].ids[index - prefixSum(chunkIndex)];
+    }
+
+    /**
+     * Returns the IDs of all geometries in index order.
+     *
+     * @return A new array of IDs.
+     */
+    public long[] ids() {
+        long[] result = new long[size];
         int index = 0;
-        while (current != null) {
-            System.out.println("Index " + index + ": " + current.data.toString());
-            current = current.next;
-            index++;
+        for (int i = 0; i < chunkCount; i++) {
+            System.arraycopy(chunks[i].ids, 0, result, index, chunks[i].size);
+            index += chunks[i].size;
         }
+        return result;
+    }
+
+    /**
+     * Prints all Geometry objects in the linked list along with their indices.
+     */
+    @Override
+    public void printAll() {
+        GeometryRenderer.print(this);
     }
 
     /**
      * Returns the size of the linked list.
-     * 
+     *
      * @return The number of Geometry objects in the list.
      */
+    @Override
     public int size() {
-        int count = 0;
-        GeometryNode current = head;
-        while (current != null) {
-            count++;
-            current = current.next;
+        return size;
+    }
+
+    /**
+     * Returns an iterator over the geometries in index order.
+     *
+     * @return An iterator over the list.
+     */
+    @Override
+    public Iterator<Geometry> iterator() {
+        return new Iterator<Geometry>() {
+            private int chunkIndex = 0;
+            private int offset = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (chunkIndex < chunkCount && offset >= chunks[chunkIndex].size) {
+                    chunkIndex++;
+                    offset = 0;
+                }
+                return chunkIndex < chunkCount;
+            }
+
+            @Override
+            public Geometry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunks[chunkIndex].items[offset++];
+            }
+        };
+    }
+
+    /**
+     * Registers a listener for additions, removals and setter changes.
+     *
+     * @param listener The listener to add.
+     * @throws IllegalArgumentException if listener is null.
+     */
+    public void addListener(GeometryListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null.");
+        }
+        if (listeners.length == 0) {
+            for (Geometry geometry : this) {
+                observe(geometry);
+            }
+        }
+        GeometryListener[] grown = new GeometryListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, grown, 0, listeners.length);
+        grown[listeners.length] = listener;
+        listeners = grown;
+    }
+
+    /**
+     * Removes a listener registered with addListener.
+     *
+     * @param listener The listener to remove.
+     * @return True if the listener was registered, false otherwise.
+     */
+    public boolean removeListener(GeometryListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                GeometryListener[] shrunk = new GeometryListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, shrunk, 0, i);
+                System.arraycopy(listeners, i + 1, shrunk, i, listeners.length - i - 1);
+                listeners = shrunk;
+                if (listeners.length == 0) {
+                    for (Geometry geometry : this) {
+                        unobserve(geometry);
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts forwarding setter changes of a geometry. A geometry held several times
+     * is observed once per occurrence.
+     */
+    private void observe(Geometry geometry) {
+        if (geometry instanceof ObservableGeometry observable) {
+            observable.addObserver(shapeObserver);
+        }
+    }
+
+    private void unobserve(Geometry geometry) {
+        if (geometry instanceof ObservableGeometry observable) {
+            observable.removeObserver(shapeObserver);
+        }
+    }
+
+    /**
+     * Seals the current tail into the Fenwick tree and starts a new empty tail chunk.
+     */
+    private void appendChunk() {
+        if (chunkCount == chunks.length) {
+            Chunk[] grown = new Chunk[chunks.length * 2];
+            System.arraycopy(chunks, 0, grown, 0, chunkCount);
+            chunks = grown;
+            rebuildTree();
         }
-        return count;
+        if (tail != null) {
+            update(chunkCount - 1, tail.size);
+        }
+        tail = new Chunk();
+        tail.position = chunkCount;
+        chunks[chunkCount++] = tail;
     }
 
     /**
-     * Represents a node in the GeometryLinkedList.
+     * Moves every geometry into as few chunks as possible, dropping the empty
+     * and underfull chunks left behind by removals.
      */
-    private static class GeometryNode {
-        Geometry data;
-        GeometryNode next;
+    private void repack() {
+        Chunk[] packed = new Chunk[Math.max(4, Integer.highestOneBit(size / CHUNK_CAPACITY + 1) * 2)];
+        int packedCount = 0;
+        Chunk current = null;
+        for (int i = 0; i < chunkCount; i++) {
+            Chunk chunk = chunks[i];
+            for (int j = 0; j < chunk.size; j++) {
+                if (current == null || current.size == CHUNK_CAPACITY) {
+                    current = new Chunk();
+                    current.position = packedCount;
+                    packed[packedCount++] = current;
+                }
+                current.ids[current.size] = chunk.ids[j];
+                current.items[current.size++] = chunk.items[j];
+                chunksById.put(chunk.ids[j], current);
+            }
+        }
+        if (current == null) {
+            current = new Chunk();
+            current.position = packedCount;
+            packed[packedCount++] = current;
+        }
+
+        chunks = packed;
+        chunkCount = packedCount;
+        tail = current;
+        rebuildTree();
+    }
+
+    /**
+     * Rebuilds the Fenwick tree in linear time from the sizes of the non-tail chunks.
+     */
+    private void rebuildTree() {
+        tree = new int[chunks.length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            if (i < chunkCount) {
+                tree[i] += chunks[i - 1].size;
+            }
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Adds delta to the recorded size of the given chunk.
+     */
+    private void update(int chunkIndex, int delta) {
+        for (int i = chunkIndex + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the number of geometries stored in the chunks before the given chunk.
+     */
+    private int prefixSum(int chunkIndex) {
+        int sum = 0;
+        for (int i = chunkIndex; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the non-tail chunk holding the given index by descending the Fenwick tree.
+     */
+    private int locate(int index) {
+        int position = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * A fixed-capacity block of consecutive geometries in the list.
+     */
+    private static class Chunk {
+        final Geometry[] items = new Geometry[CHUNK_CAPACITY];
+        final long[] ids = new long[CHUNK_CAPACITY];
+        int size;
+
+        /** Index of this chunk in the chunk directory. */
+        int position;
+
+        /**
+         * Returns the offset of the given ID, which must be in this chunk.
+         *
+         * @param id The ID.
+         * @return The offset within this chunk.
+         */
+        int offsetOf(long id) {
+            int offset = 0;
+            while (ids[offset] != id) {
+                offset++;
+            }
+            return offset;
+        }
 
         /**
-         * Constructs a GeometryNode with the specified Geometry object.
-         * 
-         * @param data The Geometry object to store in the node.
+         * Removes the geometry at the given offset, shifting the rest of the chunk left.
+         *
+         * @param offset The offset within this chunk.
+         * @return The removed geometry.
          */
-        public GeometryNode(Geometry data) {
-            this.data = data;
-            this.next = null;
+        Geometry remove(int offset) {
+            Geometry removed = items[offset];
+            System.arraycopy(items, offset + 1, items, offset, size - offset - 1);
+            System.arraycopy(ids, offset + 1, ids, offset, size - offset - 1);
+            items[--size] = null;
+            return removed;
         }
     }
 }
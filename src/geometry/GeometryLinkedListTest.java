@@ -0,0 +1,171 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the chunked GeometryLinkedList against the original NodeGeometryList.
+ */
+public class GeometryLinkedListTest {
+    private GeometryLinkedList geometryList;
+    private NodeGeometryList reference;
+
+    /**
+     * Initializes both lists before each test to ensure test isolation.
+     */
+    @BeforeEach
+    void setUp() {
+        geometryList = new GeometryLinkedList();
+        reference = new NodeGeometryList();
+    }
+
+    /**
+     * Tests that indices stay in insertion order across several chunks.
+     */
+    @Test
+    void testAddAcrossChunks() {
+        int count = GeometryLinkedList.CHUNK_CAPACITY * 5 + 3;
+        for (int i = 0; i < count; i++) {
+            addToBoth(new Circle(i + 1));
+        }
+
+        assertEquals(count, geometryList.size());
+        assertSameContents();
+    }
+
+    /**
+     * Tests removals at chunk boundaries, the head and the tail.
+     */
+    @Test
+    void testRemoveAtBoundaries() {
+        int capacity = GeometryLinkedList.CHUNK_CAPACITY;
+        for (int i = 0; i < capacity * 4; i++) {
+            addToBoth(new Rectangle(i + 1, 2.0));
+        }
+
+        int[] indices = { 0, capacity - 1, capacity, 2 * capacity - 2, geometryList.size() - 1 };
+        for (int index : indices) {
+            assertEquals(reference.removeByIndex(index), geometryList.removeByIndex(index));
+            assertSameContents();
+        }
+    }
+
+    /**
+     * Tests that invalid indices are rejected the same way as before.
+     */
+    @Test
+    void testInvalidIndices() {
+        assertFalse(geometryList.removeByIndex(0));
+        assertNull(geometryList.findByIndex(0));
+
+        addToBoth(new Sphere(1.0));
+        assertFalse(geometryList.removeByIndex(-1));
+        assertFalse(geometryList.removeByIndex(1));
+        assertNull(geometryList.findByIndex(-1));
+        assertNull(geometryList.findByIndex(1));
+        assertEquals(1, geometryList.size());
+    }
+
+    /**
+     * Tests that draining the list and refilling it keeps the indices consistent.
+     */
+    @Test
+    void testDrainAndRefill() {
+        for (int i = 0; i < 500; i++) {
+            addToBoth(new Sphere(i + 1));
+        }
+        while (reference.size() > 0) {
+            int index = reference.size() / 2;
+            assertTrue(reference.removeByIndex(index));
+            assertTrue(geometryList.removeByIndex(index));
+        }
+        assertEquals(0, geometryList.size());
+        assertFalse(geometryList.iterator().hasNext());
+
+        for (int i = 0; i < 200; i++) {
+            addToBoth(new Circle(i + 1));
+        }
+        assertSameContents();
+    }
+
+    /**
+     * Runs a long random sequence of operations against both lists.
+     */
+    @Test
+    void testRandomOperationsMatchReference() {
+        Random random = new Random(42);
+        for (int step = 0; step < 5000; step++) {
+            int op = random.nextInt(10);
+            if (op < 6) {
+                addToBoth(new RectangularPrism(1.0, 2.0, random.nextInt(1000) + 1));
+            } else if (op < 9) {
+                int index = random.nextInt(reference.size() + 2) - 1;
+                assertEquals(reference.removeByIndex(index), geometryList.removeByIndex(index));
+            } else {
+                int index = random.nextInt(reference.size() + 2) - 1;
+                assertSame(reference.findByIndex(index), geometryList.findByIndex(index));
+            }
+            assertEquals(reference.size(), geometryList.size());
+        }
+        assertSameContents();
+    }
+
+    /**
+     * Tests that IDs keep addressing the same geometry while indices shift, across repacks.
+     */
+    @Test
+    void testIdsAreStableAcrossRemovals() {
+        Random random = new Random(7);
+        Map<Long, Geometry> byId = new HashMap<>();
+        for (int step = 0; step < 5000; step++) {
+            if (random.nextInt(3) > 0 || byId.isEmpty()) {
+                Geometry geometry = new Circle(step + 1);
+                long id = geometryList.addWithId(geometry);
+                assertNull(byId.put(id, geometry));
+            } else if (random.nextBoolean()) {
+                int index = random.nextInt(geometryList.size());
+                long id = geometryList.getId(index);
+                assertEquals(index, geometryList.indexOfId(id));
+                assertTrue(geometryList.removeByIndex(index));
+                byId.remove(id);
+            } else {
+                long id = geometryList.getId(random.nextInt(geometryList.size()));
+                assertTrue(geometryList.removeById(id));
+                assertFalse(geometryList.removeById(id));
+                byId.remove(id);
+            }
+        }
+
+        assertEquals(byId.size(), geometryList.size());
+        long[] ids = geometryList.ids();
+        for (int index = 0; index < ids.length; index++) {
+            assertSame(byId.get(ids[index]), geometryList.findById(ids[index]));
+            assertSame(geometryList.findByIndex(index), geometryList.findById(ids[index]));
+            assertEquals(index, geometryList.indexOfId(ids[index]));
+        }
+        assertNull(geometryList.findById(0));
+        assertEquals(-1, geometryList.indexOfId(Long.MAX_VALUE));
+    }
+
+    private void addToBoth(Geometry geometry) {
+        geometryList.add(geometry);
+        reference.add(geometry);
+    }
+
+    private void assertSameContents() {
+        assertEquals(reference.size(), geometryList.size());
+        int index = 0;
+        for (Geometry geometry : geometryList) {
+            assertSame(reference.findByIndex(index), geometry);
+            assertSame(reference.findByIndex(index), geometryList.findByIndex(index));
+            index++;
+        }
+        assertEquals(reference.size(), index);
+    }
+}
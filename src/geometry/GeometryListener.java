@@ -0,0 +1,41 @@
+package geometry;
+
+/**
+ * Receives notifications about changes to a GeometryLinkedList: shapes being
+ * added and removed, and setters changing a shape that is in the list.
+ */
+public interface GeometryListener extends GeometryObserver {
+    /**
+     * Called after a geometry has been added to the list.
+     *
+     * @param index    The index of the new geometry.
+     * @param geometry The geometry that was added.
+     */
+    default void geometryAdded(int index, Geometry geometry) {
+    }
+
+    /**
+     * Called after a geometry has been removed from the list.
+     *
+     * @param index    The index the geometry had before it was removed.
+     * @param geometry The geometry that was removed.
+     */
+    default void geometryRemoved(int index, Geometry geometry) {
+    }
+
+    /**
+     * Called after the geometry at an index has been replaced by an equal one, as
+     * GeometryLinkedList.internAll and edit do. The values in the list do not
+     * change, only which object holds them. Listeners that track objects should
+     * move their state from one to the other; by default the replacement is
+     * reported as a removal followed by an add at the same index.
+     *
+     * @param index       The index of the geometry.
+     * @param previous    The geometry that was replaced.
+     * @param replacement The equal geometry now at the index.
+     */
+    default void geometryReplaced(int index, Geometry previous, Geometry replacement) {
+        geometryRemoved(index, previous);
+        geometryAdded(index, replacement);
+    }
+}
@@ -0,0 +1,27 @@
+package geometry;
+
+/**
+ * Receives notifications when a setter changes an ObservableGeometry.
+ *
+ * Each change is reported twice: once before the new value is applied, while the
+ * shape still reports its old metrics, and once after. An observer can therefore
+ * remove the old state of a shape from a derived structure and then add the new
+ * state.
+ */
+public interface GeometryObserver {
+    /**
+     * Called just before a setter changes the geometry.
+     *
+     * @param geometry The geometry, still in its old state.
+     */
+    default void geometryChanging(Geometry geometry) {
+    }
+
+    /**
+     * Called just after a setter has changed the geometry.
+     *
+     * @param geometry The geometry, in its new state.
+     */
+    default void geometryChanged(Geometry geometry) {
+    }
+}
@@ -0,0 +1,896 @@
+package geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A filter over a geometry collection, with an optional order and limit, parsed
+ * from text such as:
+ *
+ *   where type=Triangle and area>10 order by perimeter desc limit 20
+ *
+ * The grammar, with keywords in any case, is
+ *
+ *   [where CONDITION {and CONDITION}] [order by FIELD [asc|desc]] [limit N]
+ *
+ * where a CONDITION is "type=KIND", "type!=KIND" or "FIELD OP NUMBER", OP is one
+ * of = != &lt; &lt;= &gt; &gt;=, and a FIELD is a metric (area, perimeter, volume,
+ * surfaceArea) or a parameter name (sideA, length, radius, height, ...).
+ *
+ * A condition on a field is false for the shapes that do not have that field,
+ * and so is one on a metric that cannot be calculated, such as the area of a
+ * degenerate triangle. The query works out up front which kinds can match at
+ * all, from the type conditions and the fields it uses, and never looks at the
+ * shapes of the other kinds. Ordered queries return only the shapes that have
+ * the order-by field, with ties in index order.
+ *
+ * On a GeometryStore the conditions are evaluated a block of slots at a time by
+ * tight loops over the parameter columns, with the metrics computed by
+ * MetricKernels; other collections are scanned shape by shape. Unordered queries
+ * scan lazily as the cursor advances. Ordered queries have to see every match
+ * before the first result, and scan collections of PARALLEL_THRESHOLD shapes or
+ * more on the common fork-join pool.
+ */
+public final class GeometryQuery {
+    /** Collections at least this large are scanned in parallel by ordered queries. */
+    public static final int PARALLEL_THRESHOLD = GeometryAggregator.PARALLEL_THRESHOLD;
+
+    /** Number of slots of one kind evaluated together in a store. */
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final ShapeKind[] KINDS = ShapeKind.values();
+    private static final Pattern TOKEN = Pattern.compile("\\s*(<=|>=|!=|[=<>]|[^\\s<>=!]+)");
+
+    private final List<Condition> conditions;
+    private final List<ShapeKind> included;
+    private final List<ShapeKind> excluded;
+    private final boolean[] allowed;
+    private final boolean[] checkBase;
+    private final boolean readsParameters;
+    private final Field orderBy;
+    private final boolean descending;
+    private final int limit;
+
+    private GeometryQuery(List<Condition> conditions, List<ShapeKind> included, List<ShapeKind> excluded,
+            Field orderBy, boolean descending, int limit) {
+        this.conditions = conditions;
+        this.included = included;
+        this.excluded = excluded;
+        this.orderBy = orderBy;
+        this.descending = descending;
+        this.limit = limit;
+        this.allowed = new boolean[KINDS.length];
+        this.checkBase = new boolean[KINDS.length];
+        boolean parameters = orderBy != null && orderBy.metric == null;
+        for (Condition condition : conditions) {
+            parameters |= condition.field.metric == null;
+        }
+        this.readsParameters = parameters;
+        for (ShapeKind kind : KINDS) {
+            boolean possible = !excluded.contains(kind);
+            for (ShapeKind only : included) {
+                possible &= only == kind;
+            }
+            boolean heron = false;
+            for (Condition condition : conditions) {
+                possible &= condition.field.appliesTo(kind);
+                heron |= condition.field.needsBaseArea(kind);
+            }
+            if (orderBy != null) {
+                possible &= orderBy.appliesTo(kind);
+                heron |= orderBy.needsBaseArea(kind);
+            }
+            allowed[kind.ordinal()] = possible;
+            checkBase[kind.ordinal()] = heron;
+        }
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @param text The query text; an empty query matches every shape in index order.
+     * @return The query.
+     * @throws IllegalArgumentException if the text is not a valid query.
+     */
+    public static GeometryQuery parse(String text) {
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(text);
+        int end = 0;
+        while (matcher.lookingAt()) {
+            tokens.add(matcher.group(1));
+            end = matcher.end();
+            matcher.region(end, text.length());
+        }
+        if (!text.substring(end).isBlank()) {
+            throw new IllegalArgumentException("Unexpected '" + text.substring(end).trim() + "'.");
+        }
+
+        Parser parser = new Parser(tokens);
+        List<Condition> conditions = new ArrayList<>();
+        List<ShapeKind> included = new ArrayList<>();
+        List<ShapeKind> excluded = new ArrayList<>();
+        if (parser.accept("where")) {
+            do {
+                parser.condition(conditions, included, excluded);
+            } while (parser.accept("and"));
+        }
+        Field orderBy = null;
+        boolean descending = false;
+        if (parser.accept("order")) {
+            parser.expect("by");
+            orderBy = Field.of(parser.next("a field"));
+            if (parser.accept("desc")) {
+                descending = true;
+            } else {
+                parser.accept("asc");
+            }
+        }
+        int limit = Integer.MAX_VALUE;
+        if (parser.accept("limit")) {
+            String count = parser.next("a limit");
+            try {
+                limit = Integer.parseInt(count);
+            } catch (NumberFormatException e) {
+                limit = 0;
+            }
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Invalid limit '" + count + "'.");
+            }
+        }
+        parser.end();
+        return new GeometryQuery(conditions, included, excluded, orderBy, descending, limit);
+    }
+
+    /**
+     * Returns the kinds of shape that this query can match, after the type
+     * conditions and the fields it uses have ruled the others out.
+     *
+     * @return The kinds, in ShapeKind order.
+     */
+    public Set<ShapeKind> getKinds() {
+        Set<ShapeKind> kinds = EnumSet.noneOf(ShapeKind.class);
+        for (ShapeKind kind : KINDS) {
+            if (allowed[kind.ordinal()]) {
+                kinds.add(kind);
+            }
+        }
+        return kinds;
+    }
+
+    /**
+     * Runs the query over a collection.
+     *
+     * @param collection The collection to search.
+     * @return A cursor over the matching shapes, in index order or in the order of
+     *         the order-by field.
+     */
+    public GeometryCursor execute(GeometryCollection collection) {
+        if (orderBy == null) {
+            if (collection instanceof GeometryStore) {
+                return new StoreCursor((GeometryStore) collection);
+            }
+            return new ObjectCursor(collection.iterator());
+        }
+        if (collection instanceof GeometryStore) {
+            return sortStore((GeometryStore) collection);
+        }
+        return sortObjects(collection);
+    }
+
+    /**
+     * Returns the query in canonical form, which parses back to an equal query.
+     *
+     * @return The query text.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        String separator = "where ";
+        for (ShapeKind kind : included) {
+            text.append(separator).append("type=").append(kind.getDisplayName());
+            separator = " and ";
+        }
+        for (ShapeKind kind : excluded) {
+            text.append(separator).append("type!=").append(kind.getDisplayName());
+            separator = " and ";
+        }
+        for (Condition condition : conditions) {
+            text.append(separator).append(condition);
+            separator = " and ";
+        }
+        if (orderBy != null) {
+            text.append(text.length() == 0 ? "" : " ").append("order by ").append(orderBy.name)
+                    .append(descending ? " desc" : " asc");
+        }
+        if (limit != Integer.MAX_VALUE) {
+            text.append(text.length() == 0 ? "" : " ").append("limit ").append(limit);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Evaluates the conditions for the slots from up to but excluding to of one
+     * kind in a store, writing whether slot i matches to match[offset + i - from]
+     * and, if keys is not null, its order-by value to keys[offset + i - from].
+     */
+    private void evaluate(GeometryStore store, ShapeKind kind, int from, int to,
+            boolean[] match, double[] keys, int offset, double[] scratch) {
+        int count = to - from;
+        if (checkBase[kind.ordinal()]) {
+            MetricKernels.triangleAreas(store.column(kind, 0), store.column(kind, 1), store.column(kind, 2),
+                    from, to, scratch);
+            for (int i = 0; i < count; i++) {
+                match[offset + i] = scratch[i] > 0;
+            }
+        } else {
+            Arrays.fill(match, offset, offset + count, true);
+        }
+        for (Condition condition : conditions) {
+            int parameter = condition.field.parameter(kind);
+            if (parameter >= 0) {
+                condition.op.filter(store.column(kind, parameter), from, condition.value, match, offset, count);
+            } else {
+                MetricKernels.compute(store, kind, condition.field.metric, from, to, scratch);
+                condition.op.filter(scratch, 0, condition.value, match, offset, count);
+            }
+        }
+        if (keys != null) {
+            int parameter = orderBy.parameter(kind);
+            if (parameter >= 0) {
+                System.arraycopy(store.column(kind, parameter), from, keys, offset, count);
+            } else {
+                MetricKernels.compute(store, kind, orderBy.metric, from, to, scratch);
+                System.arraycopy(scratch, 0, keys, offset, count);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the conditions for one shape.
+     *
+     * @param parameters Scratch space for the shape's parameters.
+     * @return The order-by value (0 if the query is not ordered), or NaN if the
+     *         shape does not match.
+     */
+    private double evaluate(Geometry geometry, double[] parameters) {
+        ShapeKind kind = ShapeKind.of(geometry);
+        if (!allowed[kind.ordinal()]) {
+            return Double.NaN;
+        }
+        if (readsParameters) {
+            kind.getParameters(geometry, parameters);
+        }
+        for (Condition condition : conditions) {
+            if (!condition.op.test(condition.field.of(geometry, kind, parameters), condition.value)) {
+                return Double.NaN;
+            }
+        }
+        return orderBy == null ? 0 : orderBy.of(geometry, kind, parameters);
+    }
+
+    /**
+     * Evaluates every block of the allowed kinds of a store, then collects the
+     * matches in index order and sorts them.
+     */
+    private GeometryCursor sortStore(GeometryStore store) {
+        boolean[][] match = new boolean[KINDS.length][];
+        double[][] keys = new double[KINDS.length][];
+        List<int[]> blocks = new ArrayList<>();
+        for (ShapeKind kind : KINDS) {
+            int count = store.count(kind);
+            if (!allowed[kind.ordinal()] || count == 0) {
+                continue;
+            }
+            match[kind.ordinal()] = new boolean[count];
+            keys[kind.ordinal()] = new double[count];
+            for (int from = 0; from < count; from += BLOCK_SIZE) {
+                blocks.add(new int[] { kind.ordinal(), from, Math.min(from + BLOCK_SIZE, count) });
+            }
+        }
+        Scan scan = (first, last) -> {
+            double[] scratch = new double[BLOCK_SIZE];
+            for (int b = first; b < last; b++) {
+                int[] block = blocks.get(b);
+                evaluate(store, KINDS[block[0]], block[1], block[2], match[block[0]], keys[block[0]], block[1],
+                        scratch);
+            }
+        };
+        run(scan, blocks.size(), store.size() >= PARALLEL_THRESHOLD);
+
+        Matches matches = new Matches();
+        for (int i = 0; i < store.size(); i++) {
+            int kind = store.tag(i);
+            if (allowed[kind]) {
+                int slot = store.slot(i);
+                if (match[kind][slot]) {
+                    matches.add(i, keys[kind][slot]);
+                }
+            }
+        }
+        return matches.sort(descending, limit, null, store);
+    }
+
+    /**
+     * Copies the shapes of a collection into an array, evaluates them, then
+     * sorts the matches.
+     */
+    private GeometryCursor sortObjects(GeometryCollection collection) {
+        List<Geometry> list = new ArrayList<>(collection.size());
+        for (Geometry geometry : collection) {
+            list.add(geometry);
+        }
+        Geometry[] geometries = list.toArray(new Geometry[0]);
+        double[] keys = new double[geometries.length];
+        int chunks = (geometries.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        Scan scan = (first, last) -> {
+            double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+            int to = Math.min(last * BLOCK_SIZE, geometries.length);
+            for (int i = first * BLOCK_SIZE; i < to; i++) {
+                keys[i] = evaluate(geometries[i], parameters);
+            }
+        };
+        run(scan, chunks, geometries.length >= PARALLEL_THRESHOLD);
+
+        Matches matches = new Matches();
+        for (int i = 0; i < geometries.length; i++) {
+            if (!Double.isNaN(keys[i])) {
+                matches.add(i, keys[i]);
+            }
+        }
+        return matches.sort(descending, limit, geometries, null);
+    }
+
+    private static void run(Scan scan, int count, boolean parallel) {
+        if (parallel) {
+            ForkJoinPool.commonPool().invoke(new ScanTask(scan, 0, count));
+        } else {
+            scan.run(0, count);
+        }
+    }
+
+    /**
+     * A range of independent units of scanning work.
+     */
+    private interface Scan {
+        void run(int first, int last);
+    }
+
+    /**
+     * Runs the units of a Scan, splitting the range in half until one unit is left.
+     */
+    private static class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Scan scan;
+        private final int first;
+        private final int last;
+
+        ScanTask(Scan scan, int first, int last) {
+            this.scan = scan;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first <= 1) {
+                scan.run(first, last);
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            invokeAll(new ScanTask(scan, first, middle), new ScanTask(scan, middle, last));
+        }
+    }
+
+    /**
+     * A shape field a condition or the order can refer to: a metric or a named
+     * parameter.
+     */
+    private static final class Field {
+        final String name;
+        final Metric metric;
+
+        private Field(String name, Metric metric) {
+            this.name = name;
+            this.metric = metric;
+        }
+
+        static Field of(String name) {
+            String key = name.replace("_", "").toLowerCase();
+            for (Metric metric : Metric.values()) {
+                if (metric.name().replace("_", "").toLowerCase().equals(key)) {
+                    String displayName = metric.getDisplayName().replace(" ", "");
+                    return new Field(Character.toLowerCase(displayName.charAt(0)) + displayName.substring(1), metric);
+                }
+            }
+            for (ShapeKind kind : KINDS) {
+                for (int p = 0; p < kind.getParameterCount(); p++) {
+                    if (kind.getParameterName(p).toLowerCase().equals(key)) {
+                        return new Field(kind.getParameterName(p), null);
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Unknown field '" + name + "'.");
+        }
+
+        /**
+         * @return The parameter position of this field in the kind, or -1 if it is
+         *         a metric or the kind has no such parameter.
+         */
+        int parameter(ShapeKind kind) {
+            if (metric == null) {
+                for (int p = 0; p < kind.getParameterCount(); p++) {
+                    if (kind.getParameterName(p).equals(name)) {
+                        return p;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        boolean appliesTo(ShapeKind kind) {
+            return metric != null ? metric.appliesTo(kind) : parameter(kind) >= 0;
+        }
+
+        /**
+         * @return Whether this field is a metric of the kind computed from a
+         *         triangle's area, which degenerate triangles do not have.
+         */
+        boolean needsBaseArea(ShapeKind kind) {
+            return metric != null && metric != Metric.PERIMETER
+                    && (kind == ShapeKind.TRIANGLE || kind == ShapeKind.TRIANGULAR_PRISM);
+        }
+
+        double of(Geometry geometry, ShapeKind kind, double[] parameters) {
+            return metric != null ? metric.tryOf(geometry) : parameters[parameter(kind)];
+        }
+    }
+
+    /**
+     * A comparison operator. Comparisons with NaN are false, including !=.
+     */
+    private enum Op {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Op of(String symbol) {
+            for (Op op : values()) {
+                if (op.symbol.equals(symbol)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+
+        boolean test(double value, double operand) {
+            switch (this) {
+                case EQ:
+                    return value == operand;
+                case NE:
+                    return value != operand && value == value;
+                case LT:
+                    return value < operand;
+                case LE:
+                    return value <= operand;
+                case GT:
+                    return value > operand;
+                default:
+                    return value >= operand;
+            }
+        }
+
+        /**
+         * Clears match[offset + i] for each i below count where values[from + i]
+         * fails the comparison.
+         */
+        void filter(double[] values, int from, double operand, boolean[] match, int offset, int count) {
+            switch (this) {
+                case EQ:
+                    for (int i = 0; i < count; i++) {
+                        match[offset + i] &= values[from + i] == operand;
+                    }
+                    break;
+                case NE:
+                    for (int i = 0; i < count; i++) {
+                        double value = values[from + i];
+                        match[offset + i] &= value != operand && value == value;
+                    }
+                    break;
+                case LT:
+                    for (int i = 0; i < count; i++) {
+                        match[offset + i] &= values[from + i] < operand;
+                    }
+                    break;
+                case LE:
+                    for (int i = 0; i < count; i++) {
+                        match[offset + i] &= values[from + i] <= operand;
+                    }
+                    break;
+                case GT:
+                    for (int i = 0; i < count; i++) {
+                        match[offset + i] &= values[from + i] > operand;
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < count; i++) {
+                        match[offset + i] &= values[from + i] >= operand;
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * A comparison of a field with a number.
+     */
+    private record Condition(Field field, Op op, double value) {
+        @Override
+        public String toString() {
+            return field.name + op.symbol + value;
+        }
+    }
+
+    /**
+     * A recursive descent parser over the tokens of a query.
+     */
+    private static final class Parser {
+        private final List<String> tokens;
+        private int position;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean accept(String keyword) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(String keyword) {
+            if (!accept(keyword)) {
+                throw new IllegalArgumentException("Expected '" + keyword + "'" + found());
+            }
+        }
+
+        String next(String expected) {
+            if (position == tokens.size()) {
+                throw new IllegalArgumentException("Expected " + expected + " at the end of the query.");
+            }
+            return tokens.get(position++);
+        }
+
+        void end() {
+            if (position < tokens.size()) {
+                throw new IllegalArgumentException("Unexpected '" + tokens.get(position) + "'.");
+            }
+        }
+
+        void condition(List<Condition> conditions, List<ShapeKind> included, List<ShapeKind> excluded) {
+            String name = next("a field");
+            String symbol = next("an operator");
+            Op op = Op.of(symbol);
+            if (op == null) {
+                throw new IllegalArgumentException("Expected an operator but found '" + symbol + "'.");
+            }
+            String operand = next("a value");
+            if (name.equalsIgnoreCase("type")) {
+                char[] type = operand.toCharArray();
+                ShapeKind kind = GeometryImporter.parseKind(type, 0, type.length);
+                if (kind == null) {
+                    throw new IllegalArgumentException("Unknown shape type '" + operand + "'.");
+                }
+                if (op == Op.EQ) {
+                    included.add(kind);
+                } else if (op == Op.NE) {
+                    excluded.add(kind);
+                } else {
+                    throw new IllegalArgumentException("Types can only be compared with = and !=.");
+                }
+                return;
+            }
+            Field field = Field.of(name);
+            double value;
+            try {
+                value = Double.parseDouble(operand);
+            } catch (NumberFormatException e) {
+                value = Double.NaN;
+            }
+            if (Double.isNaN(value)) {
+                throw new IllegalArgumentException("Invalid number '" + operand + "'.");
+            }
+            conditions.add(new Condition(field, op, value));
+        }
+
+        private String found() {
+            if (position < tokens.size()) {
+                return " but found '" + tokens.get(position) + "'.";
+            }
+            return " at the end of the query.";
+        }
+    }
+
+    /**
+     * The unordered cursor over a store. It walks the indices and evaluates each
+     * kind a block of slots at a time, when the walk reaches the block.
+     */
+    private final class StoreCursor implements GeometryCursor {
+        private final GeometryStore store;
+        private final boolean[][] match = new boolean[KINDS.length][BLOCK_SIZE];
+        private final int[] blockStart = new int[KINDS.length];
+        private final int[] blockEnd = new int[KINDS.length];
+        private final double[] scratch = new double[BLOCK_SIZE];
+        private int scanned;
+        private int pending = -1;
+        private int current = -1;
+        private int returned;
+
+        StoreCursor(GeometryStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending >= 0) {
+                return true;
+            }
+            if (returned >= limit) {
+                return false;
+            }
+            while (scanned < store.size()) {
+                int index = scanned++;
+                int kind = store.tag(index);
+                if (!allowed[kind]) {
+                    continue;
+                }
+                int slot = store.slot(index);
+                if (slot >= blockEnd[kind]) {
+                    blockStart[kind] = slot;
+                    blockEnd[kind] = Math.min(slot + BLOCK_SIZE, store.count(KINDS[kind]));
+                    evaluate(store, KINDS[kind], slot, blockEnd[kind], match[kind], null, 0, scratch);
+                }
+                if (match[kind][slot - blockStart[kind]]) {
+                    pending = index;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Geometry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = pending;
+            pending = -1;
+            returned++;
+            return store.findByIndex(current);
+        }
+
+        @Override
+        public int getIndex() {
+            if (current < 0) {
+                throw new IllegalStateException("next() has not been called.");
+            }
+            return current;
+        }
+
+        @Override
+        public double getValue() {
+            getIndex();
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * The unordered cursor over any other collection, which evaluates each shape
+     * as its iterator returns it.
+     */
+    private final class ObjectCursor implements GeometryCursor {
+        private final Iterator<Geometry> iterator;
+        private final double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        private int scanned;
+        private Geometry pending;
+        private int pendingIndex;
+        private int current = -1;
+        private int returned;
+
+        ObjectCursor(Iterator<Geometry> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending != null) {
+                return true;
+            }
+            if (returned >= limit) {
+                return false;
+            }
+            while (iterator.hasNext()) {
+                Geometry geometry = iterator.next();
+                int index = scanned++;
+                if (!Double.isNaN(evaluate(geometry, parameters))) {
+                    pending = geometry;
+                    pendingIndex = index;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Geometry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Geometry geometry = pending;
+            pending = null;
+            current = pendingIndex;
+            returned++;
+            return geometry;
+        }
+
+        @Override
+        public int getIndex() {
+            if (current < 0) {
+                throw new IllegalStateException("next() has not been called.");
+            }
+            return current;
+        }
+
+        @Override
+        public double getValue() {
+            getIndex();
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * The indices and order-by values of the matches of an ordered query, in
+     * index order until sorted.
+     */
+    private static final class Matches {
+        private int[] indices = new int[16];
+        private double[] keys = new double[16];
+        private int size;
+
+        void add(int index, double key) {
+            if (Double.isNaN(key)) {
+                return;
+            }
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            indices[size] = index;
+            keys[size] = key;
+            size++;
+        }
+
+        /**
+         * Keeps the first limit matches in order with a bounded heap whose root is
+         * the worst match kept, then returns a cursor over them.
+         *
+         * @param geometries The scanned shapes by index, or null to look them up in the store.
+         */
+        GeometryCursor sort(boolean descending, int limit, Geometry[] geometries, GeometryStore store) {
+            int kept = Math.min(limit, size);
+            int[] heap = new int[kept];
+            int heapSize = 0;
+            for (int m = 0; m < size; m++) {
+                if (heapSize < kept) {
+                    heap[heapSize] = m;
+                    siftUp(heap, heapSize++, descending);
+                } else if (kept > 0 && before(m, heap[0], descending)) {
+                    heap[0] = m;
+                    siftDown(heap, heapSize, descending);
+                }
+            }
+            int[] order = new int[kept];
+            while (heapSize > 0) {
+                order[--heapSize] = heap[0];
+                heap[0] = heap[heapSize];
+                siftDown(heap, heapSize, descending);
+            }
+
+            return new GeometryCursor() {
+                private int position;
+
+                @Override
+                public boolean hasNext() {
+                    return position < order.length;
+                }
+
+                @Override
+                public Geometry next() {
+                    if (position >= order.length) {
+                        throw new NoSuchElementException();
+                    }
+                    int index = indices[order[position++]];
+                    return geometries != null ? geometries[index] : store.findByIndex(index);
+                }
+
+                @Override
+                public int getIndex() {
+                    return indices[order[checkPosition()]];
+                }
+
+                @Override
+                public double getValue() {
+                    return keys[order[checkPosition()]];
+                }
+
+                private int checkPosition() {
+                    if (position == 0) {
+                        throw new IllegalStateException("next() has not been called.");
+                    }
+                    return position - 1;
+                }
+            };
+        }
+
+        /**
+         * @return Whether match a comes before match b in the result.
+         */
+        private boolean before(int a, int b, boolean descending) {
+            if (keys[a] != keys[b]) {
+                return descending ? keys[a] > keys[b] : keys[a] < keys[b];
+            }
+            return indices[a] < indices[b];
+        }
+
+        private void siftUp(int[] heap, int position, boolean descending) {
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!before(heap[parent], heap[position], descending)) {
+                    break;
+                }
+                swap(heap, parent, position);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int heapSize, boolean descending) {
+            int position = 0;
+            while (true) {
+                int worst = position;
+                int left = 2 * position + 1;
+                if (left < heapSize && before(heap[worst], heap[left], descending)) {
+                    worst = left;
+                }
+                if (left + 1 < heapSize && before(heap[worst], heap[left + 1], descending)) {
+                    worst = left + 1;
+                }
+                if (worst == position) {
+                    return;
+                }
+                swap(heap, worst, position);
+                position = worst;
+            }
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int swapped = heap[a];
+            heap[a] = heap[b];
+            heap[b] = swapped;
+        }
+    }
+}
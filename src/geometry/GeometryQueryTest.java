@@ -0,0 +1,145 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for GeometryQuery and its cursors.
+ */
+public class GeometryQueryTest {
+    private static final String NL = System.lineSeparator();
+
+    /**
+     * Tests parsing, the canonical form, kind pruning and the parse errors.
+     */
+    @Test
+    void testParse() {
+        GeometryQuery query = GeometryQuery.parse("WHERE type=triangle AND area>10 Order By perimeter DESC limit 20");
+        assertEquals("where type=Triangle and area>10.0 order by perimeter desc limit 20", query.toString());
+        assertEquals(EnumSet.of(ShapeKind.TRIANGLE), query.getKinds());
+        assertEquals(query.toString(), GeometryQuery.parse(query.toString()).toString());
+
+        assertEquals(EnumSet.of(ShapeKind.CIRCLE, ShapeKind.SPHERE), GeometryQuery.parse("where radius>=1").getKinds());
+        assertEquals(EnumSet.of(ShapeKind.RECTANGULAR_PRISM),
+                GeometryQuery.parse("where type!=TriangularPrism order by height").getKinds());
+        assertEquals(EnumSet.of(ShapeKind.SPHERE, ShapeKind.RECTANGULAR_PRISM, ShapeKind.TRIANGULAR_PRISM),
+                GeometryQuery.parse("where surface_area < 5").getKinds());
+        assertTrue(GeometryQuery.parse("where type=Circle and volume>0").getKinds().isEmpty());
+        assertEquals(EnumSet.allOf(ShapeKind.class), GeometryQuery.parse("").getKinds());
+
+        assertThrows(IllegalArgumentException.class, () -> GeometryQuery.parse("where colour=red"));
+        assertThrows(IllegalArgumentException.class, () -> GeometryQuery.parse("where type>Circle"));
+        assertThrows(IllegalArgumentException.class, () -> GeometryQuery.parse("where area>ten"));
+        assertThrows(IllegalArgumentException.class, () -> GeometryQuery.parse("where area>"));
+        assertThrows(IllegalArgumentException.class, () -> GeometryQuery.parse("order perimeter"));
+        assertThrows(IllegalArgumentException.class, () -> GeometryQuery.parse("limit 0"));
+        assertThrows(IllegalArgumentException.class, () -> GeometryQuery.parse("limit 5 where area>1"));
+    }
+
+    /**
+     * Tests that a store and a linked list return the same matches for the same
+     * shapes, and that an ordered query agrees with a brute-force scan, including
+     * a collection large enough to be scanned in parallel.
+     */
+    @Test
+    void testStoreAndObjectScansAgree() {
+        for (int size : new int[] { 3000, GeometryQuery.PARALLEL_THRESHOLD + 5000 }) {
+            Random random = new Random(size);
+            GeometryStore store = new GeometryStore();
+            GeometryLinkedList list = new GeometryLinkedList();
+            for (int i = 0; i < size; i++) {
+                Geometry geometry = i % 97 == 0
+                        ? new Triangle(0.7308781907032909, 0.41008081149220166, 1.1409590021954923)
+                        : GeometryStoreTest.randomShape(random);
+                store.add(geometry);
+                list.add(geometry);
+            }
+
+            String[] queries = { "", "where type=Triangle and area>10 order by perimeter desc limit 20",
+                    "where radius>2 and radius<=4", "where type!=Circle and perimeter!=12 order by area",
+                    "where sideA<3 and height>=2 order by surfaceArea desc", "where volume>50 limit 7",
+                    "order by length asc limit 100" };
+            for (String text : queries) {
+                GeometryQuery query = GeometryQuery.parse(text);
+                GeometryCursor fromStore = query.execute(store);
+                GeometryCursor fromList = query.execute(list);
+                int count = 0;
+                while (fromList.hasNext()) {
+                    assertTrue(fromStore.hasNext(), text);
+                    assertEquals(fromList.next(), fromStore.next(), text);
+                    assertEquals(fromList.getIndex(), fromStore.getIndex(), text);
+                    double value = fromList.getValue();
+                    if (Double.isNaN(value)) {
+                        assertTrue(Double.isNaN(fromStore.getValue()), text);
+                    } else {
+                        assertEquals(value, fromStore.getValue(), 1e-9 * Math.abs(value), text);
+                    }
+                    count++;
+                }
+                assertFalse(fromStore.hasNext(), text);
+                assertTrue(count > 0, text);
+            }
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                Geometry geometry = list.findByIndex(i);
+                if (geometry instanceof Triangle && Metric.AREA.tryOf(geometry) > 10) {
+                    expected.add(i);
+                }
+            }
+            expected.sort((a, b) -> Double.compare(Metric.PERIMETER.of(list.findByIndex(b)),
+                    Metric.PERIMETER.of(list.findByIndex(a))));
+            GeometryCursor cursor = GeometryQuery.parse(queries[1]).execute(store);
+            for (int i = 0; i < 20; i++) {
+                cursor.next();
+                assertEquals(expected.get(i).intValue(), cursor.getIndex());
+                assertEquals(Metric.PERIMETER.of(list.findByIndex(cursor.getIndex())), cursor.getValue(), 1e-9);
+            }
+            assertFalse(cursor.hasNext());
+        }
+    }
+
+    /**
+     * Tests the script's query command and that an unordered cursor stops at the
+     * limit without reading past it.
+     */
+    @Test
+    void testScriptQueryAndLimit() throws IOException {
+        GeometryStore store = new GeometryStore();
+        String script = "add circle 1\n"
+                + "add sphere 3\n"
+                + "add circle 3\n"
+                + "add rectangle 2 5\n"
+                + "query where radius>2\n"
+                + "query where area > 3 order by area desc\n"
+                + "query where area>>3\n";
+        StringWriter out = new StringWriter();
+        new GeometryScript(store).run(new StringReader(script), out);
+        String expected = "ok 0" + NL + "ok 1" + NL + "ok 2" + NL + "ok 3" + NL
+                + "ok 2" + NL
+                + "Index 1: " + new Sphere(3) + NL
+                + "Index 2: " + new Circle(3) + NL
+                + "ok 3" + NL
+                + "Index 2: " + new Circle(3) + NL
+                + "Index 3: " + new Rectangle(2, 5) + NL
+                + "Index 0: " + new Circle(1) + NL
+                + "error 7 Invalid number '>'." + NL;
+
+        GeometryCursor cursor = GeometryQuery.parse("where type=Circle limit 1").execute(store);
+        assertThrows(IllegalStateException.class, cursor::getIndex);
+        assertEquals(new Circle(1), cursor.next());
+        assertEquals(0, cursor.getIndex());
+        assertTrue(Double.isNaN(cursor.getValue()));
+        assertFalse(cursor.hasNext());
+        assertEquals(expected, out.toString());
+    }
+}
@@ -0,0 +1,415 @@
+package geometry;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Renders geometries as text into a reusable character buffer.
+ *
+ * The text is exactly what the shapes' toString() and the collections' printAll()
+ * have always produced with String.format and System.out.println, but the numbers
+ * are formatted by hand: the format string is not parsed on every call and no
+ * intermediate strings are created. Listings are written to their destination in
+ * blocks of about BLOCK_SIZE characters instead of one synchronized, flushed
+ * println per line.
+ *
+ * Numbers are formatted like "%.2f" in the renderer's locale: Java rounds the
+ * shortest decimal representation of a double half up, so 0.125 and 1.005 both
+ * round up. Values of a billion or more are passed to String.format.
+ *
+ * A renderer is not thread-safe; use one per thread.
+ */
+public class GeometryRenderer {
+    /** Number of buffered characters after which a listing is written out. */
+    public static final int BLOCK_SIZE = 8192;
+
+    /** Magnitude from which numbers are formatted by String.format. */
+    private static final double FAST_PATH_LIMIT = 1e9;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final ThreadLocal<GeometryRenderer> DEFAULT = new ThreadLocal<>();
+
+    private final Locale locale;
+    private final char zeroDigit;
+    private final char decimalSeparator;
+    private char[] buffer = new char[256];
+    private int length;
+
+    /**
+     * Creates a renderer for the default format locale, as used by String.format.
+     */
+    public GeometryRenderer() {
+        this(Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Creates a renderer that formats numbers like String.format(locale, ...).
+     *
+     * @param locale The locale.
+     */
+    public GeometryRenderer(Locale locale) {
+        this.locale = locale;
+        if (locale.equals(Locale.US)) {
+            this.zeroDigit = '0';
+            this.decimalSeparator = '.';
+        } else {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            this.zeroDigit = symbols.getZeroDigit();
+            this.decimalSeparator = symbols.getDecimalSeparator();
+        }
+    }
+
+    /**
+     * Renders a geometry with this thread's renderer for the default format locale.
+     * The shapes' toString methods use this.
+     *
+     * @param geometry The geometry.
+     * @return The same text String.format produced for the shape.
+     */
+    static String render(Geometry geometry) {
+        GeometryRenderer renderer = DEFAULT.get();
+        if (renderer == null || !renderer.locale.equals(Locale.getDefault(Locale.Category.FORMAT))) {
+            renderer = new GeometryRenderer();
+            DEFAULT.set(renderer);
+        }
+        renderer.reset();
+        renderer.append(geometry);
+        return renderer.toString();
+    }
+
+    /**
+     * Prints a listing of geometries to System.out, one "Index i: geometry" line
+     * each. The collections' printAll methods use this.
+     *
+     * @param geometries The geometries.
+     */
+    static void print(Iterable<? extends Geometry> geometries) {
+        PrintStream out = System.out;
+        try {
+            new GeometryRenderer().writeIndexed(geometries, out);
+        } catch (IOException e) {
+            // PrintStream does not throw; it records errors for checkError().
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes one "Index i: geometry" line per geometry, in blocks of BLOCK_SIZE
+     * characters. The buffer is empty when this returns.
+     *
+     * @param geometries The geometries.
+     * @param out        The destination.
+     * @throws IOException if the destination cannot be written.
+     */
+    public void writeIndexed(Iterable<? extends Geometry> geometries, Appendable out) throws IOException {
+        int index = 0;
+        for (Geometry geometry : geometries) {
+            appendIndexed(index++, geometry);
+            if (length >= BLOCK_SIZE) {
+                flushTo(out);
+            }
+        }
+        flushTo(out);
+    }
+
+    /**
+     * Writes one "Index i: geometry" line per geometry to a channel, in blocks of
+     * BLOCK_SIZE characters. The buffer is empty when this returns.
+     *
+     * @param geometries The geometries.
+     * @param out        The destination.
+     * @param charset    The character set to encode the text with.
+     * @throws IOException if the channel cannot be written.
+     */
+    public void writeIndexed(Iterable<? extends Geometry> geometries, WritableByteChannel out, Charset charset)
+            throws IOException {
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocateDirect(BLOCK_SIZE * 4);
+        int index = 0;
+        for (Geometry geometry : geometries) {
+            appendIndexed(index++, geometry);
+            if (length >= BLOCK_SIZE) {
+                encode(encoder, bytes, out, false);
+            }
+        }
+        encode(encoder, bytes, out, true);
+    }
+
+    private void encode(CharsetEncoder encoder, ByteBuffer bytes, WritableByteChannel out, boolean endOfInput)
+            throws IOException {
+        CharBuffer chars = CharBuffer.wrap(buffer, 0, length);
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, endOfInput);
+            drain(bytes, out);
+        } while (result.isOverflow());
+        if (endOfInput) {
+            while (encoder.flush(bytes).isOverflow()) {
+                drain(bytes, out);
+            }
+            drain(bytes, out);
+            encoder.reset();
+        }
+        // A high surrogate at the end of the block is kept for the next one.
+        int remaining = chars.remaining();
+        System.arraycopy(buffer, chars.position(), buffer, 0, remaining);
+        length = remaining;
+    }
+
+    private static void drain(ByteBuffer bytes, WritableByteChannel out) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private void appendIndexed(int index, Geometry geometry) {
+        append("Index ").append(index).append(": ").append(geometry).append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Appends the text of a geometry, the same as its toString().
+     *
+     * @param geometry The geometry.
+     * @return This renderer.
+     * @throws IllegalStateException if a triangle's sides are degenerate.
+     */
+    public GeometryRenderer append(Geometry geometry) {
+        if (geometry instanceof Triangle) {
+            Triangle triangle = (Triangle) geometry;
+            append("Triangle [SideA=").appendFixed(triangle.getSideA())
+                    .append(", SideB=").appendFixed(triangle.getSideB())
+                    .append(", SideC=").appendFixed(triangle.getSideC())
+                    .append(", Area=").appendFixed(triangle.getArea())
+                    .append(", Perimeter=").appendFixed(triangle.getPerimeter()).append(']');
+        } else if (geometry instanceof Rectangle) {
+            Rectangle rectangle = (Rectangle) geometry;
+            append("Rectangle [Length=").appendFixed(rectangle.getLength())
+                    .append(", Width=").appendFixed(rectangle.getWidth())
+                    .append(", Area=").appendFixed(rectangle.getArea())
+                    .append(", Perimeter=").appendFixed(rectangle.getPerimeter()).append(']');
+        } else if (geometry instanceof Circle) {
+            Circle circle = (Circle) geometry;
+            append("Circle [Radius=").appendFixed(circle.getRadius())
+                    .append(", Area=").appendFixed(circle.getArea())
+                    .append(", Perimeter=").appendFixed(circle.getPerimeter()).append(']');
+        } else if (geometry instanceof Sphere) {
+            Sphere sphere = (Sphere) geometry;
+            append("Sphere [Radius=").appendFixed(sphere.getRadius())
+                    .append(", Volume=").appendFixed(sphere.getVolume())
+                    .append(", Surface Area=").appendFixed(sphere.getSurfaceArea()).append(']');
+        } else if (geometry instanceof RectangularPrism) {
+            RectangularPrism prism = (RectangularPrism) geometry;
+            append("RectangularPrism [Length=").appendFixed(prism.getLength())
+                    .append(", Width=").appendFixed(prism.getWidth())
+                    .append(", Height=").appendFixed(prism.getHeight())
+                    .append(", Volume=").appendFixed(prism.getVolume())
+                    .append(", Surface Area=").appendFixed(prism.getSurfaceArea()).append(']');
+        } else if (geometry instanceof TriangularPrism) {
+            TriangularPrism prism = (TriangularPrism) geometry;
+            append("TriangularPrism [SideA=").appendFixed(prism.getSideA())
+                    .append(", SideB=").appendFixed(prism.getSideB())
+                    .append(", SideC=").appendFixed(prism.getSideC())
+                    .append(", Height=").appendFixed(prism.getHeight())
+                    .append(", Volume=").appendFixed(prism.getVolume())
+                    .append(", Surface Area=").appendFixed(prism.getSurfaceArea()).append(']');
+        } else {
+            append(String.valueOf(geometry));
+        }
+        return this;
+    }
+
+    /**
+     * Appends a number with two decimals, the same as "%.2f".
+     *
+     * @param value The number.
+     * @return This renderer.
+     */
+    public GeometryRenderer appendFixed(double value) {
+        if (Double.isNaN(value)) {
+            return append("NaN");
+        }
+        // Like Formatter, -0.0 and negative values that round to zero keep their sign.
+        if (Double.compare(value, 0.0) < 0) {
+            append('-');
+        }
+        double magnitude = Math.abs(value);
+        if (magnitude == Double.POSITIVE_INFINITY) {
+            return append("Infinity");
+        }
+        if (magnitude >= FAST_PATH_LIMIT) {
+            return append(String.format(locale, "%.2f", magnitude));
+        }
+
+        double scaled = magnitude * 100;
+        long hundredths = (long) scaled;
+        double fraction = scaled - hundredths;
+        if (Math.abs(fraction - 0.5) < 1e-3) {
+            if (roundsUp(magnitude, hundredths)) {
+                hundredths++;
+            }
+        } else if (fraction > 0.5) {
+            hundredths++;
+        }
+
+        appendDigits(hundredths / 100, 1);
+        append(decimalSeparator);
+        return appendDigits(hundredths % 100, 2);
+    }
+
+    /**
+     * Decides whether a value whose hundredths are about halfway between
+     * hundredths and hundredths + 1 rounds up.
+     *
+     * Formatter rounds the shortest decimal that converts back to the value. If
+     * the halfway point itself converts back to the value, that decimal is the
+     * halfway point and rounds up. Otherwise the decimal is on the same side of
+     * the halfway point as the exact value of the double.
+     */
+    private static boolean roundsUp(double magnitude, long hundredths) {
+        long twiceHalfway = 2 * hundredths + 1;
+        if (twiceHalfway / 200.0 == magnitude) {
+            return true;
+        }
+        // 200 * magnitude == product + error exactly; the subtraction is exact as the two are close.
+        double product = magnitude * 200;
+        double error = Math.fma(magnitude, 200, -product);
+        return (product - twiceHalfway) + error > 0;
+    }
+
+    private GeometryRenderer appendDigits(long value, int minimumDigits) {
+        int digits = 1;
+        for (long bound = 10; digits < 19 && value >= bound; bound *= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minimumDigits);
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (char) (zeroDigit + (int) (value % 10));
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Appends an integer in ASCII digits, like string concatenation.
+     *
+     * @param value The integer.
+     * @return This renderer.
+     */
+    public GeometryRenderer append(long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return append(Long.toString(value));
+            }
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long bound = 10; digits < 19 && value >= bound; bound *= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (char) ('0' + (int) (value % 10));
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Appends text.
+     *
+     * @param text The text.
+     * @return This renderer.
+     */
+    public GeometryRenderer append(String text) {
+        int count = text.length();
+        ensureCapacity(count);
+        text.getChars(0, count, buffer, length);
+        length += count;
+        return this;
+    }
+
+    /**
+     * Appends a character.
+     *
+     * @param c The character.
+     * @return This renderer.
+     */
+    public GeometryRenderer append(char c) {
+        ensureCapacity(1);
+        buffer[length++] = c;
+        return this;
+    }
+
+    /**
+     * Appends the platform line separator, as println does.
+     *
+     * @return This renderer.
+     */
+    public GeometryRenderer appendLine() {
+        return append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Returns the number of buffered characters.
+     *
+     * @return The length of the buffered text.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Discards the buffered text, keeping the buffer for reuse.
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    /**
+     * Writes the buffered text to a destination and empties the buffer.
+     *
+     * @param out The destination.
+     * @throws IOException if the destination cannot be written.
+     */
+    public void flushTo(Appendable out) throws IOException {
+        if (length > 0) {
+            out.append(CharBuffer.wrap(buffer, 0, length));
+            length = 0;
+        }
+    }
+
+    /**
+     * Returns the buffered text.
+     *
+     * @return The text.
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for GeometryRenderer, which must produce exactly the text of String.format.
+ */
+public class GeometryRendererTest {
+    private static final Locale[] LOCALES = { Locale.US, Locale.ROOT, Locale.GERMANY, Locale.FRANCE,
+        Locale.forLanguageTag("ar-EG"), Locale.forLanguageTag("fa-IR"), Locale.forLanguageTag("hi-IN-u-nu-deva") };
+
+    /**
+     * Tests that appendFixed matches "%.2f" for random values, values at and next to
+     * halfway points, and special values, in several locales.
+     */
+    @Test
+    void testFixedMatchesFormat() {
+        Random random = new Random(14);
+        double[] special = { 0.0, -0.0, 0.125, 1.005, 2.675, 0.005, -0.004, 999_999_999.995, 1e9, 1e21, 1e300,
+            4.9e-324, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MAX_VALUE };
+        for (Locale locale : LOCALES) {
+            GeometryRenderer renderer = new GeometryRenderer(locale);
+            for (double value : special) {
+                assertFixed(renderer, locale, value);
+            }
+            for (int i = 0; i < 20_000; i++) {
+                assertFixed(renderer, locale, random.nextDouble() * Math.pow(10, random.nextInt(14) - 4));
+            }
+        }
+
+        GeometryRenderer renderer = new GeometryRenderer(Locale.US);
+        for (int i = 0; i < 300_000; i++) {
+            double halfway = (2L * random.nextInt(2_000_000_000) + 1) / 200.0 / Math.pow(10, random.nextInt(6));
+            assertFixed(renderer, Locale.US, halfway);
+            assertFixed(renderer, Locale.US, Math.nextUp(halfway));
+            assertFixed(renderer, Locale.US, Math.nextDown(halfway));
+            assertFixed(renderer, Locale.US, -halfway);
+        }
+    }
+
+    /**
+     * Tests that toString of every shape class and of read-only views is unchanged.
+     */
+    @Test
+    void testShapesMatchFormat() {
+        Random random = new Random(15);
+        GeometryStore store = new GeometryStore();
+        for (int i = 0; i < 5_000; i++) {
+            Geometry geometry = GeometryStoreTest.randomShape(random);
+            assertEquals(legacyToString(geometry), geometry.toString());
+            store.add(geometry);
+        }
+        for (Geometry view : store) {
+            assertEquals(legacyToString(view), view.toString());
+        }
+    }
+
+    /**
+     * Tests that listings written to a stream or a channel are byte-identical to
+     * println, across several blocks.
+     */
+    @Test
+    void testListingMatchesPrintln() throws IOException {
+        Random random = new Random(16);
+        GeometryLinkedList list = new GeometryLinkedList();
+        for (int i = 0; i < 3_000; i++) {
+            list.add(GeometryStoreTest.randomShape(random));
+        }
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        PrintStream legacy = new PrintStream(expected, true, StandardCharsets.UTF_8);
+        int index = 0;
+        for (Geometry geometry : list) {
+            legacy.println("Index " + index + ": " + legacyToString(geometry));
+            index++;
+        }
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        new GeometryRenderer().writeIndexed(list, new PrintStream(streamed, true, StandardCharsets.UTF_8));
+        assertArrayEquals(expected.toByteArray(), streamed.toByteArray());
+
+        ByteArrayOutputStream channeled = new ByteArrayOutputStream();
+        new GeometryRenderer().writeIndexed(list, Channels.newChannel(channeled), StandardCharsets.UTF_8);
+        assertArrayEquals(expected.toByteArray(), channeled.toByteArray());
+
+        PrintStream original = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+        try {
+            list.printAll();
+        } finally {
+            System.setOut(original);
+        }
+        assertArrayEquals(expected.toByteArray(), printed.toByteArray());
+    }
+
+    private static void assertFixed(GeometryRenderer renderer, Locale locale, double value) {
+        renderer.reset();
+        renderer.appendFixed(value);
+        assertEquals(String.format(locale, "%.2f", value), renderer.toString(), locale + " " + value);
+    }
+
+    /**
+     * The shapes' toString methods as they were before GeometryRenderer.
+     */
+    private static String legacyToString(Geometry geometry) {
+        switch (ShapeKind.of(geometry)) {
+            case TRIANGLE:
+                Triangle t = (Triangle) geometry;
+                return String.format("Triangle [SideA=%.2f, SideB=%.2f, SideC=%.2f, Area=%.2f, Perimeter=%.2f]",
+                        t.getSideA(), t.getSideB(), t.getSideC(), t.getArea(), t.getPerimeter());
+            case RECTANGLE:
+                Rectangle r = (Rectangle) geometry;
+                return String.format("Rectangle [Length=%.2f, Width=%.2f, Area=%.2f, Perimeter=%.2f]",
+                        r.getLength(), r.getWidth(), r.getArea(), r.getPerimeter());
+            case CIRCLE:
+                Circle c = (Circle) geometry;
+                return String.format("Circle [Radius=%.2f, Area=%.2f, Perimeter=%.2f]",
+                        c.getRadius(), c.getArea(), c.getPerimeter());
+            case SPHERE:
+                Sphere s = (Sphere) geometry;
+                return String.format("Sphere [Radius=%.2f, Volume=%.2f, Surface Area=%.2f]",
+                        s.getRadius(), s.getVolume(), s.getSurfaceArea());
+            case RECTANGULAR_PRISM:
+                RectangularPrism p = (RectangularPrism) geometry;
+                return String.format("RectangularPrism [Length=%.2f, Width=%.2f, Height=%.2f, Volume=%.2f, Surface Area=%.2f]",
+                        p.getLength(), p.getWidth(), p.getHeight(), p.getVolume(), p.getSurfaceArea());
+            default:
+                TriangularPrism q = (TriangularPrism) geometry;
+                return String.format("TriangularPrism [SideA=%.2f, SideB=%.2f, SideC=%.2f, Height=%.2f, Volume=%.2f, Surface Area=%.2f]",
+                        q.getSideA(), q.getSideB(), q.getSideC(), q.getHeight(), q.getVolume(), q.getSurfaceArea());
+        }
+    }
+}
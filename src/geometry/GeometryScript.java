@@ -0,0 +1,413 @@
+package geometry;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Runs geometry commands from a script or a pipe, without menus or prompts.
+ *
+ * Each non-blank line that does not start with '#' is one command:
+ *
+ *   add TYPE P0 [P1 [P2 [P3]]]   add a shape; TYPE as accepted by GeometryImporter
+ *   remove INDEX | remove #ID   remove a shape
+ *   find INDEX | find #ID       describe a shape
+ *   list                        describe every shape
+ *   stats                       summarize every metric
+ *   query [QUERY]               list the shapes matching a GeometryQuery
+ *   quit                        stop reading commands
+ *
+ * IDs are only available when the collection is a GeometryLinkedList. On a
+ * GeometryLinkedList, the first stats command attaches a GeometryStatistics to
+ * the list, and later ones read it without scanning.
+ *
+ * Every command produces exactly one result line, in command order, followed by
+ * the number of extra lines announced by list, stats and query:
+ *
+ *   add     "ok INDEX" (with " #ID" for a GeometryLinkedList)
+ *   remove  "ok"
+ *   find    "ok DESCRIPTION"
+ *   list    "ok COUNT", then COUNT lines "Index I: DESCRIPTION"
+ *   stats   "ok COUNT", then COUNT lines "METRIC count=N sum=S min=M max=X mean=A"
+ *   query   "ok COUNT", then COUNT lines "Index I: DESCRIPTION", in the query's order
+ *   errors  "error LINE MESSAGE", where LINE is the line number of the command
+ *
+ * Commands are run in batches: a batch ends when the input has no more data ready
+ * or after BATCH_SIZE commands. At the end of each batch the journal, if any, is
+ * synced once, and only then are the batch's results written and flushed, so an
+ * "ok" means the change is durable.
+ */
+public class GeometryScript {
+    /** Maximum number of commands run before their results are written. */
+    public static final int BATCH_SIZE = 1024;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final GeometryCollection collection;
+    private final GeometryJournal journal;
+    private final GeometryRenderer renderer = new GeometryRenderer();
+    private final double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+    private GeometryStatistics statistics;
+    private long errors;
+    private boolean quit;
+
+    /**
+     * Creates an interpreter for a collection.
+     *
+     * @param collection The collection the commands operate on.
+     */
+    public GeometryScript(GeometryCollection collection) {
+        this(collection, null);
+    }
+
+    /**
+     * Creates an interpreter that syncs a journal at the end of every batch.
+     *
+     * @param collection The collection the commands operate on.
+     * @param journal    The journal recording the collection, or null.
+     */
+    public GeometryScript(GeometryCollection collection, GeometryJournal journal) {
+        this.collection = collection;
+        this.journal = journal;
+    }
+
+    /**
+     * Runs every command from the input until its end or a quit command.
+     *
+     * @param in  The commands.
+     * @param out The destination of the results.
+     * @return The number of commands that failed.
+     * @throws IOException if the input cannot be read, the output cannot be written
+     *                     or the journal cannot be synced.
+     */
+    public long run(Reader in, Writer out) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+        long lineNumber = 0;
+        int batched = 0;
+        String line;
+        while (!quit && (line = reader.readLine()) != null) {
+            lineNumber++;
+            if (execute(line, lineNumber)) {
+                batched++;
+            }
+            if (batched >= BATCH_SIZE || batched > 0 && !reader.ready()) {
+                endBatch(out);
+                batched = 0;
+            }
+        }
+        endBatch(out);
+        return errors;
+    }
+
+    /**
+     * Runs a script for one of the command-line programs, writing the results to
+     * System.out and errors opening or reading the script to System.err. With a
+     * snapshot file, the list is first recovered from it, journaled while the
+     * script runs and checkpointed at the end.
+     *
+     * @param list         The list the commands operate on.
+     * @param snapshotFile The snapshot file, or null.
+     * @param source       The script file, or "-" for standard input.
+     * @return The process exit status: 0 if every command succeeded, 1 if a
+     *         command failed and 2 if the script or snapshot could not be used.
+     */
+    static int runMain(GeometryLinkedList list, Path snapshotFile, String source) {
+        if (snapshotFile == null) {
+            return runMain(list, (GeometryJournal) null, source);
+        }
+        try (GeometryJournal journal = GeometryJournal.open(snapshotFile, list)) {
+            int status = runMain(list, journal, source);
+            journal.checkpoint();
+            return status;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error with snapshot " + snapshotFile + ": " + e.getMessage());
+            return 2;
+        }
+    }
+
+    private static int runMain(GeometryCollection collection, GeometryJournal journal, String source) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()), 1 << 16);
+        try (Reader in = source.equals("-")
+                ? new InputStreamReader(System.in, Charset.defaultCharset())
+                : Files.newBufferedReader(Path.of(source))) {
+            return new GeometryScript(collection, journal).run(in, out) == 0 ? 0 : 1;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error running script: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    /**
+     * Syncs the journal, then writes and flushes the results of the batch.
+     *
+     * @param out The destination of the results.
+     * @throws IOException if the journal cannot be synced or the output cannot be written.
+     */
+    public void endBatch(Writer out) throws IOException {
+        if (journal != null) {
+            journal.sync();
+        }
+        renderer.flushTo(out);
+        out.flush();
+    }
+
+    /**
+     * Runs one command and buffers its result until the next endBatch().
+     *
+     * @param line       The command line.
+     * @param lineNumber The line number reported with errors.
+     * @return False if the line was blank or a comment, true if it was a command.
+     */
+    public boolean execute(String line, long lineNumber) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) == '#') {
+            return false;
+        }
+        String[] words = WHITESPACE.split(trimmed);
+        String error;
+        try {
+            error = execute(words);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            error = e.getMessage();
+        }
+        if (error != null) {
+            errors++;
+            renderer.append("error ").append(lineNumber).append(' ').append(error).appendLine();
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether a quit command has been run.
+     *
+     * @return True after quit.
+     */
+    public boolean isQuit() {
+        return quit;
+    }
+
+    /**
+     * Returns the number of commands that have failed so far.
+     *
+     * @return The error count.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Runs a command and appends its successful result.
+     *
+     * @return An error message, or null on success.
+     */
+    private String execute(String[] words) {
+        switch (words[0].toLowerCase()) {
+            case "add":
+                return add(words);
+            case "remove":
+                return remove(words);
+            case "find":
+                return find(words);
+            case "list":
+                return list(words);
+            case "stats":
+                return stats(words);
+            case "query":
+                return query(words);
+            case "quit":
+                if (words.length != 1) {
+                    return "Usage: quit";
+                }
+                quit = true;
+                renderer.append("ok").appendLine();
+                return null;
+            default:
+                return "Unknown command '" + words[0] + "'.";
+        }
+    }
+
+    private String add(String[] words) {
+        if (words.length < 2) {
+            return "Usage: add TYPE PARAMETERS...";
+        }
+        char[] type = words[1].toCharArray();
+        ShapeKind kind = GeometryImporter.parseKind(type, 0, type.length);
+        if (kind == null) {
+            return "Unknown shape type '" + words[1] + "'.";
+        }
+        int count = kind.getParameterCount();
+        if (words.length - 2 != count) {
+            StringBuilder usage = new StringBuilder(kind.getDisplayName()).append(" takes ").append(count)
+                    .append(count == 1 ? " parameter:" : " parameters:");
+            for (int p = 0; p < count; p++) {
+                usage.append(' ').append(kind.getParameterName(p));
+            }
+            return usage.append('.').toString();
+        }
+        for (int p = 0; p < count; p++) {
+            char[] text = words[2 + p].toCharArray();
+            parameters[p] = GeometryImporter.parseNumber(text, 0, text.length);
+            if (Double.isNaN(parameters[p])) {
+                return "Invalid number '" + words[2 + p] + "'.";
+            }
+        }
+        String invalid = kind.validate(parameters[0], parameters[1], parameters[2], parameters[3]);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        Geometry geometry = kind.create(parameters);
+        if (collection instanceof GeometryLinkedList) {
+            GeometryLinkedList list = (GeometryLinkedList) collection;
+            long id = list.addWithId(geometry);
+            renderer.append("ok ").append(list.indexOfId(id)).append(" #").append(id).appendLine();
+        } else if (collection instanceof ConcurrentGeometryList) {
+            renderer.append("ok ").append(((ConcurrentGeometryList) collection).addAndGetIndex(geometry)).appendLine();
+        } else {
+            collection.add(geometry);
+            renderer.append("ok ").append(collection.size() - 1).appendLine();
+        }
+        return null;
+    }
+
+    private String remove(String[] words) {
+        if (words.length != 2) {
+            return "Usage: remove INDEX | remove #ID";
+        }
+        boolean removed;
+        if (words[1].startsWith("#")) {
+            removed = linkedList().removeById(parseId(words[1]));
+        } else {
+            removed = collection.removeByIndex(parseIndex(words[1]));
+        }
+        if (!removed) {
+            return "No geometry at " + words[1] + ".";
+        }
+        renderer.append("ok").appendLine();
+        return null;
+    }
+
+    private String find(String[] words) {
+        if (words.length != 2) {
+            return "Usage: find INDEX | find #ID";
+        }
+        Geometry found;
+        if (words[1].startsWith("#")) {
+            found = linkedList().findById(parseId(words[1]));
+        } else {
+            found = collection.findByIndex(parseIndex(words[1]));
+        }
+        if (found == null) {
+            return "No geometry at " + words[1] + ".";
+        }
+        renderer.append("ok ").append(found).appendLine();
+        return null;
+    }
+
+    private String list(String[] words) {
+        if (words.length != 1) {
+            return "Usage: list";
+        }
+        // Render into a separate buffer first, so a failure leaves no partial listing.
+        GeometryRenderer lines = new GeometryRenderer();
+        int count = 0;
+        for (Geometry geometry : collection) {
+            lines.append("Index ").append(count).append(": ").append(geometry).appendLine();
+            count++;
+        }
+        renderer.append("ok ").append(count).appendLine().append(lines.toString());
+        return null;
+    }
+
+    private String stats(String[] words) {
+        if (words.length != 1) {
+            return "Usage: stats";
+        }
+        GeometryRenderer lines = new GeometryRenderer();
+        int count = 0;
+        for (Metric metric : Metric.values()) {
+            Map<ShapeKind, DoubleSummaryStatistics> byKind = summarizeByKind(metric);
+            DoubleSummaryStatistics total = new DoubleSummaryStatistics();
+            byKind.values().forEach(total::combine);
+            lines.append(metric.name().toLowerCase()).append(" count=").append(total.getCount());
+            if (total.getCount() > 0) {
+                lines.append(" sum=").append(Double.toString(total.getSum()))
+                        .append(" min=").append(Double.toString(total.getMin()))
+                        .append(" max=").append(Double.toString(total.getMax()))
+                        .append(" mean=").append(Double.toString(total.getAverage()));
+            }
+            lines.appendLine();
+            count++;
+        }
+        renderer.append("ok ").append(count).appendLine().append(lines.toString());
+        return null;
+    }
+
+    private String query(String[] words) {
+        GeometryQuery query = GeometryQuery.parse(String.join(" ", Arrays.copyOfRange(words, 1, words.length)));
+        GeometryRenderer lines = new GeometryRenderer();
+        int count = 0;
+        GeometryCursor cursor = query.execute(collection);
+        while (cursor.hasNext()) {
+            Geometry geometry = cursor.next();
+            lines.append("Index ").append(cursor.getIndex()).append(": ").append(geometry).appendLine();
+            count++;
+        }
+        renderer.append("ok ").append(count).appendLine().append(lines.toString());
+        return null;
+    }
+
+    /**
+     * Summarizes a metric by kind, from running statistics if the collection is a
+     * GeometryLinkedList and with a scan otherwise.
+     */
+    private Map<ShapeKind, DoubleSummaryStatistics> summarizeByKind(Metric metric) {
+        if (collection instanceof GeometryLinkedList) {
+            if (statistics == null) {
+                statistics = new GeometryStatistics((GeometryLinkedList) collection);
+            }
+            return statistics.summarizeByKind(metric);
+        }
+        return collection.summarizeByKind(metric);
+    }
+
+    private GeometryLinkedList linkedList() {
+        if (!(collection instanceof GeometryLinkedList)) {
+            throw new IllegalArgumentException("This collection does not support IDs.");
+        }
+        return (GeometryLinkedList) collection;
+    }
+
+    /**
+     * @return The index, or -1 if the text is not a number.
+     */
+    private static int parseIndex(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return The ID after the '#', or 0 (which is never assigned) if it is not a number.
+     */
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text.substring(1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
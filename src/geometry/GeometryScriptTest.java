@@ -0,0 +1,74 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the GeometryScript command language.
+ */
+public class GeometryScriptTest {
+    private static final String NL = System.lineSeparator();
+
+    /**
+     * Tests every command and the result line each one produces.
+     */
+    @Test
+    void testCommands() throws IOException {
+        String script = "# setup\n"
+                + "add circle 2.5\n"
+                + "ADD rectangular_prism 2 3 4\n"
+                + "\n"
+                + "add triangle 1 2 10\n"
+                + "add hexagon 1\n"
+                + "add sphere\n"
+                + "find 1\n"
+                + "remove #1\n"
+                + "find #1\n"
+                + "list\n"
+                + "stats\n"
+                + "jump\n"
+                + "quit\n"
+                + "add circle 1\n";
+        GeometryLinkedList list = new GeometryLinkedList();
+        StringWriter out = new StringWriter();
+        long errors = new GeometryScript(list).run(new StringReader(script), out);
+
+        String expected = "ok 0 #1" + NL
+                + "ok 1 #2" + NL
+                + "error 5 Invalid triangle side lengths." + NL
+                + "error 6 Unknown shape type 'hexagon'." + NL
+                + "error 7 Sphere takes 1 parameter: radius." + NL
+                + "ok " + new RectangularPrism(2, 3, 4) + NL
+                + "ok" + NL
+                + "error 10 No geometry at #1." + NL
+                + "ok 1" + NL
+                + "Index 0: " + new RectangularPrism(2, 3, 4) + NL
+                + "ok 4" + NL
+                + "area count=0" + NL
+                + "perimeter count=0" + NL
+                + "volume count=1 sum=24.0 min=24.0 max=24.0 mean=24.0" + NL
+                + "surface_area count=1 sum=52.0 min=52.0 max=52.0 mean=52.0" + NL
+                + "error 13 Unknown command 'jump'." + NL
+                + "ok" + NL;
+        assertEquals(expected, out.toString());
+        assertEquals(5, errors);
+        assertEquals(1, list.size());
+    }
+
+    /**
+     * Tests that collections without IDs report an error for #ID addresses.
+     */
+    @Test
+    void testCollectionWithoutIds() throws IOException {
+        GeometryStore store = new GeometryStore();
+        StringWriter out = new StringWriter();
+        new GeometryScript(store).run(new StringReader("add circle 1\nadd circle 2\nremove #1\nremove 0\nfind 0\n"), out);
+        assertEquals("ok 0" + NL + "ok 1" + NL + "error 3 This collection does not support IDs." + NL + "ok" + NL
+                + "ok " + new Circle(2) + NL, out.toString());
+    }
+}
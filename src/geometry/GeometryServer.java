@@ -0,0 +1,152 @@
+package geometry;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves a shared geometry collection to local clients over TCP.
+ *
+ * The server listens on the loopback address only. Each connection speaks the
+ * GeometryScript command language in UTF-8: the client sends command lines and
+ * receives one result line per command (plus the lines announced by list and
+ * stats), in order. A client may pipeline commands; results are flushed whenever
+ * the server has run every command received so far. The connection ends when the
+ * client sends quit or closes its side.
+ *
+ * Every connection is served by its own virtual thread, so thousands of mostly
+ * idle connections cost little more than their sockets. The collection must be
+ * thread-safe, such as a ConcurrentGeometryList.
+ */
+public class GeometryServer implements AutoCloseable {
+    /** Port used when none is given on the command line. */
+    public static final int DEFAULT_PORT = 5150;
+
+    private static final int BACKLOG = 4096;
+
+    private final GeometryCollection collection;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+
+    /**
+     * Starts a server on a loopback port.
+     *
+     * @param collection The thread-safe collection shared by all clients.
+     * @param port       The port, or 0 for any free port.
+     * @throws IOException if the port cannot be bound.
+     */
+    public GeometryServer(GeometryCollection collection, int port) throws IOException {
+        this.collection = collection;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        // A platform thread, so that the server keeps the JVM alive after main() returns.
+        this.acceptor = Thread.ofPlatform().name("geometry-acceptor").start(this::acceptLoop);
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of open client connections.
+     *
+     * @return The connection count.
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // Thrown by accept() once close() closes the server socket.
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 14);
+                BufferedWriter out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 14)) {
+            new GeometryScript(collection).run(in, out);
+        } catch (SocketException e) {
+            // The client disconnected abruptly, or the server is closing.
+        } catch (IOException e) {
+            System.err.println("Error serving " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and waits for their
+     * threads to finish.
+     *
+     * @throws IOException if the server socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        try {
+            acceptor.join();
+            for (Socket socket : connections) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Closing anyway.
+                }
+            }
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a server on a ConcurrentGeometryList until the process is stopped.
+     *
+     * @param args An optional port, DEFAULT_PORT if omitted.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GeometryServer server = new GeometryServer(new ConcurrentGeometryList(), port);
+        System.out.println("Geometry server listening on " + InetAddress.getLoopbackAddress().getHostAddress()
+                + ":" + server.getPort() + ".");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping server: " + e.getMessage());
+            }
+        }));
+    }
+}
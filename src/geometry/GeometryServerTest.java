@@ -0,0 +1,101 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for GeometryServer.
+ */
+public class GeometryServerTest {
+    /**
+     * Tests that pipelined commands on one connection get their results in order.
+     */
+    @Test
+    void testPipelinedCommands() throws Exception {
+        ConcurrentGeometryList list = new ConcurrentGeometryList();
+        try (GeometryServer server = new GeometryServer(list, 0);
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out.write("add circle 1\nadd sphere 2\nfind 1\nremove 5\nlist\nquit\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            assertEquals("ok 0", in.readLine());
+            assertEquals("ok 1", in.readLine());
+            assertEquals("ok " + new Sphere(2), in.readLine());
+            assertEquals("error 4 No geometry at 5.", in.readLine());
+            assertEquals("ok 2", in.readLine());
+            assertEquals("Index 0: " + new Circle(1), in.readLine());
+            assertEquals("Index 1: " + new Sphere(2), in.readLine());
+            assertEquals("ok", in.readLine());
+            assertNull(in.readLine());
+        }
+    }
+
+    /**
+     * Tests that many concurrent clients share one collection without losing updates.
+     */
+    @Test
+    void testConcurrentClients() throws Exception {
+        ConcurrentGeometryList list = new ConcurrentGeometryList();
+        int clients = 200;
+        int commands = 25;
+        try (GeometryServer server = new GeometryServer(list, 0);
+                ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                results.add(executor.submit(() -> {
+                    int ok = 0;
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                        OutputStream out = socket.getOutputStream();
+                        BufferedReader in = new BufferedReader(
+                                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                        for (int i = 0; i < commands; i++) {
+                            out.write(("add circle " + (client + 1) + "." + (i + 1) + "\n").getBytes(StandardCharsets.UTF_8));
+                            out.flush();
+                            if (in.readLine().startsWith("ok ")) {
+                                ok++;
+                            }
+                        }
+                    }
+                    return ok;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(commands, (int) result.get());
+            }
+        }
+        assertEquals(clients * commands, list.size());
+    }
+
+    /**
+     * Tests that closing the server disconnects idle clients.
+     */
+    @Test
+    void testCloseDisconnectsClients() throws IOException {
+        GeometryServer server = new GeometryServer(new ConcurrentGeometryList(), 0);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            socket.getOutputStream().write("add circle 1\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals("ok 0", in.readLine());
+            server.close();
+            assertNull(in.readLine());
+            assertEquals(0, server.getConnectionCount());
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package geometry;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only collection backed by a memory-mapped snapshot file.
+ *
+ * The file format, version 1, is little-endian:
+ *
+ *   header   magic "GEOS" (int), version (short), reserved (short), count (long),
+ *            sequence (long), table offset (long) - 32 bytes
+ *   records  per shape: ShapeKind tag (byte), then getParameterCount() doubles
+ *   table    the file offset of every BLOCK_SIZE-th record (long each)
+ *
+ * open() maps the file with FileChannel.map and checks only the header and the
+ * table size, so opening costs the same for ten shapes or ten million. Records are
+ * decoded when they are accessed: findByIndex jumps to the record's block through
+ * the table and skips at most BLOCK_SIZE - 1 records, and the iterator walks the
+ * records in order. Both return read-only views. loadInto copies the snapshot into
+ * a collection of ordinary shapes.
+ *
+ * write() writes to a temporary file next to the target and then renames it over
+ * the target, so readers never see a partly written snapshot.
+ */
+public class GeometrySnapshot implements GeometryCollection, AutoCloseable {
+    /** Current format version. */
+    public static final short VERSION = 1;
+
+    /** Number of records per entry of the block offset table. */
+    static final int BLOCK_SIZE = 256;
+
+    private static final int MAGIC = 0x534F4547; // "GEOS" read as a little-endian int
+    private static final int HEADER_SIZE = 32;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int size;
+    private final long sequence;
+    private final long tableOffset;
+
+    private GeometrySnapshot(Arena arena, MemorySegment segment, Path path) throws IOException {
+        this.arena = arena;
+        this.segment = segment;
+        if (segment.byteSize() < HEADER_SIZE || segment.get(INT, 0) != MAGIC) {
+            throw new IOException(path + " is not a geometry snapshot.");
+        }
+        short version = segment.get(SHORT, 4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + path + ".");
+        }
+        long count = segment.get(LONG, 8);
+        this.sequence = segment.get(LONG, 16);
+        this.tableOffset = segment.get(LONG, 24);
+        long blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (count < 0 || count > Integer.MAX_VALUE || tableOffset < HEADER_SIZE
+                || tableOffset + 8 * blocks != segment.byteSize()) {
+            throw new IOException("Corrupt snapshot header in " + path + ".");
+        }
+        this.size = (int) count;
+    }
+
+    /**
+     * Maps a snapshot file. The snapshot must be closed to release the mapping.
+     *
+     * @param path The snapshot file.
+     * @return The mapped snapshot.
+     * @throws IOException if the file cannot be read or is not a valid snapshot.
+     */
+    public static GeometrySnapshot open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new GeometrySnapshot(arena, segment, path);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes geometries to a snapshot file, replacing any existing file atomically.
+     *
+     * @param path       The snapshot file.
+     * @param geometries The geometries, written in iteration order.
+     * @param sequence   A caller-defined sequence number stored in the header, or 0.
+     * @throws IOException              if the file cannot be written.
+     * @throws IllegalArgumentException if a geometry is not one of the six shape classes.
+     */
+    public static void write(Path path, Iterable<? extends Geometry> geometries, long sequence) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            writeFile(temporary, geometries, sequence);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        forceDirectory(path.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Writes and syncs the snapshot file itself.
+     */
+    private static void writeFile(Path temporary, Iterable<? extends Geometry> geometries, long sequence)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            // The header is filled in once the count and table offset are known.
+            buffer.position(HEADER_SIZE);
+
+            double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+            long[] blockOffsets = new long[16];
+            long count = 0;
+            long offset = HEADER_SIZE;
+            for (Geometry geometry : geometries) {
+                ShapeKind kind = ShapeKind.of(geometry);
+                kind.getParameters(geometry, parameters);
+                if (count % BLOCK_SIZE == 0) {
+                    int block = (int) (count / BLOCK_SIZE);
+                    if (block == blockOffsets.length) {
+                        blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+                    }
+                    blockOffsets[block] = offset;
+                }
+                int length = recordLength(kind);
+                if (buffer.remaining() < length) {
+                    flush(channel, buffer);
+                }
+                buffer.put(kind.tag());
+                for (int p = 0; p < kind.getParameterCount(); p++) {
+                    buffer.putDouble(parameters[p]);
+                }
+                offset += length;
+                count++;
+            }
+
+            long blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            for (int block = 0; block < blocks; block++) {
+                if (buffer.remaining() < 8) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(blockOffsets[block]);
+            }
+            flush(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                    .putLong(count).putLong(sequence).putLong(offset).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Flushes a directory to the storage device, so that a file just renamed into
+     * it survives a crash. Platforms that cannot open a directory, such as Windows,
+     * are skipped.
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Returns the sequence number given to write().
+     *
+     * @return The sequence number.
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Adds a mutable copy of every shape in the snapshot to a collection.
+     *
+     * @param target The collection to add to.
+     * @throws IllegalArgumentException if a stored shape is rejected by its constructor.
+     */
+    public void loadInto(GeometryCollection target) {
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < size; i++) {
+            ShapeKind kind = kindAt(offset);
+            for (int p = 0; p < kind.getParameterCount(); p++) {
+                parameters[p] = segment.get(DOUBLE, offset + 1 + 8L * p);
+            }
+            target.add(kind.create(parameters));
+            offset += recordLength(kind);
+        }
+    }
+
+    /**
+     * Snapshots are read-only.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void add(Geometry geometry) {
+        throw new UnsupportedOperationException("Snapshots are read-only.");
+    }
+
+    /**
+     * Snapshots are read-only.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public boolean removeByIndex(int index) {
+        throw new UnsupportedOperationException("Snapshots are read-only.");
+    }
+
+    /**
+     * Builds a read-only view of the shape at the given index.
+     *
+     * @param index The index of the shape to find (0-based).
+     * @return A read-only Geometry view if found, null otherwise.
+     */
+    @Override
+    public Geometry findByIndex(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        return view(recordOffset(index));
+    }
+
+    /**
+     * Returns the kind of the shape at the given index.
+     *
+     * @param index The index of the shape (0-based).
+     * @return The kind.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public ShapeKind getKind(int index) {
+        checkIndex(index);
+        return kindAt(recordOffset(index));
+    }
+
+    /**
+     * Reads one parameter of the shape at the given index without building a view.
+     *
+     * @param index     The index of the shape (0-based).
+     * @param parameter The parameter position, as in ShapeKind.getParameterName.
+     * @return The parameter value.
+     * @throws IndexOutOfBoundsException if the index or parameter is out of range.
+     */
+    public double getParameter(int index, int parameter) {
+        checkIndex(index);
+        long offset = recordOffset(index);
+        ShapeKind kind = kindAt(offset);
+        if (parameter < 0 || parameter >= kind.getParameterCount()) {
+            throw new IndexOutOfBoundsException("No parameter " + parameter + " for " + kind);
+        }
+        return segment.get(DOUBLE, offset + 1 + 8L * parameter);
+    }
+
+    /**
+     * Prints all shapes in the snapshot along with their indices.
+     */
+    @Override
+    public void printAll() {
+        GeometryRenderer.print(this);
+    }
+
+    /**
+     * Returns the number of shapes in the snapshot.
+     *
+     * @return The number of shapes.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an iterator that decodes the records in order into read-only views.
+     *
+     * @return An iterator over the snapshot.
+     */
+    @Override
+    public Iterator<Geometry> iterator() {
+        return new Iterator<Geometry>() {
+            private int index = 0;
+            private long offset = HEADER_SIZE;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Geometry next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                Geometry view = view(offset);
+                offset += recordLength(kindAt(offset));
+                index++;
+                return view;
+            }
+        };
+    }
+
+    /**
+     * Unmaps the file. The snapshot and its views cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static int recordLength(ShapeKind kind) {
+        return 1 + 8 * kind.getParameterCount();
+    }
+
+    /**
+     * Finds the record of an index through the block table.
+     */
+    private long recordOffset(int index) {
+        long offset = segment.get(LONG, tableOffset + 8L * (index / BLOCK_SIZE));
+        for (int skip = index % BLOCK_SIZE; skip > 0; skip--) {
+            offset += recordLength(kindAt(offset));
+        }
+        return offset;
+    }
+
+    private ShapeKind kindAt(long offset) {
+        return ShapeKind.fromTag(segment.get(ValueLayout.JAVA_BYTE, offset));
+    }
+
+    private Geometry view(long offset) {
+        ShapeKind kind = kindAt(offset);
+        double[] values = new double[ShapeKind.MAX_PARAMETERS];
+        for (int p = 0; p < kind.getParameterCount(); p++) {
+            values[p] = segment.get(DOUBLE, offset + 1 + 8L * p);
+        }
+        return GeometryViews.of(kind, values[0], values[1], values[2], values[3]);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for writing and mapping GeometrySnapshot files.
+ */
+public class GeometrySnapshotTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that a snapshot spanning several blocks reads back the same shapes, by
+     * index, in order and as a copy.
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        Random random = new Random(11);
+        GeometryLinkedList list = new GeometryLinkedList();
+        int count = GeometrySnapshot.BLOCK_SIZE * 3 + 17;
+        for (int i = 0; i < count; i++) {
+            list.add(GeometryStoreTest.randomShape(random));
+        }
+
+        Path file = directory.resolve("shapes.geos");
+        GeometrySnapshot.write(file, list, 42);
+        try (GeometrySnapshot snapshot = GeometrySnapshot.open(file)) {
+            assertEquals(count, snapshot.size());
+            assertEquals(42, snapshot.sequence());
+
+            for (int step = 0; step < 500; step++) {
+                int index = random.nextInt(count);
+                assertEquals(list.findByIndex(index).toString(), snapshot.findByIndex(index).toString());
+                assertEquals(ShapeKind.of(list.findByIndex(index)), snapshot.getKind(index));
+            }
+            assertNull(snapshot.findByIndex(count));
+
+            int index = 0;
+            for (Geometry geometry : snapshot) {
+                assertEquals(list.findByIndex(index++).toString(), geometry.toString());
+            }
+            assertEquals(count, index);
+
+            GeometryLinkedList copy = new GeometryLinkedList();
+            snapshot.loadInto(copy);
+            assertEquals(count, copy.size());
+            assertEquals(list.findByIndex(count - 1).toString(), copy.findByIndex(count - 1).toString());
+            assertThrows(UnsupportedOperationException.class, () -> snapshot.add(new Circle(1.0)));
+        }
+    }
+
+    /**
+     * Tests that an empty collection gives a valid empty snapshot.
+     */
+    @Test
+    void testEmptySnapshot() throws IOException {
+        Path file = directory.resolve("empty.geos");
+        GeometrySnapshot.write(file, new GeometryLinkedList(), 0);
+        try (GeometrySnapshot snapshot = GeometrySnapshot.open(file)) {
+            assertEquals(0, snapshot.size());
+            assertFalse(snapshot.iterator().hasNext());
+        }
+    }
+
+    /**
+     * Tests that files with a wrong magic number, version or length are rejected.
+     */
+    @Test
+    void testRejectsInvalidFiles() throws IOException {
+        Path file = directory.resolve("shapes.geos");
+        GeometryLinkedList list = new GeometryLinkedList();
+        list.add(new Circle(1.0));
+        GeometrySnapshot.write(file, list, 0);
+
+        Path truncated = directory.resolve("truncated.geos");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> GeometrySnapshot.open(truncated));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 9, 0 }), 4);
+        }
+        assertThrows(IOException.class, () -> GeometrySnapshot.open(file));
+
+        Path text = directory.resolve("text.geos");
+        Files.writeString(text, "Circle [Radius=1.00, Area=3.14, Perimeter=6.28]");
+        assertThrows(IOException.class, () -> GeometrySnapshot.open(text));
+    }
+
+    /**
+     * Tests that a failed write leaves the previous snapshot in place and no
+     * temporary file behind.
+     */
+    @Test
+    void testFailedWriteCleansUp() throws IOException {
+        Path file = directory.resolve("shapes.geos");
+        GeometryLinkedList list = new GeometryLinkedList();
+        list.add(new Circle(1.0));
+        GeometrySnapshot.write(file, list, 1);
+
+        list.add(new Geometry() {
+        });
+        assertThrows(IllegalArgumentException.class, () -> GeometrySnapshot.write(file, list, 2));
+        assertFalse(Files.exists(directory.resolve("shapes.geos.tmp")));
+        try (GeometrySnapshot snapshot = GeometrySnapshot.open(file)) {
+            assertEquals(1, snapshot.sequence());
+            assertEquals(1, snapshot.size());
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package geometry;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Running count, sum, min, max and mean of every metric, per shape kind, over
+ * the geometries in a GeometryLinkedList.
+ *
+ * The statistics register as a GeometryListener on the list and are updated on
+ * every add, removeByIndex and setter change, so reading them never scans the
+ * list; a setter change moves the shape's entries in place. Sums are kept with
+ * Neumaier's compensated summation, so the sums and means of long sequences of
+ * adds and removals do not drift. Each kind and metric also keeps an indexed
+ * min-heap and max-heap of its values, so the minimum and maximum stay exact
+ * when the current extreme is removed; an update costs O(log n) for the heaps
+ * and O(1) for everything else.
+ *
+ * Like GeometryAggregator, the statistics skip metrics that do not apply to a
+ * shape and metrics that cannot be calculated, such as the area of a degenerate
+ * triangle. close() detaches them from the list. Like the list, the statistics
+ * are not thread-safe.
+ */
+public class GeometryStatistics implements AutoCloseable {
+    private static final ShapeKind[] KINDS = ShapeKind.values();
+    private static final Metric[] METRICS = Metric.values();
+
+    private final GeometryLinkedList list;
+    private final int[] counts = new int[KINDS.length];
+    private final Summary[][] summaries = new Summary[KINDS.length][METRICS.length];
+
+    /** The entry of each geometry, chained through Entry.alias if it occurs several times. */
+    private final IdentityHashMap<Geometry, Entry> entries = new IdentityHashMap<>();
+
+    private final GeometryListener listener = new GeometryListener() {
+        @Override
+        public void geometryAdded(int index, Geometry geometry) {
+            insert(geometry);
+        }
+
+        @Override
+        public void geometryRemoved(int index, Geometry geometry) {
+            delete(geometry);
+        }
+
+        @Override
+        public void geometryReplaced(int index, Geometry previous, Geometry replacement) {
+            rename(previous, replacement);
+        }
+
+        @Override
+        public void geometryChanged(Geometry geometry) {
+            update(geometry);
+        }
+    };
+
+    /**
+     * Computes the statistics of the current contents of a list and keeps them up
+     * to date.
+     *
+     * @param list The list to follow.
+     * @throws IllegalArgumentException if list is null.
+     */
+    public GeometryStatistics(GeometryLinkedList list) {
+        if (list == null) {
+            throw new IllegalArgumentException("List must not be null.");
+        }
+        this.list = list;
+        for (ShapeKind kind : KINDS) {
+            for (Metric metric : METRICS) {
+                if (metric.appliesTo(kind)) {
+                    summaries[kind.ordinal()][metric.ordinal()] = new Summary(metric);
+                }
+            }
+        }
+        for (Geometry geometry : list) {
+            insert(geometry);
+        }
+        list.addListener(listener);
+    }
+
+    /**
+     * Returns the number of shapes of a kind in the list.
+     *
+     * @param kind The kind.
+     * @return The count.
+     */
+    public int count(ShapeKind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * Returns the statistics of a metric over the shapes of one kind.
+     *
+     * @param kind   The kind.
+     * @param metric The metric.
+     * @return A new summary; its count is 0 if no shape of the kind has the metric.
+     */
+    public DoubleSummaryStatistics summarize(ShapeKind kind, Metric metric) {
+        Summary summary = summaries[kind.ordinal()][metric.ordinal()];
+        return summary == null ? new DoubleSummaryStatistics() : summary.toStatistics();
+    }
+
+    /**
+     * Returns the statistics of a metric over every shape it applies to.
+     *
+     * @param metric The metric.
+     * @return A new summary; its count is 0 if no shape has the metric.
+     */
+    public DoubleSummaryStatistics summarize(Metric metric) {
+        DoubleSummaryStatistics total = new DoubleSummaryStatistics();
+        for (ShapeKind kind : KINDS) {
+            total.combine(summarize(kind, metric));
+        }
+        return total;
+    }
+
+    /**
+     * Returns the statistics of a metric separately for each shape kind, in the
+     * form of GeometryCollection.summarizeByKind.
+     *
+     * @param metric The metric.
+     * @return New summaries for the kinds that have shapes with the metric, in ShapeKind order.
+     */
+    public Map<ShapeKind, DoubleSummaryStatistics> summarizeByKind(Metric metric) {
+        Map<ShapeKind, DoubleSummaryStatistics> result = new EnumMap<>(ShapeKind.class);
+        for (ShapeKind kind : KINDS) {
+            Summary summary = summaries[kind.ordinal()][metric.ordinal()];
+            if (summary != null && summary.count > 0) {
+                result.put(kind, summary.toStatistics());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stops listening to the list. The statistics keep their values but no longer
+     * follow changes.
+     */
+    @Override
+    public void close() {
+        list.removeListener(listener);
+    }
+
+    /**
+     * Adds a geometry's current metrics.
+     */
+    private void insert(Geometry geometry) {
+        ShapeKind kind = ShapeKind.of(geometry);
+        Entry entry = new Entry(kind);
+        for (Metric metric : METRICS) {
+            Summary summary = summaries[kind.ordinal()][metric.ordinal()];
+            if (summary != null) {
+                entry.values[metric.ordinal()] = metric.tryOf(geometry);
+                summary.add(entry);
+            }
+        }
+        counts[kind.ordinal()]++;
+        entry.alias = entries.put(geometry, entry);
+    }
+
+    /**
+     * Moves every occurrence of a changed geometry from its old metrics to its new
+     * ones in place. A geometry that occurs n times is reported changed n times;
+     * the first report updates all of its entries and the others find nothing to do.
+     */
+    private void update(Geometry geometry) {
+        Entry entry = entries.get(geometry);
+        if (entry == null) {
+            return;
+        }
+        Summary[] kindSummaries = summaries[entry.kind.ordinal()];
+        double[] values = new double[METRICS.length];
+        for (Metric metric : METRICS) {
+            if (kindSummaries[metric.ordinal()] != null) {
+                values[metric.ordinal()] = metric.tryOf(geometry);
+            }
+        }
+        for (; entry != null; entry = entry.alias) {
+            for (Summary summary : kindSummaries) {
+                if (summary != null) {
+                    summary.update(entry, values[summary.metric]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves one entry of a geometry to an equal geometry that replaced it; the
+     * values do not change.
+     */
+    private void rename(Geometry previous, Geometry replacement) {
+        Entry entry = entries.get(previous);
+        if (entry == null) {
+            return;
+        }
+        if (entry.alias == null) {
+            entries.remove(previous);
+        } else {
+            entries.put(previous, entry.alias);
+        }
+        entry.alias = entries.put(replacement, entry);
+    }
+
+    /**
+     * Removes one occurrence of a geometry, using the metrics it was added with.
+     */
+    private void delete(Geometry geometry) {
+        Entry entry = entries.get(geometry);
+        if (entry == null) {
+            return;
+        }
+        if (entry.alias == null) {
+            entries.remove(geometry);
+        } else {
+            entries.put(geometry, entry.alias);
+        }
+        for (Summary summary : summaries[entry.kind.ordinal()]) {
+            if (summary != null) {
+                summary.remove(entry);
+            }
+        }
+        counts[entry.kind.ordinal()]--;
+    }
+
+    /**
+     * The metrics one occurrence of a geometry was added with, and its positions
+     * in the heaps of its kind.
+     */
+    private static class Entry {
+        final ShapeKind kind;
+        final double[] values = new double[METRICS.length];
+        final int[] minPositions = new int[METRICS.length];
+        final int[] maxPositions = new int[METRICS.length];
+
+        /** Another entry for the same geometry, if it occurs in the list more than once. */
+        Entry alias;
+
+        Entry(ShapeKind kind) {
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * The running statistics of one metric of one kind.
+     */
+    private static class Summary {
+        final int metric;
+        final Heap min;
+        final Heap max;
+        long count;
+        double sum;
+        double compensation;
+
+        Summary(Metric metric) {
+            this.metric = metric.ordinal();
+            this.min = new Heap(this.metric, false);
+            this.max = new Heap(this.metric, true);
+        }
+
+        void add(Entry entry) {
+            double value = entry.values[metric];
+            if (Double.isNaN(value)) {
+                return;
+            }
+            count++;
+            accumulate(value);
+            min.add(entry);
+            max.add(entry);
+        }
+
+        void remove(Entry entry) {
+            double value = entry.values[metric];
+            if (Double.isNaN(value)) {
+                return;
+            }
+            count--;
+            if (count == 0) {
+                // Start again from an exact zero rather than the rounding left by the removals.
+                sum = 0;
+                compensation = 0;
+            } else {
+                accumulate(-value);
+            }
+            min.remove(entry);
+            max.remove(entry);
+        }
+
+        /**
+         * Changes the value of an entry, moving it within the heaps.
+         */
+        void update(Entry entry, double value) {
+            double old = entry.values[metric];
+            if (Double.compare(old, value) == 0) {
+                return;
+            }
+            if (Double.isNaN(old) || Double.isNaN(value)) {
+                remove(entry);
+                entry.values[metric] = value;
+                add(entry);
+                return;
+            }
+            accumulate(-old);
+            accumulate(value);
+            entry.values[metric] = value;
+            min.update(entry);
+            max.update(entry);
+        }
+
+        /**
+         * Adds a value with Neumaier's compensated summation: the low-order bits
+         * lost by each addition are collected in compensation.
+         */
+        private void accumulate(double value) {
+            double total = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - total) + value;
+            } else {
+                compensation += (value - total) + sum;
+            }
+            sum = total;
+        }
+
+        DoubleSummaryStatistics toStatistics() {
+            if (count == 0) {
+                return new DoubleSummaryStatistics();
+            }
+            return new DoubleSummaryStatistics(count, min.peek(), max.peek(), sum + compensation);
+        }
+    }
+
+    /**
+     * A binary heap of entries by one metric, in which every entry records its own
+     * position so that it can be removed from the middle in O(log n).
+     */
+    private static class Heap {
+        private final int metric;
+        private final boolean largestFirst;
+        private Entry[] entries = new Entry[16];
+        private int size;
+
+        Heap(int metric, boolean largestFirst) {
+            this.metric = metric;
+            this.largestFirst = largestFirst;
+        }
+
+        double peek() {
+            return entries[0].values[metric];
+        }
+
+        void add(Entry entry) {
+            if (size == entries.length) {
+                Entry[] grown = new Entry[size * 2];
+                System.arraycopy(entries, 0, grown, 0, size);
+                entries = grown;
+            }
+            place(entry, size++);
+            siftUp(size - 1);
+        }
+
+        void remove(Entry entry) {
+            int position = largestFirst ? entry.maxPositions[metric] : entry.minPositions[metric];
+            Entry last = entries[--size];
+            entries[size] = null;
+            if (position == size) {
+                return;
+            }
+            place(last, position);
+            siftUp(position);
+            siftDown(position);
+        }
+
+        void update(Entry entry) {
+            int position = largestFirst ? entry.maxPositions[metric] : entry.minPositions[metric];
+            siftUp(position);
+            siftDown(largestFirst ? entry.maxPositions[metric] : entry.minPositions[metric]);
+        }
+
+        private void siftUp(int position) {
+            Entry entry = entries[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!before(entry, entries[parent])) {
+                    break;
+                }
+                place(entries[parent], position);
+                position = parent;
+            }
+            place(entry, position);
+        }
+
+        private void siftDown(int position) {
+            Entry entry = entries[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(entries[child + 1], entries[child])) {
+                    child++;
+                }
+                if (!before(entries[child], entry)) {
+                    break;
+                }
+                place(entries[child], position);
+                position = child;
+            }
+            place(entry, position);
+        }
+
+        private boolean before(Entry a, Entry b) {
+            return largestFirst ? a.values[metric] > b.values[metric] : a.values[metric] < b.values[metric];
+        }
+
+        private void place(Entry entry, int position) {
+            entries[position] = entry;
+            if (largestFirst) {
+                entry.maxPositions[metric] = position;
+            } else {
+                entry.minPositions[metric] = position;
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the running statistics of GeometryStatistics.
+ */
+public class GeometryStatisticsTest {
+    private static final double[] DEGENERATE = { 0.7308781907032909, 0.41008081149220166, 1.1409590021954923 };
+
+    /**
+     * Tests that the statistics match a fresh scan through random adds, removals,
+     * repeated shapes, degenerate triangles and setter changes, including removals
+     * of the current minimum and maximum.
+     */
+    @Test
+    void testMatchesScanThroughChanges() {
+        Random random = new Random(25);
+        GeometryLinkedList list = new GeometryLinkedList();
+        list.add(new Circle(2));
+        GeometryStatistics statistics = new GeometryStatistics(list);
+        for (int step = 0; step < 4000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 4 || list.size() == 0) {
+                list.add(GeometryStoreTest.randomShape(random));
+            } else if (operation < 5) {
+                list.add(new Triangle(DEGENERATE[0], DEGENERATE[1], DEGENERATE[2]));
+            } else if (operation < 6) {
+                list.add(list.findByIndex(random.nextInt(list.size())));
+            } else if (operation < 8) {
+                list.removeByIndex(random.nextInt(list.size()));
+            } else {
+                Geometry geometry = list.findByIndex(random.nextInt(list.size()));
+                double value = 1 + random.nextInt(20);
+                if (geometry instanceof Circle circle) {
+                    circle.setRadius(value);
+                } else if (geometry instanceof Rectangle rectangle) {
+                    rectangle.setWidth(value);
+                } else if (geometry instanceof RectangularPrism prism) {
+                    prism.setHeight(value);
+                } else if (geometry instanceof TriangularPrism prism) {
+                    prism.setHeight(value);
+                }
+            }
+            if (step % 100 == 0) {
+                assertMatchesScan(list, statistics);
+            }
+        }
+        assertMatchesScan(list, statistics);
+
+        while (list.size() > 0) {
+            list.removeByIndex(0);
+        }
+        for (Metric metric : Metric.values()) {
+            assertEquals(0, statistics.summarize(metric).getCount());
+            assertEquals(0.0, statistics.summarize(metric).getSum());
+        }
+        assertTrue(statistics.summarizeByKind(Metric.AREA).isEmpty());
+    }
+
+    /**
+     * Tests that compensated sums survive cancellation, that degenerate triangles
+     * are counted but have no area, and that close stops following the list.
+     */
+    @Test
+    void testCompensatedSumsAndClose() {
+        GeometryLinkedList list = new GeometryLinkedList();
+        GeometryStatistics statistics = new GeometryStatistics(list);
+        list.add(new Rectangle(1e8, 1e8));
+        for (int i = 0; i < 1000; i++) {
+            list.add(new Rectangle(0.1, 1));
+        }
+        list.removeByIndex(0);
+        DoubleSummaryStatistics area = statistics.summarize(ShapeKind.RECTANGLE, Metric.AREA);
+        assertEquals(1000, area.getCount());
+        // A plain running sum loses every 0.1 against 1e16 and ends at 0.
+        assertEquals(100.0, area.getSum(), 1e-9);
+        assertEquals(0.1, area.getMax());
+        assertEquals(0.1, area.getAverage(), 1e-12);
+
+        list.add(new Triangle(DEGENERATE[0], DEGENERATE[1], DEGENERATE[2]));
+        assertEquals(1, statistics.count(ShapeKind.TRIANGLE));
+        assertEquals(0, statistics.summarize(ShapeKind.TRIANGLE, Metric.AREA).getCount());
+        assertEquals(1, statistics.summarize(ShapeKind.TRIANGLE, Metric.PERIMETER).getCount());
+        assertEquals(0, statistics.summarize(ShapeKind.CIRCLE, Metric.VOLUME).getCount());
+
+        statistics.close();
+        list.add(new Circle(1));
+        assertEquals(0, statistics.count(ShapeKind.CIRCLE));
+    }
+
+    private static void assertMatchesScan(GeometryLinkedList list, GeometryStatistics statistics) {
+        for (ShapeKind kind : ShapeKind.values()) {
+            int count = 0;
+            for (Geometry geometry : list) {
+                if (ShapeKind.of(geometry) == kind) {
+                    count++;
+                }
+            }
+            assertEquals(count, statistics.count(kind));
+
+            for (Metric metric : Metric.values()) {
+                DoubleSummaryStatistics expected = new DoubleSummaryStatistics();
+                for (Geometry geometry : list) {
+                    double value = metric.tryOf(geometry);
+                    if (ShapeKind.of(geometry) == kind && !Double.isNaN(value)) {
+                        expected.accept(value);
+                    }
+                }
+                DoubleSummaryStatistics actual = statistics.summarize(kind, metric);
+                assertEquals(expected.getCount(), actual.getCount());
+                if (expected.getCount() > 0) {
+                    assertEquals(expected.getMin(), actual.getMin());
+                    assertEquals(expected.getMax(), actual.getMax());
+                    assertEquals(expected.getSum(), actual.getSum(), 1e-9 * expected.getSum());
+                }
+            }
+        }
+    }
+}
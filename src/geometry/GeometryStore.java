@@ -0,0 +1,410 @@
+package geometry;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A columnar (structure-of-arrays) store of Geometry shapes.
+ *
+ * Shapes are not kept as objects. Each shape kind has its own primitive double
+ * columns (radius; sideA/B/C; length/width/height), and the store keeps a one-byte
+ * kind tag and the shape's slot in its kind's columns for every index. A stored
+ * shape costs 5 bytes plus 8 bytes per parameter, and totals such as totalArea()
+ * are computed by linear scans over the columns.
+ *
+ * findByIndex and the iterator return read-only views that are built on demand.
+ * removeByIndex shifts the arrays and is O(n), but the shift is a bulk array copy.
+ */
+public class GeometryStore implements GeometryCollection {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] tags;
+    private int[] slots;
+    private int size;
+    private final Columns[] columns;
+
+    /**
+     * Constructs an empty GeometryStore.
+     */
+    public GeometryStore() {
+        this.tags = new byte[INITIAL_CAPACITY];
+        this.slots = new int[INITIAL_CAPACITY];
+        this.size = 0;
+        this.columns = new Columns[ShapeKind.values().length];
+        for (ShapeKind kind : ShapeKind.values()) {
+            columns[kind.ordinal()] = new Columns(kind.getParameterCount());
+        }
+    }
+
+    /**
+     * Adds a copy of a Geometry object's parameters to the end of the store.
+     *
+     * @param geometry The Geometry object to add.
+     * @throws IllegalArgumentException if the geometry is not one of the six shape classes.
+     */
+    @Override
+    public void add(Geometry geometry) {
+        ShapeKind kind = ShapeKind.of(geometry);
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        kind.getParameters(geometry, parameters);
+        append(kind, parameters);
+    }
+
+    /**
+     * Appends an already validated shape given by its kind and parameters.
+     *
+     * @param kind       The kind of shape.
+     * @param parameters The parameters, in the order given by ShapeKind.getParameterName.
+     */
+    void append(ShapeKind kind, double[] parameters) {
+        if (size == tags.length) {
+            int capacity = tags.length * 2;
+            byte[] grownTags = new byte[capacity];
+            int[] grownSlots = new int[capacity];
+            System.arraycopy(tags, 0, grownTags, 0, size);
+            System.arraycopy(slots, 0, grownSlots, 0, size);
+            tags = grownTags;
+            slots = grownSlots;
+        }
+        tags[size] = kind.tag();
+        slots[size] = columns[kind.ordinal()].append(parameters);
+        size++;
+    }
+
+    /**
+     * Removes a shape from the store by its index.
+     *
+     * @param index The index of the shape to remove (0-based).
+     * @return True if removal was successful, false otherwise.
+     */
+    @Override
+    public boolean removeByIndex(int index) {
+        if (index < 0 || index >= size) {
+            return false;
+        }
+
+        byte tag = tags[index];
+        columns[tag].remove(slots[index]);
+
+        System.arraycopy(tags, index + 1, tags, index, size - index - 1);
+        System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+        size--;
+
+        // Shapes of the same kind stored after the removed one moved down one slot.
+        for (int i = index; i < size; i++) {
+            if (tags[i] == tag) {
+                slots[i]--;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds a read-only view of the shape at the given index.
+     *
+     * @param index The index of the shape to find (0-based).
+     * @return A read-only Geometry view if found, null otherwise.
+     */
+    @Override
+    public Geometry findByIndex(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        return view(index);
+    }
+
+    /**
+     * Returns the kind of the shape at the given index.
+     *
+     * @param index The index of the shape (0-based).
+     * @return The kind.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public ShapeKind getKind(int index) {
+        checkIndex(index);
+        return ShapeKind.fromTag(tags[index]);
+    }
+
+    /**
+     * Reads one parameter of the shape at the given index without building a view.
+     *
+     * @param index     The index of the shape (0-based).
+     * @param parameter The parameter position, as in ShapeKind.getParameterName.
+     * @return The parameter value.
+     * @throws IndexOutOfBoundsException if the index or parameter is out of range.
+     */
+    public double getParameter(int index, int parameter) {
+        checkIndex(index);
+        return columns[tags[index]].values[parameter][slots[index]];
+    }
+
+    /**
+     * Returns the number of stored shapes of the given kind.
+     *
+     * @param kind The kind.
+     * @return The count.
+     */
+    public int count(ShapeKind kind) {
+        return columns[kind.ordinal()].count;
+    }
+
+    /**
+     * Returns the raw column holding one parameter of a kind. Only the first
+     * count(kind) entries are in use, in index order.
+     *
+     * @param kind      The kind.
+     * @param parameter The parameter position.
+     * @return The backing column array.
+     */
+    double[] column(ShapeKind kind, int parameter) {
+        return columns[kind.ordinal()].values[parameter];
+    }
+
+    /**
+     * Returns the kind tag of the shape at an index, without a range check.
+     *
+     * @param index The index of the shape (0-based).
+     * @return The tag, as in ShapeKind.tag.
+     */
+    byte tag(int index) {
+        return tags[index];
+    }
+
+    /**
+     * Returns the position of the shape at an index in its kind's columns,
+     * without a range check.
+     *
+     * @param index The index of the shape (0-based).
+     * @return The slot.
+     */
+    int slot(int index) {
+        return slots[index];
+    }
+
+    /**
+     * Prints all shapes in the store along with their indices.
+     */
+    @Override
+    public void printAll() {
+        GeometryRenderer.print(this);
+    }
+
+    /**
+     * Returns the number of shapes in the store.
+     *
+     * @return The number of shapes.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an iterator that builds a read-only view for each shape in index order.
+     *
+     * @return An iterator over the store.
+     */
+    @Override
+    public Iterator<Geometry> iterator() {
+        return new Iterator<Geometry>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Geometry next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return view(index++);
+            }
+        };
+    }
+
+    /**
+     * Sums the areas of all 2D shapes with a scan over their columns.
+     *
+     * @return The total area.
+     * @throws IllegalStateException if a stored triangle is degenerate.
+     */
+    public double totalArea() {
+        double total = 0;
+        Columns triangles = columns[ShapeKind.TRIANGLE.ordinal()];
+        double[] a = triangles.values[0];
+        double[] b = triangles.values[1];
+        double[] c = triangles.values[2];
+        for (int i = 0; i < triangles.count; i++) {
+            total += ShapeKind.heron(a[i], b[i], c[i]);
+        }
+
+        Columns rectangles = columns[ShapeKind.RECTANGLE.ordinal()];
+        double[] length = rectangles.values[0];
+        double[] width = rectangles.values[1];
+        for (int i = 0; i < rectangles.count; i++) {
+            total += length[i] * width[i];
+        }
+
+        Columns circles = columns[ShapeKind.CIRCLE.ordinal()];
+        double[] radius = circles.values[0];
+        for (int i = 0; i < circles.count; i++) {
+            total += Math.PI * radius[i] * radius[i];
+        }
+        return total;
+    }
+
+    /**
+     * Sums the perimeters of all 2D shapes with a scan over their columns.
+     *
+     * @return The total perimeter.
+     */
+    public double totalPerimeter() {
+        double total = 0;
+        Columns triangles = columns[ShapeKind.TRIANGLE.ordinal()];
+        double[] a = triangles.values[0];
+        double[] b = triangles.values[1];
+        double[] c = triangles.values[2];
+        for (int i = 0; i < triangles.count; i++) {
+            total += a[i] + b[i] + c[i];
+        }
+
+        Columns rectangles = columns[ShapeKind.RECTANGLE.ordinal()];
+        double[] length = rectangles.values[0];
+        double[] width = rectangles.values[1];
+        for (int i = 0; i < rectangles.count; i++) {
+            total += 2 * (length[i] + width[i]);
+        }
+
+        Columns circles = columns[ShapeKind.CIRCLE.ordinal()];
+        double[] radius = circles.values[0];
+        for (int i = 0; i < circles.count; i++) {
+            total += 2 * Math.PI * radius[i];
+        }
+        return total;
+    }
+
+    /**
+     * Sums the volumes of all 3D shapes with a scan over their columns.
+     *
+     * @return The total volume.
+     * @throws IllegalStateException if the base of a stored triangular prism is degenerate.
+     */
+    public double totalVolume() {
+        double total = 0;
+        Columns spheres = columns[ShapeKind.SPHERE.ordinal()];
+        double[] radius = spheres.values[0];
+        for (int i = 0; i < spheres.count; i++) {
+            total += (4.0 / 3.0) * Math.PI * Math.pow(radius[i], 3);
+        }
+
+        Columns boxes = columns[ShapeKind.RECTANGULAR_PRISM.ordinal()];
+        double[] length = boxes.values[0];
+        double[] width = boxes.values[1];
+        double[] height = boxes.values[2];
+        for (int i = 0; i < boxes.count; i++) {
+            total += length[i] * width[i] * height[i];
+        }
+
+        Columns prisms = columns[ShapeKind.TRIANGULAR_PRISM.ordinal()];
+        double[] a = prisms.values[0];
+        double[] b = prisms.values[1];
+        double[] c = prisms.values[2];
+        double[] prismHeight = prisms.values[3];
+        for (int i = 0; i < prisms.count; i++) {
+            total += ShapeKind.heron(a[i], b[i], c[i]) * prismHeight[i];
+        }
+        return total;
+    }
+
+    /**
+     * Sums the surface areas of all 3D shapes with a scan over their columns.
+     *
+     * @return The total surface area.
+     * @throws IllegalStateException if the base of a stored triangular prism is degenerate.
+     */
+    public double totalSurfaceArea() {
+        double total = 0;
+        Columns spheres = columns[ShapeKind.SPHERE.ordinal()];
+        double[] radius = spheres.values[0];
+        for (int i = 0; i < spheres.count; i++) {
+            total += 4 * Math.PI * Math.pow(radius[i], 2);
+        }
+
+        Columns boxes = columns[ShapeKind.RECTANGULAR_PRISM.ordinal()];
+        double[] length = boxes.values[0];
+        double[] width = boxes.values[1];
+        double[] height = boxes.values[2];
+        for (int i = 0; i < boxes.count; i++) {
+            total += 2 * (length[i] * width[i] + length[i] * height[i] + width[i] * height[i]);
+        }
+
+        Columns prisms = columns[ShapeKind.TRIANGULAR_PRISM.ordinal()];
+        double[] a = prisms.values[0];
+        double[] b = prisms.values[1];
+        double[] c = prisms.values[2];
+        double[] prismHeight = prisms.values[3];
+        for (int i = 0; i < prisms.count; i++) {
+            total += 2 * ShapeKind.heron(a[i], b[i], c[i]) + (a[i] + b[i] + c[i]) * prismHeight[i];
+        }
+        return total;
+    }
+
+    private Geometry view(int index) {
+        Columns kindColumns = columns[tags[index]];
+        double[][] values = kindColumns.values;
+        int slot = slots[index];
+        return GeometryViews.of(ShapeKind.fromTag(tags[index]),
+                values[0][slot],
+                values.length > 1 ? values[1][slot] : 0,
+                values.length > 2 ? values[2][slot] : 0,
+                values.length > 3 ? values[3][slot] : 0);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    /**
+     * The parameter columns of one shape kind, kept in index order.
+     */
+    private static class Columns {
+        double[][] values;
+        int count;
+
+        Columns(int parameterCount) {
+            this.values = new double[parameterCount][INITIAL_CAPACITY];
+            this.count = 0;
+        }
+
+        /**
+         * Appends a shape's parameters and returns its slot.
+         */
+        int append(double[] parameters) {
+            if (count == values[0].length) {
+                for (int p = 0; p < values.length; p++) {
+                    double[] grown = new double[count * 2];
+                    System.arraycopy(values[p], 0, grown, 0, count);
+                    values[p] = grown;
+                }
+            }
+            for (int p = 0; p < values.length; p++) {
+                values[p][count] = parameters[p];
+            }
+            return count++;
+        }
+
+        /**
+         * Removes the shape in the given slot, shifting later slots down by one.
+         */
+        void remove(int slot) {
+            for (double[] column : values) {
+                System.arraycopy(column, slot + 1, column, slot, count - slot - 1);
+            }
+            count--;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the columnar GeometryStore.
+ */
+public class GeometryStoreTest {
+    private GeometryStore store;
+    private GeometryLinkedList reference;
+
+    /**
+     * Initializes a fresh store and reference list before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        store = new GeometryStore();
+        reference = new GeometryLinkedList();
+    }
+
+    /**
+     * Tests that views rebuild the same shapes that were added.
+     */
+    @Test
+    void testViewsMatchAddedShapes() {
+        addToBoth(new Triangle(3.0, 4.0, 5.0));
+        addToBoth(new Rectangle(5.0, 3.0));
+        addToBoth(new Circle(2.5));
+        addToBoth(new Sphere(3.0));
+        addToBoth(new RectangularPrism(2.0, 3.0, 4.0));
+        addToBoth(new TriangularPrism(3.0, 4.0, 5.0, 10.0));
+
+        assertEquals(6, store.size());
+        assertEquals(ShapeKind.SPHERE, store.getKind(3));
+        assertEquals(10.0, store.getParameter(5, 3), 0.0);
+        assertTrue(store.findByIndex(4) instanceof RectangularPrism);
+        assertSameContents();
+    }
+
+    /**
+     * Tests that views cannot be modified.
+     */
+    @Test
+    void testViewsAreReadOnly() {
+        store.add(new Circle(1.0));
+        Circle view = (Circle) store.findByIndex(0);
+        assertThrows(UnsupportedOperationException.class, () -> view.setRadius(2.0));
+        assertEquals(1.0, store.getParameter(0, 0), 0.0);
+    }
+
+    /**
+     * Tests that removals keep every kind's columns lined up with the indices.
+     */
+    @Test
+    void testRandomRemovalsMatchReference() {
+        Random random = new Random(7);
+        for (int step = 0; step < 3000; step++) {
+            if (random.nextInt(3) > 0 || reference.size() == 0) {
+                addToBoth(randomShape(random));
+            } else {
+                int index = random.nextInt(reference.size());
+                assertTrue(store.removeByIndex(index));
+                assertTrue(reference.removeByIndex(index));
+            }
+        }
+        assertFalse(store.removeByIndex(store.size()));
+        assertSameContents();
+    }
+
+    /**
+     * Tests that the column scans agree with the per-object metric methods.
+     */
+    @Test
+    void testTotalsMatchObjectMetrics() {
+        Random random = new Random(11);
+        for (int i = 0; i < 1000; i++) {
+            addToBoth(randomShape(random));
+        }
+
+        double area = 0;
+        double perimeter = 0;
+        double volume = 0;
+        double surfaceArea = 0;
+        for (Geometry geometry : reference) {
+            if (geometry instanceof Geometry2D) {
+                area += ((Geometry2D) geometry).getArea();
+                perimeter += ((Geometry2D) geometry).getPerimeter();
+            } else {
+                volume += ((Geometry3D) geometry).getVolume();
+                surfaceArea += ((Geometry3D) geometry).getSurfaceArea();
+            }
+        }
+
+        assertEquals(area, store.totalArea(), 1e-9 * area);
+        assertEquals(perimeter, store.totalPerimeter(), 1e-9 * perimeter);
+        assertEquals(volume, store.totalVolume(), 1e-9 * volume);
+        assertEquals(surfaceArea, store.totalSurfaceArea(), 1e-9 * surfaceArea);
+    }
+
+    static Geometry randomShape(Random random) {
+        double x = 1 + random.nextInt(20);
+        switch (random.nextInt(6)) {
+            case 0:
+                return new Triangle(x + 1, x + 2, x + 3);
+            case 1:
+                return new Rectangle(x, x / 2);
+            case 2:
+                return new Circle(x);
+            case 3:
+                return new Sphere(x);
+            case 4:
+                return new RectangularPrism(x, 2.0, x / 4);
+            default:
+                return new TriangularPrism(x + 1, x + 2, x + 3, 3.0);
+        }
+    }
+
+    private void addToBoth(Geometry geometry) {
+        store.add(geometry);
+        reference.add(geometry);
+    }
+
+    private void assertSameContents() {
+        assertEquals(reference.size(), store.size());
+        int index = 0;
+        for (Geometry geometry : store) {
+            assertEquals(reference.findByIndex(index).toString(), geometry.toString());
+            index++;
+        }
+        int[] counts = new int[ShapeKind.values().length];
+        for (Geometry geometry : reference) {
+            counts[ShapeKind.of(geometry).ordinal()]++;
+        }
+        for (ShapeKind kind : ShapeKind.values()) {
+            assertEquals(counts[kind.ordinal()], store.count(kind));
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package geometry;
+
+/**
+ * An immutable shape, as a record, in a sealed hierarchy parallel to the mutable
+ * Geometry classes.
+ *
+ * The hierarchy is closed: a GeometryValue is a Shape2D or a Shape3D, and each of
+ * those is one of three records. Metrics are computed by switching on the record
+ * type rather than through a virtual call, so a loop over mixed shapes has one
+ * call target instead of a megamorphic call site, and switches over the hierarchy
+ * are checked for exhaustiveness by the compiler. Because records are final and
+ * have no identity-sensitive state, the JIT can scalar-replace temporary values
+ * that do not escape a method.
+ *
+ * Records validate their parameters with the same rules and messages as the
+ * constructors of the mutable classes. of and toGeometry convert between the two
+ * APIs.
+ */
+public sealed interface GeometryValue permits GeometryValue.Shape2D, GeometryValue.Shape3D {
+    /**
+     * A two-dimensional shape value, the counterpart of Geometry2D.
+     */
+    sealed interface Shape2D extends GeometryValue permits TriangleValue, RectangleValue, CircleValue {
+        /**
+         * Calculates the area.
+         *
+         * @return The area.
+         * @throws IllegalStateException if a triangle's sides are degenerate.
+         */
+        default double area() {
+            switch (this) {
+                case TriangleValue(double sideA, double sideB, double sideC):
+                    return ShapeKind.heron(sideA, sideB, sideC);
+                case RectangleValue(double length, double width):
+                    return length * width;
+                case CircleValue(double radius):
+                    return Math.PI * radius * radius;
+            }
+        }
+
+        /**
+         * Calculates the perimeter.
+         *
+         * @return The perimeter.
+         */
+        default double perimeter() {
+            switch (this) {
+                case TriangleValue(double sideA, double sideB, double sideC):
+                    return sideA + sideB + sideC;
+                case RectangleValue(double length, double width):
+                    return 2 * (length + width);
+                case CircleValue(double radius):
+                    return 2 * Math.PI * radius;
+            }
+        }
+    }
+
+    /**
+     * A three-dimensional shape value, the counterpart of Geometry3D.
+     */
+    sealed interface Shape3D extends GeometryValue permits SphereValue, RectangularPrismValue, TriangularPrismValue {
+        /**
+         * Calculates the volume.
+         *
+         * @return The volume.
+         * @throws IllegalStateException if a triangular prism's base is degenerate.
+         */
+        default double volume() {
+            switch (this) {
+                case SphereValue(double radius):
+                    return (4.0 / 3.0) * Math.PI * Math.pow(radius, 3);
+                case RectangularPrismValue(double length, double width, double height):
+                    return length * width * height;
+                case TriangularPrismValue(double sideA, double sideB, double sideC, double height):
+                    return ShapeKind.heron(sideA, sideB, sideC) * height;
+            }
+        }
+
+        /**
+         * Calculates the surface area.
+         *
+         * @return The surface area.
+         * @throws IllegalStateException if a triangular prism's base is degenerate.
+         */
+        default double surfaceArea() {
+            switch (this) {
+                case SphereValue(double radius):
+                    return 4 * Math.PI * Math.pow(radius, 2);
+                case RectangularPrismValue(double length, double width, double height):
+                    return 2 * (length * width + length * height + width * height);
+                case TriangularPrismValue(double sideA, double sideB, double sideC, double height):
+                    return 2 * ShapeKind.heron(sideA, sideB, sideC) + (sideA + sideB + sideC) * height;
+            }
+        }
+    }
+
+    /**
+     * An immutable triangle.
+     *
+     * @param sideA The length of side A.
+     * @param sideB The length of side B.
+     * @param sideC The length of side C.
+     */
+    record TriangleValue(double sideA, double sideB, double sideC) implements Shape2D {
+        /**
+         * @throws IllegalArgumentException if the sides do not satisfy the triangle inequality.
+         */
+        public TriangleValue {
+            check(ShapeKind.TRIANGLE.validate(sideA, sideB, sideC, 0));
+        }
+    }
+
+    /**
+     * An immutable rectangle.
+     *
+     * @param length The length of the rectangle.
+     * @param width  The width of the rectangle.
+     */
+    record RectangleValue(double length, double width) implements Shape2D {
+        /**
+         * @throws IllegalArgumentException if length or width is not positive.
+         */
+        public RectangleValue {
+            check(ShapeKind.RECTANGLE.validate(length, width, 0, 0));
+        }
+    }
+
+    /**
+     * An immutable circle.
+     *
+     * @param radius The radius of the circle.
+     */
+    record CircleValue(double radius) implements Shape2D {
+        /**
+         * @throws IllegalArgumentException if radius is not positive.
+         */
+        public CircleValue {
+            check(ShapeKind.CIRCLE.validate(radius, 0, 0, 0));
+        }
+    }
+
+    /**
+     * An immutable sphere.
+     *
+     * @param radius The radius of the sphere.
+     */
+    record SphereValue(double radius) implements Shape3D {
+        /**
+         * @throws IllegalArgumentException if radius is not positive.
+         */
+        public SphereValue {
+            check(ShapeKind.SPHERE.validate(radius, 0, 0, 0));
+        }
+    }
+
+    /**
+     * An immutable rectangular prism.
+     *
+     * @param length The length of the prism.
+     * @param width  The width of the prism.
+     * @param height The height of the prism.
+     */
+    record RectangularPrismValue(double length, double width, double height) implements Shape3D {
+        /**
+         * @throws IllegalArgumentException if any dimension is not positive.
+         */
+        public RectangularPrismValue {
+            check(ShapeKind.RECTANGULAR_PRISM.validate(length, width, height, 0));
+        }
+    }
+
+    /**
+     * An immutable triangular prism.
+     *
+     * @param sideA  The length of side A of the base.
+     * @param sideB  The length of side B of the base.
+     * @param sideC  The length of side C of the base.
+     * @param height The height of the prism.
+     */
+    record TriangularPrismValue(double sideA, double sideB, double sideC, double height) implements Shape3D {
+        /**
+         * @throws IllegalArgumentException if the base is not a valid triangle or height is not positive.
+         */
+        public TriangularPrismValue {
+            check(ShapeKind.TRIANGULAR_PRISM.validate(sideA, sideB, sideC, height));
+        }
+    }
+
+    /**
+     * Returns the kind of this shape.
+     *
+     * @return The kind.
+     */
+    default ShapeKind kind() {
+        switch (this) {
+            case TriangleValue triangle:
+                return ShapeKind.TRIANGLE;
+            case RectangleValue rectangle:
+                return ShapeKind.RECTANGLE;
+            case CircleValue circle:
+                return ShapeKind.CIRCLE;
+            case SphereValue sphere:
+                return ShapeKind.SPHERE;
+            case RectangularPrismValue prism:
+                return ShapeKind.RECTANGULAR_PRISM;
+            case TriangularPrismValue prism:
+                return ShapeKind.TRIANGULAR_PRISM;
+        }
+    }
+
+    /**
+     * Computes a metric of this shape.
+     *
+     * @param metric The metric.
+     * @return The metric value.
+     * @throws IllegalArgumentException if the metric does not apply to this shape.
+     */
+    default double metric(Metric metric) {
+        switch (this) {
+            case Shape2D shape when metric == Metric.AREA:
+                return shape.area();
+            case Shape2D shape when metric == Metric.PERIMETER:
+                return shape.perimeter();
+            case Shape3D shape when metric == Metric.VOLUME:
+                return shape.volume();
+            case Shape3D shape when metric == Metric.SURFACE_AREA:
+                return shape.surfaceArea();
+            default:
+                throw new IllegalArgumentException(metric.getDisplayName() + " is not defined for " + this);
+        }
+    }
+
+    /**
+     * Creates a new mutable shape with the same parameters.
+     *
+     * @return A new Geometry instance.
+     */
+    default Geometry toGeometry() {
+        switch (this) {
+            case TriangleValue(double sideA, double sideB, double sideC):
+                return new Triangle(sideA, sideB, sideC);
+            case RectangleValue(double length, double width):
+                return new Rectangle(length, width);
+            case CircleValue(double radius):
+                return new Circle(radius);
+            case SphereValue(double radius):
+                return new Sphere(radius);
+            case RectangularPrismValue(double length, double width, double height):
+                return new RectangularPrism(length, width, height);
+            case TriangularPrismValue(double sideA, double sideB, double sideC, double height):
+                return new TriangularPrism(sideA, sideB, sideC, height);
+        }
+    }
+
+    /**
+     * Captures the current parameters of a mutable shape as a value.
+     *
+     * @param geometry The shape.
+     * @return The equivalent value.
+     * @throws IllegalArgumentException if the geometry is not one of the six shape classes.
+     */
+    static GeometryValue of(Geometry geometry) {
+        switch (geometry) {
+            case Triangle triangle:
+                return new TriangleValue(triangle.getSideA(), triangle.getSideB(), triangle.getSideC());
+            case Rectangle rectangle:
+                return new RectangleValue(rectangle.getLength(), rectangle.getWidth());
+            case Circle circle:
+                return new CircleValue(circle.getRadius());
+            case Sphere sphere:
+                return new SphereValue(sphere.getRadius());
+            case RectangularPrism prism:
+                return new RectangularPrismValue(prism.getLength(), prism.getWidth(), prism.getHeight());
+            case TriangularPrism prism:
+                return new TriangularPrismValue(prism.getSideA(), prism.getSideB(), prism.getSideC(),
+                        prism.getHeight());
+            default:
+                throw new IllegalArgumentException("Unsupported geometry: " + geometry);
+        }
+    }
+
+    /**
+     * Throws the message returned by ShapeKind.validate, if there is one.
+     */
+    private static void check(String message) {
+        if (message != null) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the GeometryValue records and their bridge to the shape classes.
+ */
+public class GeometryValueTest {
+    /**
+     * Tests that every metric of a value matches the mutable shape it was taken
+     * from, and that metrics that do not apply are rejected.
+     */
+    @Test
+    void testMetricsMatchShapeClasses() {
+        Random random = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            Geometry geometry = GeometryStoreTest.randomShape(random);
+            GeometryValue value = GeometryValue.of(geometry);
+            assertEquals(ShapeKind.of(geometry), value.kind());
+            for (Metric metric : Metric.values()) {
+                if (metric.appliesTo(geometry)) {
+                    assertEquals(metric.of(geometry), value.metric(metric));
+                } else {
+                    assertThrows(IllegalArgumentException.class, () -> value.metric(metric));
+                }
+            }
+        }
+
+        GeometryValue.Shape2D circle = new GeometryValue.CircleValue(2);
+        assertEquals(new Circle(2).getArea(), circle.area());
+        GeometryValue.Shape3D prism = new GeometryValue.TriangularPrismValue(3, 4, 5, 2);
+        assertEquals(new TriangularPrism(3, 4, 5, 2).getSurfaceArea(), prism.surfaceArea());
+    }
+
+    /**
+     * Tests the conversion in both directions and that values validate like the
+     * shape constructors.
+     */
+    @Test
+    void testBridgeAndValidation() {
+        Rectangle rectangle = new Rectangle(2, 3);
+        GeometryValue value = GeometryValue.of(rectangle);
+        assertEquals(new GeometryValue.RectangleValue(2, 3), value);
+        rectangle.setWidth(4);
+        assertEquals(3.0, ((GeometryValue.RectangleValue) value).width());
+
+        Geometry copy = new GeometryValue.TriangularPrismValue(3, 4, 5, 2).toGeometry();
+        assertEquals(new TriangularPrism(3, 4, 5, 2), copy);
+        assertEquals(GeometryValue.of(copy), new GeometryValue.TriangularPrismValue(3, 4, 5, 2));
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> new GeometryValue.TriangleValue(1, 2, 10));
+        assertEquals("Invalid triangle side lengths.", thrown.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new GeometryValue.SphereValue(-1));
+        assertThrows(IllegalArgumentException.class, () -> GeometryValue.of(new Geometry() {
+        }));
+    }
+}
@@ -0,0 +1,149 @@
+package geometry;
+
+/**
+ * Read-only Geometry objects built on demand from stored shape parameters.
+ *
+ * Each view is a subclass of the matching shape class, so instanceof checks and
+ * toString behave as usual, but every setter throws UnsupportedOperationException.
+ * A view is a copy of the parameters at the time it was built and does not track
+ * later changes to the store it came from.
+ */
+final class GeometryViews {
+    private static final String READ_ONLY = "Geometry views are read-only.";
+
+    private GeometryViews() {
+    }
+
+    /**
+     * Builds a read-only view of a shape.
+     *
+     * @param kind The kind of shape.
+     * @param p0   The first parameter.
+     * @param p1   The second parameter, if the kind has one.
+     * @param p2   The third parameter, if the kind has one.
+     * @param p3   The fourth parameter, if the kind has one.
+     * @return A read-only Geometry of the given kind.
+     */
+    static Geometry of(ShapeKind kind, double p0, double p1, double p2, double p3) {
+        switch (kind) {
+            case TRIANGLE:
+                return new TriangleView(p0, p1, p2);
+            case RECTANGLE:
+                return new RectangleView(p0, p1);
+            case CIRCLE:
+                return new CircleView(p0);
+            case SPHERE:
+                return new SphereView(p0);
+            case RECTANGULAR_PRISM:
+                return new RectangularPrismView(p0, p1, p2);
+            default:
+                return new TriangularPrismView(p0, p1, p2, p3);
+        }
+    }
+
+    private static final class TriangleView extends Triangle {
+        TriangleView(double sideA, double sideB, double sideC) {
+            super(sideA, sideB, sideC);
+        }
+
+        @Override
+        public void setSideA(double sideA) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setSideB(double sideB) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setSideC(double sideC) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+    }
+
+    private static final class RectangleView extends Rectangle {
+        RectangleView(double length, double width) {
+            super(length, width);
+        }
+
+        @Override
+        public void setLength(double length) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setWidth(double width) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+    }
+
+    private static final class CircleView extends Circle {
+        CircleView(double radius) {
+            super(radius);
+        }
+
+        @Override
+        public void setRadius(double radius) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+    }
+
+    private static final class SphereView extends Sphere {
+        SphereView(double radius) {
+            super(radius);
+        }
+
+        @Override
+        public void setRadius(double radius) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+    }
+
+    private static final class RectangularPrismView extends RectangularPrism {
+        RectangularPrismView(double length, double width, double height) {
+            super(length, width, height);
+        }
+
+        @Override
+        public void setLength(double length) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setWidth(double width) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setHeight(double height) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+    }
+
+    private static final class TriangularPrismView extends TriangularPrism {
+        TriangularPrismView(double sideA, double sideB, double sideC, double height) {
+            super(sideA, sideB, sideC, height);
+        }
+
+        @Override
+        public void setSideA(double sideA) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setSideB(double sideB) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setSideC(double sideC) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void setHeight(double height) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+    }
+}
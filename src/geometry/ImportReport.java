@@ -0,0 +1,133 @@
+package geometry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a GeometryImporter run: how many rows were imported and which
+ * rows were rejected, and why.
+ *
+ * Every rejection is counted, but only the first MAX_RECORDED are kept with their
+ * details, so a file full of bad rows cannot exhaust memory.
+ */
+public class ImportReport {
+    /** Maximum number of rejections kept with their details. */
+    public static final int MAX_RECORDED = 1000;
+
+    private long accepted;
+    private long rejected;
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    /**
+     * Returns the number of imported rows.
+     *
+     * @return The number of shapes added to the collection.
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * Returns the number of rejected rows.
+     *
+     * @return The number of rejected rows, including ones not kept in getRejections().
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the first MAX_RECORDED rejections. Rows that fail to parse are
+     * recorded at once and rows that fail validation when their batch is
+     * validated, so the line numbers are only roughly in order.
+     *
+     * @return An unmodifiable list of rejections.
+     */
+    public List<Rejection> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    /**
+     * Writes the recorded rejections as CSV with the columns line, reason and content.
+     *
+     * @param out The destination.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("line,reason,content\n");
+        for (Rejection rejection : rejections) {
+            out.append(Long.toString(rejection.getLine())).append(',')
+                    .append(quote(rejection.getReason())).append(',')
+                    .append(quote(rejection.getContent())).append('\n');
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Imported " + accepted + " geometries, rejected " + rejected + " rows.";
+    }
+
+    void accept(int count) {
+        accepted += count;
+    }
+
+    void reject(long line, String reason, String content) {
+        rejected++;
+        if (rejections.size() < MAX_RECORDED) {
+            rejections.add(new Rejection(line, reason, content));
+        }
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * A rejected row.
+     */
+    public static class Rejection {
+        private final long line;
+        private final String reason;
+        private final String content;
+
+        Rejection(long line, String reason, String content) {
+            this.line = line;
+            this.reason = reason;
+            this.content = content;
+        }
+
+        /**
+         * Returns the line number of the row, counting from 1.
+         *
+         * @return The line number.
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Returns why the row was rejected.
+         *
+         * @return The reason.
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * Returns the text of the row.
+         *
+         * @return The row.
+         */
+        public String getContent() {
+            return content;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + reason + " [" + content + "]";
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the open-addressing LongHashMap.
+ */
+public class LongHashMapTest {
+    /**
+     * Tests random puts and removes, with many collisions in a small key range, against a HashMap.
+     */
+    @Test
+    void testRandomOperationsMatchHashMap() {
+        Random random = new Random(3);
+        LongHashMap<String> map = new LongHashMap<>();
+        Map<Long, String> reference = new HashMap<>();
+        for (int step = 0; step < 100_000; step++) {
+            long key = 1 + random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                String value = "v" + step;
+                assertEquals(reference.put(key, value), map.put(key, value));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (long key = 0; key <= 2001; key++) {
+            assertEquals(reference.get(key), map.get(key));
+        }
+    }
+
+    /**
+     * Tests that the reserved key 0 and null values are rejected.
+     */
+    @Test
+    void testRejectsZeroKeyAndNullValue() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, "zero"));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+        assertNull(map.remove(0));
+        map.put(-5, "negative");
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(-5));
+    }
+}
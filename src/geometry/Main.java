@@ -1,5 +1,7 @@
 package geometry;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 
@@ -10,14 +12,41 @@ public class Main {
     /**
      * Entry point of the program.
      * 
-     * @param args Command-line arguments.
+     * @param args Command-line arguments. An optional snapshot file to recover
+     *             from at startup, journal changes next to and save on exit, and
+     *             optionally "--script" followed by a file of GeometryScript
+     *             commands, or "-" for standard input, to run instead of the menu.
      */
     public static void main(String[] args) {
         GeometryLinkedList geometryList = new GeometryLinkedList();
+        Path snapshotFile = null;
+        String script = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--script")) {
+                script = i + 1 < args.length ? args[++i] : "-";
+            } else {
+                snapshotFile = Path.of(args[i]);
+            }
+        }
+        if (script != null) {
+            System.exit(GeometryScript.runMain(geometryList, snapshotFile, script));
+        }
+
         Scanner scanner = new Scanner(System.in);
         boolean running = true;
 
         System.out.println("Welcome to the Geometry Management System!");
+        GeometryJournal journal = null;
+        if (snapshotFile != null) {
+            try {
+                journal = GeometryJournal.open(snapshotFile, geometryList);
+                System.out.println("Recovered " + geometryList.size() + " geometries from " + snapshotFile + ".");
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Error recovering geometries: " + e.getMessage());
+                System.out.println("Changes will not be saved.");
+                geometryList = new GeometryLinkedList();
+            }
+        }
 
         while (running) {
             printMenu();
@@ -38,12 +67,15 @@ public class Main {
                     listGeometries(geometryList);
                     break;
                 case "5":
+                    GeometryJournal.closeOrReport(journal);
+                    journal = null;
                     running = false;
                     System.out.println("Exiting the Geometry Management System. Goodbye!");
                     break;
                 default:
                     System.out.println("Invalid choice. Please select a valid option.\n");
             }
+            GeometryJournal.syncOrReport(journal);
         }
 
         scanner.close();
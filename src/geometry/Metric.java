@@ -0,0 +1,146 @@
+package geometry;
+
+/**
+ * The derived metrics that can be computed for a shape.
+ *
+ * Area and perimeter apply to Geometry2D shapes, and volume and surface area
+ * apply to Geometry3D shapes.
+ */
+public enum Metric {
+    AREA("Area", false),
+    PERIMETER("Perimeter", false),
+    VOLUME("Volume", true),
+    SURFACE_AREA("Surface Area", true);
+
+    private final String displayName;
+    private final boolean threeDimensional;
+
+    Metric(String displayName, boolean threeDimensional) {
+        this.displayName = displayName;
+        this.threeDimensional = threeDimensional;
+    }
+
+    /**
+     * Returns the label used for this metric in shape descriptions, e.g. "Surface Area".
+     *
+     * @return The display name.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Returns whether this metric is defined for 3D shapes rather than 2D shapes.
+     *
+     * @return True for volume and surface area.
+     */
+    public boolean isThreeDimensional() {
+        return threeDimensional;
+    }
+
+    /**
+     * Returns whether this metric is defined for the given geometry.
+     *
+     * @param geometry The geometry.
+     * @return True if the metric can be computed for it.
+     */
+    public boolean appliesTo(Geometry geometry) {
+        return threeDimensional ? geometry instanceof Geometry3D : geometry instanceof Geometry2D;
+    }
+
+    /**
+     * Returns whether this metric is defined for shapes of the given kind.
+     *
+     * @param kind The kind.
+     * @return True if the metric can be computed for that kind.
+     */
+    public boolean appliesTo(ShapeKind kind) {
+        return threeDimensional == kind.isThreeDimensional();
+    }
+
+    /**
+     * Computes this metric for a geometry.
+     *
+     * @param geometry The geometry.
+     * @return The metric value.
+     * @throws IllegalArgumentException if the metric does not apply to the geometry.
+     */
+    public double of(Geometry geometry) {
+        if (!appliesTo(geometry)) {
+            throw new IllegalArgumentException(displayName + " is not defined for " + geometry);
+        }
+        switch (this) {
+            case AREA:
+                return ((Geometry2D) geometry).getArea();
+            case PERIMETER:
+                return ((Geometry2D) geometry).getPerimeter();
+            case VOLUME:
+                return ((Geometry3D) geometry).getVolume();
+            default:
+                return ((Geometry3D) geometry).getSurfaceArea();
+        }
+    }
+
+    /**
+     * Computes this metric for a geometry without throwing, for bulk callers that
+     * skip shapes whose metric cannot be calculated.
+     *
+     * @param geometry The geometry.
+     * @return The metric value, or NaN if the metric does not apply to the geometry
+     *         or its triangle is degenerate.
+     */
+    public double tryOf(Geometry geometry) {
+        switch (this) {
+            case AREA:
+                if (geometry instanceof Triangle triangle) {
+                    return triangle.tryGetArea();
+                }
+                return geometry instanceof Geometry2D shape ? shape.getArea() : Double.NaN;
+            case PERIMETER:
+                return geometry instanceof Geometry2D shape ? shape.getPerimeter() : Double.NaN;
+            case VOLUME:
+                if (geometry instanceof TriangularPrism prism) {
+                    return prism.tryGetVolume();
+                }
+                return geometry instanceof Geometry3D shape ? shape.getVolume() : Double.NaN;
+            default:
+                if (geometry instanceof TriangularPrism prism) {
+                    return prism.tryGetSurfaceArea();
+                }
+                return geometry instanceof Geometry3D shape ? shape.getSurfaceArea() : Double.NaN;
+        }
+    }
+
+    /**
+     * Computes this metric for a shape given by its kind and parameters.
+     *
+     * @return The metric value, or NaN if the metric does not apply to the kind.
+     */
+    double of(ShapeKind kind, double p0, double p1, double p2, double p3) {
+        switch (this) {
+            case AREA:
+                return kind.area(p0, p1, p2, p3);
+            case PERIMETER:
+                return kind.perimeter(p0, p1, p2, p3);
+            case VOLUME:
+                return kind.volume(p0, p1, p2, p3);
+            default:
+                return kind.surfaceArea(p0, p1, p2, p3);
+        }
+    }
+
+    /**
+     * Computes this metric for a shape given by its kind and parameters without
+     * throwing.
+     *
+     * @return The metric value, or NaN if the metric does not apply to the kind
+     *         or its triangle is degenerate.
+     */
+    double tryOf(ShapeKind kind, double p0, double p1, double p2, double p3) {
+        if ((kind == ShapeKind.TRIANGLE || kind == ShapeKind.TRIANGULAR_PRISM) && this != PERIMETER
+                && Double.isNaN(ShapeKind.heronOrNaN(p0, p1, p2))) {
+            return Double.NaN;
+        }
+        return of(kind, p0, p1, p2, p3);
+    }
+}
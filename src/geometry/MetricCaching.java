@@ -0,0 +1,43 @@
+package geometry;
+
+/**
+ * Controls how shapes cache their derived metrics (area, perimeter, volume,
+ * surface area).
+ *
+ * A cached metric is discarded whenever a setter changes the shape, so the
+ * mode only affects speed and memory, never results. Every shape reserves a
+ * field for each cached metric whatever the mode. Like the shapes themselves,
+ * cached values are not synchronized between threads.
+ */
+public enum MetricCaching {
+    /** Metrics are recomputed on every call and never stored. */
+    NONE,
+    /** A metric is computed on first use and stored until the shape changes. */
+    LAZY,
+    /** Metrics are computed and stored when a shape is created or changed. */
+    EAGER;
+
+    private static volatile MetricCaching mode = LAZY;
+
+    /**
+     * Returns the caching mode used by all shapes.
+     *
+     * @return The current mode; LAZY unless changed.
+     */
+    public static MetricCaching getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the caching mode used by all shapes. Values already cached stay
+     * valid; the new mode only affects how metrics are computed from now on.
+     *
+     * @param newMode The new mode.
+     */
+    public static void setMode(MetricCaching newMode) {
+        if (newMode == null) {
+            throw new IllegalArgumentException("Caching mode must not be null.");
+        }
+        mode = newMode;
+    }
+}
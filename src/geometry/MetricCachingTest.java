@@ -0,0 +1,118 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that cached metrics are invalidated by every setter in every caching mode.
+ */
+public class MetricCachingTest {
+
+    /**
+     * Restores the default mode so other tests are unaffected.
+     */
+    @AfterEach
+    void tearDown() {
+        MetricCaching.setMode(MetricCaching.LAZY);
+    }
+
+    /**
+     * Tests the lazy mode.
+     */
+    @Test
+    void testLazyMode() {
+        checkMode(MetricCaching.LAZY);
+    }
+
+    /**
+     * Tests the eager mode.
+     */
+    @Test
+    void testEagerMode() {
+        checkMode(MetricCaching.EAGER);
+    }
+
+    /**
+     * Tests the mode without caching.
+     */
+    @Test
+    void testNoCaching() {
+        checkMode(MetricCaching.NONE);
+    }
+
+    /**
+     * Tests that switching modes while shapes hold cached values keeps results correct.
+     */
+    @Test
+    void testSwitchingModes() {
+        Circle circle = new Circle(1.0);
+        assertEquals(Math.PI, circle.getArea(), 0.0);
+
+        MetricCaching.setMode(MetricCaching.NONE);
+        circle.setRadius(2.0);
+        assertEquals(4 * Math.PI, circle.getArea(), 0.0);
+
+        MetricCaching.setMode(MetricCaching.EAGER);
+        circle.setRadius(3.0);
+        assertEquals(9 * Math.PI, circle.getArea(), 0.0);
+    }
+
+    /**
+     * Tests that a degenerate triangle still reports its error when read repeatedly.
+     */
+    @Test
+    void testDegenerateTriangleIsNotCached() {
+        MetricCaching.setMode(MetricCaching.EAGER);
+        Triangle triangle = new Triangle(0.7308781907032909, 0.41008081149220166, 1.1409590021954923);
+        assertThrows(IllegalStateException.class, triangle::getArea);
+        assertThrows(IllegalStateException.class, triangle::getArea);
+    }
+
+    private void checkMode(MetricCaching mode) {
+        MetricCaching.setMode(mode);
+
+        Triangle triangle = new Triangle(3.0, 4.0, 5.0);
+        assertEquals(6.0, triangle.getArea(), 0.0001);
+        triangle.setSideC(6.0);
+        assertEquals(new Triangle(3.0, 4.0, 6.0).getArea(), triangle.getArea(), 0.0);
+        assertEquals(13.0, triangle.getPerimeter(), 0.0);
+
+        Rectangle rectangle = new Rectangle(5.0, 3.0);
+        assertEquals(15.0, rectangle.getArea(), 0.0);
+        rectangle.setWidth(4.0);
+        assertEquals(20.0, rectangle.getArea(), 0.0);
+        rectangle.setLength(1.0);
+        assertEquals(10.0, rectangle.getPerimeter(), 0.0);
+
+        Circle circle = new Circle(2.0);
+        assertEquals(4 * Math.PI, circle.getPerimeter(), 0.0001);
+        circle.setRadius(1.0);
+        assertEquals(2 * Math.PI, circle.getPerimeter(), 0.0001);
+
+        Sphere sphere = new Sphere(2.0);
+        assertEquals(16 * Math.PI, sphere.getSurfaceArea(), 0.0001);
+        sphere.setRadius(1.0);
+        assertEquals(4 * Math.PI, sphere.getSurfaceArea(), 0.0001);
+        assertEquals((4.0 / 3.0) * Math.PI, sphere.getVolume(), 0.0001);
+
+        RectangularPrism box = new RectangularPrism(2.0, 3.0, 4.0);
+        assertEquals(24.0, box.getVolume(), 0.0);
+        box.setHeight(1.0);
+        assertEquals(6.0, box.getVolume(), 0.0);
+        box.setLength(1.0);
+        box.setWidth(1.0);
+        assertEquals(6.0, box.getSurfaceArea(), 0.0);
+
+        TriangularPrism prism = new TriangularPrism(3.0, 4.0, 5.0, 10.0);
+        assertEquals(60.0, prism.getVolume(), 0.0001);
+        assertEquals(132.0, prism.getSurfaceArea(), 0.0001);
+        prism.setHeight(1.0);
+        assertEquals(6.0, prism.getVolume(), 0.0001);
+        prism.setSideA(4.0);
+        TriangularPrism expected = new TriangularPrism(4.0, 4.0, 5.0, 1.0);
+        assertEquals(expected.getVolume(), prism.getVolume(), 0.0);
+        assertEquals(expected.getSurfaceArea(), prism.getSurfaceArea(), 0.0);
+    }
+}
@@ -0,0 +1,394 @@
+package geometry;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A sorted secondary index over one Metric of the geometries in a
+ * GeometryLinkedList, for range, rank and top-k queries.
+ *
+ * The index is an indexable skip list ordered by metric value. Each link also
+ * records how many entries it skips, so positional lookups and counts take
+ * O(log n) expected time, just like searches by value. Equal values are ordered
+ * by insertion. Geometries the metric does not apply to are not indexed, and
+ * neither are shapes whose metric cannot be calculated, such as degenerate
+ * triangles.
+ *
+ * The index registers itself as a GeometryListener on the list and stays current
+ * across add, removeByIndex and setter changes to indexed shapes. close() detaches
+ * it. Like the list, the index is not thread-safe.
+ */
+public class MetricIndex implements AutoCloseable {
+    private static final int MAX_LEVEL = 32;
+
+    private final GeometryLinkedList list;
+    private final Metric metric;
+
+    /** Sentinel before the first entry; its key is never compared. */
+    private final Node head = new Node(0, 0, null, MAX_LEVEL);
+    private int level = 1;
+    private int size;
+    private long nextSequence;
+    private int seed = 0x2545F491;
+
+    /** The entry of each indexed geometry, chained through Node.alias if it occurs several times. */
+    private final IdentityHashMap<Geometry, Node> entries = new IdentityHashMap<>();
+
+    private final GeometryListener listener = new GeometryListener() {
+        @Override
+        public void geometryAdded(int index, Geometry geometry) {
+            insert(geometry);
+        }
+
+        @Override
+        public void geometryRemoved(int index, Geometry geometry) {
+            delete(geometry);
+        }
+
+        @Override
+        public void geometryReplaced(int index, Geometry previous, Geometry replacement) {
+            rename(previous, replacement);
+        }
+
+        @Override
+        public void geometryChanging(Geometry geometry) {
+            delete(geometry);
+        }
+
+        @Override
+        public void geometryChanged(Geometry geometry) {
+            insert(geometry);
+        }
+    };
+
+    /**
+     * Builds an index over the current contents of a list and keeps it up to date.
+     *
+     * @param list   The list to index.
+     * @param metric The metric to order by.
+     * @throws IllegalArgumentException if list or metric is null.
+     */
+    public MetricIndex(GeometryLinkedList list, Metric metric) {
+        if (list == null || metric == null) {
+            throw new IllegalArgumentException("List and metric must not be null.");
+        }
+        this.list = list;
+        this.metric = metric;
+        head.width[0] = 1;
+        for (Geometry geometry : list) {
+            insert(geometry);
+        }
+        list.addListener(listener);
+    }
+
+    /**
+     * Returns the metric this index is ordered by.
+     *
+     * @return The metric.
+     */
+    public Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Returns the number of indexed geometries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the geometry at the given position in ascending metric order.
+     *
+     * @param rank The position (0-based).
+     * @return The geometry.
+     * @throws IndexOutOfBoundsException if rank is out of range.
+     */
+    public Geometry get(int rank) {
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " out of bounds for size " + size);
+        }
+        return nodeAt(rank + 1).geometry;
+    }
+
+    /**
+     * Returns the number of indexed geometries whose metric is less than a value,
+     * which is also the rank the value would have in the index.
+     *
+     * @param value The value.
+     * @return The number of smaller entries.
+     */
+    public int rank(double value) {
+        return countBelow(value, false);
+    }
+
+    /**
+     * Counts the indexed geometries whose metric lies in a closed range.
+     *
+     * @param min The lower bound, inclusive.
+     * @param max The upper bound, inclusive.
+     * @return The number of entries in the range.
+     */
+    public int count(double min, double max) {
+        if (!(min <= max)) {
+            return 0;
+        }
+        return countBelow(max, true) - countBelow(min, false);
+    }
+
+    /**
+     * Returns the indexed geometries whose metric lies in a closed range, in
+     * ascending metric order.
+     *
+     * @param min The lower bound, inclusive.
+     * @param max The upper bound, inclusive.
+     * @return The geometries in the range.
+     */
+    public List<Geometry> range(double min, double max) {
+        List<Geometry> result = new ArrayList<>();
+        if (!(min <= max)) {
+            return result;
+        }
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && node.next[i].key < min) {
+                node = node.next[i];
+            }
+        }
+        for (node = node.next[0]; node != null && node.key <= max; node = node.next[0]) {
+            result.add(node.geometry);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the k geometries with the largest metric, largest first.
+     *
+     * @param k The number of geometries to return.
+     * @return Up to k geometries.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public List<Geometry> top(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative.");
+        }
+        int count = Math.min(k, size);
+        Geometry[] result = new Geometry[count];
+        Node node = count == 0 ? null : nodeAt(size - count + 1);
+        for (int i = count - 1; i >= 0; i--) {
+            result[i] = node.geometry;
+            node = node.next[0];
+        }
+        return List.of(result);
+    }
+
+    /**
+     * Returns the k geometries with the smallest metric, smallest first.
+     *
+     * @param k The number of geometries to return.
+     * @return Up to k geometries.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public List<Geometry> bottom(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative.");
+        }
+        int count = Math.min(k, size);
+        List<Geometry> result = new ArrayList<>(count);
+        for (Node node = head.next[0]; result.size() < count; node = node.next[0]) {
+            result.add(node.geometry);
+        }
+        return result;
+    }
+
+    /**
+     * Stops listening to the list. The index keeps its contents but no longer
+     * follows changes.
+     */
+    @Override
+    public void close() {
+        list.removeListener(listener);
+    }
+
+    /**
+     * Moves one entry of a geometry to an equal geometry that replaced it, keeping
+     * its position.
+     */
+    private void rename(Geometry previous, Geometry replacement) {
+        Node node = entries.get(previous);
+        if (node == null) {
+            return;
+        }
+        if (node.alias == null) {
+            entries.remove(previous);
+        } else {
+            entries.put(previous, node.alias);
+        }
+        node.geometry = replacement;
+        node.alias = entries.put(replacement, node);
+    }
+
+    /**
+     * Returns the metric value a geometry is indexed under, or NaN if it is not indexed.
+     */
+    private double keyOf(Geometry geometry) {
+        return metric.tryOf(geometry);
+    }
+
+    /**
+     * Adds an entry for a geometry under its current metric value.
+     */
+    private void insert(Geometry geometry) {
+        double key = keyOf(geometry);
+        if (Double.isNaN(key)) {
+            return;
+        }
+        Node node = new Node(key, nextSequence++, geometry, randomLevel());
+
+        Node[] update = new Node[MAX_LEVEL];
+        int[] ranks = new int[MAX_LEVEL];
+        Node current = head;
+        int rank = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (current.next[i] != null && current.next[i].precedes(node)) {
+                rank += current.width[i];
+                current = current.next[i];
+            }
+            update[i] = current;
+            ranks[i] = rank;
+        }
+
+        int height = node.next.length;
+        if (height > level) {
+            for (int i = level; i < height; i++) {
+                update[i] = head;
+                ranks[i] = 0;
+                // An unused head link reaches the end, one past the last entry.
+                head.width[i] = size + 1;
+            }
+            level = height;
+        }
+
+        int position = ranks[0] + 1;
+        for (int i = 0; i < level; i++) {
+            Node predecessor = update[i];
+            if (i < height) {
+                node.next[i] = predecessor.next[i];
+                node.width[i] = predecessor.width[i] + 1 - (position - ranks[i]);
+                predecessor.next[i] = node;
+                predecessor.width[i] = position - ranks[i];
+            } else {
+                predecessor.width[i]++;
+            }
+        }
+        size++;
+
+        node.alias = entries.put(geometry, node);
+    }
+
+    /**
+     * Removes one entry of a geometry, using the key it was indexed under.
+     */
+    private void delete(Geometry geometry) {
+        Node node = entries.get(geometry);
+        if (node == null) {
+            return;
+        }
+        if (node.alias == null) {
+            entries.remove(geometry);
+        } else {
+            entries.put(geometry, node.alias);
+        }
+
+        Node current = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (current.next[i] != null && current.next[i].precedes(node)) {
+                current = current.next[i];
+            }
+            if (current.next[i] == node) {
+                current.width[i] += node.width[i] - 1;
+                current.next[i] = node.next[i];
+            } else {
+                current.width[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+    }
+
+    /**
+     * Returns the entry at a 1-based position.
+     */
+    private Node nodeAt(int position) {
+        Node current = head;
+        int rank = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            while (current.next[i] != null && rank + current.width[i] <= position) {
+                rank += current.width[i];
+                current = current.next[i];
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Counts the entries with a key below a value, or at most the value if inclusive.
+     */
+    private int countBelow(double value, boolean inclusive) {
+        Node current = head;
+        int rank = 0;
+        for (int i = level - 1; i >= 0; i--) {
+            Node next;
+            while ((next = current.next[i]) != null && (next.key < value || inclusive && next.key == value)) {
+                rank += current.width[i];
+                current = next;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Draws a level with a geometric distribution, p = 1/2, using xorshift.
+     */
+    private int randomLevel() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return 1 + Integer.numberOfTrailingZeros(seed | (1 << (MAX_LEVEL - 1)));
+    }
+
+    /**
+     * A skip list entry. width[i] is the number of positions from this node to
+     * next[i], where the end of the list counts as one past the last entry.
+     */
+    private static class Node {
+        final double key;
+        final long sequence;
+        Geometry geometry;
+        final Node[] next;
+        final int[] width;
+
+        /** Another entry for the same geometry, if it occurs in the list more than once. */
+        Node alias;
+
+        Node(double key, long sequence, Geometry geometry, int height) {
+            this.key = key;
+            this.sequence = sequence;
+            this.geometry = geometry;
+            this.next = new Node[height];
+            this.width = new int[height];
+        }
+
+        /**
+         * Returns whether this entry sorts before another one.
+         */
+        boolean precedes(Node other) {
+            return key < other.key || key == other.key && sequence < other.sequence;
+        }
+    }
+}
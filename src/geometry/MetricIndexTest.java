@@ -0,0 +1,142 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the MetricIndex skip list.
+ */
+public class MetricIndexTest {
+    private GeometryLinkedList list;
+
+    /**
+     * Initializes a fresh list before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        list = new GeometryLinkedList();
+    }
+
+    /**
+     * Tests range, rank, count and top-k queries on a small list.
+     */
+    @Test
+    void testQueries() {
+        Circle small = new Circle(1.0);
+        Rectangle middle = new Rectangle(2.0, 3.0);
+        Circle large = new Circle(3.0);
+        list.add(large);
+        list.add(new Sphere(2.0));
+        list.add(small);
+        list.add(middle);
+
+        MetricIndex index = new MetricIndex(list, Metric.AREA);
+        assertEquals(3, index.size());
+        assertSame(small, index.get(0));
+        assertSame(large, index.get(2));
+        assertEquals(List.of(small, middle), index.range(0.0, 6.0));
+        assertEquals(2, index.count(0.0, 6.0));
+        assertEquals(1, index.rank(6.0));
+        assertEquals(List.of(large, middle), index.top(2));
+        assertEquals(List.of(small), index.bottom(1));
+        assertEquals(3, index.top(10).size());
+    }
+
+    /**
+     * Tests that the index follows additions, removals and setter changes made after it was built.
+     */
+    @Test
+    void testFollowsListAndSetterChanges() {
+        Circle circle = new Circle(1.0);
+        list.add(circle);
+        MetricIndex index = new MetricIndex(list, Metric.AREA);
+
+        Rectangle rectangle = new Rectangle(1.0, 1.0);
+        list.add(rectangle);
+        assertEquals(List.of(rectangle, circle), index.top(2).reversed());
+
+        circle.setRadius(0.1);
+        assertSame(circle, index.get(0));
+
+        list.removeByIndex(1);
+        assertEquals(List.of(circle), index.range(0.0, 100.0));
+
+        // Once closed, the index stops following the list.
+        index.close();
+        list.add(new Circle(5.0));
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Tests that triangles that turn degenerate leave the index and come back when fixed.
+     */
+    @Test
+    void testDegenerateTrianglesAreNotIndexed() {
+        Triangle triangle = new Triangle(0.7308781907032909, 0.41008081149220166, 1.0);
+        list.add(triangle);
+        MetricIndex index = new MetricIndex(list, Metric.AREA);
+        assertEquals(1, index.size());
+
+        triangle.setSideC(1.1409590021954923);
+        assertEquals(0, index.size());
+
+        triangle.setSideC(1.0);
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Tests random operations, including repeated geometries, against a sorted copy.
+     */
+    @Test
+    void testRandomOperationsMatchSortedReference() {
+        Random random = new Random(42);
+        MetricIndex index = new MetricIndex(list, Metric.PERIMETER);
+        for (int step = 0; step < 5000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 5 || list.size() == 0) {
+                list.add(GeometryStoreTest.randomShape(random));
+            } else if (operation < 6) {
+                // Adding the same object again gives it two entries.
+                list.add(list.findByIndex(random.nextInt(list.size())));
+            } else if (operation < 8) {
+                list.removeByIndex(random.nextInt(list.size()));
+            } else if (list.findByIndex(random.nextInt(list.size())) instanceof Circle circle) {
+                circle.setRadius(1 + random.nextInt(20));
+            }
+
+            if (step % 250 == 0) {
+                assertMatchesReference(index, random);
+            }
+        }
+        assertMatchesReference(index, random);
+    }
+
+    private void assertMatchesReference(MetricIndex index, Random random) {
+        List<Double> expected = new ArrayList<>();
+        for (Geometry geometry : list) {
+            if (geometry instanceof Geometry2D shape) {
+                expected.add(shape.getPerimeter());
+            }
+        }
+        expected.sort(Comparator.naturalOrder());
+
+        assertEquals(expected.size(), index.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), Metric.PERIMETER.of(index.get(i)), 0.0);
+        }
+
+        double min = random.nextInt(30);
+        double max = min + random.nextInt(30);
+        long inRange = expected.stream().filter(v -> v >= min && v <= max).count();
+        assertEquals(inRange, index.count(min, max));
+        assertEquals(inRange, index.range(min, max).size());
+        assertEquals(expected.stream().filter(v -> v < min).count(), index.rank(min));
+    }
+}
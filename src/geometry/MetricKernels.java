@@ -0,0 +1,530 @@
+package geometry;
+
+/**
+ * Batch kernels that compute a metric for whole arrays of shape parameters.
+ *
+ * When the incubating jdk.incubator.vector module is present (run with
+ * --add-modules jdk.incubator.vector), each kernel computes whole SIMD vectors
+ * with DoubleVector in VectorKernels and finishes the last few entries with a
+ * scalar loop. Without the module, or when the system property geometry.kernels
+ * is "scalar", the kernels are plain counted loops over primitive arrays, which
+ * C2 may still auto-vectorize. The vector and scalar kernels apply the same
+ * operations in the same order, so they produce identical results.
+ *
+ * Results match the per-object methods (Circle.getArea, Sphere.getVolume, ...)
+ * to within a relative error of TOLERANCE. The differences come from using r * r * r
+ * instead of Math.pow and from reassociated multiplications. Unlike Triangle.getArea
+ * and TriangularPrism, the triangle kernels do not throw for degenerate sides; they
+ * produce NaN (or 0 when Heron's product is exactly zero) for those entries.
+ */
+public final class MetricKernels {
+    /** Maximum relative difference from the per-object metric methods. */
+    public static final double TOLERANCE = 1e-12;
+
+    private static final double FOUR_THIRDS_PI = (4.0 / 3.0) * Math.PI;
+    private static final double TWO_PI = 2 * Math.PI;
+    private static final double FOUR_PI = 4 * Math.PI;
+
+    /** Whether the kernels use VectorKernels; VectorKernels is never loaded otherwise. */
+    private static final boolean VECTORIZED = !"scalar".equals(System.getProperty("geometry.kernels"))
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && VectorKernels.isProfitable();
+
+    private MetricKernels() {
+    }
+
+    /**
+     * Returns whether the kernels use the Vector API.
+     *
+     * @return True if jdk.incubator.vector is present, the CPU has SIMD registers for
+     *         doubles and geometry.kernels is not "scalar".
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Computes circle areas, PI * r * r.
+     *
+     * @param radius The radii.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the areas.
+     */
+    public static void circleAreas(double[] radius, int count, double[] out) {
+        circleAreas(radius, 0, count, out);
+    }
+
+    /**
+     * Computes circle areas, PI * r * r, for the entries from index from
+     * up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param radius The radii.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void circleAreas(double[] radius, int from, int to, double[] out) {
+        int i = VECTORIZED ? VectorKernels.circleAreas(radius, from, to, out) : from;
+        for (; i < to; i++) {
+            out[i - from] = Math.PI * radius[i] * radius[i];
+        }
+    }
+
+    /**
+     * Computes circle perimeters, 2 * PI * r.
+     *
+     * @param radius The radii.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the perimeters.
+     */
+    public static void circlePerimeters(double[] radius, int count, double[] out) {
+        circlePerimeters(radius, 0, count, out);
+    }
+
+    /**
+     * Computes circle perimeters, 2 * PI * r, for the entries from index from
+     * up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param radius The radii.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void circlePerimeters(double[] radius, int from, int to, double[] out) {
+        int i = VECTORIZED ? VectorKernels.circlePerimeters(radius, from, to, out) : from;
+        for (; i < to; i++) {
+            out[i - from] = TWO_PI * radius[i];
+        }
+    }
+
+    /**
+     * Computes rectangle areas, length * width.
+     *
+     * @param length The lengths.
+     * @param width  The widths.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the areas.
+     */
+    public static void rectangleAreas(double[] length, double[] width, int count, double[] out) {
+        rectangleAreas(length, width, 0, count, out);
+    }
+
+    /**
+     * Computes rectangle areas, length * width, for the entries from index from
+     * up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param length The lengths.
+     * @param width  The widths.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void rectangleAreas(double[] length, double[] width, int from, int to, double[] out) {
+        int i = VECTORIZED ? VectorKernels.rectangleAreas(length, width, from, to, out) : from;
+        for (; i < to; i++) {
+            out[i - from] = length[i] * width[i];
+        }
+    }
+
+    /**
+     * Computes rectangle perimeters, 2 * (length + width).
+     *
+     * @param length The lengths.
+     * @param width  The widths.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the perimeters.
+     */
+    public static void rectanglePerimeters(double[] length, double[] width, int count, double[] out) {
+        rectanglePerimeters(length, width, 0, count, out);
+    }
+
+    /**
+     * Computes rectangle perimeters, 2 * (length + width), for the entries from
+     * index from up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param length The lengths.
+     * @param width  The widths.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void rectanglePerimeters(double[] length, double[] width, int from, int to, double[] out) {
+        int i = VECTORIZED ? VectorKernels.rectanglePerimeters(length, width, from, to, out) : from;
+        for (; i < to; i++) {
+            out[i - from] = 2 * (length[i] + width[i]);
+        }
+    }
+
+    /**
+     * Computes triangle areas with Heron's formula.
+     *
+     * @param a     The lengths of side A.
+     * @param b     The lengths of side B.
+     * @param c     The lengths of side C.
+     * @param count The number of entries to compute.
+     * @param out   The destination for the areas.
+     */
+    public static void triangleAreas(double[] a, double[] b, double[] c, int count, double[] out) {
+        triangleAreas(a, b, c, 0, count, out);
+    }
+
+    /**
+     * Computes triangle areas with Heron's formula, for the entries from index from
+     * up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param a    The lengths of side A.
+     * @param b    The lengths of side B.
+     * @param c    The lengths of side C.
+     * @param from The first entry to compute.
+     * @param to   The end of the range.
+     * @param out  The destination, with room for to - from values.
+     */
+    public static void triangleAreas(double[] a, double[] b, double[] c, int from, int to, double[] out) {
+        int i = VECTORIZED ? VectorKernels.triangleAreas(a, b, c, from, to, out) : from;
+        for (; i < to; i++) {
+            double s = (a[i] + b[i] + c[i]) * 0.5;
+            out[i - from] = Math.sqrt(s * (s - a[i]) * (s - b[i]) * (s - c[i]));
+        }
+    }
+
+    /**
+     * Computes triangle perimeters, a + b + c.
+     *
+     * @param a     The lengths of side A.
+     * @param b     The lengths of side B.
+     * @param c     The lengths of side C.
+     * @param count The number of entries to compute.
+     * @param out   The destination for the perimeters.
+     */
+    public static void trianglePerimeters(double[] a, double[] b, double[] c, int count, double[] out) {
+        trianglePerimeters(a, b, c, 0, count, out);
+    }
+
+    /**
+     * Computes triangle perimeters, a + b + c, for the entries from index from
+     * up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param a    The lengths of side A.
+     * @param b    The lengths of side B.
+     * @param c    The lengths of side C.
+     * @param from The first entry to compute.
+     * @param to   The end of the range.
+     * @param out  The destination, with room for to - from values.
+     */
+    public static void trianglePerimeters(double[] a, double[] b, double[] c, int from, int to, double[] out) {
+        int i = VECTORIZED ? VectorKernels.trianglePerimeters(a, b, c, from, to, out) : from;
+        for (; i < to; i++) {
+            out[i - from] = a[i] + b[i] + c[i];
+        }
+    }
+
+    /**
+     * Computes sphere volumes, 4/3 * PI * r^3.
+     *
+     * @param radius The radii.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the volumes.
+     */
+    public static void sphereVolumes(double[] radius, int count, double[] out) {
+        sphereVolumes(radius, 0, count, out);
+    }
+
+    /**
+     * Computes sphere volumes, 4/3 * PI * r^3, for the entries from index from
+     * up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param radius The radii.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void sphereVolumes(double[] radius, int from, int to, double[] out) {
+        int i = VECTORIZED ? VectorKernels.sphereVolumes(radius, from, to, out) : from;
+        for (; i < to; i++) {
+            out[i - from] = FOUR_THIRDS_PI * (radius[i] * radius[i] * radius[i]);
+        }
+    }
+
+    /**
+     * Computes sphere surface areas, 4 * PI * r^2.
+     *
+     * @param radius The radii.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the surface areas.
+     */
+    public static void sphereSurfaceAreas(double[] radius, int count, double[] out) {
+        sphereSurfaceAreas(radius, 0, count, out);
+    }
+
+    /**
+     * Computes sphere surface areas, 4 * PI * r^2, for the entries from index from
+     * up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param radius The radii.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void sphereSurfaceAreas(double[] radius, int from, int to, double[] out) {
+        int i = VECTORIZED ? VectorKernels.sphereSurfaceAreas(radius, from, to, out) : from;
+        for (; i < to; i++) {
+            out[i - from] = FOUR_PI * (radius[i] * radius[i]);
+        }
+    }
+
+    /**
+     * Computes rectangular prism volumes, length * width * height.
+     *
+     * @param length The lengths.
+     * @param width  The widths.
+     * @param height The heights.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the volumes.
+     */
+    public static void rectangularPrismVolumes(double[] length, double[] width, double[] height, int count,
+            double[] out) {
+        rectangularPrismVolumes(length, width, height, 0, count, out);
+    }
+
+    /**
+     * Computes rectangular prism volumes, length * width * height, for the
+     * entries from index from up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param length The lengths.
+     * @param width  The widths.
+     * @param height The heights.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void rectangularPrismVolumes(double[] length, double[] width, double[] height, int from, int to,
+            double[] out) {
+        int i = VECTORIZED
+                ? VectorKernels.rectangularPrismVolumes(length, width, height, from, to, out)
+                : from;
+        for (; i < to; i++) {
+            out[i - from] = length[i] * width[i] * height[i];
+        }
+    }
+
+    /**
+     * Computes rectangular prism surface areas, 2 * (lw + lh + wh).
+     *
+     * @param length The lengths.
+     * @param width  The widths.
+     * @param height The heights.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the surface areas.
+     */
+    public static void rectangularPrismSurfaceAreas(double[] length, double[] width, double[] height, int count,
+            double[] out) {
+        rectangularPrismSurfaceAreas(length, width, height, 0, count, out);
+    }
+
+    /**
+     * Computes rectangular prism surface areas, 2 * (lw + lh + wh), for the
+     * entries from index from up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param length The lengths.
+     * @param width  The widths.
+     * @param height The heights.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void rectangularPrismSurfaceAreas(double[] length, double[] width, double[] height,
+            int from, int to, double[] out) {
+        int i = VECTORIZED
+                ? VectorKernels.rectangularPrismSurfaceAreas(length, width, height, from, to, out)
+                : from;
+        for (; i < to; i++) {
+            out[i - from] = 2 * (length[i] * width[i] + length[i] * height[i] + width[i] * height[i]);
+        }
+    }
+
+    /**
+     * Computes triangular prism volumes, Heron's base area * height.
+     *
+     * @param a      The lengths of side A of the base.
+     * @param b      The lengths of side B of the base.
+     * @param c      The lengths of side C of the base.
+     * @param height The heights.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the volumes.
+     */
+    public static void triangularPrismVolumes(double[] a, double[] b, double[] c, double[] height, int count,
+            double[] out) {
+        triangularPrismVolumes(a, b, c, height, 0, count, out);
+    }
+
+    /**
+     * Computes triangular prism volumes, Heron's base area * height, for the
+     * entries from index from up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param a      The lengths of side A of the base.
+     * @param b      The lengths of side B of the base.
+     * @param c      The lengths of side C of the base.
+     * @param height The heights.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void triangularPrismVolumes(double[] a, double[] b, double[] c, double[] height, int from, int to,
+            double[] out) {
+        int i = VECTORIZED
+                ? VectorKernels.triangularPrismVolumes(a, b, c, height, from, to, out)
+                : from;
+        for (; i < to; i++) {
+            double s = (a[i] + b[i] + c[i]) * 0.5;
+            out[i - from] = Math.sqrt(s * (s - a[i]) * (s - b[i]) * (s - c[i])) * height[i];
+        }
+    }
+
+    /**
+     * Computes triangular prism surface areas, 2 * base area + base perimeter * height.
+     *
+     * @param a      The lengths of side A of the base.
+     * @param b      The lengths of side B of the base.
+     * @param c      The lengths of side C of the base.
+     * @param height The heights.
+     * @param count  The number of entries to compute.
+     * @param out    The destination for the surface areas.
+     */
+    public static void triangularPrismSurfaceAreas(double[] a, double[] b, double[] c, double[] height,
+            int count, double[] out) {
+        triangularPrismSurfaceAreas(a, b, c, height, 0, count, out);
+    }
+
+    /**
+     * Computes triangular prism surface areas, 2 * base area + base perimeter *
+     * height, for the entries from index from up to but excluding to, writing entry i to out[i - from].
+     *
+     * @param a      The lengths of side A of the base.
+     * @param b      The lengths of side B of the base.
+     * @param c      The lengths of side C of the base.
+     * @param height The heights.
+     * @param from   The first entry to compute.
+     * @param to     The end of the range.
+     * @param out    The destination, with room for to - from values.
+     */
+    public static void triangularPrismSurfaceAreas(double[] a, double[] b, double[] c, double[] height,
+            int from, int to, double[] out) {
+        int i = VECTORIZED
+                ? VectorKernels.triangularPrismSurfaceAreas(a, b, c, height, from, to, out)
+                : from;
+        for (; i < to; i++) {
+            double perimeter = a[i] + b[i] + c[i];
+            double s = perimeter * 0.5;
+            out[i - from] = 2 * Math.sqrt(s * (s - a[i]) * (s - b[i]) * (s - c[i])) + perimeter * height[i];
+        }
+    }
+
+    /**
+     * Sums the first count values with four independent accumulators, so that
+     * consecutive additions do not wait on each other.
+     *
+     * @param values The values.
+     * @param count  The number of values to sum.
+     * @return The sum.
+     */
+    public static double sum(double[] values, int count) {
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        int i = 0;
+        for (; i + 3 < count; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < count; i++) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Computes a metric for every stored shape of one kind, reading the kind's
+     * parameter columns directly.
+     *
+     * @param store  The store.
+     * @param kind   The kind of shape.
+     * @param metric The metric, which must apply to the kind.
+     * @return One value per stored shape of the kind, in index order.
+     * @throws IllegalArgumentException if the metric does not apply to the kind.
+     */
+    public static double[] compute(GeometryStore store, ShapeKind kind, Metric metric) {
+        double[] out = new double[store.count(kind)];
+        compute(store, kind, metric, 0, out.length, out);
+        return out;
+    }
+
+    /**
+     * Computes a metric for a range of the stored shapes of one kind, in the
+     * order of the kind's parameter columns.
+     *
+     * @param store  The store.
+     * @param kind   The kind of shape.
+     * @param metric The metric, which must apply to the kind.
+     * @param from   The position of the first shape among the shapes of its kind.
+     * @param to     The end of the range, at most store.count(kind).
+     * @param out    The destination, with room for to - from values.
+     * @throws IllegalArgumentException if the metric does not apply to the kind.
+     */
+    static void compute(GeometryStore store, ShapeKind kind, Metric metric, int from, int to, double[] out) {
+        if (!metric.appliesTo(kind)) {
+            throw new IllegalArgumentException(metric.getDisplayName() + " is not defined for " + kind);
+        }
+        double[] p0 = store.column(kind, 0);
+        double[] p1 = kind.getParameterCount() > 1 ? store.column(kind, 1) : null;
+        double[] p2 = kind.getParameterCount() > 2 ? store.column(kind, 2) : null;
+        double[] p3 = kind.getParameterCount() > 3 ? store.column(kind, 3) : null;
+
+        switch (kind) {
+            case TRIANGLE:
+                if (metric == Metric.AREA) {
+                    triangleAreas(p0, p1, p2, from, to, out);
+                } else {
+                    trianglePerimeters(p0, p1, p2, from, to, out);
+                }
+                break;
+            case RECTANGLE:
+                if (metric == Metric.AREA) {
+                    rectangleAreas(p0, p1, from, to, out);
+                } else {
+                    rectanglePerimeters(p0, p1, from, to, out);
+                }
+                break;
+            case CIRCLE:
+                if (metric == Metric.AREA) {
+                    circleAreas(p0, from, to, out);
+                } else {
+                    circlePerimeters(p0, from, to, out);
+                }
+                break;
+            case SPHERE:
+                if (metric == Metric.VOLUME) {
+                    sphereVolumes(p0, from, to, out);
+                } else {
+                    sphereSurfaceAreas(p0, from, to, out);
+                }
+                break;
+            case RECTANGULAR_PRISM:
+                if (metric == Metric.VOLUME) {
+                    rectangularPrismVolumes(p0, p1, p2, from, to, out);
+                } else {
+                    rectangularPrismSurfaceAreas(p0, p1, p2, from, to, out);
+                }
+                break;
+            case TRIANGULAR_PRISM:
+                if (metric == Metric.VOLUME) {
+                    triangularPrismVolumes(p0, p1, p2, p3, from, to, out);
+                } else {
+                    triangularPrismSurfaceAreas(p0, p1, p2, p3, from, to, out);
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the batch kernels agree with the per-object metric methods.
+ */
+public class MetricKernelsTest {
+
+    /**
+     * Tests every kernel against the shape classes within MetricKernels.TOLERANCE.
+     */
+    @Test
+    void testKernelsMatchObjectMetrics() {
+        GeometryStore store = new GeometryStore();
+        GeometryLinkedList geometryList = new GeometryLinkedList();
+        Random random = new Random(23);
+        for (int i = 0; i < 3000; i++) {
+            Geometry geometry = GeometryStoreTest.randomShape(random);
+            store.add(geometry);
+            geometryList.add(geometry);
+        }
+
+        for (ShapeKind kind : ShapeKind.values()) {
+            for (Metric metric : Metric.values()) {
+                if (!metric.appliesTo(kind)) {
+                    continue;
+                }
+                double[] values = MetricKernels.compute(store, kind, metric);
+                assertEquals(store.count(kind), values.length);
+
+                int slot = 0;
+                double expectedSum = 0;
+                for (Geometry geometry : geometryList) {
+                    if (ShapeKind.of(geometry) == kind) {
+                        double expected = metric.of(geometry);
+                        assertEquals(expected, values[slot], expected * MetricKernels.TOLERANCE,
+                                kind + " " + metric + " at slot " + slot);
+                        expectedSum += expected;
+                        slot++;
+                    }
+                }
+                assertEquals(expectedSum, MetricKernels.sum(values, values.length), expectedSum * 1e-12);
+            }
+        }
+    }
+
+    /**
+     * Tests that computing a whole range, which uses the vector kernels when they
+     * are enabled, gives exactly the results of computing one entry at a time,
+     * which always takes the scalar loop. The ranges start at odd offsets and end
+     * with partial vectors.
+     */
+    @Test
+    void testVectorAndScalarKernelsIdentical() {
+        GeometryStore store = new GeometryStore();
+        Random random = new Random(6);
+        for (int i = 0; i < 1000; i++) {
+            store.add(GeometryStoreTest.randomShape(random));
+        }
+        store.add(new Triangle(3, 4, 5));
+
+        for (ShapeKind kind : ShapeKind.values()) {
+            for (Metric metric : Metric.values()) {
+                if (!metric.appliesTo(kind)) {
+                    continue;
+                }
+                int count = store.count(kind);
+                for (int from = 0; from < 3; from++) {
+                    double[] range = new double[count - from];
+                    MetricKernels.compute(store, kind, metric, from, count, range);
+                    double[] single = new double[1];
+                    for (int i = from; i < count; i++) {
+                        MetricKernels.compute(store, kind, metric, i, i + 1, single);
+                        assertEquals(Double.doubleToLongBits(single[0]), Double.doubleToLongBits(range[i - from]),
+                                kind + " " + metric + " at slot " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that a metric that does not apply to a kind is rejected.
+     */
+    @Test
+    void testMismatchedMetricRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> MetricKernels.compute(new GeometryStore(), ShapeKind.CIRCLE, Metric.VOLUME));
+    }
+}
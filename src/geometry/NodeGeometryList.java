@@ -0,0 +1,120 @@
+package geometry;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The original singly linked list of GeometryNode objects.
+ * 
+ * Every operation walks the list from the head, so it is only kept as a
+ * simple reference implementation for comparing against GeometryLinkedList.
+ */
+class NodeGeometryList implements GeometryCollection {
+    private GeometryNode head;
+
+    /**
+     * Constructs an empty NodeGeometryList.
+     */
+    public NodeGeometryList() {
+        this.head = null;
+    }
+
+    @Override
+    public void add(Geometry geometry) {
+        GeometryNode newNode = new GeometryNode(geometry);
+        if (head == null) {
+            head = newNode;
+        } else {
+            GeometryNode current = head;
+            while (current.next != null) {
+                current = current.next;
+            }
+            current.next = newNode;
+        }
+    }
+
+    @Override
+    public boolean removeByIndex(int index) {
+        if (head == null || index < 0) {
+            return false;
+        }
+
+        if (index == 0) {
+            head = head.next;
+            return true;
+        }
+
+        GeometryNode current = head;
+        for (int i = 0; i < index - 1; i++) {
+            if (current.next == null) {
+                return false;
+            }
+            current = current.next;
+        }
+
+        if (current.next == null) {
+            return false;
+        }
+
+        current.next = current.next.next;
+        return true;
+    }
+
+    @Override
+    public Geometry findByIndex(int index) {
+        if (head == null || index < 0) {
+            return null;
+        }
+
+        GeometryNode current = head;
+        int currentIndex = 0;
+
+        while (current != null) {
+            if (currentIndex == index) {
+                return current.data;
+            }
+            current = current.next;
+            currentIndex++;
+        }
+
+        return null;
+    }
+
+    @Override
+    public void printAll() {
+        GeometryRenderer.print(this);
+    }
+
+    @Override
+    public int size() {
+        int count = 0;
+        GeometryNode current = head;
+        while (current != null) {
+            count++;
+            current = current.next;
+        }
+        return count;
+    }
+
+    @Override
+    public Iterator<Geometry> iterator() {
+        return new Iterator<Geometry>() {
+            private GeometryNode current = head;
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public Geometry next() {
+                if (current == null) {
+                    throw new NoSuchElementException();
+                }
+                Geometry data = current.data;
+                current = current.next;
+                return data;
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package geometry;
+
+/**
+ * Base class for shapes that report changes made by their setters to registered
+ * GeometryObservers.
+ *
+ * Shapes without observers only pay for a null field. Like the shapes
+ * themselves, observer registration is not synchronized.
+ *
+ * A shape can also be frozen, which GeometryInterner does to the shared shapes in
+ * its pool. The setters of a frozen shape throw UnsupportedOperationException and
+ * it ignores observers, so one instance can safely be held by many lists and
+ * threads. Freezing reuses the observer field and costs no extra memory.
+ */
+public abstract class ObservableGeometry implements Geometry {
+    /** Marks a frozen shape in place of its observer array. */
+    private static final GeometryObserver[] FROZEN = new GeometryObserver[0];
+
+    private GeometryObserver[] observers;
+
+    /**
+     * Registers an observer. An observer registered several times is notified
+     * once per registration. Frozen shapes never change, so they do not record
+     * observers at all.
+     *
+     * @param observer The observer to add.
+     */
+    public void addObserver(GeometryObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("Observer must not be null.");
+        }
+        if (observers == FROZEN) {
+            return;
+        }
+        if (observers == null) {
+            observers = new GeometryObserver[] { observer };
+        } else {
+            GeometryObserver[] grown = new GeometryObserver[observers.length + 1];
+            System.arraycopy(observers, 0, grown, 0, observers.length);
+            grown[observers.length] = observer;
+            observers = grown;
+        }
+    }
+
+    /**
+     * Removes one registration of an observer.
+     *
+     * @param observer The observer to remove.
+     * @return True if the observer was registered, false otherwise.
+     */
+    public boolean removeObserver(GeometryObserver observer) {
+        if (observers == null) {
+            return false;
+        }
+        for (int i = 0; i < observers.length; i++) {
+            if (observers[i] == observer) {
+                if (observers.length == 1) {
+                    observers = null;
+                } else {
+                    GeometryObserver[] shrunk = new GeometryObserver[observers.length - 1];
+                    System.arraycopy(observers, 0, shrunk, 0, i);
+                    System.arraycopy(observers, i + 1, shrunk, i, observers.length - i - 1);
+                    observers = shrunk;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether this shape has been frozen.
+     *
+     * @return True if the setters of this shape throw.
+     */
+    public boolean isFrozen() {
+        return observers == FROZEN;
+    }
+
+    /**
+     * Makes this shape unmodifiable for good and drops its observers.
+     */
+    void freeze() {
+        observers = FROZEN;
+    }
+
+    /**
+     * Notifies the observers that a setter is about to change this shape. Setters
+     * call this after validating the new value and before assigning it.
+     *
+     * @throws UnsupportedOperationException if the shape is frozen.
+     */
+    protected void fireChanging() {
+        GeometryObserver[] current = observers;
+        if (current == FROZEN) {
+            throw new UnsupportedOperationException("Interned shapes are shared and cannot be changed.");
+        }
+        if (current != null) {
+            for (GeometryObserver observer : current) {
+                observer.geometryChanging(this);
+            }
+        }
+    }
+
+    /**
+     * Notifies the observers that a setter has changed this shape.
+     */
+    protected void fireChanged() {
+        GeometryObserver[] current = observers;
+        if (current != null) {
+            for (GeometryObserver observer : current) {
+                observer.geometryChanged(this);
+            }
+        }
+    }
+}
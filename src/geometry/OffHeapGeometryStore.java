@@ -0,0 +1,390 @@
+package geometry;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A store of Geometry shapes kept off the Java heap in a MemorySegment.
+ *
+ * Every shape is a fixed-size record: a one-byte kind tag padded to eight bytes,
+ * followed by the kind's parameters as doubles, padded to RECORD_SIZE. The
+ * per-kind layouts are described by layoutOf. Because all records have the same
+ * size, findByIndex is O(1), and the metric kernels read records straight from the
+ * segment without creating shape objects.
+ *
+ * The store owns the native memory. Each backing segment has its own shared Arena,
+ * which is closed when the store grows into a bigger segment or when close() is
+ * called. Using the store after close() throws IllegalStateException.
+ */
+public class OffHeapGeometryStore implements GeometryCollection, AutoCloseable {
+    /** Size in bytes of every shape record. */
+    public static final long RECORD_SIZE = 8 + 8L * ShapeKind.MAX_PARAMETERS;
+
+    private static final long TAG_OFFSET = 0;
+    private static final long PARAMETERS_OFFSET = 8;
+    private static final StructLayout[] LAYOUTS = new StructLayout[ShapeKind.values().length];
+
+    static {
+        for (ShapeKind kind : ShapeKind.values()) {
+            List<MemoryLayout> elements = new ArrayList<>();
+            elements.add(ValueLayout.JAVA_BYTE.withName("tag"));
+            elements.add(MemoryLayout.paddingLayout(PARAMETERS_OFFSET - 1));
+            for (int p = 0; p < kind.getParameterCount(); p++) {
+                elements.add(ValueLayout.JAVA_DOUBLE.withName(kind.getParameterName(p)));
+            }
+            long unused = RECORD_SIZE - PARAMETERS_OFFSET - 8L * kind.getParameterCount();
+            if (unused > 0) {
+                elements.add(MemoryLayout.paddingLayout(unused));
+            }
+            LAYOUTS[kind.ordinal()] = MemoryLayout.structLayout(elements.toArray(new MemoryLayout[0]));
+        }
+    }
+
+    private Arena arena;
+    private MemorySegment segment;
+    private long capacity;
+    private int size;
+
+    /**
+     * Constructs an empty store with room for 1024 shapes.
+     */
+    public OffHeapGeometryStore() {
+        this(1024);
+    }
+
+    /**
+     * Constructs an empty store with room for the given number of shapes before it grows.
+     *
+     * @param initialCapacity The number of records to allocate up front.
+     * @throws IllegalArgumentException if initialCapacity is not positive.
+     */
+    public OffHeapGeometryStore(long initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive.");
+        }
+        this.arena = Arena.ofShared();
+        this.segment = arena.allocate(initialCapacity * RECORD_SIZE, 8);
+        this.capacity = initialCapacity;
+        this.size = 0;
+    }
+
+    /**
+     * Returns the memory layout of a record of the given kind.
+     *
+     * @param kind The kind.
+     * @return A struct layout of RECORD_SIZE bytes.
+     */
+    public static StructLayout layoutOf(ShapeKind kind) {
+        return LAYOUTS[kind.ordinal()];
+    }
+
+    /**
+     * Writes a Geometry object's parameters into a new record at the end of the store.
+     *
+     * @param geometry The Geometry object to add.
+     * @throws IllegalArgumentException if the geometry is not one of the six shape classes.
+     */
+    @Override
+    public void add(Geometry geometry) {
+        ShapeKind kind = ShapeKind.of(geometry);
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        kind.getParameters(geometry, parameters);
+        append(kind, parameters);
+    }
+
+    /**
+     * Appends an already validated shape given by its kind and parameters.
+     *
+     * @param kind       The kind of shape.
+     * @param parameters The parameters, in the order given by ShapeKind.getParameterName.
+     */
+    void append(ShapeKind kind, double[] parameters) {
+        if (size == capacity) {
+            grow();
+        }
+        long offset = size * RECORD_SIZE;
+        segment.set(ValueLayout.JAVA_BYTE, offset + TAG_OFFSET, kind.tag());
+        for (int p = 0; p < ShapeKind.MAX_PARAMETERS; p++) {
+            double value = p < kind.getParameterCount() ? parameters[p] : 0;
+            segment.set(ValueLayout.JAVA_DOUBLE, offset + PARAMETERS_OFFSET + 8L * p, value);
+        }
+        size++;
+    }
+
+    /**
+     * Removes a record from the store by its index, shifting later records down.
+     *
+     * @param index The index of the shape to remove (0-based).
+     * @return True if removal was successful, false otherwise.
+     */
+    @Override
+    public boolean removeByIndex(int index) {
+        if (index < 0 || index >= size) {
+            return false;
+        }
+        long offset = index * RECORD_SIZE;
+        MemorySegment.copy(segment, offset + RECORD_SIZE, segment, offset, (size - index - 1) * RECORD_SIZE);
+        size--;
+        return true;
+    }
+
+    /**
+     * Builds a read-only heap view of the record at the given index.
+     *
+     * @param index The index of the shape to find (0-based).
+     * @return A read-only Geometry view if found, null otherwise.
+     */
+    @Override
+    public Geometry findByIndex(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        return view(index);
+    }
+
+    /**
+     * Returns the kind of the record at the given index.
+     *
+     * @param index The index of the shape (0-based).
+     * @return The kind.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public ShapeKind getKind(int index) {
+        checkIndex(index);
+        return kindAt(index);
+    }
+
+    /**
+     * Reads one parameter of the record at the given index.
+     *
+     * @param index     The index of the shape (0-based).
+     * @param parameter The parameter position, as in ShapeKind.getParameterName.
+     * @return The parameter value.
+     * @throws IndexOutOfBoundsException if the index or parameter is out of range.
+     */
+    public double getParameter(int index, int parameter) {
+        checkIndex(index);
+        if (parameter < 0 || parameter >= kindAt(index).getParameterCount()) {
+            throw new IndexOutOfBoundsException("No parameter " + parameter + " for " + kindAt(index));
+        }
+        return parameterAt(index, parameter);
+    }
+
+    /**
+     * Prints all shapes in the store along with their indices.
+     */
+    @Override
+    public void printAll() {
+        GeometryRenderer.print(this);
+    }
+
+    /**
+     * Returns the number of shapes in the store.
+     *
+     * @return The number of shapes.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of native memory currently reserved by the store.
+     *
+     * @return The reserved size in bytes.
+     */
+    public long reservedBytes() {
+        return segment.byteSize();
+    }
+
+    /**
+     * Returns an iterator that builds a read-only view for each record in index order.
+     *
+     * @return An iterator over the store.
+     */
+    @Override
+    public Iterator<Geometry> iterator() {
+        return new Iterator<Geometry>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Geometry next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return view(index++);
+            }
+        };
+    }
+
+    /**
+     * Calculates the area of the record at the given index from the segment.
+     *
+     * @param index The index of the shape (0-based).
+     * @return The area, or NaN if the shape is 3D.
+     * @throws IllegalStateException if the record is a degenerate triangle.
+     */
+    public double area(int index) {
+        checkIndex(index);
+        return kindAt(index).area(parameterAt(index, 0), parameterAt(index, 1),
+                parameterAt(index, 2), parameterAt(index, 3));
+    }
+
+    /**
+     * Calculates the perimeter of the record at the given index from the segment.
+     *
+     * @param index The index of the shape (0-based).
+     * @return The perimeter, or NaN if the shape is 3D.
+     */
+    public double perimeter(int index) {
+        checkIndex(index);
+        return kindAt(index).perimeter(parameterAt(index, 0), parameterAt(index, 1),
+                parameterAt(index, 2), parameterAt(index, 3));
+    }
+
+    /**
+     * Calculates the volume of the record at the given index from the segment.
+     *
+     * @param index The index of the shape (0-based).
+     * @return The volume, or NaN if the shape is 2D.
+     * @throws IllegalStateException if the record is a triangular prism with a degenerate base.
+     */
+    public double volume(int index) {
+        checkIndex(index);
+        return kindAt(index).volume(parameterAt(index, 0), parameterAt(index, 1),
+                parameterAt(index, 2), parameterAt(index, 3));
+    }
+
+    /**
+     * Calculates the surface area of the record at the given index from the segment.
+     *
+     * @param index The index of the shape (0-based).
+     * @return The surface area, or NaN if the shape is 2D.
+     * @throws IllegalStateException if the record is a triangular prism with a degenerate base.
+     */
+    public double surfaceArea(int index) {
+        checkIndex(index);
+        return kindAt(index).surfaceArea(parameterAt(index, 0), parameterAt(index, 1),
+                parameterAt(index, 2), parameterAt(index, 3));
+    }
+
+    /**
+     * Sums the areas of all 2D records with a single pass over the segment.
+     *
+     * @return The total area.
+     * @throws IllegalStateException if a stored triangle is degenerate.
+     */
+    public double totalArea() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            ShapeKind kind = kindAt(i);
+            if (!kind.isThreeDimensional()) {
+                total += kind.area(parameterAt(i, 0), parameterAt(i, 1), parameterAt(i, 2), 0);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums the perimeters of all 2D records with a single pass over the segment.
+     *
+     * @return The total perimeter.
+     */
+    public double totalPerimeter() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            ShapeKind kind = kindAt(i);
+            if (!kind.isThreeDimensional()) {
+                total += kind.perimeter(parameterAt(i, 0), parameterAt(i, 1), parameterAt(i, 2), 0);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums the volumes of all 3D records with a single pass over the segment.
+     *
+     * @return The total volume.
+     * @throws IllegalStateException if the base of a stored triangular prism is degenerate.
+     */
+    public double totalVolume() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            ShapeKind kind = kindAt(i);
+            if (kind.isThreeDimensional()) {
+                total += kind.volume(parameterAt(i, 0), parameterAt(i, 1), parameterAt(i, 2), parameterAt(i, 3));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Sums the surface areas of all 3D records with a single pass over the segment.
+     *
+     * @return The total surface area.
+     * @throws IllegalStateException if the base of a stored triangular prism is degenerate.
+     */
+    public double totalSurfaceArea() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            ShapeKind kind = kindAt(i);
+            if (kind.isThreeDimensional()) {
+                total += kind.surfaceArea(parameterAt(i, 0), parameterAt(i, 1), parameterAt(i, 2), parameterAt(i, 3));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Releases the native memory. The store cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Doubles the capacity by copying into a segment from a new arena and closing the old one.
+     */
+    private void grow() {
+        long grownCapacity = capacity * 2;
+        Arena grownArena = Arena.ofShared();
+        MemorySegment grown = grownArena.allocate(grownCapacity * RECORD_SIZE, 8);
+        MemorySegment.copy(segment, 0, grown, 0, size * RECORD_SIZE);
+        arena.close();
+        arena = grownArena;
+        segment = grown;
+        capacity = grownCapacity;
+    }
+
+    private ShapeKind kindAt(int index) {
+        return ShapeKind.fromTag(segment.get(ValueLayout.JAVA_BYTE, index * RECORD_SIZE + TAG_OFFSET));
+    }
+
+    private double parameterAt(int index, int parameter) {
+        return segment.get(ValueLayout.JAVA_DOUBLE, index * RECORD_SIZE + PARAMETERS_OFFSET + 8L * parameter);
+    }
+
+    private Geometry view(int index) {
+        return GeometryViews.of(kindAt(index), parameterAt(index, 0), parameterAt(index, 1),
+                parameterAt(index, 2), parameterAt(index, 3));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+}
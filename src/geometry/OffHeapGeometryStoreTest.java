@@ -0,0 +1,113 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.foreign.MemoryLayout;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the off-heap OffHeapGeometryStore.
+ */
+public class OffHeapGeometryStoreTest {
+    private OffHeapGeometryStore store;
+    private GeometryLinkedList reference;
+
+    /**
+     * Starts each test with a tiny store so that growth is exercised.
+     */
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapGeometryStore(2);
+        reference = new GeometryLinkedList();
+    }
+
+    /**
+     * Releases the native memory after each test.
+     */
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    /**
+     * Tests that the per-kind layouts all have the record size and the expected field offsets.
+     */
+    @Test
+    void testLayouts() {
+        for (ShapeKind kind : ShapeKind.values()) {
+            assertEquals(OffHeapGeometryStore.RECORD_SIZE, OffHeapGeometryStore.layoutOf(kind).byteSize());
+        }
+        long heightOffset = OffHeapGeometryStore.layoutOf(ShapeKind.TRIANGULAR_PRISM)
+                .byteOffset(MemoryLayout.PathElement.groupElement("height"));
+        assertEquals(32, heightOffset);
+    }
+
+    /**
+     * Tests add, find and remove against GeometryLinkedList.
+     */
+    @Test
+    void testOperationsMatchReference() {
+        Random random = new Random(3);
+        for (int step = 0; step < 2000; step++) {
+            if (random.nextInt(4) > 0 || reference.size() == 0) {
+                Geometry geometry = GeometryStoreTest.randomShape(random);
+                store.add(geometry);
+                reference.add(geometry);
+            } else {
+                int index = random.nextInt(reference.size());
+                assertTrue(store.removeByIndex(index));
+                assertTrue(reference.removeByIndex(index));
+            }
+        }
+
+        assertEquals(reference.size(), store.size());
+        assertFalse(store.removeByIndex(-1));
+        assertNull(store.findByIndex(store.size()));
+        for (int i = 0; i < reference.size(); i++) {
+            assertEquals(reference.findByIndex(i).toString(), store.findByIndex(i).toString());
+        }
+    }
+
+    /**
+     * Tests that the segment kernels agree with the per-object metric methods.
+     */
+    @Test
+    void testKernelsMatchObjectMetrics() {
+        Random random = new Random(5);
+        double area = 0;
+        double volume = 0;
+        for (int i = 0; i < 500; i++) {
+            Geometry geometry = GeometryStoreTest.randomShape(random);
+            store.add(geometry);
+            if (geometry instanceof Geometry2D) {
+                Geometry2D shape = (Geometry2D) geometry;
+                area += shape.getArea();
+                assertEquals(shape.getArea(), store.area(i), 0.0);
+                assertEquals(shape.getPerimeter(), store.perimeter(i), 0.0);
+                assertTrue(Double.isNaN(store.volume(i)));
+            } else {
+                Geometry3D shape = (Geometry3D) geometry;
+                volume += shape.getVolume();
+                assertEquals(shape.getVolume(), store.volume(i), 0.0);
+                assertEquals(shape.getSurfaceArea(), store.surfaceArea(i), 0.0);
+            }
+        }
+        assertEquals(area, store.totalArea(), 1e-9 * area);
+        assertEquals(volume, store.totalVolume(), 1e-9 * volume);
+    }
+
+    /**
+     * Tests that the store rejects use after its memory has been released.
+     */
+    @Test
+    void testUseAfterClose() {
+        OffHeapGeometryStore closed = new OffHeapGeometryStore();
+        closed.add(new Circle(1.0));
+        closed.close();
+        assertThrows(IllegalStateException.class, () -> closed.findByIndex(0));
+    }
+}
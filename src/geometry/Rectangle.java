@@ -3,10 +3,14 @@ package geometry;
 /**
  * Represents a Rectangle in 2D space.
  */
-public class Rectangle implements Geometry2D {
+public class Rectangle extends ObservableGeometry implements Geometry2D {
     private double length;
     private double width;
 
+    /** Cached metrics, or NaN until computed. */
+    private double area = Double.NaN;
+    private double perimeter = Double.NaN;
+
     /**
      * Constructs a Rectangle with the specified length and width.
      * 
@@ -15,11 +19,10 @@ public class Rectangle implements Geometry2D {
      * @throws IllegalArgumentException if length or width is not positive.
      */
     public Rectangle(double length, double width) {
-        if (length <= 0 || width <= 0) {
-            throw new IllegalArgumentException("Length and width must be positive.");
-        }
+        ShapeKind.RECTANGLE.require(length, width, 0, 0);
         this.length = length;
         this.width = width;
+        invalidateMetrics();
     }
 
     /**
@@ -29,7 +32,14 @@ public class Rectangle implements Geometry2D {
      */
     @Override
     public double getArea() {
-        return length * width;
+        double value = area;
+        if (Double.isNaN(value)) {
+            value = computeArea();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                area = value;
+            }
+        }
+        return value;
     }
 
     /**
@@ -39,9 +49,36 @@ public class Rectangle implements Geometry2D {
      */
     @Override
     public double getPerimeter() {
+        double value = perimeter;
+        if (Double.isNaN(value)) {
+            value = computePerimeter();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                perimeter = value;
+            }
+        }
+        return value;
+    }
+
+    private double computeArea() {
+        return length * width;
+    }
+
+    private double computePerimeter() {
         return 2 * (length + width);
     }
 
+    /**
+     * Discards the cached metrics after a change, recomputing them in EAGER mode.
+     */
+    private void invalidateMetrics() {
+        area = Double.NaN;
+        perimeter = Double.NaN;
+        if (MetricCaching.getMode() == MetricCaching.EAGER) {
+            area = computeArea();
+            perimeter = computePerimeter();
+        }
+    }
+
     // Getters and Setters (optional)
 
     public double getLength() {
@@ -49,10 +86,11 @@ public class Rectangle implements Geometry2D {
     }
 
     public void setLength(double length) {
-        if (length <= 0) {
-            throw new IllegalArgumentException("Length must be positive.");
-        }
+        ShapeKind.requirePositive(length, ShapeError.NON_POSITIVE_LENGTH);
+        fireChanging();
         this.length = length;
+        invalidateMetrics();
+        fireChanged();
     }
 
     public double getWidth() {
@@ -60,10 +98,41 @@ public class Rectangle implements Geometry2D {
     }
 
     public void setWidth(double width) {
-        if (width <= 0) {
-            throw new IllegalArgumentException("Width must be positive.");
-        }
+        ShapeKind.requirePositive(width, ShapeError.NON_POSITIVE_WIDTH);
+        fireChanging();
         this.width = width;
+        invalidateMetrics();
+        fireChanged();
+    }
+
+    /**
+     * Compares rectangles by length and width, so that copies, views and
+     * interned instances of the same shape are equal. Doubles are compared like
+     * Double.equals.
+     *
+     * @param obj The object to compare with.
+     * @return True if obj is a Rectangle with the same parameters.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Rectangle other)) {
+            return false;
+        }
+        return Double.compare(getLength(), other.getLength()) == 0
+                && Double.compare(getWidth(), other.getWidth()) == 0;
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Like equals, it changes when a
+     * setter changes the rectangle.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(getLength());
+        hash = 31 * hash + Double.hashCode(getWidth());
+        return hash;
     }
 
     /**
@@ -73,7 +142,6 @@ public class Rectangle implements Geometry2D {
      */
     @Override
     public String toString() {
-        return String.format("Rectangle [Length=%.2f, Width=%.2f, Area=%.2f, Perimeter=%.2f]",
-                length, width, getArea(), getPerimeter());
+        return GeometryRenderer.render(this);
     }
 }
@@ -3,11 +3,15 @@ package geometry;
 /**
  * Represents a Rectangular Prism in 3D space.
  */
-public class RectangularPrism implements Geometry3D {
+public class RectangularPrism extends ObservableGeometry implements Geometry3D {
     private double length;
     private double width;
     private double height;
 
+    /** Cached metrics, or NaN until computed. */
+    private double volume = Double.NaN;
+    private double surfaceArea = Double.NaN;
+
     /**
      * Constructs a RectangularPrism with the specified dimensions.
      * 
@@ -17,12 +21,11 @@ public class RectangularPrism implements Geometry3D {
      * @throws IllegalArgumentException if any dimension is not positive.
      */
     public RectangularPrism(double length, double width, double height) {
-        if (length <= 0 || width <= 0 || height <= 0) {
-            throw new IllegalArgumentException("All dimensions must be positive.");
-        }
+        ShapeKind.RECTANGULAR_PRISM.require(length, width, height, 0);
         this.length = length;
         this.width = width;
         this.height = height;
+        invalidateMetrics();
     }
 
     /**
@@ -32,7 +35,14 @@ public class RectangularPrism implements Geometry3D {
      */
     @Override
     public double getVolume() {
-        return length * width * height;
+        double value = volume;
+        if (Double.isNaN(value)) {
+            value = computeVolume();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                volume = value;
+            }
+        }
+        return value;
     }
 
     /**
@@ -42,9 +52,36 @@ public class RectangularPrism implements Geometry3D {
      */
     @Override
     public double getSurfaceArea() {
+        double value = surfaceArea;
+        if (Double.isNaN(value)) {
+            value = computeSurfaceArea();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                surfaceArea = value;
+            }
+        }
+        return value;
+    }
+
+    private double computeVolume() {
+        return length * width * height;
+    }
+
+    private double computeSurfaceArea() {
         return 2 * (length * width + length * height + width * height);
     }
 
+    /**
+     * Discards the cached metrics after a change, recomputing them in EAGER mode.
+     */
+    private void invalidateMetrics() {
+        volume = Double.NaN;
+        surfaceArea = Double.NaN;
+        if (MetricCaching.getMode() == MetricCaching.EAGER) {
+            volume = computeVolume();
+            surfaceArea = computeSurfaceArea();
+        }
+    }
+
     // Getters and Setters (optional)
 
     public double getLength() {
@@ -52,10 +89,11 @@ public class RectangularPrism implements Geometry3D {
     }
 
     public void setLength(double length) {
-        if (length <= 0) {
-            throw new IllegalArgumentException("Length must be positive.");
-        }
+        ShapeKind.requirePositive(length, ShapeError.NON_POSITIVE_LENGTH);
+        fireChanging();
         this.length = length;
+        invalidateMetrics();
+        fireChanged();
     }
 
     public double getWidth() {
@@ -63,10 +101,11 @@ public class RectangularPrism implements Geometry3D {
     }
 
     public void setWidth(double width) {
-        if (width <= 0) {
-            throw new IllegalArgumentException("Width must be positive.");
-        }
+        ShapeKind.requirePositive(width, ShapeError.NON_POSITIVE_WIDTH);
+        fireChanging();
         this.width = width;
+        invalidateMetrics();
+        fireChanged();
     }
 
     public double getHeight() {
@@ -74,10 +113,43 @@ public class RectangularPrism implements Geometry3D {
     }
 
     public void setHeight(double height) {
-        if (height <= 0) {
-            throw new IllegalArgumentException("Height must be positive.");
-        }
+        ShapeKind.requirePositive(height, ShapeError.NON_POSITIVE_HEIGHT);
+        fireChanging();
         this.height = height;
+        invalidateMetrics();
+        fireChanged();
+    }
+
+    /**
+     * Compares rectangular prisms by length, width and height, so that copies,
+     * views and interned instances of the same shape are equal. Doubles are
+     * compared like Double.equals.
+     *
+     * @param obj The object to compare with.
+     * @return True if obj is a RectangularPrism with the same parameters.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof RectangularPrism other)) {
+            return false;
+        }
+        return Double.compare(getLength(), other.getLength()) == 0
+                && Double.compare(getWidth(), other.getWidth()) == 0
+                && Double.compare(getHeight(), other.getHeight()) == 0;
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Like equals, it changes when a
+     * setter changes the prism.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(getLength());
+        hash = 31 * hash + Double.hashCode(getWidth());
+        hash = 31 * hash + Double.hashCode(getHeight());
+        return hash;
     }
 
     /**
@@ -87,7 +159,6 @@ public class RectangularPrism implements Geometry3D {
      */
     @Override
     public String toString() {
-        return String.format("RectangularPrism [Length=%.2f, Width=%.2f, Height=%.2f, Volume=%.2f, Surface Area=%.2f]",
-                length, width, height, getVolume(), getSurfaceArea());
+        return GeometryRenderer.render(this);
     }
 }
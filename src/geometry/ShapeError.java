@@ -0,0 +1,67 @@
+package geometry;
+
+/**
+ * Codes for the ways shape parameters can be rejected, for callers that check
+ * input without exceptions.
+ *
+ * Each code carries the message that the throwing API puts in its exception, so
+ * a code can always be turned back into the error the constructors report.
+ */
+public enum ShapeError {
+    /** The parameters are valid. */
+    NONE(null),
+
+    /** The parameter array is shorter than the kind's parameter count. */
+    MISSING_PARAMETERS("Too few parameters."),
+
+    /** Triangle sides that do not satisfy the strict triangle inequality. */
+    INVALID_TRIANGLE("Invalid triangle side lengths."),
+
+    /** A circle or sphere radius that is not positive. */
+    NON_POSITIVE_RADIUS("Radius must be positive."),
+
+    /** A rectangle length or width that is not positive. */
+    NON_POSITIVE_SIDES("Length and width must be positive."),
+
+    /** A rectangular prism dimension that is not positive. */
+    NON_POSITIVE_DIMENSIONS("All dimensions must be positive."),
+
+    /** A prism height that is not positive. */
+    NON_POSITIVE_HEIGHT("Height must be positive."),
+
+    /** A rectangle or rectangular prism length that is not positive. */
+    NON_POSITIVE_LENGTH("Length must be positive."),
+
+    /** A rectangle or rectangular prism width that is not positive. */
+    NON_POSITIVE_WIDTH("Width must be positive."),
+
+    /**
+     * Triangle sides that pass the triangle inequality but whose area rounds to
+     * zero, so the area and the metrics built on it cannot be calculated.
+     */
+    DEGENERATE_TRIANGLE("Cannot calculate area with given side lengths.");
+
+    private final String message;
+
+    ShapeError(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Returns the message of the exception the throwing API reports for this error.
+     *
+     * @return The message, or null for NONE.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns whether this code reports an error.
+     *
+     * @return False for NONE, true otherwise.
+     */
+    public boolean isError() {
+        return this != NONE;
+    }
+}
@@ -0,0 +1,370 @@
+package geometry;
+
+/**
+ * The six kinds of geometry, in the same order as the add menu in GeometryApp.
+ *
+ * Compact storage formats keep a shape as its kind tag plus its numeric
+ * parameters. This enum converts between that form and the shape classes.
+ */
+public enum ShapeKind {
+    TRIANGLE("Triangle", false, "sideA", "sideB", "sideC"),
+    RECTANGLE("Rectangle", false, "length", "width"),
+    CIRCLE("Circle", false, "radius"),
+    SPHERE("Sphere", true, "radius"),
+    RECTANGULAR_PRISM("RectangularPrism", true, "length", "width", "height"),
+    TRIANGULAR_PRISM("TriangularPrism", true, "sideA", "sideB", "sideC", "height");
+
+    /** The largest number of parameters used by any kind. */
+    public static final int MAX_PARAMETERS = 4;
+
+    private static final ShapeKind[] KINDS = values();
+
+    private final String displayName;
+    private final boolean threeDimensional;
+    private final String[] parameterNames;
+
+    ShapeKind(String displayName, boolean threeDimensional, String... parameterNames) {
+        this.displayName = displayName;
+        this.threeDimensional = threeDimensional;
+        this.parameterNames = parameterNames;
+    }
+
+    /**
+     * Returns the class name used for this kind, e.g. "RectangularPrism".
+     *
+     * @return The display name.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Returns whether shapes of this kind implement Geometry3D.
+     *
+     * @return True for 3D kinds, false for 2D kinds.
+     */
+    public boolean isThreeDimensional() {
+        return threeDimensional;
+    }
+
+    /**
+     * Returns the number of numeric parameters that define a shape of this kind.
+     *
+     * @return The parameter count.
+     */
+    public int getParameterCount() {
+        return parameterNames.length;
+    }
+
+    /**
+     * Returns the name of a parameter, e.g. "radius" or "sideB".
+     *
+     * @param parameter The parameter position.
+     * @return The parameter name.
+     */
+    public String getParameterName(int parameter) {
+        return parameterNames[parameter];
+    }
+
+    /**
+     * Returns the one-byte tag used for this kind in compact storage.
+     *
+     * @return The tag.
+     */
+    public byte tag() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * Returns the kind stored under the given tag.
+     *
+     * @param tag The tag.
+     * @return The kind.
+     * @throws IllegalArgumentException if the tag is unknown.
+     */
+    public static ShapeKind fromTag(byte tag) {
+        if (tag < 0 || tag >= KINDS.length) {
+            throw new IllegalArgumentException("Unknown shape tag: " + tag);
+        }
+        return KINDS[tag];
+    }
+
+    /**
+     * Returns the kind of the given geometry.
+     *
+     * @param geometry The geometry.
+     * @return The kind.
+     * @throws IllegalArgumentException if the geometry is not one of the six shape classes.
+     */
+    public static ShapeKind of(Geometry geometry) {
+        if (geometry instanceof Triangle) {
+            return TRIANGLE;
+        } else if (geometry instanceof Rectangle) {
+            return RECTANGLE;
+        } else if (geometry instanceof Circle) {
+            return CIRCLE;
+        } else if (geometry instanceof Sphere) {
+            return SPHERE;
+        } else if (geometry instanceof RectangularPrism) {
+            return RECTANGULAR_PRISM;
+        } else if (geometry instanceof TriangularPrism) {
+            return TRIANGULAR_PRISM;
+        }
+        throw new IllegalArgumentException("Unsupported geometry: " + geometry);
+    }
+
+    /**
+     * Copies the parameters of a geometry of this kind into an array.
+     *
+     * @param geometry The geometry, which must be of this kind.
+     * @param out      The destination, with room for getParameterCount() values.
+     */
+    public void getParameters(Geometry geometry, double[] out) {
+        switch (this) {
+            case TRIANGLE:
+                Triangle triangle = (Triangle) geometry;
+                out[0] = triangle.getSideA();
+                out[1] = triangle.getSideB();
+                out[2] = triangle.getSideC();
+                break;
+            case RECTANGLE:
+                Rectangle rectangle = (Rectangle) geometry;
+                out[0] = rectangle.getLength();
+                out[1] = rectangle.getWidth();
+                break;
+            case CIRCLE:
+                out[0] = ((Circle) geometry).getRadius();
+                break;
+            case SPHERE:
+                out[0] = ((Sphere) geometry).getRadius();
+                break;
+            case RECTANGULAR_PRISM:
+                RectangularPrism prism = (RectangularPrism) geometry;
+                out[0] = prism.getLength();
+                out[1] = prism.getWidth();
+                out[2] = prism.getHeight();
+                break;
+            case TRIANGULAR_PRISM:
+                TriangularPrism triangularPrism = (TriangularPrism) geometry;
+                out[0] = triangularPrism.getSideA();
+                out[1] = triangularPrism.getSideB();
+                out[2] = triangularPrism.getSideC();
+                out[3] = triangularPrism.getHeight();
+                break;
+        }
+    }
+
+    /**
+     * Calculates the area of a 2D shape of this kind from its parameters, using
+     * the same formula as the shape class.
+     *
+     * @return The area, or NaN for 3D kinds.
+     * @throws IllegalStateException if a triangle's sides are degenerate.
+     */
+    double area(double p0, double p1, double p2, double p3) {
+        switch (this) {
+            case TRIANGLE:
+                return heron(p0, p1, p2);
+            case RECTANGLE:
+                return p0 * p1;
+            case CIRCLE:
+                return Math.PI * p0 * p0;
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Calculates the perimeter of a 2D shape of this kind from its parameters.
+     *
+     * @return The perimeter, or NaN for 3D kinds.
+     */
+    double perimeter(double p0, double p1, double p2, double p3) {
+        switch (this) {
+            case TRIANGLE:
+                return p0 + p1 + p2;
+            case RECTANGLE:
+                return 2 * (p0 + p1);
+            case CIRCLE:
+                return 2 * Math.PI * p0;
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Calculates the volume of a 3D shape of this kind from its parameters.
+     *
+     * @return The volume, or NaN for 2D kinds.
+     * @throws IllegalStateException if a triangular prism's base is degenerate.
+     */
+    double volume(double p0, double p1, double p2, double p3) {
+        switch (this) {
+            case SPHERE:
+                return (4.0 / 3.0) * Math.PI * Math.pow(p0, 3);
+            case RECTANGULAR_PRISM:
+                return p0 * p1 * p2;
+            case TRIANGULAR_PRISM:
+                return heron(p0, p1, p2) * p3;
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Calculates the surface area of a 3D shape of this kind from its parameters.
+     *
+     * @return The surface area, or NaN for 2D kinds.
+     * @throws IllegalStateException if a triangular prism's base is degenerate.
+     */
+    double surfaceArea(double p0, double p1, double p2, double p3) {
+        switch (this) {
+            case SPHERE:
+                return 4 * Math.PI * Math.pow(p0, 2);
+            case RECTANGULAR_PRISM:
+                return 2 * (p0 * p1 + p0 * p2 + p1 * p2);
+            case TRIANGULAR_PRISM:
+                return 2 * heron(p0, p1, p2) + (p0 + p1 + p2) * p3;
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Calculates a triangle's area with Heron's formula, exactly as Triangle.getArea does.
+     *
+     * @throws IllegalStateException if the sides are degenerate.
+     */
+    static double heron(double a, double b, double c) {
+        double area = heronOrNaN(a, b, c);
+        if (Double.isNaN(area)) {
+            throw new IllegalStateException(ShapeError.DEGENERATE_TRIANGLE.getMessage());
+        }
+        return area;
+    }
+
+    /**
+     * Calculates a triangle's area with Heron's formula without throwing.
+     *
+     * @return The area, or NaN if the sides are degenerate.
+     */
+    static double heronOrNaN(double a, double b, double c) {
+        double s = (a + b + c) / 2.0;
+        double areaSquared = s * (s - a) * (s - b) * (s - c);
+        if (areaSquared <= 0) {
+            return Double.NaN;
+        }
+        return Math.sqrt(areaSquared);
+    }
+
+    /**
+     * Checks parameters against the rules of this kind's constructor without
+     * creating a shape or throwing. Unused parameters are ignored.
+     *
+     * @param p0 The first parameter.
+     * @param p1 The second parameter, if the kind has one.
+     * @param p2 The third parameter, if the kind has one.
+     * @param p3 The fourth parameter, if the kind has one.
+     * @return The reason the constructor would reject the parameters, or ShapeError.NONE.
+     */
+    public ShapeError check(double p0, double p1, double p2, double p3) {
+        switch (this) {
+            case TRIANGLE:
+                return isTriangle(p0, p1, p2) ? ShapeError.NONE : ShapeError.INVALID_TRIANGLE;
+            case RECTANGLE:
+                return p0 <= 0 || p1 <= 0 ? ShapeError.NON_POSITIVE_SIDES : ShapeError.NONE;
+            case CIRCLE:
+            case SPHERE:
+                return p0 <= 0 ? ShapeError.NON_POSITIVE_RADIUS : ShapeError.NONE;
+            case RECTANGULAR_PRISM:
+                return p0 <= 0 || p1 <= 0 || p2 <= 0 ? ShapeError.NON_POSITIVE_DIMENSIONS : ShapeError.NONE;
+            default:
+                if (!isTriangle(p0, p1, p2)) {
+                    return ShapeError.INVALID_TRIANGLE;
+                }
+                return p3 <= 0 ? ShapeError.NON_POSITIVE_HEIGHT : ShapeError.NONE;
+        }
+    }
+
+    /**
+     * Checks parameters like check, returning the constructor's message.
+     *
+     * @return The message the constructor would throw, or null if the parameters are valid.
+     */
+    String validate(double p0, double p1, double p2, double p3) {
+        return check(p0, p1, p2, p3).getMessage();
+    }
+
+    /**
+     * Checks parameters like check, for the constructors and setters of the shape
+     * classes.
+     *
+     * @throws IllegalArgumentException with the error's message if the parameters are invalid.
+     */
+    void require(double p0, double p1, double p2, double p3) {
+        ShapeError error = check(p0, p1, p2, p3);
+        if (error.isError()) {
+            throw new IllegalArgumentException(error.getMessage());
+        }
+    }
+
+    /**
+     * Checks a single parameter that must be positive, for setters that name the
+     * parameter in their error rather than reporting the kind's combined message.
+     *
+     * @throws IllegalArgumentException with the error's message if value is not positive.
+     */
+    static void requirePositive(double value, ShapeError error) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(error.getMessage());
+        }
+    }
+
+    /**
+     * Creates a new shape of this kind if its parameters are valid, reporting
+     * invalid parameters as an error code instead of an exception.
+     *
+     * @param parameters The parameters, in the order given by getParameterName.
+     * @return The new shape, or the reason the parameters were rejected.
+     */
+    public ShapeResult tryCreate(double[] parameters) {
+        int count = parameterNames.length;
+        if (parameters.length < count) {
+            return ShapeResult.failure(ShapeError.MISSING_PARAMETERS);
+        }
+        ShapeError error = check(parameters[0], count > 1 ? parameters[1] : 0, count > 2 ? parameters[2] : 0,
+                count > 3 ? parameters[3] : 0);
+        if (error != ShapeError.NONE) {
+            return ShapeResult.failure(error);
+        }
+        return ShapeResult.of(create(parameters));
+    }
+
+    private static boolean isTriangle(double a, double b, double c) {
+        return (a + b > c) && (a + c > b) && (b + c > a);
+    }
+
+    /**
+     * Creates a new shape of this kind from its parameters.
+     *
+     * @param parameters The parameters, in the order given by getParameterName.
+     * @return A new Geometry instance.
+     * @throws IllegalArgumentException if the parameters are rejected by the shape's constructor.
+     */
+    public Geometry create(double[] parameters) {
+        switch (this) {
+            case TRIANGLE:
+                return new Triangle(parameters[0], parameters[1], parameters[2]);
+            case RECTANGLE:
+                return new Rectangle(parameters[0], parameters[1]);
+            case CIRCLE:
+                return new Circle(parameters[0]);
+            case SPHERE:
+                return new Sphere(parameters[0]);
+            case RECTANGULAR_PRISM:
+                return new RectangularPrism(parameters[0], parameters[1], parameters[2]);
+            default:
+                return new TriangularPrism(parameters[0], parameters[1], parameters[2], parameters[3]);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package geometry;
+
+/**
+ * The outcome of ShapeKind.tryCreate: either a new shape or the ShapeError that
+ * prevented it.
+ *
+ * Failed results are shared constants, one per error code, so rejecting bad
+ * input allocates nothing and builds no stack trace.
+ */
+public final class ShapeResult {
+    private static final ShapeResult[] FAILURES = new ShapeResult[ShapeError.values().length];
+
+    static {
+        for (ShapeError error : ShapeError.values()) {
+            FAILURES[error.ordinal()] = new ShapeResult(null, error);
+        }
+    }
+
+    private final Geometry geometry;
+    private final ShapeError error;
+
+    private ShapeResult(Geometry geometry, ShapeError error) {
+        this.geometry = geometry;
+        this.error = error;
+    }
+
+    /**
+     * Wraps a successfully created shape.
+     */
+    static ShapeResult of(Geometry geometry) {
+        return new ShapeResult(geometry, ShapeError.NONE);
+    }
+
+    /**
+     * Returns the shared result for an error.
+     */
+    static ShapeResult failure(ShapeError error) {
+        return FAILURES[error.ordinal()];
+    }
+
+    /**
+     * Returns whether a shape was created.
+     *
+     * @return True on success.
+     */
+    public boolean isValid() {
+        return geometry != null;
+    }
+
+    /**
+     * Returns the created shape.
+     *
+     * @return The shape, or null if the parameters were rejected.
+     */
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Returns why the parameters were rejected.
+     *
+     * @return The error, or ShapeError.NONE on success.
+     */
+    public ShapeError getError() {
+        return error;
+    }
+
+    /**
+     * Returns the created shape, or throws the exception the constructor would
+     * have thrown.
+     *
+     * @return The shape.
+     * @throws IllegalArgumentException if the parameters were rejected.
+     */
+    public Geometry orElseThrow() {
+        if (geometry == null) {
+            throw new IllegalArgumentException(error.getMessage());
+        }
+        return geometry;
+    }
+
+    @Override
+    public String toString() {
+        return geometry != null ? "ShapeResult[" + geometry + "]" : "ShapeResult[" + error + "]";
+    }
+}
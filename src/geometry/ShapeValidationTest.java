@@ -0,0 +1,108 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the exception-free validation API: ShapeKind.check, tryCreate
+ * and the try metric methods.
+ */
+public class ShapeValidationTest {
+    private static final double[] DEGENERATE = { 0.7308781907032909, 0.41008081149220166, 1.1409590021954923 };
+
+    /**
+     * Tests that tryCreate accepts exactly the parameters the constructors accept,
+     * and reports the constructors' messages for the rest without allocating.
+     */
+    @Test
+    void testTryCreateMatchesConstructors() {
+        Random random = new Random(17);
+        for (int i = 0; i < 5000; i++) {
+            ShapeKind kind = ShapeKind.values()[random.nextInt(ShapeKind.values().length)];
+            double[] parameters = new double[kind.getParameterCount()];
+            for (int p = 0; p < parameters.length; p++) {
+                parameters[p] = random.nextInt(8) - 2 + random.nextDouble();
+            }
+
+            ShapeResult result = kind.tryCreate(parameters);
+            String expected = null;
+            try {
+                kind.create(parameters);
+            } catch (IllegalArgumentException e) {
+                expected = e.getMessage();
+            }
+            assertEquals(expected == null, result.isValid());
+            assertEquals(expected, result.getError().getMessage());
+            if (result.isValid()) {
+                assertEquals(kind, ShapeKind.of(result.getGeometry()));
+                assertSame(result.getGeometry(), result.orElseThrow());
+            } else {
+                assertNull(result.getGeometry());
+                assertSame(result, kind.tryCreate(parameters));
+                assertThrows(IllegalArgumentException.class, result::orElseThrow);
+            }
+        }
+
+        assertEquals(ShapeError.MISSING_PARAMETERS, ShapeKind.RECTANGLE.tryCreate(new double[] { 2 }).getError());
+        assertEquals(ShapeError.NON_POSITIVE_HEIGHT, ShapeKind.TRIANGULAR_PRISM.check(3, 4, 5, 0));
+        assertEquals(ShapeError.NONE, ShapeKind.CIRCLE.check(1, -1, -1, -1));
+    }
+
+    /**
+     * Tests that degenerate triangles and prisms report NaN from the try methods,
+     * while the getters keep throwing.
+     */
+    @Test
+    void testDegenerateMetricsWithoutExceptions() {
+        Triangle triangle = new Triangle(DEGENERATE[0], DEGENERATE[1], DEGENERATE[2]);
+        assertTrue(triangle.isDegenerate());
+        assertTrue(Double.isNaN(triangle.tryGetArea()));
+        assertTrue(Double.isNaN(Metric.AREA.tryOf(triangle)));
+        assertEquals(triangle.getPerimeter(), Metric.PERIMETER.tryOf(triangle));
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, triangle::getArea);
+        assertEquals(ShapeError.DEGENERATE_TRIANGLE.getMessage(), thrown.getMessage());
+
+        TriangularPrism prism = new TriangularPrism(DEGENERATE[0], DEGENERATE[1], DEGENERATE[2], 2);
+        assertTrue(prism.isDegenerate());
+        assertTrue(Double.isNaN(Metric.VOLUME.tryOf(prism)));
+        assertTrue(Double.isNaN(Metric.SURFACE_AREA.tryOf(prism)));
+        assertThrows(IllegalStateException.class, prism::getSurfaceArea);
+
+        assertFalse(new Triangle(3, 4, 5).isDegenerate());
+        assertEquals(6.0, Metric.AREA.tryOf(new Triangle(3, 4, 5)), 1e-9);
+        assertTrue(Double.isNaN(Metric.VOLUME.tryOf(new Circle(1))));
+    }
+
+    /**
+     * Tests that the setters reject parameters with the same error as check, or
+     * with the error naming the parameter for rectangles and rectangular prisms,
+     * and leave the shape unchanged.
+     */
+    @Test
+    void testSettersReportShapeErrors() {
+        Triangle triangle = new Triangle(3, 4, 5);
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> triangle.setSideC(8));
+        assertEquals(ShapeError.INVALID_TRIANGLE.getMessage(), thrown.getMessage());
+        assertEquals(5.0, triangle.getSideC());
+
+        TriangularPrism prism = new TriangularPrism(3, 4, 5, 2);
+        thrown = assertThrows(IllegalArgumentException.class, () -> prism.setSideA(1));
+        assertEquals(ShapeError.INVALID_TRIANGLE.getMessage(), thrown.getMessage());
+        thrown = assertThrows(IllegalArgumentException.class, () -> prism.setHeight(0));
+        assertEquals(ShapeError.NON_POSITIVE_HEIGHT.getMessage(), thrown.getMessage());
+        assertEquals(3.0, prism.getSideA());
+        assertEquals(2.0, prism.getHeight());
+
+        thrown = assertThrows(IllegalArgumentException.class, () -> new Rectangle(2, 3).setWidth(-1));
+        assertEquals("Width must be positive.", thrown.getMessage());
+        thrown = assertThrows(IllegalArgumentException.class, () -> new RectangularPrism(2, 3, 4).setLength(0));
+        assertEquals("Length must be positive.", thrown.getMessage());
+        thrown = assertThrows(IllegalArgumentException.class, () -> new RectangularPrism(2, 3, 4).setHeight(-4));
+        assertEquals("Height must be positive.", thrown.getMessage());
+        thrown = assertThrows(IllegalArgumentException.class, () -> new Sphere(1).setRadius(-2));
+        assertEquals(ShapeError.NON_POSITIVE_RADIUS.getMessage(), thrown.getMessage());
+    }
+}
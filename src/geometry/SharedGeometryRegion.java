@@ -0,0 +1,420 @@
+package geometry;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An append-only region of shapes in a memory-mapped file, shared by processes on
+ * the same machine: one writer appends, and any number of readers map the same
+ * file and see each new shape as soon as it is published, without copying or
+ * parsing anything.
+ *
+ * The file format, version 1, is in native byte order, since the file is only
+ * shared between processes on one machine:
+ *
+ *   header   magic "GEOR" (int), version (short), reserved (short), capacity (long),
+ *            count (long), writer process ID (long), padded to HEADER_SIZE bytes
+ *   records  capacity records of OffHeapGeometryStore.RECORD_SIZE bytes in the
+ *            layout of OffHeapGeometryStore.layoutOf: a one-byte ShapeKind tag
+ *            padded to eight bytes, then four doubles
+ *
+ * The writer writes a record in full and then publishes it by storing the new
+ * count with release semantics. Readers load the count with acquire semantics,
+ * so every record below it is complete. A writer that dies halfway through an
+ * append leaves an unpublished record, which the next writer overwrites.
+ *
+ * Only one process may write at a time. The writer holds an exclusive FileLock on
+ * the first byte of the file for as long as it is open; the operating system
+ * releases the lock if the process dies. Readers take no lock.
+ *
+ * The capacity is fixed when the file is created. The file is created sparse, so
+ * unused capacity costs address space but no disk. Shapes cannot be removed.
+ */
+public class SharedGeometryRegion implements GeometryCollection, AutoCloseable {
+    /** Current format version. */
+    public static final short VERSION = 1;
+
+    /** Size in bytes of the header before the first record. */
+    public static final long HEADER_SIZE = 64;
+
+    /** Capacity of a region created without an explicit capacity. */
+    public static final long DEFAULT_CAPACITY = 1 << 20;
+
+    private static final int MAGIC = 0x524F4547; // "GEOR" as a little-endian int
+    private static final long CAPACITY_OFFSET = 8;
+    private static final long COUNT_OFFSET = 16;
+    private static final long WRITER_OFFSET = 24;
+    private static final long RECORD_SIZE = OffHeapGeometryStore.RECORD_SIZE;
+    private static final long PARAMETERS_OFFSET = 8;
+    private static final VarHandle COUNT = ValueLayout.JAVA_LONG.varHandle();
+
+    /** Iterations of each waiting phase in awaitSize before moving to a cheaper one. */
+    private static final int SPINS = 1_000;
+    private static final int YIELDS = 1_000;
+    private static final long PARK_NANOS = 50_000;
+
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final MemorySegment countCell;
+    private final long capacity;
+    private long count;
+
+    private SharedGeometryRegion(FileChannel channel, FileLock lock, Arena arena, MemorySegment segment, long capacity) {
+        this.channel = channel;
+        this.lock = lock;
+        this.arena = arena;
+        this.segment = segment;
+        this.countCell = segment.asSlice(COUNT_OFFSET, 8);
+        this.capacity = capacity;
+        this.count = (long) COUNT.getAcquire(countCell, 0L);
+    }
+
+    /**
+     * Opens a region for writing, creating the file if it does not exist.
+     *
+     * @param path     The region file.
+     * @param capacity The number of shapes a new file has room for; ignored if the
+     *                 file exists.
+     * @return The region, which appends after any shapes already in the file.
+     * @throws IOException              if the file cannot be opened or is not a valid region.
+     * @throws IllegalStateException    if another writer has the region open.
+     * @throws IllegalArgumentException if capacity is not positive.
+     */
+    public static SharedGeometryRegion openWriter(Path path, long capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        Arena arena = null;
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock(0, 1, false);
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IllegalStateException(path + " is already open for writing.");
+            }
+
+            boolean created = channel.size() == 0;
+            if (created) {
+                // Writing the last byte extends the file without allocating the records.
+                channel.write(ByteBuffer.allocate(1), HEADER_SIZE + capacity * RECORD_SIZE - 1);
+            }
+            arena = Arena.ofShared();
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size(), arena);
+            if (created) {
+                segment.set(ValueLayout.JAVA_SHORT, 4, VERSION);
+                segment.set(ValueLayout.JAVA_LONG, CAPACITY_OFFSET, capacity);
+                // The magic number goes last, so readers never accept a half-written header.
+                VarHandle.releaseFence();
+                segment.set(ValueLayout.JAVA_INT, 0, MAGIC);
+            } else {
+                capacity = checkHeader(segment, path);
+            }
+            segment.set(ValueLayout.JAVA_LONG, WRITER_OFFSET, ProcessHandle.current().pid());
+            return new SharedGeometryRegion(channel, lock, arena, segment, capacity);
+        } catch (IOException | RuntimeException e) {
+            if (arena != null) {
+                arena.close();
+            }
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a region for writing, creating the file with DEFAULT_CAPACITY if it
+     * does not exist.
+     *
+     * @param path The region file.
+     * @return The region.
+     * @throws IOException           if the file cannot be opened or is not a valid region.
+     * @throws IllegalStateException if another writer has the region open.
+     */
+    public static SharedGeometryRegion openWriter(Path path) throws IOException {
+        return openWriter(path, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Maps an existing region for reading.
+     *
+     * @param path The region file.
+     * @return The region. Its size grows as the writer appends.
+     * @throws IOException if the file cannot be read or is not a valid region.
+     */
+    public static SharedGeometryRegion openReader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Arena arena = Arena.ofShared();
+            try {
+                MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+                long capacity = checkHeader(segment, path);
+                return new SharedGeometryRegion(null, null, arena, segment, capacity);
+            } catch (IOException | RuntimeException e) {
+                arena.close();
+                throw e;
+            }
+        }
+    }
+
+    private static long checkHeader(MemorySegment segment, Path path) throws IOException {
+        if (segment.byteSize() < HEADER_SIZE || segment.get(ValueLayout.JAVA_INT, 0) != MAGIC) {
+            throw new IOException(path + " is not a shared geometry region.");
+        }
+        VarHandle.acquireFence();
+        short version = segment.get(ValueLayout.JAVA_SHORT, 4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported region version " + version + " in " + path + ".");
+        }
+        long capacity = segment.get(ValueLayout.JAVA_LONG, CAPACITY_OFFSET);
+        long count = segment.get(ValueLayout.JAVA_LONG, COUNT_OFFSET);
+        if (capacity <= 0 || count < 0 || count > capacity || HEADER_SIZE + capacity * RECORD_SIZE > segment.byteSize()) {
+            throw new IOException("Corrupt region header in " + path + ".");
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns whether this region was opened for writing.
+     *
+     * @return True for the writer.
+     */
+    public boolean isWriter() {
+        return lock != null;
+    }
+
+    /**
+     * Returns the number of shapes the region has room for.
+     *
+     * @return The capacity.
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the process ID of the latest writer to open the region.
+     *
+     * @return The process ID.
+     */
+    public long writerPid() {
+        return segment.get(ValueLayout.JAVA_LONG, WRITER_OFFSET);
+    }
+
+    /**
+     * Appends a copy of a shape's parameters and publishes it to readers.
+     *
+     * @param geometry The Geometry object to add.
+     * @throws UnsupportedOperationException if the region was opened for reading.
+     * @throws IllegalStateException         if the region is full.
+     * @throws IllegalArgumentException      if the geometry is not one of the six shape classes.
+     */
+    @Override
+    public void add(Geometry geometry) {
+        ShapeKind kind = ShapeKind.of(geometry);
+        double[] parameters = new double[ShapeKind.MAX_PARAMETERS];
+        kind.getParameters(geometry, parameters);
+        append(kind, parameters);
+    }
+
+    /**
+     * Appends an already validated shape given by its kind and parameters.
+     *
+     * @param kind       The kind of shape.
+     * @param parameters The parameters, in the order given by ShapeKind.getParameterName.
+     */
+    void append(ShapeKind kind, double[] parameters) {
+        if (!isWriter()) {
+            throw new UnsupportedOperationException("The region was opened for reading.");
+        }
+        if (count == capacity) {
+            throw new IllegalStateException("The region is full at " + capacity + " shapes.");
+        }
+        long offset = HEADER_SIZE + count * RECORD_SIZE;
+        segment.set(ValueLayout.JAVA_BYTE, offset, kind.tag());
+        for (int p = 0; p < ShapeKind.MAX_PARAMETERS; p++) {
+            double value = p < kind.getParameterCount() ? parameters[p] : 0;
+            segment.set(ValueLayout.JAVA_DOUBLE, offset + PARAMETERS_OFFSET + 8L * p, value);
+        }
+        count++;
+        COUNT.setRelease(countCell, 0L, count);
+    }
+
+    /**
+     * Shapes cannot be removed from a region.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public boolean removeByIndex(int index) {
+        throw new UnsupportedOperationException("Regions are append-only.");
+    }
+
+    /**
+     * Builds a read-only view of a published shape.
+     *
+     * @param index The index of the shape to find (0-based).
+     * @return A read-only Geometry view if found, null otherwise.
+     */
+    @Override
+    public Geometry findByIndex(int index) {
+        if (index < 0 || index >= size()) {
+            return null;
+        }
+        return view(index);
+    }
+
+    /**
+     * Returns the number of published shapes.
+     *
+     * @return The number of shapes.
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) COUNT.getAcquire(countCell, 0L));
+    }
+
+    /**
+     * Waits until the region holds at least a number of shapes. The reader first
+     * spins, then yields and then parks for short intervals, so a shape appended
+     * while it is spinning or yielding is seen within microseconds.
+     *
+     * @param minimum The number of shapes to wait for.
+     * @param timeout The maximum time to wait.
+     * @param unit    The unit of timeout.
+     * @return The size when the wait ended, which is less than minimum on timeout.
+     */
+    public int awaitSize(int minimum, long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int waits = 0;
+        int current;
+        while ((current = size()) < minimum && System.nanoTime() - deadline < 0) {
+            if (waits < SPINS) {
+                Thread.onSpinWait();
+            } else if (waits < SPINS + YIELDS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            waits++;
+        }
+        return current;
+    }
+
+    /**
+     * Prints all published shapes along with their indices.
+     */
+    @Override
+    public void printAll() {
+        GeometryRenderer.print(this);
+    }
+
+    /**
+     * Returns an iterator over the shapes published when this method is called.
+     *
+     * @return An iterator over read-only views.
+     */
+    @Override
+    public Iterator<Geometry> iterator() {
+        int end = size();
+        return new Iterator<Geometry>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < end;
+            }
+
+            @Override
+            public Geometry next() {
+                if (index >= end) {
+                    throw new NoSuchElementException();
+                }
+                return view(index++);
+            }
+        };
+    }
+
+    /**
+     * Writes the appended records to disk. Readers do not need this; they see the
+     * records through the shared mapping as soon as they are published.
+     *
+     * @throws UnsupportedOperationException if the region was opened for reading.
+     */
+    public void force() {
+        if (!isWriter()) {
+            throw new UnsupportedOperationException("The region was opened for reading.");
+        }
+        segment.force();
+    }
+
+    /**
+     * Unmaps the file and, for the writer, releases the write lock. The region
+     * and its views cannot be used afterwards.
+     *
+     * @throws IOException if the lock or file cannot be released.
+     */
+    @Override
+    public void close() throws IOException {
+        arena.close();
+        if (channel != null) {
+            try {
+                lock.release();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private Geometry view(int index) {
+        long offset = HEADER_SIZE + index * RECORD_SIZE;
+        ShapeKind kind = ShapeKind.fromTag(segment.get(ValueLayout.JAVA_BYTE, offset));
+        offset += PARAMETERS_OFFSET;
+        return GeometryViews.of(kind, segment.get(ValueLayout.JAVA_DOUBLE, offset),
+                segment.get(ValueLayout.JAVA_DOUBLE, offset + 8), segment.get(ValueLayout.JAVA_DOUBLE, offset + 16),
+                segment.get(ValueLayout.JAVA_DOUBLE, offset + 24));
+    }
+
+    /**
+     * Follows a region, printing every shape as it is appended, until the process
+     * is stopped.
+     *
+     * @param args The region file.
+     * @throws IOException if the region cannot be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: SharedGeometryRegion FILE");
+            System.exit(2);
+        }
+        try (SharedGeometryRegion region = openReader(Path.of(args[0]))) {
+            GeometryRenderer renderer = new GeometryRenderer();
+            int printed = 0;
+            while (true) {
+                int size = region.awaitSize(printed + 1, 1, TimeUnit.SECONDS);
+                for (; printed < size; printed++) {
+                    renderer.append("Index ").append(printed).append(": ").append(region.findByIndex(printed)).appendLine();
+                }
+                renderer.flushTo(System.out);
+                System.out.flush();
+            }
+        }
+    }
+}
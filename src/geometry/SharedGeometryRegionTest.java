@@ -0,0 +1,145 @@
+package geometry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for SharedGeometryRegion.
+ */
+public class SharedGeometryRegionTest {
+    private static final int ROUNDS = 200;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that a reader mapping sees appends as they are published, that only one
+     * writer may be open, and that a new writer continues after the shapes already
+     * in the file.
+     */
+    @Test
+    void testWriterAndReader() throws IOException {
+        Path file = directory.resolve("shapes.geor");
+        try (SharedGeometryRegion writer = SharedGeometryRegion.openWriter(file, 3);
+                SharedGeometryRegion reader = SharedGeometryRegion.openReader(file)) {
+            assertTrue(writer.isWriter());
+            assertFalse(reader.isWriter());
+            assertEquals(3, reader.capacity());
+            assertEquals(ProcessHandle.current().pid(), reader.writerPid());
+            assertThrows(IllegalStateException.class, () -> SharedGeometryRegion.openWriter(file, 3));
+
+            writer.add(new Circle(2));
+            writer.add(new Triangle(3, 4, 5));
+            assertEquals(2, reader.size());
+            assertEquals(new Circle(2).toString(), reader.findByIndex(0).toString());
+            assertEquals(6.0, ((Triangle) reader.findByIndex(1)).getArea(), 1e-9);
+            assertNull(reader.findByIndex(2));
+            assertThrows(UnsupportedOperationException.class, () -> reader.add(new Circle(1)));
+            assertThrows(UnsupportedOperationException.class, () -> writer.removeByIndex(0));
+        }
+
+        try (SharedGeometryRegion writer = SharedGeometryRegion.openWriter(file, 100)) {
+            assertEquals(3, writer.capacity());
+            writer.add(new Sphere(1));
+            assertThrows(IllegalStateException.class, () -> writer.add(new Sphere(2)));
+            List<String> shapes = new ArrayList<>();
+            for (Geometry geometry : writer) {
+                shapes.add(ShapeKind.of(geometry).getDisplayName());
+            }
+            assertEquals(List.of("Circle", "Triangle", "Sphere"), shapes);
+        }
+    }
+
+    /**
+     * Tests that a shape appended in one process is visible in another in under a
+     * millisecond. A child process echoes every shape it sees in one region into a
+     * second region, and half the median round trip is the one-way latency.
+     */
+    @Test
+    @Timeout(60)
+    void testCrossProcessVisibility() throws IOException, InterruptedException {
+        Path ping = directory.resolve("ping.geor");
+        Path pong = directory.resolve("pong.geor");
+        SharedGeometryRegion.openWriter(pong, ROUNDS).close();
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+            command.add("--enable-preview");
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), SharedGeometryRegionTest.class.getName(),
+                ping.toString(), pong.toString()));
+
+        try (SharedGeometryRegion writer = SharedGeometryRegion.openWriter(ping, ROUNDS)) {
+            Process echo = new ProcessBuilder(command).inheritIO().start();
+            try {
+                // Waits long enough for the child to start before timing anything.
+                while (pongSize(pong) < 0) {
+                    assertTrue(echo.isAlive());
+                    Thread.sleep(10);
+                }
+                try (SharedGeometryRegion reader = SharedGeometryRegion.openReader(pong)) {
+                    writer.add(new Circle(1));
+                    assertEquals(1, reader.awaitSize(1, 30, TimeUnit.SECONDS));
+
+                    long[] roundTrips = new long[ROUNDS - 1];
+                    for (int i = 1; i < ROUNDS; i++) {
+                        long start = System.nanoTime();
+                        writer.add(new Circle(i + 1));
+                        assertEquals(i + 1, reader.awaitSize(i + 1, 10, TimeUnit.SECONDS));
+                        roundTrips[i - 1] = System.nanoTime() - start;
+                    }
+                    assertEquals(new Circle(ROUNDS).toString(), reader.findByIndex(ROUNDS - 1).toString());
+
+                    Arrays.sort(roundTrips);
+                    long oneWay = roundTrips[roundTrips.length / 2] / 2;
+                    assertTrue(oneWay < TimeUnit.MILLISECONDS.toNanos(1), "Median one-way latency " + oneWay + " ns");
+                }
+                assertTrue(echo.waitFor(30, TimeUnit.SECONDS));
+                assertEquals(0, echo.exitValue());
+            } finally {
+                echo.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the pong region once the child has opened it for writing,
+     * or -1 before then.
+     */
+    private static int pongSize(Path pong) throws IOException {
+        try (SharedGeometryRegion reader = SharedGeometryRegion.openReader(pong)) {
+            return reader.writerPid() == ProcessHandle.current().pid() ? -1 : reader.size();
+        }
+    }
+
+    /**
+     * The child process of testCrossProcessVisibility: copies each shape appended
+     * to the first region into the second until both hold ROUNDS shapes.
+     *
+     * @param args The region to read and the region to write.
+     * @throws IOException if a region cannot be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        try (SharedGeometryRegion writer = SharedGeometryRegion.openWriter(Path.of(args[1]));
+                SharedGeometryRegion reader = SharedGeometryRegion.openReader(Path.of(args[0]))) {
+            for (int i = 0; i < ROUNDS; i++) {
+                if (reader.awaitSize(i + 1, 30, TimeUnit.SECONDS) <= i) {
+                    System.exit(1);
+                }
+                writer.add(reader.findByIndex(i));
+            }
+        }
+    }
+}
@@ -3,9 +3,13 @@ package geometry;
 /**
  * Represents a Sphere in 3D space.
  */
-public class Sphere implements Geometry3D {
+public class Sphere extends ObservableGeometry implements Geometry3D {
     private double radius;
 
+    /** Cached metrics, or NaN until computed. */
+    private double volume = Double.NaN;
+    private double surfaceArea = Double.NaN;
+
     /**
      * Constructs a Sphere with the specified radius.
      * 
@@ -13,10 +17,9 @@ public class Sphere implements Geometry3D {
      * @throws IllegalArgumentException if radius is not positive.
      */
     public Sphere(double radius) {
-        if (radius <= 0) {
-            throw new IllegalArgumentException("Radius must be positive.");
-        }
+        ShapeKind.SPHERE.require(radius, 0, 0, 0);
         this.radius = radius;
+        invalidateMetrics();
     }
 
     /**
@@ -26,7 +29,14 @@ public class Sphere implements Geometry3D {
      */
     @Override
     public double getVolume() {
-        return (4.0 / 3.0) * Math.PI * Math.pow(radius, 3);
+        double value = volume;
+        if (Double.isNaN(value)) {
+            value = computeVolume();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                volume = value;
+            }
+        }
+        return value;
     }
 
     /**
@@ -36,9 +46,36 @@ public class Sphere implements Geometry3D {
      */
     @Override
     public double getSurfaceArea() {
+        double value = surfaceArea;
+        if (Double.isNaN(value)) {
+            value = computeSurfaceArea();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                surfaceArea = value;
+            }
+        }
+        return value;
+    }
+
+    private double computeVolume() {
+        return (4.0 / 3.0) * Math.PI * Math.pow(radius, 3);
+    }
+
+    private double computeSurfaceArea() {
         return 4 * Math.PI * Math.pow(radius, 2);
     }
 
+    /**
+     * Discards the cached metrics after a change, recomputing them in EAGER mode.
+     */
+    private void invalidateMetrics() {
+        volume = Double.NaN;
+        surfaceArea = Double.NaN;
+        if (MetricCaching.getMode() == MetricCaching.EAGER) {
+            volume = computeVolume();
+            surfaceArea = computeSurfaceArea();
+        }
+    }
+
     // Getters and Setters (optional)
 
     public double getRadius() {
@@ -46,10 +83,37 @@ public class Sphere implements Geometry3D {
     }
 
     public void setRadius(double radius) {
-        if (radius <= 0) {
-            throw new IllegalArgumentException("Radius must be positive.");
-        }
+        ShapeKind.SPHERE.require(radius, 0, 0, 0);
+        fireChanging();
         this.radius = radius;
+        invalidateMetrics();
+        fireChanged();
+    }
+
+    /**
+     * Compares spheres by radius, so that copies, views and interned instances
+     * of the same shape are equal. Doubles are compared like Double.equals.
+     *
+     * @param obj The object to compare with.
+     * @return True if obj is a Sphere with the same parameters.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Sphere other)) {
+            return false;
+        }
+        return Double.compare(getRadius(), other.getRadius()) == 0;
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Like equals, it changes when a
+     * setter changes the sphere.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Double.hashCode(getRadius());
     }
 
     /**
@@ -59,7 +123,6 @@ public class Sphere implements Geometry3D {
      */
     @Override
     public String toString() {
-        return String.format("Sphere [Radius=%.2f, Volume=%.2f, Surface Area=%.2f]",
-                radius, getVolume(), getSurfaceArea());
+        return GeometryRenderer.render(this);
     }
 }
@@ -3,11 +3,15 @@ package geometry;
 /**
  * Represents a Triangle in 2D space.
  */
-public class Triangle implements Geometry2D {
+public class Triangle extends ObservableGeometry implements Geometry2D {
     private double sideA;
     private double sideB;
     private double sideC;
 
+    /** Cached metrics, or NaN until computed. */
+    private double area = Double.NaN;
+    private double perimeter = Double.NaN;
+
     /**
      * Constructs a Triangle with the specified side lengths.
      * 
@@ -17,39 +21,53 @@ public class Triangle implements Geometry2D {
      * @throws IllegalArgumentException if the sides do not satisfy the triangle inequality.
      */
     public Triangle(double sideA, double sideB, double sideC) {
-        if (!isValidTriangle(sideA, sideB, sideC)) {
-            throw new IllegalArgumentException("Invalid triangle side lengths.");
-        }
+        ShapeKind.TRIANGLE.require(sideA, sideB, sideC, 0);
         this.sideA = sideA;
         this.sideB = sideB;
         this.sideC = sideC;
-    }
-
-    /**
-     * Validates the triangle inequality.
-     * 
-     * @param a Length of side A.
-     * @param b Length of side B.
-     * @param c Length of side C.
-     * @return True if valid, false otherwise.
-     */
-    private boolean isValidTriangle(double a, double b, double c) {
-        return (a + b > c) && (a + c > b) && (b + c > a);
+        invalidateMetrics();
     }
 
     /**
      * Calculates the area of the triangle using Heron's formula.
      * 
      * @return The area of the triangle.
+     * @throws IllegalStateException if the sides are degenerate.
      */
     @Override
     public double getArea() {
-        double s = getPerimeter() / 2.0;
-        double areaSquared = s * (s - sideA) * (s - sideB) * (s - sideC);
-        if (areaSquared <= 0) {
-            throw new IllegalStateException("Cannot calculate area with given side lengths.");
+        double value = tryGetArea();
+        if (Double.isNaN(value)) {
+            throw new IllegalStateException(ShapeError.DEGENERATE_TRIANGLE.getMessage());
         }
-        return Math.sqrt(areaSquared);
+        return value;
+    }
+
+    /**
+     * Calculates the area like getArea, but reports degenerate sides as NaN
+     * instead of throwing.
+     *
+     * @return The area, or NaN if the sides are degenerate.
+     */
+    public double tryGetArea() {
+        double value = area;
+        if (Double.isNaN(value)) {
+            value = computeArea();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                area = value;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether the sides are so close to a straight line that the area
+     * rounds to zero and cannot be calculated.
+     *
+     * @return True if getArea would throw.
+     */
+    public boolean isDegenerate() {
+        return Double.isNaN(tryGetArea());
     }
 
     /**
@@ -59,9 +77,46 @@ public class Triangle implements Geometry2D {
      */
     @Override
     public double getPerimeter() {
+        double value = perimeter;
+        if (Double.isNaN(value)) {
+            value = computePerimeter();
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                perimeter = value;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Applies Heron's formula.
+     * 
+     * @return The area, or NaN if the side lengths are degenerate.
+     */
+    private double computeArea() {
+        double s = computePerimeter() / 2.0;
+        double areaSquared = s * (s - sideA) * (s - sideB) * (s - sideC);
+        if (areaSquared <= 0) {
+            return Double.NaN;
+        }
+        return Math.sqrt(areaSquared);
+    }
+
+    private double computePerimeter() {
         return sideA + sideB + sideC;
     }
 
+    /**
+     * Discards the cached metrics after a change, recomputing them in EAGER mode.
+     */
+    private void invalidateMetrics() {
+        area = Double.NaN;
+        perimeter = Double.NaN;
+        if (MetricCaching.getMode() == MetricCaching.EAGER) {
+            perimeter = computePerimeter();
+            area = computeArea();
+        }
+    }
+
     // Getters and Setters (optional)
 
     public double getSideA() {
@@ -69,10 +124,11 @@ public class Triangle implements Geometry2D {
     }
 
     public void setSideA(double sideA) {
-        if (!isValidTriangle(sideA, this.sideB, this.sideC)) {
-            throw new IllegalArgumentException("Invalid triangle side lengths.");
-        }
+        ShapeKind.TRIANGLE.require(sideA, this.sideB, this.sideC, 0);
+        fireChanging();
         this.sideA = sideA;
+        invalidateMetrics();
+        fireChanged();
     }
 
     public double getSideB() {
@@ -80,10 +136,11 @@ public class Triangle implements Geometry2D {
     }
 
     public void setSideB(double sideB) {
-        if (!isValidTriangle(this.sideA, sideB, this.sideC)) {
-            throw new IllegalArgumentException("Invalid triangle side lengths.");
-        }
+        ShapeKind.TRIANGLE.require(this.sideA, sideB, this.sideC, 0);
+        fireChanging();
         this.sideB = sideB;
+        invalidateMetrics();
+        fireChanged();
     }
 
     public double getSideC() {
@@ -91,10 +148,43 @@ public class Triangle implements Geometry2D {
     }
 
     public void setSideC(double sideC) {
-        if (!isValidTriangle(this.sideA, this.sideB, sideC)) {
-            throw new IllegalArgumentException("Invalid triangle side lengths.");
-        }
+        ShapeKind.TRIANGLE.require(this.sideA, this.sideB, sideC, 0);
+        fireChanging();
         this.sideC = sideC;
+        invalidateMetrics();
+        fireChanged();
+    }
+
+    /**
+     * Compares triangles by their sides in order, so that copies, views and
+     * interned instances of the same shape are equal. Doubles are compared like
+     * Double.equals.
+     *
+     * @param obj The object to compare with.
+     * @return True if obj is a Triangle with the same parameters.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Triangle other)) {
+            return false;
+        }
+        return Double.compare(getSideA(), other.getSideA()) == 0
+                && Double.compare(getSideB(), other.getSideB()) == 0
+                && Double.compare(getSideC(), other.getSideC()) == 0;
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Like equals, it changes when a
+     * setter changes the triangle.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(getSideA());
+        hash = 31 * hash + Double.hashCode(getSideB());
+        hash = 31 * hash + Double.hashCode(getSideC());
+        return hash;
     }
 
     /**
@@ -104,7 +194,6 @@ public class Triangle implements Geometry2D {
      */
     @Override
     public String toString() {
-        return String.format("Triangle [SideA=%.2f, SideB=%.2f, SideC=%.2f, Area=%.2f, Perimeter=%.2f]",
-                sideA, sideB, sideC, getArea(), getPerimeter());
+        return GeometryRenderer.render(this);
     }
 }
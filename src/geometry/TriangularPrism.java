@@ -3,12 +3,16 @@ package geometry;
 /**
  * Represents a Triangular Prism in 3D space.
  */
-public class TriangularPrism implements Geometry3D {
+public class TriangularPrism extends ObservableGeometry implements Geometry3D {
     private double sideA;
     private double sideB;
     private double sideC;
     private double height;
 
+    /** Cached metrics, or NaN until computed. */
+    private double volume = Double.NaN;
+    private double surfaceArea = Double.NaN;
+
     /**
      * Constructs a TriangularPrism with the specified side lengths and height.
      * 
@@ -19,28 +23,12 @@ public class TriangularPrism implements Geometry3D {
      * @throws IllegalArgumentException if the triangle is invalid or height is not positive.
      */
     public TriangularPrism(double sideA, double sideB, double sideC, double height) {
-        if (!isValidTriangle(sideA, sideB, sideC)) {
-            throw new IllegalArgumentException("Invalid triangle side lengths.");
-        }
-        if (height <= 0) {
-            throw new IllegalArgumentException("Height must be positive.");
-        }
+        ShapeKind.TRIANGULAR_PRISM.require(sideA, sideB, sideC, height);
         this.sideA = sideA;
         this.sideB = sideB;
         this.sideC = sideC;
         this.height = height;
-    }
-
-    /**
-     * Validates the triangle inequality.
-     * 
-     * @param a Length of side A.
-     * @param b Length of side B.
-     * @param c Length of side C.
-     * @return True if valid, false otherwise.
-     */
-    private boolean isValidTriangle(double a, double b, double c) {
-        return (a + b > c) && (a + c > b) && (b + c > a);
+        invalidateMetrics();
     }
 
     /**
@@ -49,11 +37,28 @@ public class TriangularPrism implements Geometry3D {
      * Volume = Area of base triangle × height
      * 
      * @return The volume.
+     * @throws IllegalStateException if the base triangle is degenerate.
      */
     @Override
     public double getVolume() {
-        double baseArea = calculateBaseArea();
-        return baseArea * height;
+        return requireBaseArea(tryGetVolume());
+    }
+
+    /**
+     * Calculates the volume like getVolume, but reports a degenerate base as NaN
+     * instead of throwing.
+     *
+     * @return The volume, or NaN if the base triangle is degenerate.
+     */
+    public double tryGetVolume() {
+        double value = volume;
+        if (Double.isNaN(value)) {
+            value = computeBaseArea() * height;
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                volume = value;
+            }
+        }
+        return value;
     }
 
     /**
@@ -62,28 +67,81 @@ public class TriangularPrism implements Geometry3D {
      * Surface Area = 2 × Area of base triangle + Perimeter of base triangle × height
      * 
      * @return The surface area.
+     * @throws IllegalStateException if the base triangle is degenerate.
      */
     @Override
     public double getSurfaceArea() {
-        double baseArea = calculateBaseArea();
-        double perimeter = sideA + sideB + sideC;
-        return 2 * baseArea + perimeter * height;
+        return requireBaseArea(tryGetSurfaceArea());
+    }
+
+    /**
+     * Calculates the surface area like getSurfaceArea, but reports a degenerate
+     * base as NaN instead of throwing.
+     *
+     * @return The surface area, or NaN if the base triangle is degenerate.
+     */
+    public double tryGetSurfaceArea() {
+        double value = surfaceArea;
+        if (Double.isNaN(value)) {
+            double baseArea = computeBaseArea();
+            double perimeter = sideA + sideB + sideC;
+            value = 2 * baseArea + perimeter * height;
+            if (MetricCaching.getMode() != MetricCaching.NONE) {
+                surfaceArea = value;
+            }
+        }
+        return value;
     }
 
     /**
-     * Calculates the area of the base triangle using Heron's formula.
+     * Returns whether the base triangle is so close to a straight line that its
+     * area rounds to zero and the metrics cannot be calculated.
+     *
+     * @return True if getVolume and getSurfaceArea would throw.
+     */
+    public boolean isDegenerate() {
+        return Double.isNaN(tryGetVolume());
+    }
+
+    /**
+     * Passes on a metric built on the base area, throwing if the base was degenerate.
+     */
+    private static double requireBaseArea(double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalStateException(ShapeError.DEGENERATE_TRIANGLE.getMessage());
+        }
+        return value;
+    }
+
+    /**
+     * Applies Heron's formula to the base triangle.
      * 
-     * @return The area of the base triangle.
+     * @return The area of the base triangle, or NaN if its sides are degenerate.
      */
-    private double calculateBaseArea() {
+    private double computeBaseArea() {
         double s = (sideA + sideB + sideC) / 2.0;
         double areaSquared = s * (s - sideA) * (s - sideB) * (s - sideC);
         if (areaSquared <= 0) {
-            throw new IllegalStateException("Cannot calculate area with given side lengths.");
+            return Double.NaN;
         }
         return Math.sqrt(areaSquared);
     }
 
+    /**
+     * Discards the cached metrics after a change, recomputing them in EAGER mode.
+     * Both metrics share one evaluation of Heron's formula; a degenerate base
+     * leaves them NaN so that the getters report the error.
+     */
+    private void invalidateMetrics() {
+        volume = Double.NaN;
+        surfaceArea = Double.NaN;
+        if (MetricCaching.getMode() == MetricCaching.EAGER) {
+            double baseArea = computeBaseArea();
+            volume = baseArea * height;
+            surfaceArea = 2 * baseArea + (sideA + sideB + sideC) * height;
+        }
+    }
+
     // Getters and Setters (optional)
 
     public double getSideA() {
@@ -91,10 +149,11 @@ public class TriangularPrism implements Geometry3D {
     }
 
     public void setSideA(double sideA) {
-        if (!isValidTriangle(sideA, this.sideB, this.sideC)) {
-            throw new IllegalArgumentException("Invalid triangle side lengths.");
-        }
+        ShapeKind.TRIANGULAR_PRISM.require(sideA, this.sideB, this.sideC, this.height);
+        fireChanging();
         this.sideA = sideA;
+        invalidateMetrics();
+        fireChanged();
     }
 
     public double getSideB() {
@@ -102,10 +161,11 @@ public class TriangularPrism implements Geometry3D {
     }
 
     public void setSideB(double sideB) {
-        if (!isValidTriangle(this.sideA, sideB, this.sideC)) {
-            throw new IllegalArgumentException("Invalid triangle side lengths.");
-        }
+        ShapeKind.TRIANGULAR_PRISM.require(this.sideA, sideB, this.sideC, this.height);
+        fireChanging();
         this.sideB = sideB;
+        invalidateMetrics();
+        fireChanged();
     }
 
     public double getSideC() {
@@ -113,10 +173,11 @@ public class TriangularPrism implements Geometry3D {
     }
 
     public void setSideC(double sideC) {
-        if (!isValidTriangle(this.sideA, this.sideB, sideC)) {
-            throw new IllegalArgumentException("Invalid triangle side lengths.");
-        }
+        ShapeKind.TRIANGULAR_PRISM.require(this.sideA, this.sideB, sideC, this.height);
+        fireChanging();
         this.sideC = sideC;
+        invalidateMetrics();
+        fireChanged();
     }
 
     public double getHeight() {
@@ -124,10 +185,45 @@ public class TriangularPrism implements Geometry3D {
     }
 
     public void setHeight(double height) {
-        if (height <= 0) {
-            throw new IllegalArgumentException("Height must be positive.");
-        }
+        ShapeKind.TRIANGULAR_PRISM.require(this.sideA, this.sideB, this.sideC, height);
+        fireChanging();
         this.height = height;
+        invalidateMetrics();
+        fireChanged();
+    }
+
+    /**
+     * Compares triangular prisms by their sides in order and their height, so
+     * that copies, views and interned instances of the same shape are equal.
+     * Doubles are compared like Double.equals.
+     *
+     * @param obj The object to compare with.
+     * @return True if obj is a TriangularPrism with the same parameters.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof TriangularPrism other)) {
+            return false;
+        }
+        return Double.compare(getSideA(), other.getSideA()) == 0
+                && Double.compare(getSideB(), other.getSideB()) == 0
+                && Double.compare(getSideC(), other.getSideC()) == 0
+                && Double.compare(getHeight(), other.getHeight()) == 0;
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Like equals, it changes when a
+     * setter changes the prism.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(getSideA());
+        hash = 31 * hash + Double.hashCode(getSideB());
+        hash = 31 * hash + Double.hashCode(getSideC());
+        hash = 31 * hash + Double.hashCode(getHeight());
+        return hash;
     }
 
     /**
@@ -137,7 +233,6 @@ public class TriangularPrism implements Geometry3D {
      */
     @Override
     public String toString() {
-        return String.format("TriangularPrism [SideA=%.2f, SideB=%.2f, SideC=%.2f, Height=%.2f, Volume=%.2f, Surface Area=%.2f]",
-                sideA, sideB, sideC, height, getVolume(), getSurfaceArea());
+        return GeometryRenderer.render(this);
     }
 }
@@ -0,0 +1,173 @@
+package geometry;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The DoubleVector bodies of the MetricKernels, using the incubating
+ * jdk.incubator.vector module.
+ *
+ * MetricKernels only loads this class when the module is in the boot layer, so
+ * the rest of the package runs without it. Each method computes whole vectors of
+ * the range from the start and returns the index where it stopped; MetricKernels
+ * finishes the remaining entries with its scalar loop. The lanewise operations
+ * are applied in the same order as in the scalar loops, and sqrt is correctly
+ * rounded in both, so the two paths produce identical results.
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Returns whether the preferred vector shape holds more than one double, so
+     * that the vector kernels can be faster than the scalar loops.
+     *
+     * @return True if the CPU has usable SIMD registers for doubles.
+     */
+    static boolean isProfitable() {
+        return LANES > 1;
+    }
+
+    /**
+     * Returns the number of doubles in one vector.
+     *
+     * @return The lane count.
+     */
+    static int lanes() {
+        return LANES;
+    }
+
+    static int circleAreas(double[] radius, int from, int to, double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector r = DoubleVector.fromArray(SPECIES, radius, i);
+            r.mul(Math.PI).mul(r).intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int circlePerimeters(double[] radius, int from, int to, double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, radius, i).mul(2 * Math.PI).intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int rectangleAreas(double[] length, double[] width, int from, int to, double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector l = DoubleVector.fromArray(SPECIES, length, i);
+            l.mul(DoubleVector.fromArray(SPECIES, width, i)).intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int rectanglePerimeters(double[] length, double[] width, int from, int to, double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector l = DoubleVector.fromArray(SPECIES, length, i);
+            l.add(DoubleVector.fromArray(SPECIES, width, i)).mul(2).intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int triangleAreas(double[] a, double[] b, double[] c, int from, int to, double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            DoubleVector vc = DoubleVector.fromArray(SPECIES, c, i);
+            heron(va, vb, vc, va.add(vb).add(vc).mul(0.5)).intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int trianglePerimeters(double[] a, double[] b, double[] c, int from, int to, double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            va.add(DoubleVector.fromArray(SPECIES, b, i)).add(DoubleVector.fromArray(SPECIES, c, i))
+                    .intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int sphereVolumes(double[] radius, int from, int to, double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector r = DoubleVector.fromArray(SPECIES, radius, i);
+            r.mul(r).mul(r).mul((4.0 / 3.0) * Math.PI).intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int sphereSurfaceAreas(double[] radius, int from, int to, double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector r = DoubleVector.fromArray(SPECIES, radius, i);
+            r.mul(r).mul(4 * Math.PI).intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int rectangularPrismVolumes(double[] length, double[] width, double[] height, int from, int to,
+            double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector l = DoubleVector.fromArray(SPECIES, length, i);
+            l.mul(DoubleVector.fromArray(SPECIES, width, i)).mul(DoubleVector.fromArray(SPECIES, height, i))
+                    .intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int rectangularPrismSurfaceAreas(double[] length, double[] width, double[] height, int from, int to,
+            double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector l = DoubleVector.fromArray(SPECIES, length, i);
+            DoubleVector w = DoubleVector.fromArray(SPECIES, width, i);
+            DoubleVector h = DoubleVector.fromArray(SPECIES, height, i);
+            l.mul(w).add(l.mul(h)).add(w.mul(h)).mul(2).intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int triangularPrismVolumes(double[] a, double[] b, double[] c, double[] height, int from, int to,
+            double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            DoubleVector vc = DoubleVector.fromArray(SPECIES, c, i);
+            heron(va, vb, vc, va.add(vb).add(vc).mul(0.5)).mul(DoubleVector.fromArray(SPECIES, height, i))
+                    .intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    static int triangularPrismSurfaceAreas(double[] a, double[] b, double[] c, double[] height, int from, int to,
+            double[] out) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            DoubleVector vc = DoubleVector.fromArray(SPECIES, c, i);
+            DoubleVector perimeter = va.add(vb).add(vc);
+            DoubleVector lateral = perimeter.mul(DoubleVector.fromArray(SPECIES, height, i));
+            heron(va, vb, vc, perimeter.mul(0.5)).mul(2).add(lateral).intoArray(out, i - from);
+        }
+        return i;
+    }
+
+    /**
+     * Heron's formula, sqrt(s * (s - a) * (s - b) * (s - c)), multiplied left to right.
+     */
+    private static DoubleVector heron(DoubleVector a, DoubleVector b, DoubleVector c, DoubleVector s) {
+        return s.mul(s.sub(a)).mul(s.sub(b)).mul(s.sub(c)).sqrt();
+    }
+}